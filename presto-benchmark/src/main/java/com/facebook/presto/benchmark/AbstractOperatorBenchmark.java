@@ -264,12 +264,21 @@ public abstract class AbstractOperatorBenchmark
         return ImmutableMap.of("peak_memory", peakMemory);
     }
 
+    /**
+     * System session properties of the task that runs the operators.
+     */
+    protected Map<String, String> getSystemSessionProperties()
+    {
+        return ImmutableMap.of();
+    }
+
     @Override
     protected Map<String, Long> runOnce()
     {
-        Session session = testSessionBuilder()
-                .setSystemProperty("optimizer.optimize-hash-generation", "true")
-                .build();
+        Session.SessionBuilder sessionBuilder = testSessionBuilder()
+                .setSystemProperty("optimizer.optimize-hash-generation", "true");
+        getSystemSessionProperties().forEach(sessionBuilder::setSystemProperty);
+        Session session = sessionBuilder.build();
         MemoryPool memoryPool = new MemoryPool(new MemoryPoolId("test"), new DataSize(1, GIGABYTE));
         SpillSpaceTracker spillSpaceTracker = new SpillSpaceTracker(new DataSize(1, GIGABYTE));
 
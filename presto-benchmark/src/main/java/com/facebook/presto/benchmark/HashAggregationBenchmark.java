@@ -22,32 +22,49 @@ import com.facebook.presto.spi.plan.AggregationNode.Step;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.testing.LocalQueryRunner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static com.facebook.presto.SystemSessionProperties.FLAT_GROUP_BY_HASH_ENABLED;
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.operator.aggregation.GenericAccumulatorFactory.generateAccumulatorFactory;
 import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Objects.requireNonNull;
 
 public class HashAggregationBenchmark
         extends AbstractSimpleOperatorBenchmark
 {
     private final JavaAggregationFunctionImplementation doubleSum;
+    private final Map<String, String> systemSessionProperties;
 
     public HashAggregationBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "hash_agg", 5, 25);
+        this(localQueryRunner, "hash_agg", ImmutableMap.of());
+    }
+
+    public HashAggregationBenchmark(LocalQueryRunner localQueryRunner, String benchmarkName, Map<String, String> systemSessionProperties)
+    {
+        super(localQueryRunner, benchmarkName, 5, 25);
+        this.systemSessionProperties = ImmutableMap.copyOf(requireNonNull(systemSessionProperties, "systemSessionProperties is null"));
 
         FunctionAndTypeManager functionAndTypeManager = localQueryRunner.getMetadata().getFunctionAndTypeManager();
         doubleSum = functionAndTypeManager.getJavaAggregateFunctionImplementation(
                 functionAndTypeManager.lookupFunction("sum", fromTypes(DOUBLE)));
     }
 
+    @Override
+    protected Map<String, String> getSystemSessionProperties()
+    {
+        return systemSessionProperties;
+    }
+
     @Override
     protected List<? extends OperatorFactory> createOperatorFactories()
     {
@@ -74,5 +91,6 @@ public class HashAggregationBenchmark
     public static void main(String[] args)
     {
         new HashAggregationBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new HashAggregationBenchmark(createLocalQueryRunner(), "hash_agg_flat", ImmutableMap.of(FLAT_GROUP_BY_HASH_ENABLED, "true")).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
     }
 }
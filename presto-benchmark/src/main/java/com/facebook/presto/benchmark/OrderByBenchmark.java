@@ -34,9 +34,17 @@ public class OrderByBenchmark
 {
     private static final int ROWS = 1_500_000;
 
+    private final int sortParallelism;
+
     public OrderByBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "in_memory_orderby_1.5M", 5, 10);
+        this(localQueryRunner, "in_memory_orderby_1.5M", 1);
+    }
+
+    protected OrderByBenchmark(LocalQueryRunner localQueryRunner, String benchmarkName, int sortParallelism)
+    {
+        super(localQueryRunner, benchmarkName, 5, 10);
+        this.sortParallelism = sortParallelism;
     }
 
     @Override
@@ -58,7 +66,9 @@ public class OrderByBenchmark
                 new PagesIndex.TestingFactory(false),
                 false,
                 Optional.empty(),
-                new OrderingCompiler());
+                new OrderingCompiler(),
+                sortParallelism,
+                localQueryRunner.getExecutor());
 
         return ImmutableList.of(tableScanOperator, limitOperator, orderByOperator);
     }
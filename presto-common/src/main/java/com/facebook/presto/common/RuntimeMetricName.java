@@ -79,4 +79,10 @@ public class RuntimeMetricName
     public static final String DIRECTORY_LISTING_CACHE_MISS = "directoryListingCacheMiss";
     public static final String DIRECTORY_LISTING_TIME_NANOS = "directoryListingTimeNanos";
     public static final String FILES_READ_COUNT = "filesReadCount";
+    // Uncompressed and compressed size of the compressed pages written or read by an exchange
+    public static final String EXCHANGE_COMPRESSION_INPUT_BYTES = "exchangeCompressionInputBytes";
+    public static final String EXCHANGE_COMPRESSION_OUTPUT_BYTES = "exchangeCompressionOutputBytes";
+    public static final String EXCHANGE_COMPRESSION_TIME_NANOS = "exchangeCompressionTimeNanos";
+    public static final String EXCHANGE_UNCOMPRESSED_PAGE_COUNT = "exchangeUncompressedPageCount";
+    public static final String EXCHANGE_ALTERNATE_CODEC_PAGE_COUNT = "exchangeAlternateCodecPageCount";
 }
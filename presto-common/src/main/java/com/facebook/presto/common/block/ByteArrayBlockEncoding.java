@@ -16,8 +16,10 @@ package com.facebook.presto.common.block;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
 
+import static com.facebook.presto.common.block.EncoderUtil.countNonNulls;
 import static com.facebook.presto.common.block.EncoderUtil.decodeNullBits;
 import static com.facebook.presto.common.block.EncoderUtil.encodeNullsAsBits;
+import static com.facebook.presto.common.block.EncoderUtil.expandNonNullValues;
 
 public class ByteArrayBlockEncoding
         implements BlockEncoding
@@ -59,11 +61,9 @@ public class ByteArrayBlockEncoding
             sliceInput.readBytes(values, 0, values.length);
         }
         else {
-            for (int position = 0; position < values.length; position++) {
-                if (!valueIsNull[position]) {
-                    values[position] = sliceInput.readByte();
-                }
-            }
+            int nonNullCount = countNonNulls(valueIsNull);
+            sliceInput.readBytes(values, 0, nonNullCount);
+            expandNonNullValues(values, valueIsNull, nonNullCount);
         }
 
         return new ByteArrayBlock(0, positionCount, valueIsNull, values);
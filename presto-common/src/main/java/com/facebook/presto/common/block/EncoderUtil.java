@@ -97,4 +97,70 @@ final class EncoderUtil
 
         return Optional.of(valueIsNull);
     }
+
+    public static int countNonNulls(boolean[] valueIsNull)
+    {
+        int nonNullCount = 0;
+        for (boolean isNull : valueIsNull) {
+            nonNullCount += isNull ? 0 : 1;
+        }
+        return nonNullCount;
+    }
+
+    /**
+     * Moves the non-null values stored at the beginning of the array to their positions. The values are
+     * moved back to front, so that a value is never overwritten before it is moved. This lets the decoders
+     * read the non-null values with one bulk copy instead of one read per position.
+     */
+    public static void expandNonNullValues(long[] values, boolean[] valueIsNull, int nonNullCount)
+    {
+        int index = nonNullCount - 1;
+        for (int position = valueIsNull.length - 1; position > index; position--) {
+            if (valueIsNull[position]) {
+                values[position] = 0;
+            }
+            else {
+                values[position] = values[index--];
+            }
+        }
+    }
+
+    public static void expandNonNullValues(int[] values, boolean[] valueIsNull, int nonNullCount)
+    {
+        int index = nonNullCount - 1;
+        for (int position = valueIsNull.length - 1; position > index; position--) {
+            if (valueIsNull[position]) {
+                values[position] = 0;
+            }
+            else {
+                values[position] = values[index--];
+            }
+        }
+    }
+
+    public static void expandNonNullValues(short[] values, boolean[] valueIsNull, int nonNullCount)
+    {
+        int index = nonNullCount - 1;
+        for (int position = valueIsNull.length - 1; position > index; position--) {
+            if (valueIsNull[position]) {
+                values[position] = 0;
+            }
+            else {
+                values[position] = values[index--];
+            }
+        }
+    }
+
+    public static void expandNonNullValues(byte[] values, boolean[] valueIsNull, int nonNullCount)
+    {
+        int index = nonNullCount - 1;
+        for (int position = valueIsNull.length - 1; position > index; position--) {
+            if (valueIsNull[position]) {
+                values[position] = 0;
+            }
+            else {
+                values[position] = values[index--];
+            }
+        }
+    }
 }
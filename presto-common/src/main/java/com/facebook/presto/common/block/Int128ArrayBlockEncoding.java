@@ -17,8 +17,10 @@ import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 
+import static com.facebook.presto.common.block.EncoderUtil.countNonNulls;
 import static com.facebook.presto.common.block.EncoderUtil.decodeNullBits;
 import static com.facebook.presto.common.block.EncoderUtil.encodeNullsAsBits;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 
 public class Int128ArrayBlockEncoding
         implements BlockEncoding
@@ -61,10 +63,19 @@ public class Int128ArrayBlockEncoding
             sliceInput.readBytes(Slices.wrappedLongArray(values));
         }
         else {
-            for (int position = 0, index = 0; index < values.length; position++, index += 2) {
-                if (!valueIsNull[position]) {
-                    values[index] = sliceInput.readLong();
-                    values[index + 1] = sliceInput.readLong();
+            // like EncoderUtil.expandNonNullValues, with two longs per position
+            int nonNullCount = countNonNulls(valueIsNull);
+            sliceInput.readBytes(Slices.wrappedLongArray(values), 0, nonNullCount * SIZE_OF_LONG * 2);
+            int index = nonNullCount - 1;
+            for (int position = positionCount - 1; position > index; position--) {
+                if (valueIsNull[position]) {
+                    values[position * 2] = 0;
+                    values[position * 2 + 1] = 0;
+                }
+                else {
+                    values[position * 2] = values[index * 2];
+                    values[position * 2 + 1] = values[index * 2 + 1];
+                    index--;
                 }
             }
         }
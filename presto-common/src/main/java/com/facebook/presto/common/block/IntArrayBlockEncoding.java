@@ -17,8 +17,11 @@ import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 
+import static com.facebook.presto.common.block.EncoderUtil.countNonNulls;
 import static com.facebook.presto.common.block.EncoderUtil.decodeNullBits;
 import static com.facebook.presto.common.block.EncoderUtil.encodeNullsAsBits;
+import static com.facebook.presto.common.block.EncoderUtil.expandNonNullValues;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
 
 public class IntArrayBlockEncoding
         implements BlockEncoding
@@ -60,11 +63,9 @@ public class IntArrayBlockEncoding
             sliceInput.readBytes(Slices.wrappedIntArray(values));
         }
         else {
-            for (int position = 0; position < values.length; position++) {
-                if (!valueIsNull[position]) {
-                    values[position] = sliceInput.readInt();
-                }
-            }
+            int nonNullCount = countNonNulls(valueIsNull);
+            sliceInput.readBytes(Slices.wrappedIntArray(values), 0, nonNullCount * SIZE_OF_INT);
+            expandNonNullValues(values, valueIsNull, nonNullCount);
         }
 
         return new IntArrayBlock(0, positionCount, valueIsNull, values);
@@ -17,8 +17,11 @@ import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 
+import static com.facebook.presto.common.block.EncoderUtil.countNonNulls;
 import static com.facebook.presto.common.block.EncoderUtil.decodeNullBits;
 import static com.facebook.presto.common.block.EncoderUtil.encodeNullsAsBits;
+import static com.facebook.presto.common.block.EncoderUtil.expandNonNullValues;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 
 public class LongArrayBlockEncoding
         implements BlockEncoding
@@ -60,11 +63,9 @@ public class LongArrayBlockEncoding
             sliceInput.readBytes(Slices.wrappedLongArray(values));
         }
         else {
-            for (int position = 0; position < values.length; position++) {
-                if (!valueIsNull[position]) {
-                    values[position] = sliceInput.readLong();
-                }
-            }
+            int nonNullCount = countNonNulls(valueIsNull);
+            sliceInput.readBytes(Slices.wrappedLongArray(values), 0, nonNullCount * SIZE_OF_LONG);
+            expandNonNullValues(values, valueIsNull, nonNullCount);
         }
 
         return new LongArrayBlock(0, positionCount, valueIsNull, values);
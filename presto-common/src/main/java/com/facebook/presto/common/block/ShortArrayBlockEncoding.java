@@ -17,8 +17,11 @@ import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 
+import static com.facebook.presto.common.block.EncoderUtil.countNonNulls;
 import static com.facebook.presto.common.block.EncoderUtil.decodeNullBits;
 import static com.facebook.presto.common.block.EncoderUtil.encodeNullsAsBits;
+import static com.facebook.presto.common.block.EncoderUtil.expandNonNullValues;
+import static io.airlift.slice.SizeOf.SIZE_OF_SHORT;
 
 public class ShortArrayBlockEncoding
         implements BlockEncoding
@@ -60,11 +63,9 @@ public class ShortArrayBlockEncoding
             sliceInput.readBytes(Slices.wrappedShortArray(values));
         }
         else {
-            for (int position = 0; position < values.length; position++) {
-                if (!valueIsNull[position]) {
-                    values[position] = sliceInput.readShort();
-                }
-            }
+            int nonNullCount = countNonNulls(valueIsNull);
+            sliceInput.readBytes(Slices.wrappedShortArray(values), 0, nonNullCount * SIZE_OF_SHORT);
+            expandNonNullValues(values, valueIsNull, nonNullCount);
         }
 
         return new ShortArrayBlock(0, positionCount, valueIsNull, values);
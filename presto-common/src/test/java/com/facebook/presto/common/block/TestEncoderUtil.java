@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.common.block;
+
+import io.airlift.slice.DynamicSliceOutput;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.common.block.EncoderUtil.countNonNulls;
+import static com.facebook.presto.common.block.EncoderUtil.expandNonNullValues;
+import static org.testng.Assert.assertEquals;
+
+public class TestEncoderUtil
+{
+    private final BlockEncodingSerde blockEncodingSerde = new TestingBlockEncodingSerde();
+
+    @Test
+    public void testExpandNonNullValues()
+    {
+        assertExpanded(new boolean[] {false, false, false});
+        assertExpanded(new boolean[] {true, true, true});
+        assertExpanded(new boolean[] {true, false, true, false, false, true});
+        assertExpanded(new boolean[] {false, false, true, true, false});
+        assertExpanded(new boolean[] {true, true, false, false});
+        assertExpanded(new boolean[] {});
+    }
+
+    @Test
+    public void testRoundTripWithNulls()
+    {
+        Long[] longs = {null, 1L, 2L, null, null, 5L, 6L, null, 8L, 9L, null};
+        BlockBuilder longBlockBuilder = new LongArrayBlockBuilder(null, longs.length);
+        for (Long value : longs) {
+            if (value == null) {
+                longBlockBuilder.appendNull();
+            }
+            else {
+                longBlockBuilder.writeLong(value);
+            }
+        }
+        Block longBlock = roundTrip(longBlockBuilder.build());
+        for (int position = 0; position < longs.length; position++) {
+            assertEquals(longBlock.isNull(position), longs[position] == null);
+            if (longs[position] != null) {
+                assertEquals(longBlock.getLong(position), (long) longs[position]);
+            }
+        }
+
+        BlockBuilder intBlockBuilder = new IntArrayBlockBuilder(null, longs.length);
+        for (Long value : longs) {
+            if (value == null) {
+                intBlockBuilder.appendNull();
+            }
+            else {
+                intBlockBuilder.writeInt(value.intValue());
+            }
+        }
+        Block intBlock = roundTrip(intBlockBuilder.build());
+        for (int position = 0; position < longs.length; position++) {
+            assertEquals(intBlock.isNull(position), longs[position] == null);
+            if (longs[position] != null) {
+                assertEquals(intBlock.getInt(position), longs[position].intValue());
+            }
+        }
+    }
+
+    private Block roundTrip(Block block)
+    {
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        blockEncodingSerde.writeBlock(sliceOutput, block);
+        return blockEncodingSerde.readBlock(sliceOutput.slice().getInput());
+    }
+
+    private static void assertExpanded(boolean[] valueIsNull)
+    {
+        int nonNullCount = countNonNulls(valueIsNull);
+        long[] values = new long[valueIsNull.length];
+        for (int i = 0; i < nonNullCount; i++) {
+            values[i] = i + 1;
+        }
+        expandNonNullValues(values, valueIsNull, nonNullCount);
+
+        int expected = 1;
+        for (int position = 0; position < valueIsNull.length; position++) {
+            if (valueIsNull[position]) {
+                assertEquals(values[position], 0);
+            }
+            else {
+                assertEquals(values[position], expected++);
+            }
+        }
+        assertEquals(expected, nonNullCount + 1);
+    }
+}
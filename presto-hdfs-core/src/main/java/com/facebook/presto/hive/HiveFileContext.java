@@ -49,6 +49,7 @@ public class HiveFileContext
     private final boolean verboseRuntimeStatsEnabled;
 
     private final RuntimeStats stats;
+    private final Optional<PrefetchedFileRanges> prefetchedRanges;
 
     public HiveFileContext(
             boolean cacheable,
@@ -73,6 +74,21 @@ public class HiveFileContext
             long modificationTime,
             boolean verboseRuntimeStatsEnabled,
             RuntimeStats runtimeStats)
+    {
+        this(cacheable, cacheQuota, extraFileInfo, fileSize, startOffset, length, modificationTime, verboseRuntimeStatsEnabled, runtimeStats, Optional.empty());
+    }
+
+    public HiveFileContext(
+            boolean cacheable,
+            CacheQuota cacheQuota,
+            Optional<ExtraHiveFileInfo<?>> extraFileInfo,
+            OptionalLong fileSize,
+            OptionalLong startOffset,
+            OptionalLong length,
+            long modificationTime,
+            boolean verboseRuntimeStatsEnabled,
+            RuntimeStats runtimeStats,
+            Optional<PrefetchedFileRanges> prefetchedRanges)
     {
         this.cacheable = cacheable;
         this.cacheQuota = requireNonNull(cacheQuota, "cacheQuota is null");
@@ -83,6 +99,7 @@ public class HiveFileContext
         this.modificationTime = modificationTime;
         this.verboseRuntimeStatsEnabled = verboseRuntimeStatsEnabled;
         this.stats = requireNonNull(runtimeStats, "runtimeStats is null");
+        this.prefetchedRanges = requireNonNull(prefetchedRanges, "prefetchedRanges is null");
     }
 
     /**
@@ -126,6 +143,14 @@ public class HiveFileContext
         return length;
     }
 
+    /**
+     * Ranges of the file that were read while the split was queued
+     */
+    public Optional<PrefetchedFileRanges> getPrefetchedRanges()
+    {
+        return prefetchedRanges;
+    }
+
     public interface ExtraHiveFileInfo<T>
     {
         T getExtraFileInfo();
@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Map;
+
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Byte ranges of a file that were read before the split that needs them started. Readers claim
+ * the ranges, copy from them instead of going to the file system, and release them when they are
+ * closed. Ranges that no reader claimed are released by the page source provider.
+ */
+@ThreadSafe
+public class PrefetchedFileRanges
+{
+    private final Runnable onRelease;
+    @GuardedBy("this")
+    private Map<Long, byte[]> ranges;
+    @GuardedBy("this")
+    private boolean claimed;
+    @GuardedBy("this")
+    private boolean released;
+
+    /**
+     * @param ranges the prefetched bytes keyed by their offset in the file
+     */
+    public PrefetchedFileRanges(Map<Long, byte[]> ranges)
+    {
+        this(ranges, () -> {});
+    }
+
+    /**
+     * @param ranges the prefetched bytes keyed by their offset in the file
+     * @param onRelease called once when the ranges are released
+     */
+    public PrefetchedFileRanges(Map<Long, byte[]> ranges, Runnable onRelease)
+    {
+        this.ranges = ImmutableMap.copyOf(requireNonNull(ranges, "ranges is null"));
+        this.onRelease = requireNonNull(onRelease, "onRelease is null");
+    }
+
+    public synchronized long getRetainedSize()
+    {
+        return ranges.values().stream().mapToLong(range -> range.length).sum();
+    }
+
+    /**
+     * Copies the prefetched prefix of the requested range into the buffer.
+     *
+     * @return the number of bytes copied, 0 if the position was not prefetched
+     */
+    public synchronized int read(long position, byte[] buffer, int bufferOffset, int bufferLength)
+    {
+        for (Map.Entry<Long, byte[]> range : ranges.entrySet()) {
+            long rangeStart = range.getKey();
+            byte[] data = range.getValue();
+            if (position >= rangeStart && position < rangeStart + data.length) {
+                int offset = toIntExact(position - rangeStart);
+                int length = min(bufferLength, data.length - offset);
+                System.arraycopy(data, offset, buffer, bufferOffset, length);
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Marks the ranges as taken over by a reader, which releases them when it is closed.
+     */
+    public synchronized void claim()
+    {
+        claimed = true;
+    }
+
+    public void releaseIfUnclaimed()
+    {
+        synchronized (this) {
+            if (claimed) {
+                return;
+            }
+        }
+        release();
+    }
+
+    public void release()
+    {
+        synchronized (this) {
+            if (released) {
+                return;
+            }
+            released = true;
+            ranges = ImmutableMap.of();
+        }
+        onRelease.run();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestPrefetchedFileRanges
+{
+    @Test
+    public void testRead()
+    {
+        PrefetchedFileRanges ranges = new PrefetchedFileRanges(ImmutableMap.of(
+                10L, new byte[] {0, 1, 2, 3},
+                100L, new byte[] {4, 5}));
+
+        byte[] buffer = new byte[8];
+        assertEquals(ranges.read(11, buffer, 1, 2), 2);
+        assertEquals(buffer, new byte[] {0, 1, 2, 0, 0, 0, 0, 0});
+
+        // only the prefetched prefix of the range is copied
+        buffer = new byte[8];
+        assertEquals(ranges.read(100, buffer, 0, 8), 2);
+        assertEquals(buffer, new byte[] {4, 5, 0, 0, 0, 0, 0, 0});
+
+        assertEquals(ranges.read(9, buffer, 0, 4), 0);
+        assertEquals(ranges.read(14, buffer, 0, 4), 0);
+        assertEquals(ranges.getRetainedSize(), 6);
+    }
+
+    @Test
+    public void testRelease()
+    {
+        AtomicInteger releases = new AtomicInteger();
+        PrefetchedFileRanges ranges = new PrefetchedFileRanges(ImmutableMap.of(0L, new byte[] {1, 2}), releases::incrementAndGet);
+        ranges.release();
+        assertEquals(ranges.read(0, new byte[2], 0, 2), 0);
+        assertEquals(ranges.getRetainedSize(), 0);
+        assertEquals(releases.get(), 1);
+
+        // the callback runs only once
+        ranges.release();
+        ranges.releaseIfUnclaimed();
+        assertEquals(releases.get(), 1);
+    }
+
+    @Test
+    public void testReleaseIfUnclaimed()
+    {
+        AtomicInteger releases = new AtomicInteger();
+        PrefetchedFileRanges unclaimed = new PrefetchedFileRanges(ImmutableMap.of(0L, new byte[] {1, 2}), releases::incrementAndGet);
+        unclaimed.releaseIfUnclaimed();
+        assertEquals(unclaimed.getRetainedSize(), 0);
+        assertEquals(releases.get(), 1);
+
+        // a claimed range is released by its reader
+        PrefetchedFileRanges claimed = new PrefetchedFileRanges(ImmutableMap.of(0L, new byte[] {1, 2}), releases::incrementAndGet);
+        claimed.claim();
+        claimed.releaseIfUnclaimed();
+        assertEquals(claimed.getRetainedSize(), 2);
+        assertEquals(releases.get(), 1);
+        claimed.release();
+        assertEquals(releases.get(), 2);
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.airlift.stats.CounterStat;
 import com.facebook.airlift.stats.DistributionStat;
 import com.facebook.airlift.stats.TimeStat;
 import org.weakref.jmx.Managed;
@@ -29,6 +30,8 @@ public class FileFormatDataSourceStats
     private final TimeStat time100KBto1MB = new TimeStat(MILLISECONDS);
     private final TimeStat time1MBto10MB = new TimeStat(MILLISECONDS);
     private final TimeStat time10MBPlus = new TimeStat(MILLISECONDS);
+    private final CounterStat prefetchHitBytes = new CounterStat();
+    private final CounterStat prefetchWastedBytes = new CounterStat();
 
     @Managed
     @Nested
@@ -72,6 +75,20 @@ public class FileFormatDataSourceStats
         return time10MBPlus;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getPrefetchHitBytes()
+    {
+        return prefetchHitBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getPrefetchWastedBytes()
+    {
+        return prefetchWastedBytes;
+    }
+
     public void readDataBytesPerSecond(long bytes, long nanos)
     {
         readBytes.add(bytes);
@@ -93,4 +110,10 @@ public class FileFormatDataSourceStats
     {
         maxCombinedBytesPerRow.add(bytes);
     }
+
+    public void addPrefetchedBytes(long hitBytes, long wastedBytes)
+    {
+        prefetchHitBytes.update(hitBytes);
+        prefetchWastedBytes.update(wastedBytes);
+    }
 }
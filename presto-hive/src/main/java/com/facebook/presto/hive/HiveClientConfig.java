@@ -110,6 +110,15 @@ public class HiveClientConfig
     private boolean assumeCanonicalPartitionKeys;
     private boolean useOrcColumnNames;
     private double orcDefaultBloomFilterFpp = 0.05;
+    private boolean orcAsyncReadEnabled;
+    private int orcAsyncReadMaxThreads = 32;
+    private int orcAsyncReadMaxConcurrentReadsPerSplit = 4;
+    private DataSize orcMaxStripePrefetchSize = new DataSize(32, MEGABYTE);
+    private boolean splitPrefetchEnabled;
+    private int splitPrefetchMaxThreads = 16;
+    private DataSize splitPrefetchMaxMemory = new DataSize(256, MEGABYTE);
+    private DataSize splitPrefetchMaxSizePerSplit = new DataSize(8, MEGABYTE);
+    private DataSize splitPrefetchTailSize = new DataSize(256, KILOBYTE);
     private boolean rcfileOptimizedWriterEnabled = true;
     private boolean rcfileWriterValidate;
     private HdfsAuthenticationType hdfsAuthenticationType = HdfsAuthenticationType.NONE;
@@ -198,6 +207,7 @@ public class HiveClientConfig
     private boolean userDefinedTypeEncodingEnabled;
 
     private boolean columnIndexFilterEnabled;
+    private boolean parquetBloomFilterEnabled = true;
     private boolean fileSplittable = true;
     private Protocol thriftProtocol = Protocol.BINARY;
     private DataSize thriftBufferSize = new DataSize(128, BYTE);
@@ -745,6 +755,130 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOrcAsyncReadEnabled()
+    {
+        return orcAsyncReadEnabled;
+    }
+
+    @Config("hive.orc.async-read-enabled")
+    @ConfigDescription("Issue the merged ORC stream reads of a stripe concurrently and prefetch the next stripe")
+    public HiveClientConfig setOrcAsyncReadEnabled(boolean orcAsyncReadEnabled)
+    {
+        this.orcAsyncReadEnabled = orcAsyncReadEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getOrcAsyncReadMaxThreads()
+    {
+        return orcAsyncReadMaxThreads;
+    }
+
+    @Config("hive.orc.async-read-max-threads")
+    @ConfigDescription("Maximum number of concurrent asynchronous ORC reads on a node")
+    public HiveClientConfig setOrcAsyncReadMaxThreads(int orcAsyncReadMaxThreads)
+    {
+        this.orcAsyncReadMaxThreads = orcAsyncReadMaxThreads;
+        return this;
+    }
+
+    @Min(1)
+    public int getOrcAsyncReadMaxConcurrentReadsPerSplit()
+    {
+        return orcAsyncReadMaxConcurrentReadsPerSplit;
+    }
+
+    @Config("hive.orc.async-read-max-concurrent-reads-per-split")
+    @ConfigDescription("Maximum number of concurrent asynchronous ORC reads of a split")
+    public HiveClientConfig setOrcAsyncReadMaxConcurrentReadsPerSplit(int orcAsyncReadMaxConcurrentReadsPerSplit)
+    {
+        this.orcAsyncReadMaxConcurrentReadsPerSplit = orcAsyncReadMaxConcurrentReadsPerSplit;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getOrcMaxStripePrefetchSize()
+    {
+        return orcMaxStripePrefetchSize;
+    }
+
+    @Config("hive.orc.max-stripe-prefetch-size")
+    @ConfigDescription("Largest ORC stripe that is prefetched while the previous stripe is decoded, 0B disables prefetching")
+    public HiveClientConfig setOrcMaxStripePrefetchSize(DataSize orcMaxStripePrefetchSize)
+    {
+        this.orcMaxStripePrefetchSize = orcMaxStripePrefetchSize;
+        return this;
+    }
+
+    public boolean isSplitPrefetchEnabled()
+    {
+        return splitPrefetchEnabled;
+    }
+
+    @Config("hive.split-prefetch-enabled")
+    @ConfigDescription("Read the file tail and the beginning of ORC and Parquet splits while they are queued on a worker")
+    public HiveClientConfig setSplitPrefetchEnabled(boolean splitPrefetchEnabled)
+    {
+        this.splitPrefetchEnabled = splitPrefetchEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getSplitPrefetchMaxThreads()
+    {
+        return splitPrefetchMaxThreads;
+    }
+
+    @Config("hive.split-prefetch-max-threads")
+    @ConfigDescription("Maximum number of concurrent split prefetch reads on a node")
+    public HiveClientConfig setSplitPrefetchMaxThreads(int splitPrefetchMaxThreads)
+    {
+        this.splitPrefetchMaxThreads = splitPrefetchMaxThreads;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getSplitPrefetchMaxMemory()
+    {
+        return splitPrefetchMaxMemory;
+    }
+
+    @Config("hive.split-prefetch-max-memory")
+    @ConfigDescription("Maximum amount of memory on a node used by data prefetched for queued splits")
+    public HiveClientConfig setSplitPrefetchMaxMemory(DataSize splitPrefetchMaxMemory)
+    {
+        this.splitPrefetchMaxMemory = splitPrefetchMaxMemory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getSplitPrefetchMaxSizePerSplit()
+    {
+        return splitPrefetchMaxSizePerSplit;
+    }
+
+    @Config("hive.split-prefetch-max-size-per-split")
+    @ConfigDescription("Maximum amount of data prefetched for a single queued split, including the file tail")
+    public HiveClientConfig setSplitPrefetchMaxSizePerSplit(DataSize splitPrefetchMaxSizePerSplit)
+    {
+        this.splitPrefetchMaxSizePerSplit = splitPrefetchMaxSizePerSplit;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getSplitPrefetchTailSize()
+    {
+        return splitPrefetchTailSize;
+    }
+
+    @Config("hive.split-prefetch-tail-size")
+    @ConfigDescription("Amount of data prefetched from the end of the file of a queued split to cover its footer")
+    public HiveClientConfig setSplitPrefetchTailSize(DataSize splitPrefetchTailSize)
+    {
+        this.splitPrefetchTailSize = splitPrefetchTailSize;
+        return this;
+    }
+
     @Deprecated
     public boolean isRcfileOptimizedWriterEnabled()
     {
@@ -1538,6 +1672,19 @@ public class HiveClientConfig
         return this.columnIndexFilterEnabled;
     }
 
+    @Config("hive.parquet-bloom-filter-enabled")
+    @ConfigDescription("Enable using parquet bloom filters to skip row groups for equality predicates")
+    public HiveClientConfig setParquetBloomFilterEnabled(boolean parquetBloomFilterEnabled)
+    {
+        this.parquetBloomFilterEnabled = parquetBloomFilterEnabled;
+        return this;
+    }
+
+    public boolean isParquetBloomFilterEnabled()
+    {
+        return this.parquetBloomFilterEnabled;
+    }
+
     @Config("hive.size-based-split-weights-enabled")
     public HiveClientConfig setSizeBasedSplitWeightsEnabled(boolean sizeBasedSplitWeightsEnabled)
     {
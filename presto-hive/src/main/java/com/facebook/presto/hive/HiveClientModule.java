@@ -64,6 +64,7 @@ import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
 import com.facebook.presto.orc.metadata.OrcFileTail;
 import com.facebook.presto.orc.metadata.RowGroupIndex;
 import com.facebook.presto.parquet.ParquetDataSourceId;
+import com.facebook.presto.parquet.cache.BloomFilterCacheKey;
 import com.facebook.presto.parquet.cache.CachingParquetMetadataSource;
 import com.facebook.presto.parquet.cache.MetadataReader;
 import com.facebook.presto.parquet.cache.ParquetCacheConfig;
@@ -86,6 +87,7 @@ import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
 import org.weakref.jmx.MBeanExporter;
 
 import javax.inject.Singleton;
@@ -173,6 +175,8 @@ public class HiveClientModule
         binder.bind(PartitionSkippabilityChecker.class).to(HivePartitionSkippabilityChecker.class).in(Scopes.SINGLETON);
         binder.bind(CacheQuotaRequirementProvider.class).to(ConfigBasedCacheQuotaRequirementProvider.class).in(Scopes.SINGLETON);
         newExporter(binder).export(ConnectorSplitManager.class).as(generatedNameOf(HiveSplitManager.class, connectorId));
+        binder.bind(HiveSplitPrefetcher.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(HiveSplitPrefetcher.class).as(generatedNameOf(HiveSplitPrefetcher.class, connectorId));
         binder.bind(ConnectorPageSourceProvider.class).to(HivePageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(ConnectorPageSinkProvider.class).to(HivePageSinkProvider.class).in(Scopes.SINGLETON);
         binder.bind(ConnectorNodePartitioningProvider.class).to(HiveNodePartitioningProvider.class).in(Scopes.SINGLETON);
@@ -269,6 +273,26 @@ public class HiveClientModule
         return newCachedThreadPool(daemonThreadsNamed("hive-metadata-updater-" + hiveClientId + "-%s"));
     }
 
+    @ForOrcAsyncRead
+    @Singleton
+    @Provides
+    public ExecutorService createOrcAsyncReadExecutor(HiveConnectorId hiveClientId, HiveClientConfig hiveClientConfig)
+    {
+        return newFixedThreadPool(
+                hiveClientConfig.getOrcAsyncReadMaxThreads(),
+                daemonThreadsNamed("hive-orc-async-read-" + hiveClientId + "-%s"));
+    }
+
+    @ForSplitPrefetch
+    @Singleton
+    @Provides
+    public ExecutorService createSplitPrefetchExecutor(HiveConnectorId hiveClientId, HiveClientConfig hiveClientConfig)
+    {
+        return newFixedThreadPool(
+                hiveClientConfig.getSplitPrefetchMaxThreads(),
+                daemonThreadsNamed("hive-split-prefetch-" + hiveClientId + "-%s"));
+    }
+
     @ForFileRename
     @Singleton
     @Provides
@@ -370,7 +394,18 @@ public class HiveClientModule
                     .recordStats()
                     .build();
             CacheStatsMBean cacheStatsMBean = new CacheStatsMBean(cache);
-            parquetMetadataSource = new CachingParquetMetadataSource(cache, parquetMetadataSource);
+            Optional<Cache<BloomFilterCacheKey, Optional<BloomFilter>>> bloomFilterCache = Optional.empty();
+            if (parquetCacheConfig.isBloomFilterCacheEnabled()) {
+                bloomFilterCache = Optional.of(CacheBuilder.newBuilder()
+                        .maximumWeight(parquetCacheConfig.getBloomFilterCacheSize().toBytes())
+                        .weigher((key, bloomFilter) -> ((Optional<?>) bloomFilter).map(filter -> ((BloomFilter) filter).getBitsetSize()).orElse(0))
+                        .expireAfterAccess(parquetCacheConfig.getMetadataCacheTtlSinceLastAccess().toMillis(), MILLISECONDS)
+                        .recordStats()
+                        .build());
+                CacheStatsMBean bloomFilterCacheStatsMBean = new CacheStatsMBean(bloomFilterCache.get());
+                exporter.export(generatedNameOf(CacheStatsMBean.class, connectorId + "_ParquetBloomFilter"), bloomFilterCacheStatsMBean);
+            }
+            parquetMetadataSource = new CachingParquetMetadataSource(cache, bloomFilterCache, parquetMetadataSource);
             exporter.export(generatedNameOf(CacheStatsMBean.class, connectorId + "_ParquetMetadata"), cacheStatsMBean);
         }
         return parquetMetadataSource;
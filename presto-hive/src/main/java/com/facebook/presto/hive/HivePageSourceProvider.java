@@ -75,6 +75,7 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
 import static com.facebook.presto.hive.HivePageSourceProvider.ColumnMapping.toColumnHandles;
 import static com.facebook.presto.hive.HiveSessionProperties.isLegacyTimestampBucketing;
 import static com.facebook.presto.hive.HiveSessionProperties.isUseRecordPageSourceForCustomSplit;
+import static com.facebook.presto.hive.HiveSplitPrefetcher.noopSplitPrefetcher;
 import static com.facebook.presto.hive.HiveUtil.getPrefilledColumnValue;
 import static com.facebook.presto.hive.HiveUtil.parsePartitionValue;
 import static com.facebook.presto.hive.HiveUtil.shouldUseRecordReaderFromInputFormat;
@@ -105,8 +106,8 @@ public class HivePageSourceProvider
     private final TypeManager typeManager;
     private final RowExpressionService rowExpressionService;
     private final LoadingCache<RowExpressionCacheKey, RowExpression> optimizedRowExpressionCache;
+    private final HiveSplitPrefetcher splitPrefetcher;
 
-    @Inject
     public HivePageSourceProvider(
             HiveClientConfig hiveClientConfig,
             HdfsEnvironment hdfsEnvironment,
@@ -116,6 +117,30 @@ public class HivePageSourceProvider
             Set<HiveAggregatedPageSourceFactory> aggregatedPageSourceFactories,
             TypeManager typeManager,
             RowExpressionService rowExpressionService)
+    {
+        this(
+                hiveClientConfig,
+                hdfsEnvironment,
+                cursorProviders,
+                pageSourceFactories,
+                selectivePageSourceFactories,
+                aggregatedPageSourceFactories,
+                typeManager,
+                rowExpressionService,
+                noopSplitPrefetcher(hdfsEnvironment));
+    }
+
+    @Inject
+    public HivePageSourceProvider(
+            HiveClientConfig hiveClientConfig,
+            HdfsEnvironment hdfsEnvironment,
+            Set<HiveRecordCursorProvider> cursorProviders,
+            Set<HiveBatchPageSourceFactory> pageSourceFactories,
+            Set<HiveSelectivePageSourceFactory> selectivePageSourceFactories,
+            Set<HiveAggregatedPageSourceFactory> aggregatedPageSourceFactories,
+            TypeManager typeManager,
+            RowExpressionService rowExpressionService,
+            HiveSplitPrefetcher splitPrefetcher)
     {
         requireNonNull(hiveClientConfig, "hiveClientConfig is null");
         this.hiveStorageTimeZone = hiveClientConfig.getDateTimeZone();
@@ -126,12 +151,19 @@ public class HivePageSourceProvider
         this.aggregatedPageSourceFactories = ImmutableSet.copyOf(requireNonNull(aggregatedPageSourceFactories, "aggregatedPageSourceFactories is null"));
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.rowExpressionService = requireNonNull(rowExpressionService, "rowExpressionService is null");
+        this.splitPrefetcher = requireNonNull(splitPrefetcher, "splitPrefetcher is null");
         this.optimizedRowExpressionCache = CacheBuilder.newBuilder()
                 .recordStats()
                 .maximumSize(10_000)
                 .build(CacheLoader.from(cacheKey -> rowExpressionService.getExpressionOptimizer(cacheKey.session).optimize(cacheKey.rowExpression, OPTIMIZED, cacheKey.session)));
     }
 
+    @Override
+    public void prefetch(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, ConnectorTableLayoutHandle layout)
+    {
+        splitPrefetcher.prefetch(session, (HiveSplit) split, (HiveTableLayoutHandle) layout);
+    }
+
     @Override
     public ConnectorPageSource createPageSource(
             ConnectorTransactionHandle transaction,
@@ -162,6 +194,7 @@ public class HivePageSourceProvider
 
         Optional<EncryptionInformation> encryptionInformation = hiveSplit.getEncryptionInformation();
         CacheQuota cacheQuota = generateCacheQuota(hiveSplit);
+        Optional<PrefetchedFileRanges> prefetchedRanges = splitPrefetcher.take(session, hiveSplit);
         HiveFileContext fileContext = new HiveFileContext(
                 splitContext.isCacheable(),
                 cacheQuota,
@@ -171,8 +204,29 @@ public class HivePageSourceProvider
                 OptionalLong.of(hiveSplit.getFileSplit().getLength()),
                 hiveSplit.getFileSplit().getFileModifiedTime(),
                 HiveSessionProperties.isVerboseRuntimeStatsEnabled(session),
-                runtimeStats);
+                runtimeStats,
+                prefetchedRanges);
 
+        try {
+            return createPageSource(session, hiveSplit, hiveLayout, columns, selectedColumns, configuration, splitContext, fileContext, encryptionInformation);
+        }
+        finally {
+            // a reader that took the prefetched ranges over releases them when it is closed
+            prefetchedRanges.ifPresent(PrefetchedFileRanges::releaseIfUnclaimed);
+        }
+    }
+
+    private ConnectorPageSource createPageSource(
+            ConnectorSession session,
+            HiveSplit hiveSplit,
+            HiveTableLayoutHandle hiveLayout,
+            List<ColumnHandle> columns,
+            List<HiveColumnHandle> selectedColumns,
+            Configuration configuration,
+            SplitContext splitContext,
+            HiveFileContext fileContext,
+            Optional<EncryptionInformation> encryptionInformation)
+    {
         if (columns.stream().anyMatch(columnHandle -> ((HiveColumnHandle) columnHandle).getColumnType().equals(AGGREGATED))) {
             checkArgument(columns.stream().allMatch(columnHandle -> ((HiveColumnHandle) columnHandle).getColumnType().equals(AGGREGATED)), "Not all columns are of 'AGGREGATED' type");
 
@@ -383,6 +437,7 @@ public class HivePageSourceProvider
                     session,
                     split.getFileSplit(),
                     split.getStorage(),
+                    layout.getSchemaTableName(),
                     columnHandles,
                     prefilledValues,
                     coercers,
@@ -62,6 +62,8 @@ public final class HiveSessionProperties
     public static final String HIVE_STORAGE_FORMAT = "hive_storage_format";
     private static final String COMPRESSION_CODEC = "compression_codec";
     private static final String ORC_COMPRESSION_CODEC = "orc_compression_codec";
+    public static final String ORC_ASYNC_READ_ENABLED = "orc_async_read_enabled";
+    public static final String SPLIT_PREFETCH_ENABLED = "split_prefetch_enabled";
     public static final String RESPECT_TABLE_FORMAT = "respect_table_format";
     private static final String CREATE_EMPTY_BUCKET_FILES = "create_empty_bucket_files";
     private static final String PARQUET_WRITER_BLOCK_SIZE = "parquet_writer_block_size";
@@ -119,6 +121,7 @@ public final class HiveSessionProperties
     private static final String DWRF_WRITER_STRIPE_CACHE_ENABLED = "dwrf_writer_stripe_cache_enabled";
     private static final String DWRF_WRITER_STRIPE_CACHE_SIZE = "dwrf_writer_stripe_cache_size";
     public static final String USE_COLUMN_INDEX_FILTER = "use_column_index_filter";
+    public static final String PARQUET_BLOOM_FILTER_ENABLED = "parquet_bloom_filter_enabled";
     public static final String SIZE_BASED_SPLIT_WEIGHTS_ENABLED = "size_based_split_weights_enabled";
     public static final String MINIMUM_ASSIGNED_SPLIT_WEIGHT = "minimum_assigned_split_weight";
     private static final String USE_RECORD_PAGE_SOURCE_FOR_CUSTOM_SPLIT = "use_record_page_source_for_custom_split";
@@ -245,6 +248,16 @@ public final class HiveSessionProperties
                         false,
                         value -> HiveCompressionCodec.valueOf(((String) value).toUpperCase()),
                         HiveCompressionCodec::name),
+                booleanProperty(
+                        ORC_ASYNC_READ_ENABLED,
+                        "Issue the merged ORC stream reads of a stripe concurrently and prefetch the next stripe",
+                        hiveClientConfig.isOrcAsyncReadEnabled(),
+                        false),
+                booleanProperty(
+                        SPLIT_PREFETCH_ENABLED,
+                        "Read the file tail and the beginning of ORC and Parquet splits while they are queued on a worker",
+                        hiveClientConfig.isSplitPrefetchEnabled(),
+                        false),
                 booleanProperty(
                         RESPECT_TABLE_FORMAT,
                         "Write new partitions using table format rather than default storage format",
@@ -565,6 +578,11 @@ public final class HiveSessionProperties
                         "should use column index statistics filtering",
                         hiveClientConfig.getReadColumnIndexFilter(),
                         false),
+                booleanProperty(
+                        PARQUET_BLOOM_FILTER_ENABLED,
+                        "should use parquet bloom filters to skip row groups",
+                        hiveClientConfig.isParquetBloomFilterEnabled(),
+                        false),
                 booleanProperty(
                         SIZE_BASED_SPLIT_WEIGHTS_ENABLED,
                         "Enable estimating split weights based on size in bytes",
@@ -767,6 +785,16 @@ public final class HiveSessionProperties
         return session.getProperty(ORC_COMPRESSION_CODEC, HiveCompressionCodec.class);
     }
 
+    public static boolean isOrcAsyncReadEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORC_ASYNC_READ_ENABLED, Boolean.class);
+    }
+
+    public static boolean isSplitPrefetchEnabled(ConnectorSession session)
+    {
+        return session.getProperty(SPLIT_PREFETCH_ENABLED, Boolean.class);
+    }
+
     public static boolean isRespectTableFormat(ConnectorSession session)
     {
         return session.getProperty(RESPECT_TABLE_FORMAT, Boolean.class);
@@ -1073,6 +1101,11 @@ public final class HiveSessionProperties
         return session.getProperty(USE_COLUMN_INDEX_FILTER, Boolean.class);
     }
 
+    public static boolean isParquetBloomFilterEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_BLOOM_FILTER_ENABLED, Boolean.class);
+    }
+
     public static boolean isSizeBasedSplitWeightsEnabled(ConnectorSession session)
     {
         return session.getProperty(SIZE_BASED_SPLIT_WEIGHTS_ENABLED, Boolean.class);
@@ -0,0 +1,348 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.presto.spi.ConnectorSession;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.presto.hive.HiveSessionProperties.isSplitPrefetchEnabled;
+import static com.facebook.presto.hive.HiveStorageFormat.DWRF;
+import static com.facebook.presto.hive.HiveStorageFormat.ORC;
+import static com.facebook.presto.hive.parquet.ParquetPageSourceFactory.PARQUET_SERDE_CLASS_NAMES;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Reads the file tail and the beginning of ORC and Parquet splits while they are queued on the
+ * worker, so that the footer and the first stripe or row group are in memory when a driver picks
+ * the split up. The prefetched data of all queued splits is bounded by a per node memory budget;
+ * splits that do not fit are not prefetched. The budget is held until the reader of the split
+ * releases the data, or until the data expires because it was not taken in time.
+ */
+public class HiveSplitPrefetcher
+{
+    private static final Logger log = Logger.get(HiveSplitPrefetcher.class);
+
+    private static final Set<String> PREFETCHED_SERDE_CLASS_NAMES = ImmutableSet.<String>builder()
+            .add(ORC.getSerDe())
+            .add(DWRF.getSerDe())
+            .addAll(PARQUET_SERDE_CLASS_NAMES)
+            .build();
+
+    private final HdfsEnvironment hdfsEnvironment;
+    private final Executor executor;
+    private final long maxMemory;
+    private final long maxSizePerSplit;
+    private final long tailSize;
+    private final Cache<PrefetchKey, Prefetch> prefetches;
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    private final CounterStat prefetchedBytes = new CounterStat();
+    private final CounterStat expiredBytes = new CounterStat();
+    private final CounterStat rejectedSplits = new CounterStat();
+
+    @Inject
+    public HiveSplitPrefetcher(HiveClientConfig hiveClientConfig, HdfsEnvironment hdfsEnvironment, @ForSplitPrefetch ExecutorService executor)
+    {
+        this(
+                hdfsEnvironment,
+                executor,
+                hiveClientConfig.getSplitPrefetchMaxMemory().toBytes(),
+                hiveClientConfig.getSplitPrefetchMaxSizePerSplit().toBytes(),
+                hiveClientConfig.getSplitPrefetchTailSize().toBytes());
+    }
+
+    /**
+     * Returns a prefetcher without a memory budget, which never reads ahead.
+     */
+    public static HiveSplitPrefetcher noopSplitPrefetcher(HdfsEnvironment hdfsEnvironment)
+    {
+        return new HiveSplitPrefetcher(hdfsEnvironment, directExecutor(), 0, 0, 0);
+    }
+
+    @VisibleForTesting
+    HiveSplitPrefetcher(HdfsEnvironment hdfsEnvironment, Executor executor, long maxMemory, long maxSizePerSplit, long tailSize)
+    {
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.maxMemory = maxMemory;
+        this.maxSizePerSplit = maxSizePerSplit;
+        this.tailSize = min(tailSize, maxSizePerSplit);
+        // splits are normally picked up long before, this only bounds how long abandoned data is kept
+        this.prefetches = CacheBuilder.newBuilder()
+                .expireAfterWrite(1, MINUTES)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    public void prefetch(ConnectorSession session, HiveSplit split, HiveTableLayoutHandle layout)
+    {
+        if (maxMemory == 0
+                || !isSplitPrefetchEnabled(session)
+                || split.isS3SelectPushdownEnabled()
+                || !PREFETCHED_SERDE_CLASS_NAMES.contains(split.getStorage().getStorageFormat().getSerDe())) {
+            return;
+        }
+
+        HiveFileSplit fileSplit = split.getFileSplit();
+        Map<Long, Integer> ranges = getPrefetchRanges(fileSplit.getStart(), fileSplit.getLength(), fileSplit.getFileSize());
+        long size = ranges.values().stream().mapToLong(Integer::longValue).sum();
+        if (size == 0 || !tryReserve(size)) {
+            rejectedSplits.update(1);
+            return;
+        }
+
+        Path path = new Path(fileSplit.getPath());
+        Configuration configuration = hdfsEnvironment.getConfiguration(
+                new HdfsContext(session, split.getDatabase(), split.getTable(), layout.getTablePath(), false),
+                path);
+        Prefetch prefetch;
+        try {
+            prefetch = new Prefetch(size, CompletableFuture.supplyAsync(() -> read(session.getUser(), path, configuration, ranges), executor));
+        }
+        catch (RejectedExecutionException e) {
+            release(size);
+            return;
+        }
+
+        Prefetch previous = prefetches.asMap().putIfAbsent(new PrefetchKey(session.getQueryId(), fileSplit), prefetch);
+        if (previous != null) {
+            // the same split was queued twice, keep the first prefetch
+            discard(prefetch);
+        }
+    }
+
+    /**
+     * Hands the data prefetched for the split over to the caller. Waits for the prefetch if it is
+     * still in flight, since its reads were issued before the ones the caller would issue. The
+     * memory budget stays reserved until the returned ranges are released.
+     */
+    public Optional<PrefetchedFileRanges> take(ConnectorSession session, HiveSplit split)
+    {
+        Prefetch prefetch = prefetches.asMap().remove(new PrefetchKey(session.getQueryId(), split.getFileSplit()));
+        if (prefetch == null) {
+            return Optional.empty();
+        }
+        Map<Long, byte[]> ranges;
+        try {
+            ranges = prefetch.getData().join();
+        }
+        catch (RuntimeException e) {
+            log.debug(e, "Prefetch of split %s failed", split.getFileSplit().getPath());
+            release(prefetch.getSize());
+            return Optional.empty();
+        }
+        prefetchedBytes.update(prefetch.getSize());
+        return Optional.of(new PrefetchedFileRanges(ranges, () -> release(prefetch.getSize())));
+    }
+
+    @VisibleForTesting
+    Map<Long, Integer> getPrefetchRanges(long start, long length, long fileSize)
+    {
+        long tailStart = max(0, fileSize - tailSize);
+        long headEnd = min(min(start + length, tailStart), start + maxSizePerSplit - (fileSize - tailStart));
+        ImmutableMap.Builder<Long, Integer> ranges = ImmutableMap.builder();
+        if (headEnd > start) {
+            ranges.put(start, toIntExact(headEnd - start));
+        }
+        if (fileSize > tailStart) {
+            ranges.put(tailStart, toIntExact(fileSize - tailStart));
+        }
+        return ranges.build();
+    }
+
+    private Map<Long, byte[]> read(String user, Path path, Configuration configuration, Map<Long, Integer> ranges)
+    {
+        try {
+            return hdfsEnvironment.doAs(user, () -> {
+                FileSystem fileSystem = hdfsEnvironment.getFileSystem(user, path, configuration);
+                ImmutableMap.Builder<Long, byte[]> data = ImmutableMap.builder();
+                try (FSDataInputStream inputStream = fileSystem.open(path)) {
+                    for (Map.Entry<Long, Integer> range : ranges.entrySet()) {
+                        byte[] buffer = new byte[range.getValue()];
+                        inputStream.readFully(range.getKey(), buffer);
+                        data.put(range.getKey(), buffer);
+                    }
+                }
+                return data.build();
+            });
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean tryReserve(long bytes)
+    {
+        while (true) {
+            long reserved = reservedBytes.get();
+            if (reserved + bytes > maxMemory) {
+                return false;
+            }
+            if (reservedBytes.compareAndSet(reserved, reserved + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(long bytes)
+    {
+        reservedBytes.addAndGet(-bytes);
+    }
+
+    private void onRemoval(RemovalNotification<PrefetchKey, Prefetch> notification)
+    {
+        if (notification.wasEvicted()) {
+            expiredBytes.update(notification.getValue().getSize());
+            discard(notification.getValue());
+        }
+    }
+
+    private void discard(Prefetch prefetch)
+    {
+        // the buffers are only garbage once the reads are done
+        prefetch.getData().whenComplete((data, failure) -> release(prefetch.getSize()));
+    }
+
+    @Managed
+    public long getReservedBytes()
+    {
+        prefetches.cleanUp();
+        return reservedBytes.get();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getPrefetchedBytes()
+    {
+        return prefetchedBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getExpiredBytes()
+    {
+        return expiredBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRejectedSplits()
+    {
+        return rejectedSplits;
+    }
+
+    private static class Prefetch
+    {
+        private final long size;
+        private final CompletableFuture<Map<Long, byte[]>> data;
+
+        public Prefetch(long size, CompletableFuture<Map<Long, byte[]>> data)
+        {
+            this.size = size;
+            this.data = requireNonNull(data, "data is null");
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        public CompletableFuture<Map<Long, byte[]>> getData()
+        {
+            return data;
+        }
+    }
+
+    private static class PrefetchKey
+    {
+        private final String queryId;
+        private final String path;
+        private final long start;
+        private final long length;
+
+        public PrefetchKey(String queryId, HiveFileSplit fileSplit)
+        {
+            this.queryId = requireNonNull(queryId, "queryId is null");
+            this.path = fileSplit.getPath();
+            this.start = fileSplit.getStart();
+            this.length = fileSplit.getLength();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PrefetchKey that = (PrefetchKey) o;
+            return start == that.start &&
+                    length == that.length &&
+                    queryId.equals(that.queryId) &&
+                    path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(queryId, path, start, length);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("queryId", queryId)
+                    .add("path", path)
+                    .add("start", start)
+                    .add("length", length)
+                    .toString();
+        }
+    }
+}
@@ -134,6 +134,7 @@ public class DwrfBatchPageSourceFactory
                 encryptionInformation,
                 dwrfEncryptionProvider,
                 session,
-                rowIDPartitionComponent));
+                rowIDPartitionComponent,
+                Optional.empty()));
     }
 }
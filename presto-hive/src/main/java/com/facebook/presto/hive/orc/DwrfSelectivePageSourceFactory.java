@@ -35,6 +35,7 @@ import com.facebook.presto.orc.cache.OrcFileTailSource;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.function.StandardFunctionResolution;
 import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.spi.relation.RowExpressionService;
@@ -98,6 +99,7 @@ public class DwrfSelectivePageSourceFactory
             ConnectorSession session,
             HiveFileSplit fileSplit,
             Storage storage,
+            SchemaTableName tableName,
             List<HiveColumnHandle> columns,
             Map<Integer, String> prefilledValues,
             Map<Integer, HiveCoercer> coercers,
@@ -149,6 +151,7 @@ public class DwrfSelectivePageSourceFactory
                 encryptionInformation,
                 dwrfEncryptionProvider,
                 appendRowNumberEnabled,
-                rowIDPartitionComponent));
+                rowIDPartitionComponent,
+                Optional.empty()));
     }
 }
@@ -14,13 +14,16 @@
 package com.facebook.presto.hive.orc;
 
 import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.PrefetchedFileRanges;
 import com.facebook.presto.orc.AbstractOrcDataSource;
+import com.facebook.presto.orc.OrcAsyncReadOptions;
 import com.facebook.presto.orc.OrcDataSourceId;
 import com.facebook.presto.spi.PrestoException;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.fs.FSDataInputStream;
 
 import java.io.IOException;
+import java.util.Optional;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
@@ -33,6 +36,7 @@ public class HdfsOrcDataSource
 {
     private final FSDataInputStream inputStream;
     private final FileFormatDataSourceStats stats;
+    private final Optional<PrefetchedFileRanges> prefetchedRanges;
 
     public HdfsOrcDataSource(
             OrcDataSourceId id,
@@ -44,25 +48,56 @@ public class HdfsOrcDataSource
             FSDataInputStream inputStream,
             FileFormatDataSourceStats stats)
     {
-        super(id, size, maxMergeDistance, maxReadSize, streamBufferSize, lazyReadSmallRanges);
+        this(id, size, maxMergeDistance, maxReadSize, streamBufferSize, lazyReadSmallRanges, Optional.empty(), Optional.empty(), inputStream, stats);
+    }
+
+    public HdfsOrcDataSource(
+            OrcDataSourceId id,
+            long size,
+            DataSize maxMergeDistance,
+            DataSize maxReadSize,
+            DataSize streamBufferSize,
+            boolean lazyReadSmallRanges,
+            Optional<OrcAsyncReadOptions> asyncReadOptions,
+            Optional<PrefetchedFileRanges> prefetchedRanges,
+            FSDataInputStream inputStream,
+            FileFormatDataSourceStats stats)
+    {
+        // positioned reads of the input stream do not move its position and may run concurrently
+        super(id, size, maxMergeDistance, maxReadSize, streamBufferSize, lazyReadSmallRanges, asyncReadOptions);
         this.inputStream = requireNonNull(inputStream, "inputStream is null");
         this.stats = requireNonNull(stats, "stats is null");
+        this.prefetchedRanges = requireNonNull(prefetchedRanges, "prefetchedRanges is null");
+        prefetchedRanges.ifPresent(PrefetchedFileRanges::claim);
     }
 
     @Override
     public void close()
             throws IOException
     {
+        discardPrefetch();
+        prefetchedRanges.ifPresent(PrefetchedFileRanges::release);
         inputStream.close();
     }
 
+    @Override
+    protected void prefetchDiscarded(long hitBytes, long wastedBytes)
+    {
+        stats.addPrefetchedBytes(hitBytes, wastedBytes);
+    }
+
     @Override
     protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
     {
         try {
+            // the file tail and the beginning of the split may have been read while the split was queued
+            int prefetched = prefetchedRanges.map(ranges -> ranges.read(position, buffer, bufferOffset, bufferLength)).orElse(0);
+            if (prefetched == bufferLength) {
+                return;
+            }
             long readStart = System.nanoTime();
-            inputStream.readFully(position, buffer, bufferOffset, bufferLength);
-            stats.readDataBytesPerSecond(bufferLength, System.nanoTime() - readStart);
+            inputStream.readFully(position + prefetched, buffer, bufferOffset + prefetched, bufferLength - prefetched);
+            stats.readDataBytesPerSecond(bufferLength - prefetched, System.nanoTime() - readStart);
         }
         catch (PrestoException e) {
             // just in case there is a Presto wrapper or hook
@@ -18,6 +18,7 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.TypeManager;
 import com.facebook.presto.hive.EncryptionInformation;
 import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.ForOrcAsyncRead;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveBatchPageSourceFactory;
 import com.facebook.presto.hive.HiveClientConfig;
@@ -28,6 +29,7 @@ import com.facebook.presto.hive.HiveOrcAggregatedMemoryContext;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
 import com.facebook.presto.orc.OrcAggregatedMemoryContext;
+import com.facebook.presto.orc.OrcAsyncReadOptions;
 import com.facebook.presto.orc.OrcBatchRecordReader;
 import com.facebook.presto.orc.OrcDataSource;
 import com.facebook.presto.orc.OrcEncoding;
@@ -56,6 +58,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcMaxMergeDistance;
@@ -85,6 +88,7 @@ public class OrcBatchPageSourceFactory
     private final int domainCompactionThreshold;
     private final OrcFileTailSource orcFileTailSource;
     private final StripeMetadataSourceFactory stripeMetadataSourceFactory;
+    private final Optional<OrcAsyncReadOptions> asyncReadOptions;
 
     @Inject
     public OrcBatchPageSourceFactory(
@@ -94,7 +98,8 @@ public class OrcBatchPageSourceFactory
             HdfsEnvironment hdfsEnvironment,
             FileFormatDataSourceStats stats,
             OrcFileTailSource orcFileTailSource,
-            StripeMetadataSourceFactory stripeMetadataSourceFactory)
+            StripeMetadataSourceFactory stripeMetadataSourceFactory,
+            @ForOrcAsyncRead ExecutorService asyncReadExecutor)
     {
         this(
                 typeManager,
@@ -103,7 +108,8 @@ public class OrcBatchPageSourceFactory
                 stats,
                 config.getDomainCompactionThreshold(),
                 orcFileTailSource,
-                stripeMetadataSourceFactory);
+                stripeMetadataSourceFactory,
+                Optional.of(new OrcAsyncReadOptions(asyncReadExecutor, config.getOrcAsyncReadMaxConcurrentReadsPerSplit(), config.getOrcMaxStripePrefetchSize())));
     }
 
     public OrcBatchPageSourceFactory(
@@ -114,6 +120,19 @@ public class OrcBatchPageSourceFactory
             int domainCompactionThreshold,
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory)
+    {
+        this(typeManager, useOrcColumnNames, hdfsEnvironment, stats, domainCompactionThreshold, orcFileTailSource, stripeMetadataSourceFactory, Optional.empty());
+    }
+
+    public OrcBatchPageSourceFactory(
+            TypeManager typeManager,
+            boolean useOrcColumnNames,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            int domainCompactionThreshold,
+            OrcFileTailSource orcFileTailSource,
+            StripeMetadataSourceFactory stripeMetadataSourceFactory,
+            Optional<OrcAsyncReadOptions> asyncReadOptions)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useOrcColumnNames = useOrcColumnNames;
@@ -122,6 +141,7 @@ public class OrcBatchPageSourceFactory
         this.domainCompactionThreshold = domainCompactionThreshold;
         this.orcFileTailSource = requireNonNull(orcFileTailSource, "orcFileTailSource is null");
         this.stripeMetadataSourceFactory = requireNonNull(stripeMetadataSourceFactory, "stripeMetadataSourceFactory is null");
+        this.asyncReadOptions = requireNonNull(asyncReadOptions, "asyncReadOptions is null");
     }
 
     @Override
@@ -173,7 +193,8 @@ public class OrcBatchPageSourceFactory
                 encryptionInformation,
                 NO_ENCRYPTION,
                 session,
-                rowIDPartitionComponent));
+                rowIDPartitionComponent,
+                asyncReadOptions));
     }
 
     public static ConnectorPageSource createOrcPageSource(
@@ -196,12 +217,13 @@ public class OrcBatchPageSourceFactory
             Optional<EncryptionInformation> encryptionInformation,
             DwrfEncryptionProvider dwrfEncryptionProvider,
             ConnectorSession session,
-            Optional<byte[]> rowIDPartitionComponent)
+            Optional<byte[]> rowIDPartitionComponent,
+            Optional<OrcAsyncReadOptions> asyncReadOptions)
     {
         checkArgument(domainCompactionThreshold >= 1, "domainCompactionThreshold must be at least 1");
         checkRowIDPartitionComponent(columns, rowIDPartitionComponent);
 
-        OrcDataSource orcDataSource = getOrcDataSource(session, fileSplit, hdfsEnvironment, configuration, hiveFileContext, stats);
+        OrcDataSource orcDataSource = getOrcDataSource(session, fileSplit, hdfsEnvironment, configuration, hiveFileContext, stats, asyncReadOptions);
         Path path = new Path(fileSplit.getPath());
 
         OrcAggregatedMemoryContext systemMemoryUsage = new HiveOrcAggregatedMemoryContext();
@@ -23,6 +23,7 @@ import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveOrcAggregatedMemoryContext;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
 import com.facebook.presto.orc.DwrfKeyProvider;
+import com.facebook.presto.orc.OrcAsyncReadOptions;
 import com.facebook.presto.orc.OrcDataSource;
 import com.facebook.presto.orc.OrcDataSourceId;
 import com.facebook.presto.orc.OrcEncoding;
@@ -49,6 +50,7 @@ import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcMaxMerg
 import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcAsyncReadEnabled;
 import static com.google.common.base.Strings.nullToEmpty;
 import static java.lang.String.format;
 
@@ -57,6 +59,18 @@ public class OrcPageSourceFactoryUtils
     private OrcPageSourceFactoryUtils() {}
 
     public static HdfsOrcDataSource getOrcDataSource(ConnectorSession session, HiveFileSplit fileSplit, HdfsEnvironment hdfsEnvironment, Configuration configuration, HiveFileContext hiveFileContext, FileFormatDataSourceStats stats)
+    {
+        return getOrcDataSource(session, fileSplit, hdfsEnvironment, configuration, hiveFileContext, stats, Optional.empty());
+    }
+
+    public static HdfsOrcDataSource getOrcDataSource(
+            ConnectorSession session,
+            HiveFileSplit fileSplit,
+            HdfsEnvironment hdfsEnvironment,
+            Configuration configuration,
+            HiveFileContext hiveFileContext,
+            FileFormatDataSourceStats stats,
+            Optional<OrcAsyncReadOptions> asyncReadOptions)
     {
         DataSize maxMergeDistance = getOrcMaxMergeDistance(session);
         DataSize maxBufferSize = getOrcMaxBufferSize(session);
@@ -73,6 +87,8 @@ public class OrcPageSourceFactoryUtils
                     maxBufferSize,
                     streamBufferSize,
                     lazyReadSmallRanges,
+                    isOrcAsyncReadEnabled(session) ? asyncReadOptions : Optional.empty(),
+                    hiveFileContext.getPrefetchedRanges(),
                     inputStream,
                     stats);
         }
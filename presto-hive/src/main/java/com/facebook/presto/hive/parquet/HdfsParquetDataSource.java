@@ -14,6 +14,7 @@
 package com.facebook.presto.hive.parquet;
 
 import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.PrefetchedFileRanges;
 import com.facebook.presto.parquet.AbstractParquetDataSource;
 import com.facebook.presto.parquet.ParquetDataSourceId;
 import com.facebook.presto.spi.PrestoException;
@@ -42,18 +43,27 @@ public class HdfsParquetDataSource
 {
     private final FSDataInputStream inputStream;
     private final FileFormatDataSourceStats stats;
+    private final Optional<PrefetchedFileRanges> prefetchedRanges;
 
     public HdfsParquetDataSource(ParquetDataSourceId id, FSDataInputStream inputStream, FileFormatDataSourceStats stats)
+    {
+        this(id, inputStream, stats, Optional.empty());
+    }
+
+    public HdfsParquetDataSource(ParquetDataSourceId id, FSDataInputStream inputStream, FileFormatDataSourceStats stats, Optional<PrefetchedFileRanges> prefetchedRanges)
     {
         super(id);
         this.stats = requireNonNull(stats, "stats is null");
         this.inputStream = requireNonNull(inputStream, "inputStream is null");
+        this.prefetchedRanges = requireNonNull(prefetchedRanges, "prefetchedRanges is null");
+        prefetchedRanges.ifPresent(PrefetchedFileRanges::claim);
     }
 
     @Override
     public void close()
             throws IOException
     {
+        prefetchedRanges.ifPresent(PrefetchedFileRanges::release);
         inputStream.close();
     }
 
@@ -61,9 +71,14 @@ public class HdfsParquetDataSource
     protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
     {
         try {
+            // the file tail and the first row group may have been read while the split was queued
+            int prefetched = prefetchedRanges.map(ranges -> ranges.read(position, buffer, bufferOffset, bufferLength)).orElse(0);
+            if (prefetched == bufferLength) {
+                return;
+            }
             long start = System.nanoTime();
-            inputStream.readFully(position, buffer, bufferOffset, bufferLength);
-            stats.readDataBytesPerSecond(bufferLength, System.nanoTime() - start);
+            inputStream.readFully(position + prefetched, buffer, bufferOffset + prefetched, bufferLength - prefetched);
+            stats.readDataBytesPerSecond(bufferLength - prefetched, System.nanoTime() - start);
         }
         catch (PrestoException e) {
             // just in case there is a Presto wrapper or hook
@@ -115,6 +130,11 @@ public class HdfsParquetDataSource
 
     public static HdfsParquetDataSource buildHdfsParquetDataSource(FSDataInputStream inputStream, Path path, FileFormatDataSourceStats stats)
     {
-        return new HdfsParquetDataSource(new ParquetDataSourceId(path.toString()), inputStream, stats);
+        return buildHdfsParquetDataSource(inputStream, path, stats, Optional.empty());
+    }
+
+    public static HdfsParquetDataSource buildHdfsParquetDataSource(FSDataInputStream inputStream, Path path, FileFormatDataSourceStats stats, Optional<PrefetchedFileRanges> prefetchedRanges)
+    {
+        return new HdfsParquetDataSource(new ParquetDataSourceId(path.toString()), inputStream, stats, prefetchedRanges);
     }
 }
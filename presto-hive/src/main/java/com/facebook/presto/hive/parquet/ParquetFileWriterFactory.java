@@ -27,6 +27,7 @@ import com.facebook.presto.parquet.writer.ParquetWriterOptions;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -42,12 +43,15 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.Callable;
 
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_METADATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_OPEN_ERROR;
 import static com.facebook.presto.hive.HiveSessionProperties.getParquetWriterBlockSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getParquetWriterPageSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getParquetWriterVersion;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetOptimizedWriterEnabled;
 import static com.facebook.presto.hive.HiveType.toHiveTypes;
+import static com.facebook.presto.parquet.writer.ParquetWriterOptions.DEFAULT_BLOOM_FILTER_FPP;
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
@@ -56,6 +60,9 @@ import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_
 public class ParquetFileWriterFactory
         implements HiveFileWriterFactory
 {
+    private static final String PARQUET_BLOOM_FILTER_COLUMNS_KEY = "parquet.bloom.filter.columns";
+    private static final String PARQUET_BLOOM_FILTER_FPP_KEY = "parquet.bloom.filter.fpp";
+
     private final HdfsEnvironment hdfsEnvironment;
     private final TypeManager typeManager;
 
@@ -105,6 +112,8 @@ public class ParquetFileWriterFactory
                 .setMaxPageSize(getParquetWriterPageSize(session))
                 .setMaxBlockSize(getParquetWriterBlockSize(session))
                 .setWriterVersion(getParquetWriterVersion(session))
+                .setBloomFilterColumns(ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(schema.getProperty(PARQUET_BLOOM_FILTER_COLUMNS_KEY, ""))))
+                .setBloomFilterFpp(getBloomFilterFpp(schema))
                 .build();
 
         CompressionCodecName compressionCodecName = getCompression(conf);
@@ -154,4 +163,18 @@ public class ParquetFileWriterFactory
         }
         return CompressionCodecName.valueOf(compressionName);
     }
+
+    private static double getBloomFilterFpp(Properties schema)
+    {
+        String fpp = schema.getProperty(PARQUET_BLOOM_FILTER_FPP_KEY);
+        if (fpp == null) {
+            return DEFAULT_BLOOM_FILTER_FPP;
+        }
+        try {
+            return Double.parseDouble(fpp);
+        }
+        catch (NumberFormatException e) {
+            throw new PrestoException(HIVE_INVALID_METADATA, format("Invalid value for %s property: %s", PARQUET_BLOOM_FILTER_FPP_KEY, fpp));
+        }
+    }
 }
@@ -175,6 +175,20 @@ public class ParquetPageSource
         }
     }
 
+    /**
+     * Returns a lazy block with the given positions of a column of the last batch, or empty if the
+     * column is not read from the file. Only these positions are decoded when the block is loaded,
+     * so the column must not also be loaded through the page returned by {@link #getNextPage()}.
+     */
+    public Optional<Block> getLazyPositionsBlock(int channel, int[] positions, int positionCount)
+    {
+        Optional<Field> field = fields.get(channel);
+        if (isIndexColumn(channel) || !field.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(new LazyBlock(positionCount, new ParquetBlockLoader(field.get(), Optional.of(positions), positionCount)));
+    }
+
     private void closeWithSuppression(Throwable throwable)
     {
         requireNonNull(throwable, "throwable is null");
@@ -210,11 +224,20 @@ public class ParquetPageSource
     {
         private final int expectedBatchId = batchId;
         private final Field field;
+        private final Optional<int[]> positions;
+        private final int positionCount;
         private boolean loaded;
 
         public ParquetBlockLoader(Field field)
+        {
+            this(field, Optional.empty(), 0);
+        }
+
+        public ParquetBlockLoader(Field field, Optional<int[]> positions, int positionCount)
         {
             this.field = requireNonNull(field, "field is null");
+            this.positions = requireNonNull(positions, "positions is null");
+            this.positionCount = positionCount;
         }
 
         @Override
@@ -227,7 +250,7 @@ public class ParquetPageSource
             checkState(batchId == expectedBatchId);
 
             try {
-                Block block = parquetReader.readBlock(field);
+                Block block = positions.isPresent() ? parquetReader.readBlock(field, positions.get(), positionCount) : parquetReader.readBlock(field);
                 lazyBlock.setBlock(block);
             }
             catch (ParquetCorruptionException e) {
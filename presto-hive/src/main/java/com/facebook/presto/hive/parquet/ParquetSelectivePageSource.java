@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.predicate.FilterFunction;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.spi.ConnectorPageSource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.FilteringPageSource.filterBlock;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates pushed down filters over the lazily loaded columns of a Parquet page source.
+ * Filter columns are loaded and evaluated one at a time, each only over the positions that
+ * passed the previous filters. Once no position is left, the remaining columns of the batch
+ * are never decoded. Columns that are only projected stay lazy and are decoded, for the
+ * surviving positions only, when the engine first accesses them.
+ */
+public class ParquetSelectivePageSource
+        implements ConnectorPageSource
+{
+    private final ParquetPageSource delegate;
+    private final Type[] columnTypes;
+    // channel of each column in the delegate page or -1 for prefilled columns
+    private final int[] delegateChannels;
+    private final Object[] prefilledValues;
+    private final int[] filterColumns;
+    private final TupleDomainFilter[] filters;
+    private final Optional<FilterFunction> filterFunction;
+    private final int[] filterFunctionInputs;
+    private final int[] outputColumns;
+
+    public ParquetSelectivePageSource(
+            ParquetPageSource delegate,
+            List<Type> columnTypes,
+            int[] delegateChannels,
+            Map<Integer, Object> prefilledValues,
+            Map<Integer, TupleDomainFilter> filters,
+            Optional<FilterFunction> filterFunction,
+            List<Integer> outputColumns)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.columnTypes = requireNonNull(columnTypes, "columnTypes is null").toArray(new Type[0]);
+        this.delegateChannels = requireNonNull(delegateChannels, "delegateChannels is null").clone();
+        checkArgument(this.columnTypes.length == this.delegateChannels.length, "columnTypes and delegateChannels must have the same size");
+
+        requireNonNull(prefilledValues, "prefilledValues is null");
+        this.prefilledValues = new Object[this.columnTypes.length];
+        for (int column = 0; column < this.columnTypes.length; column++) {
+            if (this.delegateChannels[column] < 0) {
+                checkArgument(prefilledValues.containsKey(column), "column %s is neither read nor prefilled", column);
+                this.prefilledValues[column] = prefilledValues.get(column);
+            }
+        }
+
+        requireNonNull(filters, "filters is null");
+        this.filterColumns = filters.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        this.filters = new TupleDomainFilter[filterColumns.length];
+        for (int i = 0; i < filterColumns.length; i++) {
+            this.filters[i] = filters.get(filterColumns[i]);
+        }
+
+        this.filterFunction = requireNonNull(filterFunction, "filterFunction is null");
+        // the inputs of the filter function refer to columns by their position
+        this.filterFunctionInputs = filterFunction.map(FilterFunction::getInputChannels).orElse(new int[0]);
+        this.outputColumns = requireNonNull(outputColumns, "outputColumns is null").stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        Page page = delegate.getNextPage();
+        if (page == null || page.getPositionCount() == 0) {
+            return page;
+        }
+
+        int batchSize = page.getPositionCount();
+        Block[] blocks = new Block[columnTypes.length];
+        for (int column = 0; column < blocks.length; column++) {
+            if (delegateChannels[column] >= 0) {
+                blocks[column] = page.getBlock(delegateChannels[column]);
+            }
+            else {
+                blocks[column] = RunLengthEncodedBlock.create(columnTypes[column], prefilledValues[column], batchSize);
+            }
+        }
+
+        int[] positions = new int[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            positions[i] = i;
+        }
+        int positionCount = batchSize;
+
+        // filter columns are loaded in order, each one evaluated only over the positions
+        // that passed the previous filters
+        boolean[] loaded = new boolean[blocks.length];
+        for (int i = 0; i < filterColumns.length; i++) {
+            int column = filterColumns[i];
+            loaded[column] = true;
+            positionCount = filterBlock(blocks[column], columnTypes[column], filters[i], positions, positionCount);
+            if (positionCount == 0) {
+                return new Page(0);
+            }
+        }
+
+        if (filterFunction.isPresent()) {
+            Block[] inputBlocks = new Block[filterFunctionInputs.length];
+            for (int i = 0; i < filterFunctionInputs.length; i++) {
+                inputBlocks[i] = blocks[filterFunctionInputs[i]];
+                loaded[filterFunctionInputs[i]] = true;
+            }
+
+            RuntimeException[] errors = new RuntimeException[positionCount];
+            positionCount = filterFunction.get().filter(new Page(batchSize, inputBlocks), positions, positionCount, errors);
+            for (int i = 0; i < positionCount; i++) {
+                if (errors[i] != null) {
+                    throw errors[i];
+                }
+            }
+            if (positionCount == 0) {
+                return new Page(0);
+            }
+        }
+
+        Block[] outputBlocks = new Block[outputColumns.length];
+        for (int i = 0; i < outputColumns.length; i++) {
+            int column = outputColumns[i];
+            Block block = blocks[column];
+            if (positionCount == batchSize) {
+                outputBlocks[i] = block;
+            }
+            else if (loaded[column] || delegateChannels[column] < 0) {
+                outputBlocks[i] = block.getPositions(positions, 0, positionCount);
+            }
+            else {
+                // decode only the selected positions once the column is accessed
+                int selectedPositionCount = positionCount;
+                outputBlocks[i] = delegate.getLazyPositionsBlock(delegateChannels[column], positions, selectedPositionCount)
+                        .orElseGet(() -> block.getPositions(positions, 0, selectedPositionCount));
+            }
+        }
+        return new Page(positionCount, outputBlocks);
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return delegate.getCompletedBytes();
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return delegate.getCompletedPositions();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return delegate.isFinished();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return delegate.getSystemMemoryUsage();
+    }
+
+    @Override
+    public RuntimeStats getRuntimeStats()
+    {
+        return delegate.getRuntimeStats();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        delegate.close();
+    }
+}
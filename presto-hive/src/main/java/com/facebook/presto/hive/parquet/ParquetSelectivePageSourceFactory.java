@@ -14,32 +14,58 @@
 package com.facebook.presto.hive.parquet;
 
 import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.FilterFunction;
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.TypeManager;
 import com.facebook.presto.hive.BucketAdaptation;
 import com.facebook.presto.hive.EncryptionInformation;
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveCoercer;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveSelectivePageSourceFactory;
 import com.facebook.presto.hive.metastore.Storage;
+import com.facebook.presto.hive.orc.TupleDomainFilterCache;
+import com.facebook.presto.parquet.cache.ParquetMetadataSource;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
-import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.function.StandardFunctionResolution;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
 import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.RowExpressionService;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.conf.Configuration;
 import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
-import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.expressions.DynamicFilters.extractDynamicFilters;
+import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
+import static com.facebook.presto.expressions.LogicalRowExpressions.and;
+import static com.facebook.presto.expressions.RowExpressionNodeInliner.replaceExpression;
+import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveColumnHandle.isRowIdColumnHandle;
+import static com.facebook.presto.hive.HiveUtil.typedPartitionKey;
+import static com.facebook.presto.hive.parquet.ParquetPageSourceFactory.createParquetPageSource;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
 
 public class ParquetSelectivePageSourceFactory
         implements HiveSelectivePageSourceFactory
@@ -49,9 +75,31 @@ public class ParquetSelectivePageSourceFactory
             .add("parquet.hive.serde.ParquetHiveSerDe")
             .build();
 
+    private final TypeManager typeManager;
+    private final StandardFunctionResolution functionResolution;
+    private final RowExpressionService rowExpressionService;
+    private final HdfsEnvironment hdfsEnvironment;
+    private final FileFormatDataSourceStats stats;
+    private final ParquetMetadataSource parquetMetadataSource;
+    private final TupleDomainFilterCache tupleDomainFilterCache;
+
     @Inject
-    public ParquetSelectivePageSourceFactory()
+    public ParquetSelectivePageSourceFactory(
+            TypeManager typeManager,
+            StandardFunctionResolution functionResolution,
+            RowExpressionService rowExpressionService,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            ParquetMetadataSource parquetMetadataSource,
+            TupleDomainFilterCache tupleDomainFilterCache)
     {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
+        this.rowExpressionService = requireNonNull(rowExpressionService, "rowExpressionService is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.parquetMetadataSource = requireNonNull(parquetMetadataSource, "parquetMetadataSource is null");
+        this.tupleDomainFilterCache = requireNonNull(tupleDomainFilterCache, "tupleDomainFilterCache is null");
     }
 
     @Override
@@ -60,6 +108,7 @@ public class ParquetSelectivePageSourceFactory
             ConnectorSession session,
             HiveFileSplit fileSplit,
             Storage storage,
+            SchemaTableName tableName,
             List<HiveColumnHandle> columns,
             Map<Integer, String> prefilledValues,
             Map<Integer, HiveCoercer> coercers,
@@ -77,6 +126,94 @@ public class ParquetSelectivePageSourceFactory
             return Optional.empty();
         }
         checkState(!appendRowNumberEnabled, "append row number is not supported for Parquet Reader");
-        throw new PrestoException(NOT_SUPPORTED, "Parquet reader doesn't support filter pushdown yet");
+        checkArgument(!domainPredicate.isNone(), "Unexpected NONE domain");
+
+        // coercions, bucket conversions, row IDs, pushed down subfields and filters on nested fields are left to
+        // the regular Parquet page source, which is wrapped in a FilteringPageSource
+        if (!coercers.isEmpty() ||
+                bucketAdaptation.isPresent() ||
+                columns.stream().anyMatch(column -> isRowIdColumnHandle(column) ||
+                        (!prefilledValues.containsKey(column.getHiveColumnIndex()) && column.getColumnType() != REGULAR)) ||
+                domainPredicate.getDomains().get().keySet().stream().anyMatch(subfield -> !subfield.getPath().isEmpty())) {
+            return Optional.empty();
+        }
+
+        ImmutableList.Builder<HiveColumnHandle> physicalColumns = ImmutableList.builder();
+        ImmutableList.Builder<Type> columnTypes = ImmutableList.builder();
+        ImmutableMap.Builder<String, Integer> columnsByName = ImmutableMap.builder();
+        ImmutableMap.Builder<Integer, Integer> columnsByHiveColumnIndex = ImmutableMap.builder();
+        ImmutableMap.Builder<VariableReferenceExpression, InputReferenceExpression> variableToInput = ImmutableMap.builder();
+        Map<Integer, Object> typedPrefilledValues = new HashMap<>();
+        int[] delegateChannels = new int[columns.size()];
+        int physicalColumnCount = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            HiveColumnHandle column = columns.get(i);
+            Type type = typeManager.getType(column.getTypeSignature());
+            columnTypes.add(type);
+            columnsByName.put(column.getName(), i);
+            columnsByHiveColumnIndex.put(column.getHiveColumnIndex(), i);
+            variableToInput.put(
+                    new VariableReferenceExpression(Optional.empty(), column.getName(), type),
+                    new InputReferenceExpression(Optional.empty(), i, type));
+
+            if (prefilledValues.containsKey(column.getHiveColumnIndex())) {
+                delegateChannels[i] = -1;
+                typedPrefilledValues.put(i, typedPartitionKey(prefilledValues.get(column.getHiveColumnIndex()), type, column.getName(), hiveStorageTimeZone));
+            }
+            else {
+                delegateChannels[i] = physicalColumnCount;
+                physicalColumnCount++;
+                physicalColumns.add(column);
+            }
+        }
+        List<HiveColumnHandle> readColumns = physicalColumns.build();
+        Map<String, Integer> columnIndices = columnsByName.build();
+        Map<Integer, Integer> hiveColumnIndices = columnsByHiveColumnIndex.build();
+
+        Map<Integer, TupleDomainFilter> filters = new HashMap<>();
+        Map<HiveColumnHandle, Domain> readColumnDomains = new HashMap<>();
+        for (Map.Entry<Subfield, Domain> entry : domainPredicate.getDomains().get().entrySet()) {
+            Integer column = columnIndices.get(entry.getKey().getRootName());
+            checkArgument(column != null, "Filter column %s is not among the columns to read", entry.getKey());
+            filters.put(column, tupleDomainFilterCache.getFilter(entry.getValue()));
+            if (delegateChannels[column] >= 0) {
+                readColumnDomains.put(columns.get(column), entry.getValue());
+            }
+        }
+
+        Optional<FilterFunction> filterFunction = Optional.empty();
+        if (!TRUE_CONSTANT.equals(remainingPredicate)) {
+            // dynamic filters are pushed down as domains
+            RowExpression filter = and(extractDynamicFilters(replaceExpression(remainingPredicate, variableToInput.build())).getStaticConjuncts());
+            if (!TRUE_CONSTANT.equals(filter)) {
+                filterFunction = Optional.of(new FilterFunction(
+                        session.getSqlFunctionProperties(),
+                        rowExpressionService.getDeterminismEvaluator().isDeterministic(filter),
+                        rowExpressionService.getPredicateCompiler().compilePredicate(session.getSqlFunctionProperties(), session.getSessionFunctions(), filter).get()));
+            }
+        }
+
+        ParquetPageSource parquetPageSource = createParquetPageSource(
+                hdfsEnvironment,
+                session,
+                configuration,
+                fileSplit,
+                readColumns,
+                tableName,
+                typeManager,
+                functionResolution,
+                TupleDomain.withColumnDomains(readColumnDomains),
+                stats,
+                hiveFileContext,
+                parquetMetadataSource);
+
+        return Optional.of(new ParquetSelectivePageSource(
+                parquetPageSource,
+                columnTypes.build(),
+                delegateChannels,
+                typedPrefilledValues,
+                filters,
+                filterFunction,
+                outputColumns.stream().map(hiveColumnIndices::get).collect(toImmutableList())));
     }
 }
@@ -86,6 +86,15 @@ public class TestHiveClientConfig
                 .setUseOrcColumnNames(false)
                 .setAssumeCanonicalPartitionKeys(false)
                 .setOrcDefaultBloomFilterFpp(0.05)
+                .setOrcAsyncReadEnabled(false)
+                .setOrcAsyncReadMaxThreads(32)
+                .setOrcAsyncReadMaxConcurrentReadsPerSplit(4)
+                .setOrcMaxStripePrefetchSize(new DataSize(32, Unit.MEGABYTE))
+                .setSplitPrefetchEnabled(false)
+                .setSplitPrefetchMaxThreads(16)
+                .setSplitPrefetchMaxMemory(new DataSize(256, Unit.MEGABYTE))
+                .setSplitPrefetchMaxSizePerSplit(new DataSize(8, Unit.MEGABYTE))
+                .setSplitPrefetchTailSize(new DataSize(256, Unit.KILOBYTE))
                 .setRcfileOptimizedWriterEnabled(true)
                 .setRcfileWriterValidate(false)
                 .setHdfsAuthenticationType(HdfsAuthenticationType.NONE)
@@ -142,6 +151,7 @@ public class TestHiveClientConfig
                 .setMaterializedViewMissingPartitionsThreshold(100)
                 .setLooseMemoryAccountingEnabled(false)
                 .setReadColumnIndexFilter(false)
+                .setParquetBloomFilterEnabled(true)
                 .setSizeBasedSplitWeightsEnabled(true)
                 .setDynamicSplitSizesEnabled(false)
                 .setMinimumAssignedSplitWeight(0.05)
@@ -211,6 +221,15 @@ public class TestHiveClientConfig
                 .put("hive.text.max-line-length", "13MB")
                 .put("hive.orc.use-column-names", "true")
                 .put("hive.orc.default-bloom-filter-fpp", "0.96")
+                .put("hive.orc.async-read-enabled", "true")
+                .put("hive.orc.async-read-max-threads", "8")
+                .put("hive.orc.async-read-max-concurrent-reads-per-split", "2")
+                .put("hive.orc.max-stripe-prefetch-size", "64MB")
+                .put("hive.split-prefetch-enabled", "true")
+                .put("hive.split-prefetch-max-threads", "8")
+                .put("hive.split-prefetch-max-memory", "1GB")
+                .put("hive.split-prefetch-max-size-per-split", "16MB")
+                .put("hive.split-prefetch-tail-size", "1MB")
                 .put("hive.rcfile-optimized-writer.enabled", "false")
                 .put("hive.rcfile.writer.validate", "true")
                 .put("hive.hdfs.authentication.type", "KERBEROS")
@@ -268,6 +287,7 @@ public class TestHiveClientConfig
                 .put("hive.verbose-runtime-stats-enabled", "true")
                 .put("hive.materialized-view-missing-partitions-threshold", "50")
                 .put("hive.parquet-column-index-filter-enabled", "true")
+                .put("hive.parquet-bloom-filter-enabled", "false")
                 .put("hive.size-based-split-weights-enabled", "false")
                 .put("hive.dynamic-split-sizes-enabled", "true")
                 .put("hive.user-defined-type-encoding-enabled", "true")
@@ -333,6 +353,15 @@ public class TestHiveClientConfig
                 .setUseOrcColumnNames(true)
                 .setAssumeCanonicalPartitionKeys(true)
                 .setOrcDefaultBloomFilterFpp(0.96)
+                .setOrcAsyncReadEnabled(true)
+                .setOrcAsyncReadMaxThreads(8)
+                .setOrcAsyncReadMaxConcurrentReadsPerSplit(2)
+                .setOrcMaxStripePrefetchSize(new DataSize(64, Unit.MEGABYTE))
+                .setSplitPrefetchEnabled(true)
+                .setSplitPrefetchMaxThreads(8)
+                .setSplitPrefetchMaxMemory(new DataSize(1, Unit.GIGABYTE))
+                .setSplitPrefetchMaxSizePerSplit(new DataSize(16, Unit.MEGABYTE))
+                .setSplitPrefetchTailSize(new DataSize(1, Unit.MEGABYTE))
                 .setRcfileOptimizedWriterEnabled(false)
                 .setRcfileWriterValidate(true)
                 .setHdfsAuthenticationType(HdfsAuthenticationType.KERBEROS)
@@ -390,6 +419,7 @@ public class TestHiveClientConfig
                 .setMaterializedViewMissingPartitionsThreshold(50)
                 .setLooseMemoryAccountingEnabled(true)
                 .setReadColumnIndexFilter(true)
+                .setParquetBloomFilterEnabled(false)
                 .setSizeBasedSplitWeightsEnabled(false)
                 .setDynamicSplitSizesEnabled(true)
                 .setMinimumAssignedSplitWeight(1.0)
@@ -5721,34 +5721,38 @@ public class TestHiveIntegrationSmokeTest
     }
 
     @Test
-    public void testParquetSelectivePageSourceFails()
+    public void testParquetSelectivePageSource()
     {
-        assertUpdate("CREATE TABLE test_parquet_filter_pushdoown (a BIGINT, b BOOLEAN) WITH (format = 'parquet')");
-        assertUpdate(getSession(), "INSERT INTO test_parquet_filter_pushdoown VALUES (1, true)", 1);
+        assertUpdate("CREATE TABLE test_parquet_filter_pushdown (a BIGINT, b BOOLEAN, c VARCHAR, ds VARCHAR) WITH (format = 'parquet', partitioned_by = ARRAY['ds'])");
+        assertUpdate(getSession(), "INSERT INTO test_parquet_filter_pushdown VALUES (1, true, 'x', '2024-01-01'), (2, false, 'y', '2024-01-01'), (3, true, NULL, '2024-01-02')", 3);
 
-        Session noPushdownSession = Session.builder(getSession())
-                .setCatalogSessionProperty("hive", "pushdown_filter_enabled", "false")
-                .setCatalogSessionProperty("hive", "parquet_pushdown_filter_enabled", "false")
-                .build();
-        assertQuery(noPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown", "select 1");
-        assertQuery(noPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = true", "select 1");
-        assertQueryReturnsEmptyResult(noPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = false");
-
-        Session filterPushdownSession = Session.builder(getSession())
-                .setCatalogSessionProperty("hive", "pushdown_filter_enabled", "true")
-                .setCatalogSessionProperty("hive", "parquet_pushdown_filter_enabled", "false")
-                .build();
-        assertQuery(filterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown", "select 1");
-        assertQuery(filterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = true", "select 1");
-        assertQueryReturnsEmptyResult(filterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = false");
+        try {
+            Session noPushdownSession = Session.builder(getSession())
+                    .setCatalogSessionProperty("hive", "pushdown_filter_enabled", "false")
+                    .setCatalogSessionProperty("hive", "parquet_pushdown_filter_enabled", "false")
+                    .build();
+            Session filterPushdownSession = Session.builder(getSession())
+                    .setCatalogSessionProperty("hive", "pushdown_filter_enabled", "true")
+                    .setCatalogSessionProperty("hive", "parquet_pushdown_filter_enabled", "false")
+                    .build();
+            Session parquetFilterPushdownSession = Session.builder(getSession())
+                    .setCatalogSessionProperty("hive", "pushdown_filter_enabled", "true")
+                    .setCatalogSessionProperty("hive", "parquet_pushdown_filter_enabled", "true")
+                    .build();
 
-        Session parquetFilterPushdownSession = Session.builder(getSession())
-                .setCatalogSessionProperty("hive", "pushdown_filter_enabled", "true")
-                .setCatalogSessionProperty("hive", "parquet_pushdown_filter_enabled", "true")
-                .build();
-        assertQueryFails(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown", "Parquet reader doesn't support filter pushdown yet");
-        assertQueryFails(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = true", "Parquet reader doesn't support filter pushdown yet");
-        assertQueryFails(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = false", "Parquet reader doesn't support filter pushdown yet");
+            for (Session session : ImmutableList.of(noPushdownSession, filterPushdownSession, parquetFilterPushdownSession)) {
+                assertQuery(session, "SELECT a FROM test_parquet_filter_pushdown", "VALUES 1, 2, 3");
+                assertQuery(session, "SELECT a FROM test_parquet_filter_pushdown WHERE b = true", "VALUES 1, 3");
+                assertQuery(session, "SELECT a, c FROM test_parquet_filter_pushdown WHERE b = true AND a > 1", "VALUES (3, NULL)");
+                assertQuery(session, "SELECT c FROM test_parquet_filter_pushdown WHERE c IS NOT NULL AND a % 2 = 0", "VALUES 'y'");
+                assertQuery(session, "SELECT a, ds FROM test_parquet_filter_pushdown WHERE ds = '2024-01-01' AND c = 'x'", "VALUES (1, '2024-01-01')");
+                assertQuery(session, "SELECT count(*) FROM test_parquet_filter_pushdown WHERE c IS NULL", "VALUES 1");
+                assertQueryReturnsEmptyResult(session, "SELECT a FROM test_parquet_filter_pushdown WHERE b = false AND a > 2");
+            }
+        }
+        finally {
+            assertUpdate("DROP TABLE test_parquet_filter_pushdown");
+        }
     }
 
     private void testPageFileCompression(String compression)
@@ -0,0 +1,42 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.testng.Assert.assertEquals;
+
+public class TestHiveSplitPrefetcher
+{
+    private static final HiveSplitPrefetcher PREFETCHER = new HiveSplitPrefetcher(HDFS_ENVIRONMENT, directExecutor(), 1000, 100, 10);
+
+    @Test
+    public void testPrefetchRanges()
+    {
+        // head of the split and the file tail
+        assertEquals(PREFETCHER.getPrefetchRanges(0, 500, 1000), ImmutableMap.of(0L, 90, 990L, 10));
+        assertEquals(PREFETCHER.getPrefetchRanges(500, 20, 1000), ImmutableMap.of(500L, 20, 990L, 10));
+
+        // the head does not overlap the tail
+        assertEquals(PREFETCHER.getPrefetchRanges(950, 50, 1000), ImmutableMap.of(950L, 40, 990L, 10));
+        assertEquals(PREFETCHER.getPrefetchRanges(995, 5, 1000), ImmutableMap.of(990L, 10));
+
+        // small files are read entirely
+        assertEquals(PREFETCHER.getPrefetchRanges(0, 6, 6), ImmutableMap.of(0L, 6));
+        assertEquals(PREFETCHER.getPrefetchRanges(0, 50, 50), ImmutableMap.of(0L, 40, 40L, 10));
+    }
+}
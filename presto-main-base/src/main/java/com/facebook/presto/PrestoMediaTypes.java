@@ -19,6 +19,8 @@ public final class PrestoMediaTypes
 {
     public static final String PRESTO_PAGES = "application/X-presto-pages";
     public static final MediaType PRESTO_PAGES_TYPE = MediaType.create("application", "X-presto-pages");
+    public static final String PRESTO_EXCHANGE_FRAMES = "application/X-presto-exchange-frames";
+    public static final MediaType PRESTO_EXCHANGE_FRAMES_TYPE = MediaType.create("application", "X-presto-exchange-frames");
     public static final String APPLICATION_JACKSON_SMILE = "application/x-jackson-smile";
 
     private PrestoMediaTypes()
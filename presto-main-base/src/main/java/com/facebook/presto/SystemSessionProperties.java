@@ -216,6 +216,7 @@ public final class SystemSessionProperties
     public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_ROW_COUNT = "dynamic_filtering_max_per_driver_row_count";
     public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_SIZE = "dynamic_filtering_max_per_driver_size";
     public static final String DYNAMIC_FILTERING_RANGE_ROW_LIMIT_PER_DRIVER = "dynamic_filtering_range_row_limit_per_driver";
+    public static final String DYNAMIC_FILTERING_BLOOM_FILTER_ROW_LIMIT_PER_DRIVER = "dynamic_filtering_bloom_filter_row_limit_per_driver";
     public static final String FRAGMENT_RESULT_CACHING_ENABLED = "fragment_result_caching_enabled";
     public static final String INLINE_SQL_FUNCTIONS = "inline_sql_functions";
     public static final String REMOTE_FUNCTIONS_ENABLED = "remote_functions_enabled";
@@ -330,6 +331,17 @@ public final class SystemSessionProperties
     public static final String SINGLE_NODE_EXECUTION_ENABLED = "single_node_execution_enabled";
     public static final String EXPRESSION_OPTIMIZER_NAME = "expression_optimizer_name";
     public static final String ADD_EXCHANGE_BELOW_PARTIAL_AGGREGATION_OVER_GROUP_ID = "add_exchange_below_partial_aggregation_over_group_id";
+    public static final String FLAT_GROUP_BY_HASH_ENABLED = "flat_group_by_hash_enabled";
+    public static final String BATCHED_JOIN_PROBE_ENABLED = "batched_join_probe_enabled";
+    public static final String RADIX_PARTITIONED_HASH_BUILD_ENABLED = "radix_partitioned_hash_build_enabled";
+    public static final String WINDOW_SEGMENT_TREE_AGGREGATION_ENABLED = "window_segment_tree_aggregation_enabled";
+    public static final String ORDER_BY_PARALLEL_SORT_ENABLED = "order_by_parallel_sort_enabled";
+    public static final String EXCHANGE_COMPRESSION_ADAPTIVE_ENABLED = "exchange_compression_adaptive_enabled";
+    public static final String EXCHANGE_STREAMING_ENABLED = "exchange_streaming_enabled";
+    public static final String LOCAL_EXCHANGE_PARTITION_REBALANCING_ENABLED = "local_exchange_partition_rebalancing_enabled";
+    public static final String SKEWED_JOIN_SALTING_ENABLED = "skewed_join_salting_enabled";
+    public static final String SKEWED_JOIN_KEY_MIN_FRACTION = "skewed_join_key_min_fraction";
+    public static final String JOIN_SPILL_PARTITION_FANOUT = "join_spill_partition_fanout";
 
     // TODO: Native execution related session properties that are temporarily put here. They will be relocated in the future.
     public static final String NATIVE_AGGREGATION_SPILL_ALL = "native_aggregation_spill_all";
@@ -1190,6 +1202,11 @@ public final class SystemSessionProperties
                         "Maximum number of build-side rows per driver up to which min and max values will be collected for dynamic filtering",
                         featuresConfig.getDynamicFilteringRangeRowLimitPerDriver(),
                         false),
+                integerProperty(
+                        DYNAMIC_FILTERING_BLOOM_FILTER_ROW_LIMIT_PER_DRIVER,
+                        "Maximum number of build-side rows per driver up to which a bloom filter will be collected for dynamic filtering",
+                        featuresConfig.getDynamicFilteringBloomFilterRowLimitPerDriver(),
+                        false),
                 booleanProperty(
                         FRAGMENT_RESULT_CACHING_ENABLED,
                         "Enable fragment result caching and read/write leaf fragment result pages from/to cache when applicable",
@@ -1885,7 +1902,66 @@ public final class SystemSessionProperties
                 booleanProperty(ADD_EXCHANGE_BELOW_PARTIAL_AGGREGATION_OVER_GROUP_ID,
                         "Enable adding an exchange below partial aggregation over a GroupId node to improve partial aggregation performance",
                         featuresConfig.getAddExchangeBelowPartialAggregationOverGroupId(),
-                        false));
+                        false),
+                booleanProperty(
+                        FLAT_GROUP_BY_HASH_ENABLED,
+                        "Use a flat, row oriented hash table for group by keys of fixed width and varchar types",
+                        featuresConfig.isFlatGroupByHashEnabled(),
+                        false),
+                booleanProperty(
+                        BATCHED_JOIN_PROBE_ENABLED,
+                        "Look up the join positions of a whole probe page at once instead of one row at a time",
+                        featuresConfig.isBatchedJoinProbeEnabled(),
+                        false),
+                booleanProperty(
+                        RADIX_PARTITIONED_HASH_BUILD_ENABLED,
+                        "Scatter the build side rows into cache sized radix partitions of the hash table before inserting them",
+                        featuresConfig.isRadixPartitionedHashBuildEnabled(),
+                        false),
+                booleanProperty(
+                        WINDOW_SEGMENT_TREE_AGGREGATION_ENABLED,
+                        "Evaluate aggregations over sliding window frames by combining partial results from a segment tree",
+                        featuresConfig.isWindowSegmentTreeAggregationEnabled(),
+                        false),
+                booleanProperty(
+                        ORDER_BY_PARALLEL_SORT_ENABLED,
+                        "Sort the input of ORDER BY as multiple runs in parallel and merge them",
+                        featuresConfig.isOrderByParallelSortEnabled(),
+                        false),
+                booleanProperty(
+                        EXCHANGE_COMPRESSION_ADAPTIVE_ENABLED,
+                        "Sample the exchange compression ratio per stream, skip compression for streams that do not shrink and switch to ZSTD where it compresses much better",
+                        featuresConfig.isExchangeCompressionAdaptiveEnabled(),
+                        false),
+                booleanProperty(
+                        EXCHANGE_STREAMING_ENABLED,
+                        "Read the results of remote tasks through one multiplexed exchange stream per node instead of one request per task",
+                        featuresConfig.isExchangeStreamingEnabled(),
+                        false),
+                booleanProperty(
+                        LOCAL_EXCHANGE_PARTITION_REBALANCING_ENABLED,
+                        "Spread overloaded partitions of local hash exchanges across more drivers when the consumer does not need all rows of a key",
+                        featuresConfig.isLocalExchangePartitionRebalancingEnabled(),
+                        false),
+                booleanProperty(
+                        SKEWED_JOIN_SALTING_ENABLED,
+                        "Spread the rows of hot join keys found in the column histograms across partitions by salting them",
+                        featuresConfig.isSkewedJoinSaltingEnabled(),
+                        false),
+                doubleProperty(
+                        SKEWED_JOIN_KEY_MIN_FRACTION,
+                        "Minimum fraction of the probe rows that a join key must have to be salted",
+                        featuresConfig.getSkewedJoinKeyMinFraction(),
+                        false),
+                new PropertyMetadata<>(
+                        JOIN_SPILL_PARTITION_FANOUT,
+                        "Number of sub-partitions a spilled join build partition is split into, so that it can be unspilled in parts",
+                        INTEGER,
+                        Integer.class,
+                        featuresConfig.getJoinSpillPartitionFanout(),
+                        false,
+                        value -> validateValueIsPowerOfTwo(requireNonNull(value, "value is null"), JOIN_SPILL_PARTITION_FANOUT),
+                        value -> value));
     }
 
     public static boolean isSpoolingOutputBufferEnabled(Session session)
@@ -2659,6 +2735,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(DYNAMIC_FILTERING_RANGE_ROW_LIMIT_PER_DRIVER, Integer.class);
     }
 
+    public static int getDynamicFilteringBloomFilterRowLimitPerDriver(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_BLOOM_FILTER_ROW_LIMIT_PER_DRIVER, Integer.class);
+    }
+
     public static boolean isFragmentResultCachingEnabled(Session session)
     {
         return session.getSystemProperty(FRAGMENT_RESULT_CACHING_ENABLED, Boolean.class);
@@ -3211,4 +3292,59 @@ public final class SystemSessionProperties
     {
         return session.getSystemProperty(CANONICALIZED_JSON_EXTRACT, Boolean.class);
     }
+
+    public static boolean isFlatGroupByHashEnabled(Session session)
+    {
+        return session.getSystemProperty(FLAT_GROUP_BY_HASH_ENABLED, Boolean.class);
+    }
+
+    public static boolean isBatchedJoinProbeEnabled(Session session)
+    {
+        return session.getSystemProperty(BATCHED_JOIN_PROBE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isRadixPartitionedHashBuildEnabled(Session session)
+    {
+        return session.getSystemProperty(RADIX_PARTITIONED_HASH_BUILD_ENABLED, Boolean.class);
+    }
+
+    public static boolean isWindowSegmentTreeAggregationEnabled(Session session)
+    {
+        return session.getSystemProperty(WINDOW_SEGMENT_TREE_AGGREGATION_ENABLED, Boolean.class);
+    }
+
+    public static boolean isOrderByParallelSortEnabled(Session session)
+    {
+        return session.getSystemProperty(ORDER_BY_PARALLEL_SORT_ENABLED, Boolean.class);
+    }
+
+    public static boolean isExchangeCompressionAdaptiveEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_ADAPTIVE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isExchangeStreamingEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_STREAMING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isLocalExchangePartitionRebalancingEnabled(Session session)
+    {
+        return session.getSystemProperty(LOCAL_EXCHANGE_PARTITION_REBALANCING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isSkewedJoinSaltingEnabled(Session session)
+    {
+        return session.getSystemProperty(SKEWED_JOIN_SALTING_ENABLED, Boolean.class);
+    }
+
+    public static double getSkewedJoinKeyMinFraction(Session session)
+    {
+        return session.getSystemProperty(SKEWED_JOIN_KEY_MIN_FRACTION, Double.class);
+    }
+
+    public static int getJoinSpillPartitionFanout(Session session)
+    {
+        return session.getSystemProperty(JOIN_SPILL_PARTITION_FANOUT, Integer.class);
+    }
 }
@@ -65,6 +65,7 @@ import java.util.stream.Collectors;
 
 import static com.facebook.presto.SystemSessionProperties.getInitialSplitsPerNode;
 import static com.facebook.presto.SystemSessionProperties.getMaxDriversPerTask;
+import static com.facebook.presto.SystemSessionProperties.getQueryPriority;
 import static com.facebook.presto.SystemSessionProperties.getSplitConcurrencyAdjustmentInterval;
 import static com.facebook.presto.execution.SqlTaskExecution.SplitsState.ADDING_SPLITS;
 import static com.facebook.presto.execution.SqlTaskExecution.SplitsState.FINISHED;
@@ -264,7 +265,8 @@ public class SqlTaskExecution
                 outputBuffer::getUtilization,
                 getInitialSplitsPerNode(taskContext.getSession()),
                 getSplitConcurrencyAdjustmentInterval(taskContext.getSession()),
-                getMaxDriversPerTask(taskContext.getSession()));
+                getMaxDriversPerTask(taskContext.getSession()),
+                getQueryPriority(taskContext.getSession()));
         taskStateMachine.addStateChangeListener(state -> {
             if (state.isDone()) {
                 taskExecutor.removeTask(taskHandle);
@@ -937,6 +939,10 @@ public class SqlTaskExecution
             // the number of drivers is used to balance work across nodes
             long splitWeight = partitionedSplit == null ? 0 : partitionedSplit.getSplit().getSplitWeight().getRawValue();
             DriverContext driverContext = pipelineContext.addDriverContext(splitWeight, lifespan, driverFactory.getFragmentResultCacheContext());
+            if (partitionedSplit != null) {
+                // the split may wait in the queue for a while, give the connector a head start on its first reads
+                driverFactory.prefetchSplit(taskContext.getSession(), partitionedSplit.getSplit());
+            }
             return new DriverSplitRunner(this, driverContext, partitionedSplit, lifespan);
         }
 
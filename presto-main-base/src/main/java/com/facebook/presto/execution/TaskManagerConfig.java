@@ -89,6 +89,9 @@ public class TaskManagerConfig
 
     private boolean legacyLifespanCompletionCondition;
     private TaskPriorityTracking taskPriorityTracking = TaskPriorityTracking.TASK_FAIR;
+    private SplitSchedulingPolicy splitSchedulingPolicy = SplitSchedulingPolicy.MULTILEVEL;
+    private boolean workStealingEnabled;
+    private Duration blockedSplitSpinTime = new Duration(0, TimeUnit.MILLISECONDS);
 
     private Duration interruptRunawaySplitsTimeout = new Duration(600, SECONDS);
 
@@ -588,6 +591,54 @@ public class TaskManagerConfig
         QUERY_FAIR,
     }
 
+    @NotNull
+    public SplitSchedulingPolicy getSplitSchedulingPolicy()
+    {
+        return splitSchedulingPolicy;
+    }
+
+    @Config("task.split-scheduling-policy")
+    @ConfigDescription("Policy used to pick the next split for a runner thread: MULTILEVEL feedback queue or WEIGHTED_FAIR queueing by query")
+    public TaskManagerConfig setSplitSchedulingPolicy(SplitSchedulingPolicy splitSchedulingPolicy)
+    {
+        this.splitSchedulingPolicy = splitSchedulingPolicy;
+        return this;
+    }
+
+    public boolean isWorkStealingEnabled()
+    {
+        return workStealingEnabled;
+    }
+
+    @Config("task.work-stealing-enabled")
+    @ConfigDescription("Run unblocked splits on the runner thread that last ran them, idle runner threads steal them from busy ones")
+    public TaskManagerConfig setWorkStealingEnabled(boolean workStealingEnabled)
+    {
+        this.workStealingEnabled = workStealingEnabled;
+        return this;
+    }
+
+    @NotNull
+    @MaxDuration("1ms")
+    public Duration getBlockedSplitSpinTime()
+    {
+        return blockedSplitSpinTime;
+    }
+
+    @Config("task.blocked-split-spin-time")
+    @ConfigDescription("Time a runner thread spins on a blocked split before it hands the split off to be woken up")
+    public TaskManagerConfig setBlockedSplitSpinTime(Duration blockedSplitSpinTime)
+    {
+        this.blockedSplitSpinTime = blockedSplitSpinTime;
+        return this;
+    }
+
+    public enum SplitSchedulingPolicy
+    {
+        MULTILEVEL,
+        WEIGHTED_FAIR,
+    }
+
     @MinDuration("1s")
     public Duration getInterruptRunawaySplitsTimeout()
     {
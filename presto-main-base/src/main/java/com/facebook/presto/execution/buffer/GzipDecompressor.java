@@ -53,6 +53,12 @@ public class GzipDecompressor
     @Override
     public void decompress(ByteBuffer input, ByteBuffer output) throws MalformedInputException
     {
+        if (!input.hasArray()) {
+            // e.g. a memory mapped spill file
+            byte[] bytes = new byte[input.remaining()];
+            input.duplicate().get(bytes);
+            input = ByteBuffer.wrap(bytes);
+        }
         int inputOffset = input.arrayOffset() + input.position();
         int outputOffset = output.arrayOffset() + output.position();
         int written = decompress(input.array(), inputOffset, input.remaining(), output.array(), outputOffset, output.remaining());
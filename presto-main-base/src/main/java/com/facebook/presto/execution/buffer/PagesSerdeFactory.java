@@ -38,6 +38,7 @@ public class PagesSerdeFactory
     private final BlockEncodingSerde blockEncodingSerde;
     private final CompressionCodec compressionCodec;
     private final boolean checksumEnabled;
+    private final boolean adaptiveCompressionEnabled;
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, CompressionCodec compressionCodec)
     {
@@ -45,10 +46,16 @@ public class PagesSerdeFactory
     }
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, CompressionCodec compressionCodec, boolean checksumEnabled)
+    {
+        this(blockEncodingSerde, compressionCodec, checksumEnabled, false);
+    }
+
+    public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, CompressionCodec compressionCodec, boolean checksumEnabled, boolean adaptiveCompressionEnabled)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
         this.checksumEnabled = checksumEnabled;
+        this.adaptiveCompressionEnabled = adaptiveCompressionEnabled;
     }
 
     public PagesSerde createPagesSerde()
@@ -63,10 +70,23 @@ public class PagesSerdeFactory
 
     private PagesSerde createPagesSerdeInternal(Optional<SpillCipher> spillCipher)
     {
-        return new PagesSerde(blockEncodingSerde, getPageCompressor(), getPageDecompressor(), spillCipher, checksumEnabled);
+        if (adaptiveCompressionEnabled && compressionCodec != CompressionCodec.NONE) {
+            // the alternate codec trades compression speed for a better ratio
+            CompressionCodec alternateCodec = compressionCodec == CompressionCodec.ZSTD ? CompressionCodec.NONE : CompressionCodec.ZSTD;
+            return new PagesSerde(
+                    blockEncodingSerde,
+                    getPageCompressor(compressionCodec),
+                    getPageDecompressor(compressionCodec),
+                    getPageCompressor(alternateCodec),
+                    getPageDecompressor(alternateCodec),
+                    spillCipher,
+                    checksumEnabled,
+                    true);
+        }
+        return new PagesSerde(blockEncodingSerde, getPageCompressor(compressionCodec), getPageDecompressor(compressionCodec), spillCipher, checksumEnabled);
     }
 
-    private Optional<PageCompressor> getPageCompressor()
+    private static Optional<PageCompressor> getPageCompressor(CompressionCodec compressionCodec)
     {
         switch (compressionCodec) {
             case GZIP:
@@ -87,7 +107,7 @@ public class PagesSerdeFactory
         }
     }
 
-    private Optional<PageDecompressor> getPageDecompressor()
+    private static Optional<PageDecompressor> getPageDecompressor(CompressionCodec compressionCodec)
     {
         switch (compressionCodec) {
             case GZIP:
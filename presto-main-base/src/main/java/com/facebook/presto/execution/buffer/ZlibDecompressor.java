@@ -50,7 +50,13 @@ public class ZlibDecompressor
     public void decompress(ByteBuffer input, ByteBuffer output)
             throws MalformedInputException
     {
-        if (input.isDirect() || output.isDirect() || !input.hasArray() || !output.hasArray()) {
+        if (!input.hasArray()) {
+            // e.g. a memory mapped spill file
+            byte[] bytes = new byte[input.remaining()];
+            input.duplicate().get(bytes);
+            input = ByteBuffer.wrap(bytes);
+        }
+        if (output.isDirect() || !output.hasArray()) {
             throw new IllegalArgumentException("Non-direct byte buffer backed by byte array required");
         }
         int inputOffset = input.arrayOffset() + input.position();
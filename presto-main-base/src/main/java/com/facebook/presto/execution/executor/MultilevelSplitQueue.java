@@ -15,6 +15,7 @@ package com.facebook.presto.execution.executor;
 
 import com.facebook.airlift.stats.CounterStat;
 import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.spi.QueryId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import org.weakref.jmx.Managed;
@@ -39,6 +40,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 
 @ThreadSafe
 public class MultilevelSplitQueue
+        implements SplitQueue
 {
     static final int[] LEVEL_THRESHOLD_SECONDS = {0, 1, 10, 60, 300};
     static final long LEVEL_CONTRIBUTION_CAP = SECONDS.toNanos(30);
@@ -95,6 +97,7 @@ public class MultilevelSplitQueue
      * To prevent this we set the scheduled time for levels which were empty to the expected
      * scheduled time.
      */
+    @Override
     public void offer(PrioritizedSplitRunner split)
     {
         checkArgument(split != null, "split is null");
@@ -122,6 +125,7 @@ public class MultilevelSplitQueue
         }
     }
 
+    @Override
     public PrioritizedSplitRunner take()
             throws InterruptedException
     {
@@ -214,7 +218,8 @@ public class MultilevelSplitQueue
      *
      * @return the new priority for the task
      */
-    public Priority updatePriority(Priority oldPriority, long quantaNanos, long scheduledNanos)
+    @Override
+    public Priority updatePriority(QueryId queryId, Priority oldPriority, long quantaNanos, long scheduledNanos)
     {
         int oldLevel = oldPriority.getLevel();
         int newLevel = computeLevel(scheduledNanos);
@@ -244,6 +249,7 @@ public class MultilevelSplitQueue
         return new Priority(newLevel, newLevelMinPriority + remainingTaskTime);
     }
 
+    @Override
     public void remove(PrioritizedSplitRunner split)
     {
         checkArgument(split != null, "split is null");
@@ -258,6 +264,7 @@ public class MultilevelSplitQueue
         }
     }
 
+    @Override
     public void removeAll(Collection<PrioritizedSplitRunner> splits)
     {
         lock.lock();
@@ -271,12 +278,14 @@ public class MultilevelSplitQueue
         }
     }
 
+    @Override
     public long getLevelMinPriority(int level, long taskThreadUsageNanos)
     {
         levelMinPriority[level].compareAndSet(-1, taskThreadUsageNanos);
         return levelMinPriority[level].get();
     }
 
+    @Override
     public int size()
     {
         lock.lock();
@@ -61,6 +61,7 @@ public class PrioritizedSplitRunner
 
     protected final AtomicLong lastRun = new AtomicLong();
     private final AtomicLong lastReady = new AtomicLong();
+    private final AtomicLong lastUnblocked = new AtomicLong(-1);
     private final AtomicLong start = new AtomicLong();
 
     private final AtomicLong scheduledNanos = new AtomicLong();
@@ -198,6 +199,28 @@ public class PrioritizedSplitRunner
         lastReady.set(ticker.read());
     }
 
+    public void setUnblocked()
+    {
+        lastUnblocked.set(ticker.read());
+    }
+
+    /**
+     * Returns the time since the split was unblocked and clears it, or -1 if the split was not blocked.
+     */
+    public long takeWakeupNanos()
+    {
+        long unblocked = lastUnblocked.getAndSet(-1);
+        return unblocked < 0 ? -1 : ticker.read() - unblocked;
+    }
+
+    /**
+     * Time since the split became ready to run.
+     */
+    public long getQueuedNanos()
+    {
+        return ticker.read() - lastReady.get();
+    }
+
     /**
      * Updates the (potentially stale) priority value cached in this object.
      * This should be called when this object is outside the queue.
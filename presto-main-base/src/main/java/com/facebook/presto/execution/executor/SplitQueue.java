@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.facebook.presto.spi.QueryId;
+
+import java.util.Collection;
+
+/**
+ * The split scheduling policy of the {@link TaskExecutor}: holds the splits that wait for a runner
+ * thread and decides which split runs next.
+ * <p>
+ * The priority of a split is maintained by the {@link TaskPriorityTracker} of its task (or query),
+ * which charges the scheduled time of every quanta to the queue through {@link #updatePriority}.
+ */
+public interface SplitQueue
+{
+    void offer(PrioritizedSplitRunner split);
+
+    PrioritizedSplitRunner take()
+            throws InterruptedException;
+
+    /**
+     * Charges a quanta of the given query to the queue.
+     *
+     * @return the new priority for the task
+     */
+    Priority updatePriority(QueryId queryId, Priority oldPriority, long quantaNanos, long scheduledNanos);
+
+    long getLevelMinPriority(int level, long taskThreadUsageNanos);
+
+    void remove(PrioritizedSplitRunner split);
+
+    void removeAll(Collection<PrioritizedSplitRunner> splits);
+
+    int size();
+}
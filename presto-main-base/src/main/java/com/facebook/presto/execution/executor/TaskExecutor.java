@@ -46,6 +46,7 @@ import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -55,12 +56,14 @@ import java.util.OptionalInt;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.DoubleSupplier;
@@ -100,6 +103,9 @@ public class TaskExecutor
 
     private static final AtomicLong NEXT_RUNNER_ID = new AtomicLong();
 
+    // a runner thread goes back to the split queue after running this many splits from the local queues in a row
+    private static final int MAX_CONSECUTIVE_LOCAL_SPLITS = 16;
+
     private final ExecutorService executor;
     private final ThreadPoolExecutorMBean executorMBean;
 
@@ -115,6 +121,9 @@ public class TaskExecutor
     private final Predicate<List<StackTraceElement>> interruptibleSplitPredicate;
     private final Duration interruptSplitInterval;
 
+    private final boolean workStealingEnabled;
+    private final long blockedSplitSpinNanos;
+
     private final ScheduledExecutorService splitMonitorExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("TaskExecutor"));
     private final SortedSet<RunningSplitInfo> runningSplitInfos = new ConcurrentSkipListSet<>();
 
@@ -136,7 +145,7 @@ public class TaskExecutor
     /**
      * Splits waiting for a runner thread.
      */
-    private final MultilevelSplitQueue waitingSplits;
+    private final SplitQueue waitingSplits;
 
     /**
      * Per query priority trackers
@@ -153,6 +162,23 @@ public class TaskExecutor
      */
     private final Map<PrioritizedSplitRunner, Future<?>> blockedSplits = new ConcurrentHashMap<>();
 
+    /**
+     * Runner threads, each with a local queue of the splits it ran that were unblocked while it was busy.
+     */
+    private final Set<TaskRunner> taskRunners = newConcurrentHashSet();
+
+    /**
+     * Number of runner threads that found no local or stealable split and wait on the split queue.
+     * Splits unblocked while a runner is idle go to the split queue so that the idle runner picks them up.
+     */
+    private final AtomicInteger idleRunners = new AtomicInteger();
+
+    /**
+     * Incremented whenever a split is queued to run. Spinning runners watch it to notice new work
+     * without taking the split queue lock.
+     */
+    private final AtomicLong queuedSplitsVersion = new AtomicLong();
+
     private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(5);
     private final AtomicLongArray completedSplitsPerLevel = new AtomicLongArray(5);
 
@@ -179,12 +205,18 @@ public class TaskExecutor
     private final TimeStat blockedQuantaWallTime = new TimeStat(MICROSECONDS);
     private final TimeStat unblockedQuantaWallTime = new TimeStat(MICROSECONDS);
 
+    private final CounterStat blockedSplitHandoffs = new CounterStat();
+    private final CounterStat blockedSplitLocalWakeups = new CounterStat();
+    private final CounterStat blockedSplitSpinWakeups = new CounterStat();
+    private final CounterStat splitSteals = new CounterStat();
+    private final TimeDistribution blockedSplitWakeupLatency = new TimeDistribution(MICROSECONDS);
+
     private volatile boolean closed;
 
     private volatile boolean lowMemory;
 
     @Inject
-    public TaskExecutor(TaskManagerConfig config, EmbedVersion embedVersion, MultilevelSplitQueue splitQueue)
+    public TaskExecutor(TaskManagerConfig config, EmbedVersion embedVersion, SplitQueue splitQueue)
     {
         this(requireNonNull(config, "config is null").getMaxWorkerThreads(),
                 config.getMinDrivers(),
@@ -196,7 +228,9 @@ public class TaskExecutor
                 DEFAULT_INTERRUPT_SPLIT_INTERVAL,
                 embedVersion,
                 splitQueue,
-                Ticker.systemTicker());
+                Ticker.systemTicker(),
+                config.isWorkStealingEnabled(),
+                config.getBlockedSplitSpinTime());
     }
 
     @VisibleForTesting
@@ -228,7 +262,7 @@ public class TaskExecutor
             int guaranteedNumberOfDriversPerTask,
             int maximumNumberOfDriversPerTask,
             TaskPriorityTracking taskPriorityTracking,
-            MultilevelSplitQueue splitQueue,
+            SplitQueue splitQueue,
             Ticker ticker)
     {
         this(
@@ -256,8 +290,40 @@ public class TaskExecutor
             Predicate<List<StackTraceElement>> interruptibleSplitPredicate,
             Duration interruptSplitInterval,
             EmbedVersion embedVersion,
-            MultilevelSplitQueue splitQueue,
+            SplitQueue splitQueue,
             Ticker ticker)
+    {
+        this(
+                runnerThreads,
+                minDrivers,
+                guaranteedNumberOfDriversPerTask,
+                maximumNumberOfDriversPerTask,
+                taskPriorityTracking,
+                interruptRunawaySplitsTimeout,
+                interruptibleSplitPredicate,
+                interruptSplitInterval,
+                embedVersion,
+                splitQueue,
+                ticker,
+                false,
+                new Duration(0, SECONDS));
+    }
+
+    @VisibleForTesting
+    public TaskExecutor(
+            int runnerThreads,
+            int minDrivers,
+            int guaranteedNumberOfDriversPerTask,
+            int maximumNumberOfDriversPerTask,
+            TaskPriorityTracking taskPriorityTracking,
+            Duration interruptRunawaySplitsTimeout,
+            Predicate<List<StackTraceElement>> interruptibleSplitPredicate,
+            Duration interruptSplitInterval,
+            EmbedVersion embedVersion,
+            SplitQueue splitQueue,
+            Ticker ticker,
+            boolean workStealingEnabled,
+            Duration blockedSplitSpinTime)
     {
         checkArgument(runnerThreads > 0, "runnerThreads must be at least 1");
         checkArgument(guaranteedNumberOfDriversPerTask > 0, "guaranteedNumberOfDriversPerTask must be at least 1");
@@ -281,12 +347,12 @@ public class TaskExecutor
         Function<QueryId, TaskPriorityTracker> taskPriorityTrackerFactory;
         switch (taskPriorityTracking) {
             case TASK_FAIR:
-                taskPriorityTrackerFactory = (queryId) -> new TaskPriorityTracker(splitQueue);
+                taskPriorityTrackerFactory = (queryId) -> new TaskPriorityTracker(queryId, splitQueue);
                 break;
             case QUERY_FAIR:
                 LoadingCache<QueryId, TaskPriorityTracker> cache = CacheBuilder.newBuilder()
                         .weakValues()
-                        .build(CacheLoader.from(queryId -> new TaskPriorityTracker(splitQueue)));
+                        .build(CacheLoader.from(queryId -> new TaskPriorityTracker(queryId, splitQueue)));
                 taskPriorityTrackerFactory = cache::getUnchecked;
                 break;
             default:
@@ -297,6 +363,8 @@ public class TaskExecutor
         this.interruptRunawaySplitsTimeout = interruptRunawaySplitsTimeout;
         this.interruptibleSplitPredicate = interruptibleSplitPredicate;
         this.interruptSplitInterval = interruptSplitInterval;
+        this.workStealingEnabled = workStealingEnabled;
+        this.blockedSplitSpinNanos = requireNonNull(blockedSplitSpinTime, "blockedSplitSpinTime is null").roundTo(NANOSECONDS);
     }
 
     @PostConstruct
@@ -327,9 +395,10 @@ public class TaskExecutor
                 .add("runnerThreads", runnerThreads)
                 .add("allSplits", allSplits.size())
                 .add("intermediateSplits", intermediateSplits.size())
-                .add("waitingSplits", waitingSplits.size())
+                .add("waitingSplits", getWaitingSplits())
                 .add("runningSplits", runningSplits.size())
                 .add("blockedSplits", blockedSplits.size())
+                .add("locallyQueuedSplits", getLocallyQueuedSplits())
                 .toString();
     }
 
@@ -342,12 +411,23 @@ public class TaskExecutor
         }
     }
 
-    public synchronized TaskHandle addTask(
+    public TaskHandle addTask(
             TaskId taskId,
             DoubleSupplier utilizationSupplier,
             int initialSplitConcurrency,
             Duration splitConcurrencyAdjustFrequency,
             OptionalInt maxDriversPerTask)
+    {
+        return addTask(taskId, utilizationSupplier, initialSplitConcurrency, splitConcurrencyAdjustFrequency, maxDriversPerTask, 1);
+    }
+
+    public synchronized TaskHandle addTask(
+            TaskId taskId,
+            DoubleSupplier utilizationSupplier,
+            int initialSplitConcurrency,
+            Duration splitConcurrencyAdjustFrequency,
+            OptionalInt maxDriversPerTask,
+            int schedulingWeight)
     {
         requireNonNull(taskId, "taskId is null");
         requireNonNull(utilizationSupplier, "utilizationSupplier is null");
@@ -362,7 +442,8 @@ public class TaskExecutor
                 utilizationSupplier,
                 initialSplitConcurrency,
                 splitConcurrencyAdjustFrequency,
-                maxDriversPerTask);
+                maxDriversPerTask,
+                schedulingWeight);
 
         tasks.add(taskHandle);
         return taskHandle;
@@ -543,7 +624,7 @@ public class TaskExecutor
     private synchronized void startSplit(PrioritizedSplitRunner split)
     {
         allSplits.add(split);
-        waitingSplits.offer(split);
+        offerSplit(split);
     }
 
     private synchronized PrioritizedSplitRunner pollNextSplitWorker()
@@ -595,20 +676,35 @@ public class TaskExecutor
     {
         private final long runnerId = NEXT_RUNNER_ID.getAndIncrement();
 
+        // splits that were unblocked while all runners were busy, the runner takes them LIFO, others steal them FIFO
+        private final Deque<PrioritizedSplitRunner> localSplits = new ConcurrentLinkedDeque<>();
+        // set after the runner exits, so that unblocked splits are not left in its local queue
+        private volatile boolean exited;
+        private int consecutiveLocalSplits;
+
         @Override
         public void run()
         {
+            taskRunners.add(this);
             try (SetThreadName runnerName = new SetThreadName("SplitRunner-%s", runnerId)) {
                 while (!closed && !Thread.currentThread().isInterrupted()) {
                     // select next worker
                     final PrioritizedSplitRunner split;
                     try {
-                        split = waitingSplits.take();
+                        split = nextSplit();
                     }
                     catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
                         return;
                     }
+                    if (split.getTaskHandle().isDestroyed()) {
+                        // the split was in a local queue when its task was removed
+                        continue;
+                    }
+                    long wakeupNanos = split.takeWakeupNanos();
+                    if (wakeupNanos >= 0) {
+                        blockedSplitWakeupLatency.add(wakeupNanos);
+                    }
 
                     String threadId = split.getTaskHandle().getTaskId() + "-" + split.getSplitId();
                     try (SetThreadName splitName = new SetThreadName(threadId)) {
@@ -634,15 +730,31 @@ public class TaskExecutor
                         }
                         else {
                             if (blocked.isDone()) {
-                                waitingSplits.offer(split);
+                                offerSplit(split);
+                            }
+                            else if (spinUntilDone(blocked)) {
+                                // nothing else is ready to run and the split was blocked briefly,
+                                // keep it on this thread instead of handing it off
+                                blockedSplitSpinWakeups.update(1);
+                                split.setUnblocked();
+                                split.resetLevelPriority();
+                                if (workStealingEnabled) {
+                                    split.setReady();
+                                    localSplits.addFirst(split);
+                                    queuedSplitsVersion.incrementAndGet();
+                                }
+                                else {
+                                    offerSplit(split);
+                                }
                             }
                             else {
                                 blockedSplits.put(split, blocked);
                                 blocked.addListener(() -> {
                                     blockedSplits.remove(split);
+                                    split.setUnblocked();
                                     // reset the level priority to prevent previously-blocked splits from starving existing splits
                                     split.resetLevelPriority();
-                                    waitingSplits.offer(split);
+                                    wakeup(split);
                                 }, executor);
                             }
                         }
@@ -674,12 +786,123 @@ public class TaskExecutor
                 }
             }
             finally {
+                // splits that are unblocked from now on go to the split queue
+                exited = true;
+                taskRunners.remove(this);
+                flushLocalSplits();
                 // unless we have been closed, we need to replace this thread
                 if (!closed) {
                     addRunnerThread();
                 }
             }
         }
+
+        private PrioritizedSplitRunner nextSplit()
+                throws InterruptedException
+        {
+            if (workStealingEnabled && consecutiveLocalSplits < MAX_CONSECUTIVE_LOCAL_SPLITS) {
+                PrioritizedSplitRunner split = localSplits.pollFirst();
+                if (split == null) {
+                    split = steal();
+                }
+                if (split != null) {
+                    consecutiveLocalSplits++;
+                    return split;
+                }
+            }
+
+            // move the local splits to the split queue, where they compete with the other splits
+            consecutiveLocalSplits = 0;
+            flushLocalSplits();
+            if (!workStealingEnabled) {
+                return waitingSplits.take();
+            }
+
+            // announce the runner as idle before looking at the other runners for the last time: a split
+            // that is unblocked concurrently is either seen here or sent to the split queue by wakeup
+            idleRunners.incrementAndGet();
+            try {
+                PrioritizedSplitRunner split = steal();
+                if (split != null) {
+                    return split;
+                }
+                return waitingSplits.take();
+            }
+            finally {
+                idleRunners.decrementAndGet();
+            }
+        }
+
+        private PrioritizedSplitRunner steal()
+        {
+            for (TaskRunner runner : taskRunners) {
+                if (runner != this) {
+                    PrioritizedSplitRunner split = runner.localSplits.pollLast();
+                    if (split != null) {
+                        splitSteals.update(1);
+                        return split;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void wakeup(PrioritizedSplitRunner split)
+        {
+            // an idle runner waits on the split queue, it runs the split right away
+            if (!workStealingEnabled || exited || idleRunners.get() > 0) {
+                blockedSplitHandoffs.update(1);
+                offerSplit(split);
+                return;
+            }
+
+            split.setReady();
+            localSplits.addFirst(split);
+            queuedSplitsVersion.incrementAndGet();
+            // a runner may have become idle, or this one may have exited, after the check
+            if ((exited || idleRunners.get() > 0) && localSplits.removeFirstOccurrence(split)) {
+                blockedSplitHandoffs.update(1);
+                offerSplit(split);
+            }
+            else {
+                blockedSplitLocalWakeups.update(1);
+            }
+        }
+
+        private void flushLocalSplits()
+        {
+            PrioritizedSplitRunner split;
+            while ((split = localSplits.pollLast()) != null) {
+                offerSplit(split);
+            }
+        }
+    }
+
+    private void offerSplit(PrioritizedSplitRunner split)
+    {
+        waitingSplits.offer(split);
+        queuedSplitsVersion.incrementAndGet();
+    }
+
+    private boolean spinUntilDone(ListenableFuture<?> blocked)
+    {
+        if (blockedSplitSpinNanos == 0) {
+            return false;
+        }
+        // read the version before checking the queues, so that a split queued after the check is noticed while spinning
+        long version = queuedSplitsVersion.get();
+        // spinning only pays off when the thread has nothing else to run
+        if (waitingSplits.size() > 0 || getLocallyQueuedSplits() > 0) {
+            return false;
+        }
+        long start = System.nanoTime();
+        while (!blocked.isDone()) {
+            // give up as soon as other splits become ready
+            if (queuedSplitsVersion.get() != version || System.nanoTime() - start >= blockedSplitSpinNanos) {
+                return false;
+            }
+        }
+        return true;
     }
 
     //
@@ -719,7 +942,7 @@ public class TaskExecutor
     @Managed
     public int getWaitingSplits()
     {
-        return waitingSplits.size();
+        return waitingSplits.size() + getLocallyQueuedSplits();
     }
 
     @Managed
@@ -734,6 +957,51 @@ public class TaskExecutor
         return blockedSplits.size();
     }
 
+    @Managed
+    public int getLocallyQueuedSplits()
+    {
+        int count = 0;
+        for (TaskRunner runner : taskRunners) {
+            count += runner.localSplits.size();
+        }
+        return count;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBlockedSplitHandoffs()
+    {
+        return blockedSplitHandoffs;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBlockedSplitLocalWakeups()
+    {
+        return blockedSplitLocalWakeups;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBlockedSplitSpinWakeups()
+    {
+        return blockedSplitSpinWakeups;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSplitSteals()
+    {
+        return splitSteals;
+    }
+
+    @Managed
+    @Nested
+    public TimeDistribution getBlockedSplitWakeupLatency()
+    {
+        return blockedSplitWakeupLatency;
+    }
+
     @Managed
     public long getCompletedTasksLevel0()
     {
@@ -30,6 +30,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.DoubleSupplier;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -40,6 +41,7 @@ public class TaskHandle
     private final DoubleSupplier utilizationSupplier;
     private final TaskPriorityTracker priorityTracker;
     private final OptionalInt maxDriversPerTask;
+    private final int schedulingWeight;
 
     @GuardedBy("this")
     protected final Queue<PrioritizedSplitRunner> queuedLeafSplits = new ArrayDeque<>(10);
@@ -58,12 +60,15 @@ public class TaskHandle
             DoubleSupplier utilizationSupplier,
             int initialSplitConcurrency,
             Duration splitConcurrencyAdjustFrequency,
-            OptionalInt maxDriversPerTask)
+            OptionalInt maxDriversPerTask,
+            int schedulingWeight)
     {
+        checkArgument(schedulingWeight > 0, "schedulingWeight must be positive");
         this.taskId = requireNonNull(taskId, "taskId is null");
         this.utilizationSupplier = requireNonNull(utilizationSupplier, "utilizationSupplier is null");
         this.priorityTracker = requireNonNull(priorityTracker, "queryPriorityTracker is null");
         this.maxDriversPerTask = requireNonNull(maxDriversPerTask, "maxDriversPerTask is null");
+        this.schedulingWeight = schedulingWeight;
         this.concurrencyController = new SplitConcurrencyController(
                 initialSplitConcurrency,
                 requireNonNull(splitConcurrencyAdjustFrequency, "splitConcurrencyAdjustFrequency is null"));
@@ -100,6 +105,14 @@ public class TaskHandle
         return maxDriversPerTask;
     }
 
+    /**
+     * Relative share of the runner threads for the query of the task, if the split queue is weighted.
+     */
+    public int getSchedulingWeight()
+    {
+        return schedulingWeight;
+    }
+
     // Returns any remaining splits. The caller must destroy these.
     public synchronized List<PrioritizedSplitRunner> destroy()
     {
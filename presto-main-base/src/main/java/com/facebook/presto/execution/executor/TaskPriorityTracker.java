@@ -13,21 +13,25 @@
  */
 package com.facebook.presto.execution.executor;
 
+import com.facebook.presto.spi.QueryId;
+
 import javax.annotation.concurrent.GuardedBy;
 
 import static java.util.Objects.requireNonNull;
 
 public class TaskPriorityTracker
 {
-    private final MultilevelSplitQueue splitQueue;
+    private final QueryId queryId;
+    private final SplitQueue splitQueue;
 
     @GuardedBy("this")
     private long scheduledNanos;
     @GuardedBy("this")
     private volatile Priority priority = new Priority(0, 0);
 
-    public TaskPriorityTracker(MultilevelSplitQueue splitQueue)
+    public TaskPriorityTracker(QueryId queryId, SplitQueue splitQueue)
     {
+        this.queryId = requireNonNull(queryId, "queryId is null");
         this.splitQueue = requireNonNull(splitQueue, "splitQueue is null");
     }
 
@@ -35,7 +39,7 @@ public class TaskPriorityTracker
     {
         scheduledNanos += durationNanos;
 
-        Priority newPriority = splitQueue.updatePriority(priority, durationNanos, scheduledNanos);
+        Priority newPriority = splitQueue.updatePriority(queryId, priority, durationNanos, scheduledNanos);
 
         priority = newPriority;
         return newPriority;
@@ -0,0 +1,394 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.facebook.airlift.stats.TimeDistribution;
+import com.facebook.presto.spi.QueryId;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Weighted fair queueing of splits by query.
+ * <p>
+ * Every query has a virtual time, which is the scheduled time charged to the query divided by its
+ * weight (the query priority). The next split is taken from the waiting query with the lowest
+ * virtual time, so each query with waiting splits gets a share of the runner threads that is
+ * proportional to its weight, regardless of how many tasks and splits it runs on this node. Within a
+ * query, the splits are ordered by the priority of their task, like in a level of the
+ * {@link MultilevelSplitQueue}.
+ * <p>
+ * A query that becomes ready after waiting (or blocking) starts at the current virtual time of the
+ * queue, so it can not bank the time it was idle and then monopolize the threads.
+ */
+@ThreadSafe
+public class WeightedFairSplitQueue
+        implements SplitQueue
+{
+    // like in the multilevel queue, a quanta that hung for a long time is not fully charged
+    static final long QUERY_CONTRIBUTION_CAP = SECONDS.toNanos(30);
+    private static final long IDLE_QUERY_EXPIRATION = MINUTES.toNanos(1);
+    private static final int IDLE_QUERY_CLEANUP_INTERVAL = 1024;
+
+    private final Ticker ticker;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    @GuardedBy("lock")
+    private final Map<QueryId, QueryQueue> queries = new HashMap<>();
+    // the queries with waiting splits, the virtual time of a query must not change while it is in the set
+    @GuardedBy("lock")
+    private final TreeSet<QueryQueue> waitingQueries = new TreeSet<>(Comparator.<QueryQueue>comparingLong(query -> query.virtualTime).thenComparingLong(query -> query.sequence));
+    @GuardedBy("lock")
+    private long virtualTime;
+    @GuardedBy("lock")
+    private long nextSequence;
+    @GuardedBy("lock")
+    private int waitingSplits;
+    @GuardedBy("lock")
+    private int takesSinceCleanup;
+
+    private final AtomicLong minPriority = new AtomicLong(-1);
+
+    private final TimeDistribution queuedTime = new TimeDistribution(MICROSECONDS);
+
+    @Inject
+    public WeightedFairSplitQueue()
+    {
+        this(Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    WeightedFairSplitQueue(Ticker ticker)
+    {
+        this.ticker = requireNonNull(ticker, "ticker is null");
+    }
+
+    @Override
+    public void offer(PrioritizedSplitRunner split)
+    {
+        checkArgument(split != null, "split is null");
+
+        split.setReady();
+        lock.lock();
+        try {
+            QueryQueue query = getQuery(split.getTaskHandle().getTaskId().getQueryId());
+            query.weight = split.getTaskHandle().getSchedulingWeight();
+            query.lastActive = ticker.read();
+            if (query.splits.isEmpty()) {
+                query.virtualTime = max(query.virtualTime, virtualTime);
+                query.splits.offer(split);
+                waitingQueries.add(query);
+            }
+            else {
+                query.splits.offer(split);
+            }
+            waitingSplits++;
+            notEmpty.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public PrioritizedSplitRunner take()
+            throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try {
+            while (waitingQueries.isEmpty()) {
+                notEmpty.await();
+            }
+
+            QueryQueue query = waitingQueries.pollFirst();
+            virtualTime = max(virtualTime, query.virtualTime);
+            PrioritizedSplitRunner split = query.splits.poll();
+            waitingSplits--;
+            if (!query.splits.isEmpty()) {
+                waitingQueries.add(query);
+            }
+
+            // refresh the priority cached in the split, there is a single level
+            split.updateLevelPriority();
+            minPriority.set(split.getPriority().getLevelPriority());
+
+            long now = ticker.read();
+            long queuedNanos = split.getQueuedNanos();
+            query.queuedNanos += queuedNanos;
+            query.takenSplits++;
+            query.lastActive = now;
+            queuedTime.add(queuedNanos);
+
+            takesSinceCleanup++;
+            if (takesSinceCleanup >= IDLE_QUERY_CLEANUP_INTERVAL) {
+                takesSinceCleanup = 0;
+                removeIdleQueries(now);
+            }
+            return split;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Priority updatePriority(QueryId queryId, Priority oldPriority, long quantaNanos, long scheduledNanos)
+    {
+        lock.lock();
+        try {
+            QueryQueue query = getQuery(queryId);
+            boolean waiting = waitingQueries.remove(query);
+            query.virtualTime += min(quantaNanos, QUERY_CONTRIBUTION_CAP) / query.weight;
+            query.scheduledNanos += quantaNanos;
+            query.lastActive = ticker.read();
+            if (waiting) {
+                waitingQueries.add(query);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        return new Priority(0, oldPriority.getLevelPriority() + quantaNanos);
+    }
+
+    @Override
+    public long getLevelMinPriority(int level, long taskThreadUsageNanos)
+    {
+        minPriority.compareAndSet(-1, taskThreadUsageNanos);
+        return minPriority.get();
+    }
+
+    @Override
+    public void remove(PrioritizedSplitRunner split)
+    {
+        checkArgument(split != null, "split is null");
+        lock.lock();
+        try {
+            QueryQueue query = queries.get(split.getTaskHandle().getTaskId().getQueryId());
+            if (query != null) {
+                removeSplit(query, split);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<PrioritizedSplitRunner> splits)
+    {
+        lock.lock();
+        try {
+            for (PrioritizedSplitRunner split : splits) {
+                QueryQueue query = queries.get(split.getTaskHandle().getTaskId().getQueryId());
+                if (query != null) {
+                    removeSplit(query, split);
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @GuardedBy("lock")
+    private void removeSplit(QueryQueue query, PrioritizedSplitRunner split)
+    {
+        if (query.splits.isEmpty()) {
+            return;
+        }
+        // remove the query first, the set can not find it once its splits are gone
+        boolean waiting = waitingQueries.remove(query);
+        if (query.splits.remove(split)) {
+            waitingSplits--;
+        }
+        if (waiting && !query.splits.isEmpty()) {
+            waitingQueries.add(query);
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        lock.lock();
+        try {
+            return waitingSplits;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @GuardedBy("lock")
+    private QueryQueue getQuery(QueryId queryId)
+    {
+        return queries.computeIfAbsent(queryId, id -> new QueryQueue(id, nextSequence++, virtualTime));
+    }
+
+    @GuardedBy("lock")
+    private void removeIdleQueries(long now)
+    {
+        // the virtual time of a query that is behind the queue is reset when it has splits again, so forgetting it loses nothing
+        Iterator<QueryQueue> iterator = queries.values().iterator();
+        while (iterator.hasNext()) {
+            QueryQueue query = iterator.next();
+            if (query.splits.isEmpty() && query.virtualTime <= virtualTime && now - query.lastActive > IDLE_QUERY_EXPIRATION) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    long getQueryVirtualTime(QueryId queryId)
+    {
+        lock.lock();
+        try {
+            QueryQueue query = queries.get(queryId);
+            return query == null ? virtualTime : query.virtualTime;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Managed
+    public int getWaitingQueries()
+    {
+        lock.lock();
+        try {
+            return waitingQueries.size();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Managed
+    public int getTrackedQueries()
+    {
+        lock.lock();
+        try {
+            return queries.size();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Managed(description = "Largest share of the scheduled time of the tracked queries used by one query")
+    public double getMaxQueryCpuShare()
+    {
+        lock.lock();
+        try {
+            long totalScheduledNanos = getTotalScheduledNanos();
+            double maxShare = 0;
+            for (QueryQueue query : queries.values()) {
+                maxShare = max(maxShare, query.scheduledNanos / (double) totalScheduledNanos);
+            }
+            return maxShare;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Managed(description = "Share of the scheduled time and average queued time of the splits of the tracked queries")
+    public String getQueryStats()
+    {
+        lock.lock();
+        try {
+            long totalScheduledNanos = getTotalScheduledNanos();
+            return queries.values().stream()
+                    .sorted(Comparator.<QueryQueue>comparingLong(query -> query.scheduledNanos).reversed())
+                    .map(query -> format(
+                            "%s: cpuShare=%.3f, weight=%s, waitingSplits=%s, averageQueuedTime=%.2fms",
+                            query.queryId,
+                            query.scheduledNanos / (double) totalScheduledNanos,
+                            query.weight,
+                            query.splits.size(),
+                            query.takenSplits == 0 ? 0.0 : query.queuedNanos / 1.0e6 / query.takenSplits))
+                    .collect(joining("\n"));
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    @Managed
+    @Nested
+    public TimeDistribution getQueuedTime()
+    {
+        return queuedTime;
+    }
+
+    @GuardedBy("lock")
+    private long getTotalScheduledNanos()
+    {
+        long totalScheduledNanos = 0;
+        for (QueryQueue query : queries.values()) {
+            totalScheduledNanos += query.scheduledNanos;
+        }
+        return max(totalScheduledNanos, 1);
+    }
+
+    private static final class QueryQueue
+    {
+        private final QueryId queryId;
+        private final long sequence;
+        private final PriorityQueue<PrioritizedSplitRunner> splits = new PriorityQueue<>();
+
+        private long virtualTime;
+        private int weight = 1;
+        private long lastActive;
+
+        private long scheduledNanos;
+        private long queuedNanos;
+        private long takenSplits;
+
+        private QueryQueue(QueryId queryId, long sequence, long virtualTime)
+        {
+            this.queryId = requireNonNull(queryId, "queryId is null");
+            this.sequence = sequence;
+            this.virtualTime = virtualTime;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import static com.facebook.presto.common.type.TypeUtils.hashPosition;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Split block bloom filter over the values of a single type, used to carry large
+ * dynamic filters that do not fit into a {@link com.facebook.presto.common.predicate.TupleDomain}.
+ * <p>
+ * Each value sets one bit in every word of a single 256 bit block, so a lookup touches only one
+ * cache line. The filter is sized for 8 bits per value which gives a false positive rate of about 2%.
+ * Filters of the same type and size can be combined with {@link #union} and {@link #intersect}.
+ */
+public final class BlockedBloomFilter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BlockedBloomFilter.class).instanceSize();
+
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int BITS_PER_BLOCK = WORDS_PER_BLOCK * Integer.SIZE;
+    private static final int BITS_PER_VALUE = 8;
+    private static final int[] SALT = {
+            0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d,
+            0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31};
+
+    private final Type type;
+    private final int[] words;
+    private final int blockCount;
+
+    public static BlockedBloomFilter create(Type type, int expectedValues)
+    {
+        checkArgument(expectedValues > 0, "expectedValues must be greater than zero");
+        int blockCount = (int) ((expectedValues * (long) BITS_PER_VALUE + BITS_PER_BLOCK - 1) / BITS_PER_BLOCK);
+        return new BlockedBloomFilter(type, new int[blockCount * WORDS_PER_BLOCK]);
+    }
+
+    private BlockedBloomFilter(Type type, int[] words)
+    {
+        this.type = requireNonNull(type, "type is null");
+        this.words = requireNonNull(words, "words is null");
+        this.blockCount = words.length / WORDS_PER_BLOCK;
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public void add(Block block, int position)
+    {
+        // join never matches nulls
+        if (block.isNull(position)) {
+            return;
+        }
+        long hash = murmurHash3(hashPosition(type, block, position));
+        int offset = blockOffset(hash);
+        int key = (int) hash;
+        for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+            words[offset + i] |= 1 << ((key * SALT[i]) >>> 27);
+        }
+    }
+
+    public boolean mightContain(Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return false;
+        }
+        long hash = murmurHash3(hashPosition(type, block, position));
+        int offset = blockOffset(hash);
+        int key = (int) hash;
+        for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+            int mask = 1 << ((key * SALT[i]) >>> 27);
+            if ((words[offset + i] & mask) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isCompatible(BlockedBloomFilter other)
+    {
+        return type.equals(other.type) && words.length == other.words.length;
+    }
+
+    /**
+     * Returns a filter that matches the values added to either filter.
+     */
+    public BlockedBloomFilter union(BlockedBloomFilter other)
+    {
+        checkArgument(isCompatible(other), "Bloom filters are not compatible: %s, %s", this, other);
+        int[] result = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            result[i] = words[i] | other.words[i];
+        }
+        return new BlockedBloomFilter(type, result);
+    }
+
+    /**
+     * Returns a filter that matches only values that match both filters.
+     */
+    public BlockedBloomFilter intersect(BlockedBloomFilter other)
+    {
+        checkArgument(isCompatible(other), "Bloom filters are not compatible: %s, %s", this, other);
+        int[] result = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            result[i] = words[i] & other.words[i];
+        }
+        return new BlockedBloomFilter(type, result);
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(words);
+    }
+
+    private int blockOffset(long hash)
+    {
+        // multiply-shift instead of modulo, the upper bits of the hash select the block
+        return (int) (((hash >>> 32) * blockCount) >>> 32) * WORDS_PER_BLOCK;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("type", type)
+                .add("blockCount", blockCount)
+                .toString();
+    }
+}
@@ -13,8 +13,10 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.Session;
 import com.facebook.presto.execution.FragmentResultCacheContext;
 import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
@@ -132,6 +134,18 @@ public class DriverFactory
         return Driver.createDriver(driverContext, operators.build());
     }
 
+    /**
+     * Lets the source operator of this driver start reading ahead a split that is queued for it.
+     */
+    public void prefetchSplit(Session session, Split split)
+    {
+        for (OperatorFactory operatorFactory : operatorFactories) {
+            if (operatorFactory instanceof SourceOperatorFactory) {
+                ((SourceOperatorFactory) operatorFactory).prefetchSplit(session, split);
+            }
+        }
+    }
+
     public synchronized void noMoreDrivers(Lifespan lifespan)
     {
         if (closedLifespans.contains(lifespan)) {
@@ -20,6 +20,7 @@ import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.ValueSet;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.aggregation.TypedSet;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
@@ -29,6 +30,7 @@ import io.airlift.units.DataSize;
 import javax.annotation.Nullable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 
@@ -47,6 +49,7 @@ import static java.util.stream.Collectors.toSet;
  * The collected pages' value are used for creating a run-time filtering constraint (for probe-side table scan in an inner join).
  * We record all values for the run-time filter only for small build-side pages (which should be the case when using "broadcast" join).
  * For large inputs on build side, we can optionally record the min and max values per channel for orderable types (except Double and Real).
+ * Up to a second, larger limit we can also collect a {@link BlockedBloomFilter} per channel, which is reported separately from the predicate.
  */
 public class DynamicFilterSourceOperator
         implements Operator
@@ -88,10 +91,12 @@ public class DynamicFilterSourceOperator
         private final int operatorId;
         private final PlanNodeId planNodeId;
         private final Consumer<TupleDomain<String>> dynamicPredicateConsumer;
+        private final Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer;
         private final List<Channel> channels;
         private final int maxFilterPositionsCount;
         private final DataSize maxFilterSize;
         private final int minMaxCollectionLimit;
+        private final int bloomFilterCollectionLimit;
         private final boolean useNewNanDefinition;
 
         private boolean closed;
@@ -105,10 +110,26 @@ public class DynamicFilterSourceOperator
                 DataSize maxFilterSize,
                 int minMaxCollectionLimit,
                 boolean useNewNanDefinition)
+        {
+            this(operatorId, planNodeId, dynamicPredicateConsumer, bloomFilters -> {}, channels, maxFilterPositionsCount, maxFilterSize, minMaxCollectionLimit, 0, useNewNanDefinition);
+        }
+
+        public DynamicFilterSourceOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                Consumer<TupleDomain<String>> dynamicPredicateConsumer,
+                Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer,
+                List<Channel> channels,
+                int maxFilterPositionsCount,
+                DataSize maxFilterSize,
+                int minMaxCollectionLimit,
+                int bloomFilterCollectionLimit,
+                boolean useNewNanDefinition)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
             this.dynamicPredicateConsumer = requireNonNull(dynamicPredicateConsumer, "dynamicPredicateConsumer is null");
+            this.bloomFilterConsumer = requireNonNull(bloomFilterConsumer, "bloomFilterConsumer is null");
             this.channels = requireNonNull(channels, "channels is null");
             verify(
                     channels.stream().map(channel -> channel.getFilterId()).collect(toSet()).size() == channels.size(),
@@ -119,6 +140,7 @@ public class DynamicFilterSourceOperator
             this.maxFilterPositionsCount = maxFilterPositionsCount;
             this.maxFilterSize = maxFilterSize;
             this.minMaxCollectionLimit = minMaxCollectionLimit;
+            this.bloomFilterCollectionLimit = bloomFilterCollectionLimit;
             this.useNewNanDefinition = useNewNanDefinition;
         }
 
@@ -129,11 +151,13 @@ public class DynamicFilterSourceOperator
             return new DynamicFilterSourceOperator(
                     driverContext.addOperatorContext(operatorId, planNodeId, DynamicFilterSourceOperator.class.getSimpleName()),
                     dynamicPredicateConsumer,
+                    bloomFilterConsumer,
                     channels,
                     planNodeId,
                     maxFilterPositionsCount,
                     maxFilterSize,
                     minMaxCollectionLimit,
+                    bloomFilterCollectionLimit,
                     useNewNanDefinition);
         }
 
@@ -153,6 +177,7 @@ public class DynamicFilterSourceOperator
 
     private final OperatorContext context;
     private final Consumer<TupleDomain<String>> dynamicPredicateConsumer;
+    private final Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer;
     private final int maxFilterPositionsCount;
     private final long maxFilterSizeInBytes;
     private final List<Channel> channels;
@@ -174,14 +199,24 @@ public class DynamicFilterSourceOperator
     @Nullable
     private Block[] maxValues;
 
+    // Collected once the exact predicate becomes too large, dropped if there are too many rows.
+    // All the filters are sized for the initial limit, so the filters of different drivers can be merged.
+    private final int bloomFilterExpectedValues;
+    private int bloomFilterCollectionLimit;
+    @Nullable
+    private BlockedBloomFilter[] bloomFilters;
+    private final LocalMemoryContext bloomFilterMemoryContext;
+
     private DynamicFilterSourceOperator(
             OperatorContext context,
             Consumer<TupleDomain<String>> dynamicPredicateConsumer,
+            Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer,
             List<Channel> channels,
             PlanNodeId planNodeId,
             int maxFilterPositionsCount,
             DataSize maxFilterSize,
             int minMaxCollectionLimit,
+            int bloomFilterCollectionLimit,
             boolean useNewNanDefinition)
     {
         this.context = requireNonNull(context, "context is null");
@@ -189,6 +224,7 @@ public class DynamicFilterSourceOperator
         this.maxFilterSizeInBytes = maxFilterSize.toBytes();
 
         this.dynamicPredicateConsumer = requireNonNull(dynamicPredicateConsumer, "dynamicPredicateConsumer is null");
+        this.bloomFilterConsumer = requireNonNull(bloomFilterConsumer, "bloomFilterConsumer is null");
         this.channels = requireNonNull(channels, "channels is null");
 
         this.blockBuilders = new BlockBuilder[channels.size()];
@@ -210,6 +246,9 @@ public class DynamicFilterSourceOperator
                     Optional.empty() /* maxBlockMemory */);
         }
         this.minMaxCollectionLimit = minMaxCollectionLimit;
+        this.bloomFilterExpectedValues = bloomFilterCollectionLimit;
+        this.bloomFilterCollectionLimit = bloomFilterCollectionLimit;
+        this.bloomFilterMemoryContext = context.localSystemMemoryContext();
         minMaxChannels = minMaxChannelsBuilder.build();
         if (!minMaxChannels.isEmpty()) {
             minValues = new Block[channels.size()];
@@ -237,6 +276,8 @@ public class DynamicFilterSourceOperator
         current = page;
         if (valueSets == null) {
             // the exact predicate became too large.
+            bloomFilterCollectionLimit -= page.getPositionCount();
+            updateBloomFilters(page);
             if (minValues == null) {
                 // there are too many rows to collect min/max range
                 return;
@@ -254,6 +295,7 @@ public class DynamicFilterSourceOperator
             return;
         }
         minMaxCollectionLimit -= page.getPositionCount();
+        bloomFilterCollectionLimit -= page.getPositionCount();
         // TODO: we should account for the memory used for collecting build-side values using MemoryContext
         long filterSizeInBytes = 0;
         int filterPositionsCount = 0;
@@ -275,6 +317,10 @@ public class DynamicFilterSourceOperator
 
     private void handleTooLargePredicate()
     {
+        if (bloomFilterCollectionLimit >= 0) {
+            createBloomFilters();
+        }
+
         // The resulting predicate is too large
         if (minMaxChannels.isEmpty()) {
             // allow all probe-side values to be read.
@@ -298,6 +344,55 @@ public class DynamicFilterSourceOperator
         blockBuilders = null;
     }
 
+    private void createBloomFilters()
+    {
+        // seed the bloom filters with the distinct values collected so far
+        verify(blockBuilders != null);
+        bloomFilters = new BlockedBloomFilter[channels.size()];
+        for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
+            bloomFilters[channelIndex] = BlockedBloomFilter.create(channels.get(channelIndex).getType(), bloomFilterExpectedValues);
+        }
+        updateBloomFilterMemoryUsage();
+        for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
+            Block block = blockBuilders[channelIndex].build();
+            for (int position = 0; position < block.getPositionCount(); ++position) {
+                bloomFilters[channelIndex].add(block, position);
+            }
+        }
+    }
+
+    private void updateBloomFilters(Page page)
+    {
+        if (bloomFilters == null) {
+            return;
+        }
+        if (bloomFilterCollectionLimit < 0) {
+            // there are too many rows for the bloom filter to be selective
+            bloomFilters = null;
+            updateBloomFilterMemoryUsage();
+            return;
+        }
+        for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
+            Block block = page.getBlock(channels.get(channelIndex).getIndex());
+            BlockedBloomFilter bloomFilter = bloomFilters[channelIndex];
+            for (int position = 0; position < block.getPositionCount(); ++position) {
+                bloomFilter.add(block, position);
+            }
+        }
+    }
+
+    // the filters are sized for the expected values when they are created, adding values does not change their size
+    private void updateBloomFilterMemoryUsage()
+    {
+        long bloomFiltersSizeInBytes = 0;
+        if (bloomFilters != null) {
+            for (BlockedBloomFilter bloomFilter : bloomFilters) {
+                bloomFiltersSizeInBytes += bloomFilter.getRetainedSizeInBytes();
+            }
+        }
+        bloomFilterMemoryContext.setBytes(bloomFiltersSizeInBytes);
+    }
+
     private void handleMinMaxCollectionLimitExceeded()
     {
         // allow all probe-side values to be read.
@@ -367,6 +462,21 @@ public class DynamicFilterSourceOperator
             return;
         }
         finished = true;
+        if (valueSets != null && bloomFilterExpectedValues > 0) {
+            // the exact values are merged with the bloom filters of the drivers that exceeded the exact predicate limit
+            createBloomFilters();
+        }
+        ImmutableMap.Builder<String, BlockedBloomFilter> bloomFiltersBuilder = ImmutableMap.builder();
+        if (bloomFilters != null) {
+            for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
+                bloomFiltersBuilder.put(channels.get(channelIndex).getFilterId(), bloomFilters[channelIndex]);
+            }
+            bloomFilters = null;
+        }
+        bloomFilterConsumer.accept(bloomFiltersBuilder.build());
+        // the filters are held by the consumer from now on
+        updateBloomFilterMemoryUsage();
+
         ImmutableMap.Builder<String, Domain> domainsBuilder = ImmutableMap.builder();
         if (valueSets == null) {
             if (minValues == null) {
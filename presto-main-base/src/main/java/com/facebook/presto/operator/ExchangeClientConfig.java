@@ -14,9 +14,11 @@
 package com.facebook.presto.operator;
 
 import com.facebook.airlift.configuration.Config;
+import com.facebook.airlift.configuration.ConfigDescription;
 import com.facebook.airlift.configuration.DefunctConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.airlift.units.MaxDuration;
 import io.airlift.units.MinDataSize;
 import io.airlift.units.MinDuration;
 
@@ -41,6 +43,8 @@ public class ExchangeClientConfig
     private int pageBufferClientMaxCallbackThreads = 25;
     private boolean acknowledgePages = true;
     private double responseSizeExponentialMovingAverageDecayingAlpha = 0.1;
+    private boolean localTransportEnabled;
+    private Duration streamBatchDelay = new Duration(5, TimeUnit.MILLISECONDS);
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -172,4 +176,32 @@ public class ExchangeClientConfig
     {
         return responseSizeExponentialMovingAverageDecayingAlpha;
     }
+
+    public boolean isLocalTransportEnabled()
+    {
+        return localTransportEnabled;
+    }
+
+    @Config("exchange.local-transport-enabled")
+    @ConfigDescription("Read the results of tasks on the same node directly from their output buffers instead of over the network")
+    public ExchangeClientConfig setLocalTransportEnabled(boolean localTransportEnabled)
+    {
+        this.localTransportEnabled = localTransportEnabled;
+        return this;
+    }
+
+    @NotNull
+    @MaxDuration("1s")
+    public Duration getStreamBatchDelay()
+    {
+        return streamBatchDelay;
+    }
+
+    @Config("exchange.stream-batch-delay")
+    @ConfigDescription("Time the exchange stream to a node waits for more reads before it sends a request")
+    public ExchangeClientConfig setStreamBatchDelay(Duration streamBatchDelay)
+    {
+        this.streamBatchDelay = streamBatchDelay;
+        return this;
+    }
 }
@@ -116,6 +116,12 @@ public class ExchangeClientFactory
 
     @Override
     public ExchangeClient get(LocalMemoryContext systemMemoryContext)
+    {
+        return get(systemMemoryContext, false);
+    }
+
+    @Override
+    public ExchangeClient get(LocalMemoryContext systemMemoryContext, boolean streamingEnabled)
     {
         return new ExchangeClient(
                 maxBufferedBytes,
@@ -124,7 +130,7 @@ public class ExchangeClientFactory
                 maxErrorDuration,
                 acknowledgePages,
                 responseSizeExponentialMovingAverageDecayingAlpha,
-                rpcShuffleClientProvider,
+                streamingEnabled ? rpcShuffleClientProvider::getStreaming : rpcShuffleClientProvider,
                 scheduler,
                 systemMemoryContext,
                 pageBufferClientCallbackExecutor);
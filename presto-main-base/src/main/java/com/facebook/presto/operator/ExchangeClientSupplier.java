@@ -18,4 +18,9 @@ import com.facebook.presto.memory.context.LocalMemoryContext;
 public interface ExchangeClientSupplier
 {
     ExchangeClient get(LocalMemoryContext systemMemoryContext);
+
+    default ExchangeClient get(LocalMemoryContext systemMemoryContext, boolean streamingEnabled)
+    {
+        return get(systemMemoryContext);
+    }
 }
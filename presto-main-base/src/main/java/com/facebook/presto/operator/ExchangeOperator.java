@@ -29,6 +29,7 @@ import java.io.Closeable;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.SystemSessionProperties.isExchangeStreamingEnabled;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
@@ -72,7 +73,9 @@ public class ExchangeOperator
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, sourceId, ExchangeOperator.class.getSimpleName());
             if (exchangeClient == null) {
-                exchangeClient = taskExchangeClientManager.createExchangeClient(driverContext.getPipelineContext().localSystemMemoryContext());
+                exchangeClient = taskExchangeClientManager.createExchangeClient(
+                        driverContext.getPipelineContext().localSystemMemoryContext(),
+                        isExchangeStreamingEnabled(driverContext.getSession()));
             }
 
             return new ExchangeOperator(
@@ -94,6 +97,7 @@ public class ExchangeOperator
     private final ExchangeClient exchangeClient;
     private final PagesSerde serde;
     private ListenableFuture<?> isBlocked = NOT_BLOCKED;
+    private boolean compressionStatsRecorded;
 
     public ExchangeOperator(
             OperatorContext operatorContext,
@@ -197,5 +201,10 @@ public class ExchangeOperator
     public void close()
     {
         exchangeClient.close();
+        // finish closes the operator before the driver does
+        if (!compressionStatsRecorded) {
+            compressionStatsRecorded = true;
+            operatorContext.recordCompressionStats(serde);
+        }
     }
 }
@@ -0,0 +1,657 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.array.LongBigArray;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.LongArrayBlock;
+import com.facebook.presto.common.type.DecimalType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarbinaryType;
+import com.facebook.presto.common.type.VarcharType;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TimeType.TIME;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP_MICROSECONDS;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+import static com.facebook.presto.sql.planner.PlannerUtils.INITIAL_HASH_VALUE;
+import static com.facebook.presto.type.TypeUtils.hashPosition;
+import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Row oriented {@link GroupByHash} that keeps each group as a fixed size record in a single flat array.
+ * <p>
+ * A record is laid out as {@code [rawHash, nullMask, key_0, ..., key_n]}. Fixed width keys take a single
+ * slot holding the value as returned by {@link Type#getLong}; variable width keys take two slots holding
+ * the address and the length of the value inside a side heap of byte chunks. The open addressing table
+ * packs the upper half of the raw hash together with the group id into a single long, so most probes
+ * touch one cache line of the table and, on a tag match, one cache line of the record.
+ * <p>
+ * Only key types whose equality is equivalent to the equality of their stored representation are
+ * supported, see {@link #isSupportedKeyTypes(List)}.
+ */
+// This implementation assumes arrays used in the hash are always a power of 2
+public class FlatGroupByHash
+        implements GroupByHash
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(FlatGroupByHash.class).instanceSize();
+    private static final float FILL_RATIO = 0.75f;
+
+    private static final int MAX_KEY_COUNT = Long.SIZE;
+    private static final int RAW_HASH_OFFSET = 0;
+    private static final int NULL_MASK_OFFSET = 1;
+    private static final int HEADER_SIZE = 2;
+
+    private static final long EMPTY_SLOT = -1;
+    private static final long HASH_TAG_MASK = 0xFFFF_FFFF_0000_0000L;
+    private static final long GROUP_ID_MASK = 0x0000_0000_FFFF_FFFFL;
+
+    private static final int INITIAL_CHUNK_SIZE = 4 * 1024;
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private final List<Type> hashTypes;
+    private final List<Type> types;
+    private final int[] channels;
+    private final boolean[] variableWidth;
+    private final boolean[] booleanKey;
+    private final int[] keyOffsets;
+    private final int recordSize;
+    private final Optional<Integer> inputHashChannel;
+    private final HashGenerator hashGenerator;
+
+    private int hashCapacity;
+    private int maxFill;
+    private int mask;
+    // the open addressing table; each slot is the upper half of the raw hash combined with the group id
+    private long[] hashTable;
+
+    // the group records, recordSize longs per group
+    private final LongBigArray records;
+
+    // side heap for variable width keys
+    private final ObjectArrayList<Slice> chunks = new ObjectArrayList<>();
+    private Slice currentChunk;
+    private int currentChunkOffset;
+    private long chunksRetainedSizeInBytes;
+
+    private int nextGroupId;
+    private long hashCollisions;
+    private double expectedHashCollisions;
+
+    // reserve enough memory before rehash
+    private final UpdateMemory updateMemory;
+    private long preallocatedMemoryInBytes;
+    private long currentPageSizeInBytes;
+
+    public FlatGroupByHash(
+            List<? extends Type> hashTypes,
+            int[] hashChannels,
+            Optional<Integer> inputHashChannel,
+            int expectedSize,
+            UpdateMemory updateMemory)
+    {
+        this.hashTypes = ImmutableList.copyOf(requireNonNull(hashTypes, "hashTypes is null"));
+        requireNonNull(hashChannels, "hashChannels is null");
+        checkArgument(hashTypes.size() == hashChannels.length, "hashTypes and hashChannels have different sizes");
+        checkArgument(isSupportedKeyTypes(hashTypes), "Unsupported key types for flat group by hash: %s", hashTypes);
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+
+        this.inputHashChannel = requireNonNull(inputHashChannel, "inputHashChannel is null");
+        this.types = inputHashChannel.isPresent() ? ImmutableList.copyOf(Iterables.concat(hashTypes, ImmutableList.of(BIGINT))) : this.hashTypes;
+        this.channels = hashChannels.clone();
+        this.hashGenerator = inputHashChannel.isPresent() ? new PrecomputedHashGenerator(inputHashChannel.get()) : new InterpretedHashGenerator(this.hashTypes, hashChannels);
+
+        this.variableWidth = new boolean[hashChannels.length];
+        this.booleanKey = new boolean[hashChannels.length];
+        this.keyOffsets = new int[hashChannels.length];
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < hashChannels.length; i++) {
+            variableWidth[i] = isVariableWidthKeyType(this.hashTypes.get(i));
+            booleanKey[i] = this.hashTypes.get(i).equals(BOOLEAN);
+            keyOffsets[i] = offset;
+            offset += variableWidth[i] ? 2 : 1;
+        }
+        this.recordSize = offset;
+
+        hashCapacity = arraySize(expectedSize, FILL_RATIO);
+        maxFill = calculateMaxFill(hashCapacity);
+        mask = hashCapacity - 1;
+        hashTable = new long[hashCapacity];
+        Arrays.fill(hashTable, EMPTY_SLOT);
+
+        records = new LongBigArray();
+        records.ensureCapacity((long) maxFill * recordSize);
+
+        // This interface is used for actively reserving memory (push model) for rehash.
+        // The caller can also query memory usage on this object (pull model)
+        this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+    }
+
+    public static boolean isSupportedKeyTypes(List<? extends Type> hashTypes)
+    {
+        if (hashTypes.isEmpty() || hashTypes.size() > MAX_KEY_COUNT) {
+            return false;
+        }
+        for (Type type : hashTypes) {
+            if (!isFixedWidthKeyType(type) && !isVariableWidthKeyType(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFixedWidthKeyType(Type type)
+    {
+        // types for which equality of the long representation is the same as the equality of the type
+        return type.equals(BIGINT) ||
+                type.equals(INTEGER) ||
+                type.equals(SMALLINT) ||
+                type.equals(TINYINT) ||
+                type.equals(BOOLEAN) ||
+                type.equals(DATE) ||
+                type.equals(TIME) ||
+                type.equals(TIMESTAMP) ||
+                type.equals(TIMESTAMP_MICROSECONDS) ||
+                (type instanceof DecimalType && ((DecimalType) type).isShort());
+    }
+
+    private static boolean isVariableWidthKeyType(Type type)
+    {
+        return type instanceof VarcharType || type instanceof VarbinaryType;
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE +
+                sizeOf(hashTable) +
+                records.sizeOf() +
+                sizeOf(chunks.elements()) +
+                chunksRetainedSizeInBytes +
+                preallocatedMemoryInBytes;
+    }
+
+    @Override
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    @Override
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions + estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        checkArgument(groupId >= 0 && groupId < nextGroupId, "groupId out of range");
+        for (int i = 0; i < channels.length; i++) {
+            appendKeyTo(groupId, i, pageBuilder.getBlockBuilder(outputChannelOffset + i));
+        }
+        if (inputHashChannel.isPresent()) {
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(outputChannelOffset + channels.length), getRawHash(groupId));
+        }
+    }
+
+    @Override
+    public Work<?> addPage(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new AddPageWork(page);
+    }
+
+    @Override
+    public List<Page> getBufferedPages()
+    {
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(hashTypes);
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            pageBuilder.declarePosition();
+            for (int i = 0; i < channels.length; i++) {
+                appendKeyTo(groupId, i, pageBuilder.getBlockBuilder(i));
+            }
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        if (!pageBuilder.isEmpty()) {
+            pages.add(pageBuilder.build());
+        }
+        return pages.build();
+    }
+
+    @Override
+    public Work<GroupByIdBlock> getGroupIds(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new GetGroupIdsWork(page);
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels)
+    {
+        long rawHash = INITIAL_HASH_VALUE;
+        for (int i = 0; i < hashChannels.length; i++) {
+            rawHash = CombineHashFunction.getHash(rawHash, hashPosition(hashTypes.get(i), page.getBlock(hashChannels[i]), position));
+        }
+        return contains(position, page, hashChannels, rawHash);
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels, long rawHash)
+    {
+        return findGroupId(position, page, hashChannels, rawHash, (int) getHashPosition(rawHash, mask)) >= 0;
+    }
+
+    @Override
+    public long getRawHash(int groupId)
+    {
+        return records.get(getRecordOffset(groupId) + RAW_HASH_OFFSET);
+    }
+
+    @VisibleForTesting
+    @Override
+    public int getCapacity()
+    {
+        return hashCapacity;
+    }
+
+    private void appendKeyTo(int groupId, int keyIndex, BlockBuilder blockBuilder)
+    {
+        long recordOffset = getRecordOffset(groupId);
+        if ((records.get(recordOffset + NULL_MASK_OFFSET) & (1L << keyIndex)) != 0) {
+            blockBuilder.appendNull();
+            return;
+        }
+        Type type = hashTypes.get(keyIndex);
+        long fieldOffset = recordOffset + keyOffsets[keyIndex];
+        if (variableWidth[keyIndex]) {
+            long address = records.get(fieldOffset);
+            type.writeSlice(blockBuilder, chunks.get(decodeChunkIndex(address)), decodeChunkOffset(address), toIntExact(records.get(fieldOffset + 1)));
+        }
+        else if (booleanKey[keyIndex]) {
+            type.writeBoolean(blockBuilder, records.get(fieldOffset) != 0);
+        }
+        else {
+            type.writeLong(blockBuilder, records.get(fieldOffset));
+        }
+    }
+
+    private int putIfAbsent(int position, Page page)
+    {
+        long rawHash = hashGenerator.hashPosition(position, page);
+        int hashPosition = (int) getHashPosition(rawHash, mask);
+        long tag = rawHash & HASH_TAG_MASK;
+
+        // look for an empty slot or a slot containing this key
+        while (hashTable[hashPosition] != EMPTY_SLOT) {
+            long entry = hashTable[hashPosition];
+            if ((entry & HASH_TAG_MASK) == tag) {
+                int groupId = (int) (entry & GROUP_ID_MASK);
+                if (recordNotDistinctFromRow(groupId, position, page, channels, rawHash)) {
+                    return groupId;
+                }
+            }
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+            hashCollisions++;
+        }
+
+        return addNewGroup(hashPosition, position, page, rawHash);
+    }
+
+    private int findGroupId(int position, Page page, int[] hashChannels, long rawHash, int hashPosition)
+    {
+        long tag = rawHash & HASH_TAG_MASK;
+        while (hashTable[hashPosition] != EMPTY_SLOT) {
+            long entry = hashTable[hashPosition];
+            if ((entry & HASH_TAG_MASK) == tag) {
+                int groupId = (int) (entry & GROUP_ID_MASK);
+                if (recordNotDistinctFromRow(groupId, position, page, hashChannels, rawHash)) {
+                    return groupId;
+                }
+            }
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int addNewGroup(int hashPosition, int position, Page page, long rawHash)
+    {
+        // record group id in hash
+        int groupId = nextGroupId++;
+        long recordOffset = getRecordOffset(groupId);
+
+        long nullMask = 0;
+        for (int i = 0; i < channels.length; i++) {
+            Block block = page.getBlock(channels[i]);
+            long fieldOffset = recordOffset + keyOffsets[i];
+            if (block.isNull(position)) {
+                nullMask |= 1L << i;
+                records.set(fieldOffset, 0);
+                if (variableWidth[i]) {
+                    records.set(fieldOffset + 1, 0);
+                }
+                continue;
+            }
+
+            Type type = hashTypes.get(i);
+            if (variableWidth[i]) {
+                int length = block.getSliceLength(position);
+                records.set(fieldOffset, appendToHeap(block.getSlice(position, 0, length)));
+                records.set(fieldOffset + 1, length);
+            }
+            else if (booleanKey[i]) {
+                records.set(fieldOffset, type.getBoolean(block, position) ? 1 : 0);
+            }
+            else {
+                records.set(fieldOffset, type.getLong(block, position));
+            }
+        }
+        records.set(recordOffset + RAW_HASH_OFFSET, rawHash);
+        records.set(recordOffset + NULL_MASK_OFFSET, nullMask);
+
+        hashTable[hashPosition] = (rawHash & HASH_TAG_MASK) | groupId;
+
+        // increase capacity, if necessary
+        if (needRehash()) {
+            tryRehash();
+        }
+        return groupId;
+    }
+
+    private boolean recordNotDistinctFromRow(int groupId, int position, Page page, int[] hashChannels, long rawHash)
+    {
+        long recordOffset = getRecordOffset(groupId);
+        if (records.get(recordOffset + RAW_HASH_OFFSET) != rawHash) {
+            return false;
+        }
+
+        long nullMask = records.get(recordOffset + NULL_MASK_OFFSET);
+        for (int i = 0; i < hashChannels.length; i++) {
+            Block block = page.getBlock(hashChannels[i]);
+            boolean rowNull = block.isNull(position);
+            boolean groupNull = (nullMask & (1L << i)) != 0;
+            if (rowNull != groupNull) {
+                return false;
+            }
+            if (rowNull) {
+                continue;
+            }
+
+            Type type = hashTypes.get(i);
+            long fieldOffset = recordOffset + keyOffsets[i];
+            if (variableWidth[i]) {
+                int length = block.getSliceLength(position);
+                if (records.get(fieldOffset + 1) != length) {
+                    return false;
+                }
+                long address = records.get(fieldOffset);
+                if (!block.bytesEqual(position, 0, chunks.get(decodeChunkIndex(address)), decodeChunkOffset(address), length)) {
+                    return false;
+                }
+            }
+            else if (booleanKey[i]) {
+                if ((records.get(fieldOffset) != 0) != type.getBoolean(block, position)) {
+                    return false;
+                }
+            }
+            else if (records.get(fieldOffset) != type.getLong(block, position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long appendToHeap(Slice value)
+    {
+        int length = value.length();
+        if (currentChunk == null || currentChunkOffset + length > currentChunk.length()) {
+            int nextChunkSize = currentChunk == null ? INITIAL_CHUNK_SIZE : min(currentChunk.length() * 2, MAX_CHUNK_SIZE);
+            currentChunk = Slices.allocate(max(nextChunkSize, length));
+            currentChunkOffset = 0;
+            chunks.add(currentChunk);
+            chunksRetainedSizeInBytes += currentChunk.getRetainedSize();
+        }
+        currentChunk.setBytes(currentChunkOffset, value);
+        long address = encodeChunkAddress(chunks.size() - 1, currentChunkOffset);
+        currentChunkOffset += length;
+        return address;
+    }
+
+    private long getRecordOffset(int groupId)
+    {
+        return (long) groupId * recordSize;
+    }
+
+    private boolean needRehash()
+    {
+        return nextGroupId >= maxFill;
+    }
+
+    private boolean tryRehash()
+    {
+        long newCapacityLong = hashCapacity * 2L;
+        if (newCapacityLong > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of hash table cannot exceed 1 billion entries");
+        }
+        int newCapacity = toIntExact(newCapacityLong);
+
+        // An estimate of how much extra memory is needed before we can go ahead and expand the hash table.
+        // This includes the new capacity for hashTable and records as well as the size of the current page
+        preallocatedMemoryInBytes = newCapacity * (long) Long.BYTES +
+                (long) calculateMaxFill(newCapacity) * recordSize * Long.BYTES +
+                currentPageSizeInBytes;
+        if (!updateMemory.update()) {
+            // reserved memory but has exceeded the limit
+            return false;
+        }
+
+        expectedHashCollisions += estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+
+        int newMask = newCapacity - 1;
+        long[] newHashTable = new long[newCapacity];
+        Arrays.fill(newHashTable, EMPTY_SLOT);
+
+        // the raw hash is kept in the record so the keys never need to be rehashed
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            long rawHash = getRawHash(groupId);
+            int hashPosition = (int) getHashPosition(rawHash, newMask);
+            while (newHashTable[hashPosition] != EMPTY_SLOT) {
+                hashPosition = (hashPosition + 1) & newMask;
+                hashCollisions++;
+            }
+            newHashTable[hashPosition] = (rawHash & HASH_TAG_MASK) | groupId;
+        }
+
+        this.mask = newMask;
+        this.hashCapacity = newCapacity;
+        this.maxFill = calculateMaxFill(newCapacity);
+        this.hashTable = newHashTable;
+        records.ensureCapacity((long) maxFill * recordSize);
+
+        preallocatedMemoryInBytes = 0;
+        // release temporary memory reservation
+        updateMemory.update();
+        return true;
+    }
+
+    private static long encodeChunkAddress(int chunkIndex, int chunkOffset)
+    {
+        return (((long) chunkIndex) << 32) | chunkOffset;
+    }
+
+    private static int decodeChunkIndex(long address)
+    {
+        return (int) (address >>> 32);
+    }
+
+    private static int decodeChunkOffset(long address)
+    {
+        return (int) address;
+    }
+
+    private static long getHashPosition(long rawHash, int mask)
+    {
+        return murmurHash3(rawHash) & mask;
+    }
+
+    private static int calculateMaxFill(int hashSize)
+    {
+        checkArgument(hashSize > 0, "hashSize must be greater than 0");
+        int maxFill = (int) Math.ceil(hashSize * FILL_RATIO);
+        if (maxFill == hashSize) {
+            maxFill--;
+        }
+        checkArgument(hashSize > maxFill, "hashSize must be larger than maxFill");
+        return maxFill;
+    }
+
+    private class AddPageWork
+            implements Work<Void>
+    {
+        private final Page page;
+
+        private int lastPosition;
+
+        public AddPageWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+
+            // needRehash() == true indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                putIfAbsent(lastPosition, page);
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public Void getResult()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class GetGroupIdsWork
+            implements Work<GroupByIdBlock>
+    {
+        private final long[] groupIds;
+        private final Page page;
+
+        private boolean finished;
+        private int lastPosition;
+
+        public GetGroupIdsWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+            // we know the exact size required for the block
+            this.groupIds = new long[page.getPositionCount()];
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+            checkState(!finished);
+
+            // needRehash() == true indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                // output the group id for this row
+                groupIds[lastPosition] = putIfAbsent(lastPosition, page);
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public GroupByIdBlock getResult()
+        {
+            checkState(lastPosition == page.getPositionCount(), "process has not yet finished");
+            checkState(!finished, "result has produced");
+            finished = true;
+            return new GroupByIdBlock(nextGroupId, new LongArrayBlock(groupIds.length, Optional.empty(), groupIds));
+        }
+    }
+}
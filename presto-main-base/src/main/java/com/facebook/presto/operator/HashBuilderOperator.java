@@ -17,6 +17,7 @@ import com.facebook.airlift.log.Logger;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.ErrorCause;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spiller.SingleStreamSpiller;
@@ -26,12 +27,14 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.Closer;
 import com.google.common.util.concurrent.ListenableFuture;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,11 +46,17 @@ import java.util.Queue;
 import static com.facebook.airlift.concurrent.MoreFutures.getDone;
 import static com.facebook.presto.ExceededMemoryLimitException.exceededLocalUserMemoryLimit;
 import static com.facebook.presto.SystemSessionProperties.getQueryMaxMemoryPerNode;
+import static com.facebook.presto.SystemSessionProperties.getQueryMaxRevocableMemoryPerNode;
+import static com.facebook.presto.SystemSessionProperties.isRadixPartitionedHashBuildEnabled;
 import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.allAsList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.units.DataSize.succinctBytes;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -227,8 +236,20 @@ public class HashBuilderOperator
 
     private State state = State.CONSUMING_INPUT;
     private Optional<ListenableFuture<?>> lookupSourceNotNeeded = Optional.empty();
-    private final SpilledLookupSourceHandle spilledLookupSourceHandle = new SpilledLookupSourceHandle();
-    private Optional<SingleStreamSpiller> spiller = Optional.empty();
+
+    /*
+     * When spilled while consuming input, the partition is spilled in sub-partitions, one spiller each, so that it can be
+     * unspilled in parts that fit in memory. A built lookup source is spilled with a single spiller, since the probe operators
+     * can resume probing it at a position, which would be lost by splitting it. Then a single unspilled lookup source serves
+     * all sub-partitions.
+     */
+    private final List<SpilledLookupSourceHandle> spilledLookupSourceHandles;
+    private final Optional<LocalPartitionGenerator> spillPartitionGenerator;
+    private final List<SingleStreamSpiller> spillers = new ArrayList<>();
+    // the sub-partition served next, and the end of the sub-partitions served by the unspilled lookup source
+    private int unspilledSubPartition;
+    private int unspilledSubPartitionsEnd;
+    private boolean unspilledLookupSourceSet;
     private ListenableFuture<?> spillInProgress = NOT_BLOCKED;
     private Optional<ListenableFuture<List<Page>>> unspillInProgress = Optional.empty();
     @Nullable
@@ -279,6 +300,23 @@ public class HashBuilderOperator
         this.spillEnabled = spillEnabled;
         this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
         this.enforceBroadcastMemoryLimit = enforceBroadcastMemoryLimit;
+
+        int spillFanout = lookupSourceFactory.spillFanout();
+        ImmutableList.Builder<SpilledLookupSourceHandle> spilledLookupSourceHandles = ImmutableList.builder();
+        for (int subPartition = 0; subPartition < spillFanout; subPartition++) {
+            spilledLookupSourceHandles.add(new SpilledLookupSourceHandle());
+        }
+        this.spilledLookupSourceHandles = spilledLookupSourceHandles.build();
+        if (spillFanout > 1) {
+            // partition the rows like the probe operators partition their spilled rows
+            HashGenerator hashGenerator = preComputedHashChannel.isPresent()
+                    ? new PrecomputedHashGenerator(preComputedHashChannel.getAsInt())
+                    : new InterpretedHashGenerator(lookupSourceFactory.getHashChannelTypes(), hashChannels);
+            this.spillPartitionGenerator = Optional.of(new LocalPartitionGenerator(hashGenerator, lookupSourceFactory.partitions() * spillFanout));
+        }
+        else {
+            this.spillPartitionGenerator = Optional.empty();
+        }
     }
 
     @Override
@@ -307,13 +345,16 @@ public class HashBuilderOperator
                 return lookupSourceNotNeeded.orElseThrow(() -> new IllegalStateException("Lookup source built, but disposal future not set"));
 
             case INPUT_SPILLED:
-                return spilledLookupSourceHandle.getUnspillingOrDisposeRequested();
+                return getUnspilledLookupSourceHandle().getUnspillingOrDisposeRequested();
 
             case INPUT_UNSPILLING:
                 return unspillInProgress.orElseThrow(() -> new IllegalStateException("Unspilling in progress, but unspilling future not set"));
 
             case INPUT_UNSPILLED_AND_BUILT:
-                return spilledLookupSourceHandle.getDisposeRequested();
+                if (!unspilledLookupSourceSet) {
+                    return getUnspilledLookupSourceHandle().getUnspillingOrDisposeRequested();
+                }
+                return getUnspilledLookupSourceHandle().getDisposeRequested();
 
             case CLOSED:
                 return NOT_BLOCKED;
@@ -369,20 +410,57 @@ public class HashBuilderOperator
     {
         checkState(spillInProgress.isDone(), "Previous spill still in progress");
         checkSpillSucceeded(spillInProgress);
-        long sizeOfPage = page.getSizeInBytes();
+        checkState(!spillers.isEmpty(), "Spiller not created");
 
-        // check that spilled data can still fit into memory limit as otherwise
-        // it fails later during unspilling when all spilled pages need to be loaded into memory
         long maxUserMemoryBytes = getQueryMaxMemoryPerNode(operatorContext.getSession()).toBytes();
-        long totalSpilledBytes = sizeOfPage + getSpiller().getSpilledPagesInMemorySize();
-        if (totalSpilledBytes > maxUserMemoryBytes) {
-            String additionalInfo = format("Spilled: %s, Operator: %s", succinctBytes(totalSpilledBytes), HashBuilderOperator.class.getSimpleName());
-            throw exceededLocalUserMemoryLimit(succinctBytes(maxUserMemoryBytes), additionalInfo, false, Optional.empty(), ErrorCause.UNKNOWN);
+        List<Page> subPartitionPages = partitionSpilledPage(page);
+        ImmutableList.Builder<ListenableFuture<?>> spills = ImmutableList.builder();
+        for (int subPartition = 0; subPartition < subPartitionPages.size(); subPartition++) {
+            Page subPartitionPage = subPartitionPages.get(subPartition);
+            if (subPartitionPage.getPositionCount() == 0) {
+                continue;
+            }
+            SingleStreamSpiller spiller = spillers.get(subPartition);
+            long sizeOfPage = subPartitionPage.getSizeInBytes();
+
+            // check that spilled data can still fit into memory limit as otherwise
+            // it fails later during unspilling when all spilled pages of a sub-partition need to be loaded into memory
+            long totalSpilledBytes = sizeOfPage + spiller.getSpilledPagesInMemorySize();
+            if (totalSpilledBytes > maxUserMemoryBytes) {
+                String additionalInfo = format("Spilled: %s, Operator: %s", succinctBytes(totalSpilledBytes), HashBuilderOperator.class.getSimpleName());
+                throw exceededLocalUserMemoryLimit(succinctBytes(maxUserMemoryBytes), additionalInfo, false, Optional.empty(), ErrorCause.UNKNOWN);
+            }
+
+            spills.add(spiller.spill(subPartitionPage));
+            long retainedSizeOfPage = subPartitionPage.getRetainedSizeInBytes();
+            log.debug("Spilling for operator %s, sizeOfPage %s, retainedSizeOfPage %s, totalSpilledBytes %s", operatorContext, sizeOfPage, retainedSizeOfPage, totalSpilledBytes);
         }
+        spillInProgress = allAsList(spills.build());
+    }
 
-        spillInProgress = getSpiller().spill(page);
-        long retainedSizeOfPage = page.getRetainedSizeInBytes();
-        log.debug("Spilling for operator %s, sizeOfPage %s, retainedSizeOfPage %s, totalSpilledBytes %s", operatorContext, sizeOfPage, retainedSizeOfPage, totalSpilledBytes);
+    /**
+     * Splits the page by the sub-partitions of its rows, if the partition is spilled in sub-partitions.
+     */
+    private List<Page> partitionSpilledPage(Page page)
+    {
+        if (spillers.size() == 1) {
+            return ImmutableList.of(page);
+        }
+        LocalPartitionGenerator partitionGenerator = spillPartitionGenerator.orElseThrow(() -> new IllegalStateException("spillPartitionGenerator is not set"));
+        int partitionCount = lookupSourceFactory.partitions();
+        IntArrayList[] subPartitionPositions = new IntArrayList[spillers.size()];
+        for (int subPartition = 0; subPartition < subPartitionPositions.length; subPartition++) {
+            subPartitionPositions[subPartition] = new IntArrayList();
+        }
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            // the low bits of a sub-partition are the partition, see PartitionedLookupSourceFactory
+            subPartitionPositions[partitionGenerator.getPartition(page, position) / partitionCount].add(position);
+        }
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        for (IntArrayList positions : subPartitionPositions) {
+            pages.add(page.getPositions(positions.elements(), 0, positions.size()));
+        }
+        return pages.build();
     }
 
     @Override
@@ -406,14 +484,14 @@ public class HashBuilderOperator
                 log.debug("Done Revoking Memory for operator %s, estimatedIndexSize: %s, spilled bytes: %s, state: %s", operatorContext, estimatedIndexSize, localRevocableMemoryContext.getBytes(), state);
                 localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes(), enforceBroadcastMemoryLimit);
                 localRevocableMemoryContext.setBytes(0);
-                lookupSourceFactory.setPartitionSpilledLookupSourceHandle(partitionIndex, spilledLookupSourceHandle);
+                lookupSourceFactory.setPartitionSpilledLookupSourceHandles(partitionIndex, spilledLookupSourceHandles);
                 state = State.SPILLING_INPUT;
             });
-            return spillIndex();
+            return spillIndex(spilledLookupSourceHandles.size());
         }
         else if (state == State.LOOKUP_SOURCE_BUILT) {
             finishMemoryRevoke = Optional.of(() -> {
-                lookupSourceFactory.setPartitionSpilledLookupSourceHandle(partitionIndex, spilledLookupSourceHandle);
+                lookupSourceFactory.setPartitionSpilledLookupSourceHandles(partitionIndex, spilledLookupSourceHandles);
                 lookupSourceNotNeeded = Optional.empty();
                 index.clear();
                 long estimatedIndexSize = index.getEstimatedSize().toBytes();
@@ -424,7 +502,7 @@ public class HashBuilderOperator
                 lookupSourceSupplier = null;
                 state = State.INPUT_SPILLED;
             });
-            return spillIndex();
+            return spillIndex(1);
         }
         else if (operatorContext.getReservedRevocableBytes() == 0) {
             // Probably stale revoking request
@@ -435,22 +513,44 @@ public class HashBuilderOperator
         throw new IllegalStateException(format("State %s can not have revocable memory, but has %s revocable bytes", state, operatorContext.getReservedRevocableBytes()));
     }
 
-    private ListenableFuture<?> spillIndex()
+    private ListenableFuture<?> spillIndex(int spillerCount)
     {
-        checkState(!spiller.isPresent(), "Spiller already created");
-        spiller = Optional.of(singleStreamSpillerFactory.create(
-                index.getTypes(),
-                operatorContext.getSpillContext().newLocalSpillContext(),
-                operatorContext.localSystemMemoryContext()));
+        checkState(spillers.isEmpty(), "Spiller already created");
+        for (int i = 0; i < spillerCount; i++) {
+            spillers.add(singleStreamSpillerFactory.create(
+                    index.getTypes(),
+                    operatorContext.getSpillContext().newLocalSpillContext(),
+                    operatorContext.localSystemMemoryContext()));
+        }
         long indexEstimatedSize = index.getEstimatedSize().toBytes();
-        log.debug("Spilling Index for operator: %s, index estimated size: %s", operatorContext, indexEstimatedSize);
+        log.debug("Spilling Index for operator: %s, index estimated size: %s, spillers: %s", operatorContext, indexEstimatedSize, spillerCount);
         long maxUserMemoryBytes = getQueryMaxMemoryPerNode(operatorContext.getSession()).toBytes();
         if (indexEstimatedSize > maxUserMemoryBytes) {
-            log.error("Spill Index Failure due to memory limit %s, spilled Bytes: %s", indexEstimatedSize, getSpiller().getSpilledPagesInMemorySize());
+            log.error("Spill Index Failure due to memory limit %s, spilled Bytes: %s", indexEstimatedSize, getSpilledPagesInMemorySize(spillers));
             String additionalInfo = format("Estimated Spilled: %s, Operator: %s", succinctBytes(indexEstimatedSize), HashBuilderOperator.class.getSimpleName());
             throw exceededLocalUserMemoryLimit(succinctBytes(maxUserMemoryBytes), additionalInfo, false, Optional.empty(), ErrorCause.UNKNOWN);
         }
-        return getSpiller().spill(index.getPages());
+        if (spillerCount == 1) {
+            return spillers.get(0).spill(index.getPages());
+        }
+
+        List<List<Page>> subPartitionPages = new ArrayList<>();
+        for (int subPartition = 0; subPartition < spillerCount; subPartition++) {
+            subPartitionPages.add(new ArrayList<>());
+        }
+        index.getPages().forEachRemaining(page -> {
+            List<Page> pages = partitionSpilledPage(page);
+            for (int subPartition = 0; subPartition < spillerCount; subPartition++) {
+                if (pages.get(subPartition).getPositionCount() > 0) {
+                    subPartitionPages.get(subPartition).add(pages.get(subPartition));
+                }
+            }
+        });
+        ImmutableList.Builder<ListenableFuture<?>> spills = ImmutableList.builder();
+        for (int subPartition = 0; subPartition < spillerCount; subPartition++) {
+            spills.add(spillers.get(subPartition).spill(subPartitionPages.get(subPartition).iterator()));
+        }
+        return allAsList(spills.build());
     }
 
     @Override
@@ -493,7 +593,7 @@ public class HashBuilderOperator
                 return;
 
             case INPUT_SPILLED:
-                if (spilledLookupSourceHandle.getDisposeRequested().isDone()) {
+                if (getUnspilledLookupSourceHandle().getDisposeRequested().isDone()) {
                     close();
                 }
                 else {
@@ -525,6 +625,15 @@ public class HashBuilderOperator
             return;
         }
 
+        long buildSizeInBytes = getLookupSourceBuildSizeInBytes();
+        if (buildSizeInBytes > 0) {
+            if (spillEnabled) {
+                localRevocableMemoryContext.setBytes(index.getEstimatedSize().toBytes() + buildSizeInBytes);
+            }
+            else {
+                localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes() + buildSizeInBytes, enforceBroadcastMemoryLimit);
+            }
+        }
         LookupSourceSupplier partition = buildLookupSource();
         if (spillEnabled) {
             localRevocableMemoryContext.setBytes(partition.get().getInMemorySizeInBytes());
@@ -566,23 +675,65 @@ public class HashBuilderOperator
     private void unspillLookupSourceIfRequested()
     {
         checkState(state == State.INPUT_SPILLED);
-        if (!spilledLookupSourceHandle.getUnspillingRequested().isDone()) {
+        if (!getUnspilledLookupSourceHandle().getUnspillingRequested().isDone()) {
             // Nothing to do yet.
             return;
         }
 
-        verify(spiller.isPresent());
+        verify(!spillers.isEmpty());
         verify(!unspillInProgress.isPresent());
 
-        long memorySizeOfSpillPages = getSpiller().getSpilledPagesInMemorySize();
+        List<SingleStreamSpiller> unspilledSpillers = selectUnspilledSpillers();
+        long memorySizeOfSpillPages = getSpilledPagesInMemorySize(unspilledSpillers);
         long estimatedSizeOfIndex = index.getEstimatedSize().toBytes();
-        log.debug("Unspilling lookup source for operator %s: memorySizeOfSpillPages: %s estimatedSizeOfIndex: %s", operatorContext, memorySizeOfSpillPages, estimatedSizeOfIndex);
+        log.debug(
+                "Unspilling lookup source for operator %s: memorySizeOfSpillPages: %s estimatedSizeOfIndex: %s, sub-partitions: [%s, %s)",
+                operatorContext,
+                memorySizeOfSpillPages,
+                estimatedSizeOfIndex,
+                unspilledSubPartition,
+                unspilledSubPartitionsEnd);
         localUserMemoryContext.setBytes(memorySizeOfSpillPages + estimatedSizeOfIndex, enforceBroadcastMemoryLimit);
-        unspillInProgress = Optional.of(getSpiller().getAllSpilledPages());
+        if (unspilledSpillers.size() == 1) {
+            unspillInProgress = Optional.of(unspilledSpillers.get(0).getAllSpilledPages());
+        }
+        else {
+            List<ListenableFuture<List<Page>>> unspills = unspilledSpillers.stream()
+                    .map(SingleStreamSpiller::getAllSpilledPages)
+                    .collect(toImmutableList());
+            unspillInProgress = Optional.of(transform(
+                    allAsList(unspills),
+                    pages -> pages.stream()
+                            .flatMap(List::stream)
+                            .collect(toImmutableList()),
+                    directExecutor()));
+        }
 
         state = State.INPUT_UNSPILLING;
     }
 
+    /**
+     * Selects the spillers of the next sub-partitions to unspill together: as many as fit in the revocable memory of the query,
+     * but at least one, since the sub-partitions are unspilled one after the other anyway.
+     */
+    private List<SingleStreamSpiller> selectUnspilledSpillers()
+    {
+        if (spillers.size() == 1) {
+            unspilledSubPartitionsEnd = spilledLookupSourceHandles.size();
+            return ImmutableList.of(spillers.get(0));
+        }
+
+        long maxRevocableMemoryBytes = getQueryMaxRevocableMemoryPerNode(operatorContext.getSession()).toBytes();
+        long unspilledBytes = spillers.get(unspilledSubPartition).getSpilledPagesInMemorySize();
+        int end = unspilledSubPartition + 1;
+        while (end < spillers.size() && unspilledBytes + spillers.get(end).getSpilledPagesInMemorySize() <= maxRevocableMemoryBytes) {
+            unspilledBytes += spillers.get(end).getSpilledPagesInMemorySize();
+            end++;
+        }
+        unspilledSubPartitionsEnd = end;
+        return spillers.subList(unspilledSubPartition, end);
+    }
+
     private void finishLookupSourceUnspilling()
     {
         checkState(state == State.INPUT_UNSPILLING);
@@ -616,12 +767,17 @@ public class HashBuilderOperator
             localUserMemoryContext.setBytes(retainedSizeOfUnSpilledPages + index.getEstimatedSize().toBytes(), enforceBroadcastMemoryLimit);
         }
 
+        long buildSizeInBytes = getLookupSourceBuildSizeInBytes();
+        if (buildSizeInBytes > 0) {
+            localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes() + buildSizeInBytes, enforceBroadcastMemoryLimit);
+        }
         LookupSourceSupplier partition = buildLookupSource();
         lookupSourceChecksum.ifPresent(checksum ->
                 checkState(partition.checksum() == checksum, "Unspilled lookupSource checksum does not match original one"));
         localUserMemoryContext.setBytes(partition.get().getInMemorySizeInBytes(), enforceBroadcastMemoryLimit);
 
-        spilledLookupSourceHandle.setLookupSource(partition);
+        getUnspilledLookupSourceHandle().setLookupSource(partition);
+        unspilledLookupSourceSet = true;
 
         state = State.INPUT_UNSPILLED_AND_BUILT;
     }
@@ -629,17 +785,56 @@ public class HashBuilderOperator
     private void disposeUnspilledLookupSourceIfRequested()
     {
         checkState(state == State.INPUT_UNSPILLED_AND_BUILT);
+        SpilledLookupSourceHandle spilledLookupSourceHandle = getUnspilledLookupSourceHandle();
+        if (!unspilledLookupSourceSet && spilledLookupSourceHandle.getUnspillingRequested().isDone()) {
+            // the lookup source was unspilled with the previous sub-partition
+            spilledLookupSourceHandle.setLookupSource(lookupSourceSupplier);
+            unspilledLookupSourceSet = true;
+        }
         if (!spilledLookupSourceHandle.getDisposeRequested().isDone()) {
             return;
         }
 
+        unspilledSubPartition++;
+        unspilledLookupSourceSet = false;
+        if (unspilledSubPartition < unspilledSubPartitionsEnd) {
+            spilledLookupSourceHandle.setDisposeCompleted();
+            return;
+        }
+
         index.clear();
         localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes(), enforceBroadcastMemoryLimit);
+        lookupSourceSupplier = null;
 
-        close();
+        if (unspilledSubPartition == spilledLookupSourceHandles.size()) {
+            close();
+        }
+        else {
+            state = State.INPUT_SPILLED;
+        }
         spilledLookupSourceHandle.setDisposeCompleted();
     }
 
+    private SpilledLookupSourceHandle getUnspilledLookupSourceHandle()
+    {
+        return spilledLookupSourceHandles.get(unspilledSubPartition);
+    }
+
+    private static long getSpilledPagesInMemorySize(List<SingleStreamSpiller> spillers)
+    {
+        return spillers.stream()
+                .mapToLong(SingleStreamSpiller::getSpilledPagesInMemorySize)
+                .sum();
+    }
+
+    /**
+     * Returns the memory the hash build holds temporarily on top of the index, which has to be reserved before building the lookup source.
+     */
+    private long getLookupSourceBuildSizeInBytes()
+    {
+        return PagesHash.getEstimatedBuildSizeInBytes(index.getPositionCount(), isRadixPartitionedHashBuildEnabled(operatorContext.getSession()));
+    }
+
     private LookupSourceSupplier buildLookupSource()
     {
         LookupSourceSupplier partition = index.createLookupSourceSupplier(operatorContext.getSession(), hashChannels, preComputedHashChannel, filterFunctionFactory, sortChannel, searchFunctionFactories, Optional.of(outputChannels));
@@ -663,11 +858,6 @@ public class HashBuilderOperator
         return state == State.CLOSED;
     }
 
-    private SingleStreamSpiller getSpiller()
-    {
-        return spiller.orElseThrow(() -> new IllegalStateException("Spiller not created"));
-    }
-
     @Override
     public void close()
     {
@@ -682,7 +872,7 @@ public class HashBuilderOperator
 
         try (Closer closer = Closer.create()) {
             closer.register(index::clear);
-            spiller.ifPresent(closer::register);
+            spillers.forEach(closer::register);
             closer.register(() -> localUserMemoryContext.setBytes(0, enforceBroadcastMemoryLimit));
             closer.register(() -> localRevocableMemoryContext.setBytes(0));
         }
@@ -66,6 +66,12 @@ public final class JoinHash
         return pagesHash.getPositionCount();
     }
 
+    @Override
+    public long getBuildTimeNanos()
+    {
+        return pagesHash.getBuildTimeNanos();
+    }
+
     @Override
     public long getInMemorySizeInBytes()
     {
@@ -92,6 +98,22 @@ public final class JoinHash
         return startJoinPosition(addressIndex, position, allChannelsPage);
     }
 
+    @Override
+    public boolean supportsBatchedJoinPositions()
+    {
+        return true;
+    }
+
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, @Nullable long[] rawHashes, long[] joinPositions)
+    {
+        pagesHash.getAddressIndexes(positions, positionCount, hashChannelsPage, rawHashes, joinPositions);
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            joinPositions[position] = startJoinPosition(toIntExact(joinPositions[position]), position, allChannelsPage);
+        }
+    }
+
     private long startJoinPosition(int currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
         if (currentJoinPosition == -1) {
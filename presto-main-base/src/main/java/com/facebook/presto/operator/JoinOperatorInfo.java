@@ -27,6 +27,7 @@ import static com.facebook.presto.operator.JoinStatisticsCounter.HISTOGRAM_BUCKE
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.max;
 
 @ThriftStruct
 public class JoinOperatorInfo
@@ -36,8 +37,9 @@ public class JoinOperatorInfo
     private final long[] logHistogramProbes;
     private final long[] logHistogramOutput;
     private final Optional<Long> lookupSourcePositions;
+    private final Optional<Long> lookupSourceBuildTimeNanos;
 
-    public static JoinOperatorInfo createJoinOperatorInfo(JoinType joinType, long[] logHistogramCounters, Optional<Long> lookupSourcePositions)
+    public static JoinOperatorInfo createJoinOperatorInfo(JoinType joinType, long[] logHistogramCounters, Optional<Long> lookupSourcePositions, Optional<Long> lookupSourceBuildTimeNanos)
     {
         long[] logHistogramProbes = new long[HISTOGRAM_BUCKETS];
         long[] logHistogramOutput = new long[HISTOGRAM_BUCKETS];
@@ -45,7 +47,7 @@ public class JoinOperatorInfo
             logHistogramProbes[i] = logHistogramCounters[2 * i];
             logHistogramOutput[i] = logHistogramCounters[2 * i + 1];
         }
-        return new JoinOperatorInfo(joinType, logHistogramProbes, logHistogramOutput, lookupSourcePositions);
+        return new JoinOperatorInfo(joinType, logHistogramProbes, logHistogramOutput, lookupSourcePositions, lookupSourceBuildTimeNanos);
     }
 
     @JsonCreator
@@ -54,7 +56,8 @@ public class JoinOperatorInfo
             @JsonProperty("joinType") JoinType joinType,
             @JsonProperty("logHistogramProbes") long[] logHistogramProbes,
             @JsonProperty("logHistogramOutput") long[] logHistogramOutput,
-            @JsonProperty("lookupSourcePositions") Optional<Long> lookupSourcePositions)
+            @JsonProperty("lookupSourcePositions") Optional<Long> lookupSourcePositions,
+            @JsonProperty("lookupSourceBuildTimeNanos") Optional<Long> lookupSourceBuildTimeNanos)
     {
         checkArgument(logHistogramProbes.length == HISTOGRAM_BUCKETS);
         checkArgument(logHistogramOutput.length == HISTOGRAM_BUCKETS);
@@ -62,6 +65,7 @@ public class JoinOperatorInfo
         this.logHistogramProbes = logHistogramProbes;
         this.logHistogramOutput = logHistogramOutput;
         this.lookupSourcePositions = lookupSourcePositions;
+        this.lookupSourceBuildTimeNanos = lookupSourceBuildTimeNanos;
     }
 
     @JsonProperty
@@ -95,6 +99,16 @@ public class JoinOperatorInfo
         return lookupSourcePositions;
     }
 
+    /**
+     * Time spent building the hash tables of the build side
+     */
+    @JsonProperty
+    @ThriftField(5)
+    public Optional<Long> getLookupSourceBuildTimeNanos()
+    {
+        return lookupSourceBuildTimeNanos;
+    }
+
     @Override
     public String toString()
     {
@@ -103,6 +117,7 @@ public class JoinOperatorInfo
                 .add("logHistogramProbes", logHistogramProbes)
                 .add("logHistogramOutput", logHistogramOutput)
                 .add("lookupSourcePositions", lookupSourcePositions)
+                .add("lookupSourceBuildTimeNanos", lookupSourceBuildTimeNanos)
                 .toString();
     }
 
@@ -122,7 +137,13 @@ public class JoinOperatorInfo
             mergedSourcePositions = Optional.of(this.lookupSourcePositions.orElse(0L) + other.lookupSourcePositions.orElse(0L));
         }
 
-        return new JoinOperatorInfo(this.joinType, logHistogramProbes, logHistogramOutput, mergedSourcePositions);
+        // every probe driver reports the build of the lookup source it shares with the other drivers
+        Optional<Long> mergedBuildTimeNanos = Optional.empty();
+        if (this.lookupSourceBuildTimeNanos.isPresent() || other.lookupSourceBuildTimeNanos.isPresent()) {
+            mergedBuildTimeNanos = Optional.of(max(this.lookupSourceBuildTimeNanos.orElse(0L), other.lookupSourceBuildTimeNanos.orElse(0L)));
+        }
+
+        return new JoinOperatorInfo(this.joinType, logHistogramProbes, logHistogramOutput, mergedSourcePositions, mergedBuildTimeNanos);
     }
 
     @Override
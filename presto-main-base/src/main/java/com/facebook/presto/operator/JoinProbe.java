@@ -40,9 +40,14 @@ public class JoinProbe
         }
 
         public JoinProbe createJoinProbe(Page page)
+        {
+            return createJoinProbe(page, false);
+        }
+
+        public JoinProbe createJoinProbe(Page page, boolean batched)
         {
             Page probePage = page.getLoadedPage(probeJoinChannels);
-            return new JoinProbe(probeOutputChannels, page, probePage, probeHashChannel >= 0 ? page.getBlock(probeHashChannel).getLoadedBlock() : null);
+            return new JoinProbe(probeOutputChannels, page, probePage, probeHashChannel >= 0 ? page.getBlock(probeHashChannel).getLoadedBlock() : null, batched);
         }
     }
 
@@ -53,11 +58,18 @@ public class JoinProbe
     @Nullable
     private final Block probeHashBlock;
     private final boolean probeMayHaveNull;
+    private final boolean batched;
 
     private int position = -1;
     private int nullRowCount;
 
-    private JoinProbe(int[] probeOutputChannels, Page page, Page probePage, @Nullable Block probeHashBlock)
+    // join positions of the whole page, looked up in a single batch from batchLookupSource
+    @Nullable
+    private long[] joinPositions;
+    @Nullable
+    private LookupSource batchLookupSource;
+
+    private JoinProbe(int[] probeOutputChannels, Page page, Page probePage, @Nullable Block probeHashBlock, boolean batched)
     {
         this.probeOutputChannels = probeOutputChannels;
         this.positionCount = page.getPositionCount();
@@ -65,6 +77,7 @@ public class JoinProbe
         this.probePage = probePage;
         this.probeHashBlock = probeHashBlock;
         this.probeMayHaveNull = probeMayHaveNull(probePage);
+        this.batched = batched;
     }
 
     public int[] getOutputChannels()
@@ -79,10 +92,16 @@ public class JoinProbe
 
     public long getCurrentJoinPosition(LookupSource lookupSource)
     {
-        if (probeMayHaveNull && currentRowContainsNull()) {
+        if (probeMayHaveNull && rowContainsNull(position)) {
             ++nullRowCount;
             return -1;
         }
+        if (batched && lookupSource.supportsBatchedJoinPositions()) {
+            if (lookupSource != batchLookupSource) {
+                lookupJoinPositions(lookupSource);
+            }
+            return joinPositions[position];
+        }
         if (probeHashBlock != null) {
             long rawHash = BIGINT.getLong(probeHashBlock, position);
             return lookupSource.getJoinPosition(position, probePage, page, rawHash);
@@ -100,7 +119,33 @@ public class JoinProbe
         return page;
     }
 
-    private boolean currentRowContainsNull()
+    // looks up all the remaining positions of the page at once
+    private void lookupJoinPositions(LookupSource lookupSource)
+    {
+        int[] positions = new int[positionCount - position];
+        int batchSize = 0;
+        for (int i = position; i < positionCount; i++) {
+            if (!probeMayHaveNull || !rowContainsNull(i)) {
+                positions[batchSize++] = i;
+            }
+        }
+
+        long[] rawHashes = null;
+        if (probeHashBlock != null) {
+            rawHashes = new long[positionCount];
+            for (int i = 0; i < batchSize; i++) {
+                rawHashes[positions[i]] = BIGINT.getLong(probeHashBlock, positions[i]);
+            }
+        }
+
+        if (joinPositions == null) {
+            joinPositions = new long[positionCount];
+        }
+        lookupSource.getJoinPositions(positions, batchSize, probePage, page, rawHashes, joinPositions);
+        batchLookupSource = lookupSource;
+    }
+
+    private boolean rowContainsNull(int position)
     {
         for (int i = 0; i < probePage.getChannelCount(); i++) {
             if (probePage.getBlock(i).isNull(position)) {
@@ -41,6 +41,11 @@ public class JoinStatisticsCounter
      */
     private Optional<Long> lookupSourcePositions = Optional.empty();
 
+    /**
+     * Time spent building the hash tables of the build side
+     */
+    private Optional<Long> lookupSourceBuildTimeNanos = Optional.empty();
+
     public JoinStatisticsCounter(JoinType joinType)
     {
         this.joinType = requireNonNull(joinType, "joinType is null");
@@ -51,6 +56,11 @@ public class JoinStatisticsCounter
         this.lookupSourcePositions = Optional.of(this.lookupSourcePositions.orElse(0L) + lookupSourcePositionsDelta);
     }
 
+    public void updateLookupSourceBuildTimeNanos(long lookupSourceBuildTimeNanosDelta)
+    {
+        this.lookupSourceBuildTimeNanos = Optional.of(this.lookupSourceBuildTimeNanos.orElse(0L) + lookupSourceBuildTimeNanosDelta);
+    }
+
     public void recordProbe(int numSourcePositions)
     {
         int bucket;
@@ -73,6 +83,6 @@ public class JoinStatisticsCounter
     @Override
     public JoinOperatorInfo get()
     {
-        return createJoinOperatorInfo(joinType, logHistogramCounters, lookupSourcePositions);
+        return createJoinOperatorInfo(joinType, logHistogramCounters, lookupSourcePositions, lookupSourceBuildTimeNanos);
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskManager;
+import com.facebook.presto.metadata.InternalNode;
+import com.facebook.presto.metadata.InternalNodeManager;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.Objects.requireNonNull;
+
+public class LocalShuffleClientProvider
+        implements RpcShuffleClientProvider
+{
+    // the task manager depends on the exchange clients through the local execution planner
+    private final Provider<TaskManager> taskManager;
+    private final InternalNodeManager nodeManager;
+    private final ScheduledExecutorService timeoutExecutor;
+
+    @Inject
+    public LocalShuffleClientProvider(Provider<TaskManager> taskManager, InternalNodeManager nodeManager, @ForExchange ScheduledExecutorService timeoutExecutor)
+    {
+        this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.nodeManager = requireNonNull(nodeManager, "nodeManager is null");
+        this.timeoutExecutor = requireNonNull(timeoutExecutor, "timeoutExecutor is null");
+    }
+
+    /**
+     * Returns true if the location points to a task on this node, using the same address the
+     * location factory uses for the tasks of this node.
+     */
+    public boolean isLocal(URI location)
+    {
+        InternalNode currentNode = nodeManager.getCurrentNode();
+        URI internalUri = currentNode.getInternalUri();
+        if (location.getHost() == null || !location.getHost().equalsIgnoreCase(internalUri.getHost())) {
+            return false;
+        }
+        if (location.getScheme().toLowerCase(Locale.ENGLISH).equals("thrift")) {
+            return currentNode.getThriftPort().isPresent() && currentNode.getThriftPort().getAsInt() == location.getPort();
+        }
+        return location.getPort() == internalUri.getPort();
+    }
+
+    @Override
+    public RpcShuffleClient get(URI location)
+    {
+        return new LocalRpcShuffleClient(taskManager.get(), timeoutExecutor, location);
+    }
+}
@@ -41,6 +41,7 @@ import java.util.function.Supplier;
 
 import static com.facebook.airlift.concurrent.MoreFutures.addSuccessCallback;
 import static com.facebook.airlift.concurrent.MoreFutures.getDone;
+import static com.facebook.presto.SystemSessionProperties.isBatchedJoinProbeEnabled;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.FULL_OUTER;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.PROBE_OUTER;
 import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
@@ -76,6 +77,7 @@ public class LookupJoinOperator
 
     private Optional<PartitioningSpiller> spiller = Optional.empty();
     private Optional<LocalPartitionGenerator> partitionGenerator = Optional.empty();
+    private Optional<LocalPartitionGenerator> spillPartitionGenerator = Optional.empty();
     private ListenableFuture<?> spillInProgress = NOT_BLOCKED;
     private long inputPageSpillEpoch;
     private boolean closed;
@@ -96,6 +98,7 @@ public class LookupJoinOperator
     private Optional<ListenableFuture<Supplier<LookupSource>>> unspilledLookupSource = Optional.empty();
     private Iterator<Page> unspilledInputPages = emptyIterator();
     private final boolean optimizeProbeForEmptyBuild;
+    private final boolean batchedJoinProbeEnabled;
     private long nullProbeRowCount;
     private long inputProbeRowCount;
 
@@ -132,6 +135,7 @@ public class LookupJoinOperator
 
         this.pageBuilder = new LookupJoinPageBuilder(buildOutputTypes);
         this.optimizeProbeForEmptyBuild = optimizeProbeForEmptyBuild;
+        this.batchedJoinProbeEnabled = isBatchedJoinProbeEnabled(operatorContext.getSession());
     }
 
     @Override
@@ -234,7 +238,7 @@ public class LookupJoinOperator
 
         // create probe
         inputPageSpillEpoch = spillInfoSnapshot.getSpillEpoch();
-        probe = joinProbeFactory.createJoinProbe(page);
+        probe = joinProbeFactory.createJoinProbe(page, batchedJoinProbeEnabled);
 
         // initialize to invalid join position to force output code to advance the cursors
         joinPosition = -1;
@@ -248,6 +252,7 @@ public class LookupJoinOperator
             }
             lookupSourceProvider = requireNonNull(getDone(lookupSourceProviderFuture));
             statisticsCounter.updateLookupSourcePositions(lookupSourceProvider.withLease(lookupSourceLease -> lookupSourceLease.getLookupSource().getJoinPositionCount()));
+            statisticsCounter.updateLookupSourceBuildTimeNanos(lookupSourceProvider.withLease(lookupSourceLease -> lookupSourceLease.getLookupSource().getBuildTimeNanos()));
         }
         return true;
     }
@@ -260,12 +265,14 @@ public class LookupJoinOperator
         if (!spiller.isPresent()) {
             spiller = Optional.of(partitioningSpillerFactory.create(
                     probeTypes,
-                    getPartitionGenerator(),
+                    getSpillPartitionGenerator(),
                     operatorContext.getSpillContext().newLocalSpillContext(),
                     operatorContext.aggregateSystemMemoryContext()));
         }
 
-        PartitioningSpillResult result = spiller.get().partitionAndSpill(page, spillMask);
+        // the low bits of a sub-partition are the partition, see PartitionedLookupSourceFactory
+        int partitionMask = lookupSourceFactory.partitions() - 1;
+        PartitioningSpillResult result = spiller.get().partitionAndSpill(page, subPartition -> spillMask.test(subPartition & partitionMask));
         spillInProgress = result.getSpillingFuture();
         return result.getRetained();
     }
@@ -278,6 +285,21 @@ public class LookupJoinOperator
         return partitionGenerator.get();
     }
 
+    /**
+     * Partitions the spilled probe rows like the build operators partition their spilled rows, so that each spilled
+     * sub-partition can be joined with only a part of the spilled build partition in memory.
+     */
+    private LocalPartitionGenerator getSpillPartitionGenerator()
+    {
+        if (lookupSourceFactory.spillFanout() == 1) {
+            return getPartitionGenerator();
+        }
+        if (!spillPartitionGenerator.isPresent()) {
+            spillPartitionGenerator = Optional.of(new LocalPartitionGenerator(hashGenerator, lookupSourceFactory.partitions() * lookupSourceFactory.spillFanout()));
+        }
+        return spillPartitionGenerator.get();
+    }
+
     @Override
     public Page getOutput()
     {
@@ -373,6 +395,7 @@ public class LookupJoinOperator
             lookupSourceProvider = new StaticLookupSourceProvider(lookupSource);
             // If the partition was spilled during processing, its position count will be considered twice.
             statisticsCounter.updateLookupSourcePositions(lookupSource.getJoinPositionCount());
+            statisticsCounter.updateLookupSourceBuildTimeNanos(lookupSource.getBuildTimeNanos());
 
             int partition = currentPartition.get().number();
             unspilledInputPages = spiller.map(spiller -> spiller.getSpilledPages(partition))
@@ -462,8 +485,10 @@ public class LookupJoinOperator
             boolean currentRowSpilled = spillInfoSnapshot.getSpillMask().test(currentRowPartition);
 
             if (currentRowSpilled) {
+                // the row is restored when its sub-partition is unspilled
+                int currentRowSpillPartition = getSpillPartitionGenerator().getPartition(currentPage, currentPosition);
                 savedRows.merge(
-                        currentRowPartition,
+                        currentRowSpillPartition,
                         new SavedRow(currentPage, currentPosition, joinPositionWithinPartition, currentProbePositionProducedRow, joinSourcePositions),
                         (oldValue, newValue) -> {
                             throw new IllegalStateException(format("Partition %s is already spilled", currentRowPartition));
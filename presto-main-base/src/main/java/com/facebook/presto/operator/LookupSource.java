@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.PageBuilder;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import java.io.Closeable;
@@ -30,12 +31,46 @@ public interface LookupSource
 
     long getJoinPositionCount();
 
+    /**
+     * Wall time spent building the hash tables of this lookup source
+     */
+    default long getBuildTimeNanos()
+    {
+        return 0;
+    }
+
     long joinPositionWithinPartition(long joinPosition);
 
     long getJoinPosition(int position, Page hashChannelsPage, Page allChannelsPage, long rawHash);
 
     long getJoinPosition(int position, Page hashChannelsPage, Page allChannelsPage);
 
+    /**
+     * Whether {@link #getJoinPositions} may be used to look up several probe positions before
+     * the matches of the previous ones are iterated.
+     */
+    default boolean supportsBatchedJoinPositions()
+    {
+        return false;
+    }
+
+    /**
+     * Looks up the join positions of the first {@code positionCount} probe positions in {@code positions}.
+     * Both {@code rawHashes} (if present) and {@code joinPositions} are indexed by the probe position.
+     */
+    default void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, @Nullable long[] rawHashes, long[] joinPositions)
+    {
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (rawHashes != null) {
+                joinPositions[position] = getJoinPosition(position, hashChannelsPage, allChannelsPage, rawHashes[position]);
+            }
+            else {
+                joinPositions[position] = getJoinPosition(position, hashChannelsPage, allChannelsPage);
+            }
+        }
+    }
+
     long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage);
 
     void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset);
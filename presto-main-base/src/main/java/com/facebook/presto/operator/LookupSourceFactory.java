@@ -36,6 +36,14 @@ public interface LookupSourceFactory
 
     int partitions();
 
+    /**
+     * Number of sub-partitions that the probe side splits the rows of a spilled partition into.
+     */
+    default int spillFanout()
+    {
+        return 1;
+    }
+
     default ListenableFuture<PartitionedConsumption<Supplier<LookupSource>>> finishProbeOperator(OptionalInt lookupJoinsCount)
     {
         return immediateFuture(new PartitionedConsumption<>(
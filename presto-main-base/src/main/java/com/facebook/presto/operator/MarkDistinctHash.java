@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.Session;
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.type.BooleanType;
@@ -22,11 +23,14 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
+import static com.facebook.presto.SystemSessionProperties.isFlatGroupByHashEnabled;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -42,7 +46,7 @@ public class MarkDistinctHash
 
     public MarkDistinctHash(Session session, List<Type> types, int[] channels, Optional<Integer> hashChannel, int expectedDistinctValues, JoinCompiler joinCompiler, UpdateMemory updateMemory)
     {
-        this.groupByHash = createGroupByHash(types, channels, hashChannel, expectedDistinctValues, isDictionaryAggregationEnabled(session), joinCompiler, updateMemory);
+        this.groupByHash = createGroupByHash(types, channels, hashChannel, expectedDistinctValues, isDictionaryAggregationEnabled(session), isFlatGroupByHashEnabled(session), joinCompiler, updateMemory);
     }
 
     public long getEstimatedSize()
@@ -66,6 +70,42 @@ public class MarkDistinctHash
         return groupByHash.getBufferedPages();
     }
 
+    /**
+     * Returns the types of the pages returned by {@link #getDistinctValues()}: the distinct channels,
+     * followed by the hash if the hash channel is present.
+     */
+    public List<Type> getDistinctValueTypes()
+    {
+        return groupByHash.getTypes();
+    }
+
+    /**
+     * Returns the values marked as distinct so far. The values of a page whose rows are being marked are not included.
+     */
+    public Iterator<Page> getDistinctValues()
+    {
+        int distinctCount = (int) nextDistinctId;
+        return new AbstractIterator<Page>()
+        {
+            private int distinctId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (distinctId == distinctCount) {
+                    return endOfData();
+                }
+                PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+                while (distinctId < distinctCount && !pageBuilder.isFull()) {
+                    pageBuilder.declarePosition();
+                    groupByHash.appendValuesTo(distinctId, pageBuilder, 0);
+                    distinctId++;
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
     private Block processNextGroupIds(GroupByIdBlock ids)
     {
         int positions = ids.getPositionCount();
@@ -18,23 +18,40 @@ import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.operator.SpillingUtils.spillPages;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class MarkDistinctOperator
         implements Operator
 {
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     public static class MarkDistinctOperatorFactory
             implements OperatorFactory
     {
@@ -44,6 +61,8 @@ public class MarkDistinctOperator
         private final List<Integer> markDistinctChannels;
         private final List<Type> types;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
         private boolean closed;
 
         public MarkDistinctOperatorFactory(
@@ -53,6 +72,19 @@ public class MarkDistinctOperator
                 Collection<Integer> markDistinctChannels,
                 Optional<Integer> hashChannel,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, markDistinctChannels, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public MarkDistinctOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                Collection<Integer> markDistinctChannels,
+                Optional<Integer> hashChannel,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -64,6 +96,8 @@ public class MarkDistinctOperator
                     .addAll(sourceTypes)
                     .add(BOOLEAN)
                     .build();
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -71,7 +105,7 @@ public class MarkDistinctOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MarkDistinctOperator.class.getSimpleName());
-            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -83,13 +117,22 @@ public class MarkDistinctOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
-    private final MarkDistinctHash markDistinctHash;
+    private final List<Type> sourceTypes;
+    private final List<Type> distinctTypes;
+    private final int[] markDistinctChannels;
+    private final Optional<Integer> hashChannel;
+    private final JoinCompiler joinCompiler;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+
+    private MarkDistinctHash markDistinctHash;
 
     private Page inputPage;
     private boolean finishing;
@@ -97,10 +140,31 @@ public class MarkDistinctOperator
     // for yield when memory is not available
     private Work<Block> unfinishedWork;
 
+    // once the distinct values are spilled, all input is spilled and marked partition by partition after the input is finished
+    private Optional<PartitioningSpiller> distinctValuesSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputSpiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private boolean revokingMemory;
+    private int nextUnspilledPartition;
+    private Iterator<Page> unspilledInputPages = emptyIterator();
+
     public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, List<Integer> markDistinctChannels, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
+    {
+        this(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public MarkDistinctOperator(
+            OperatorContext operatorContext,
+            List<Type> types,
+            List<Integer> markDistinctChannels,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
+        requireNonNull(types, "types is null");
         requireNonNull(hashChannel, "hashChannel is null");
         requireNonNull(markDistinctChannels, "markDistinctChannels is null");
 
@@ -108,8 +172,16 @@ public class MarkDistinctOperator
         for (int channel : markDistinctChannels) {
             distinctTypes.add(types.get(channel));
         }
-        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), distinctTypes.build(), Ints.toArray(markDistinctChannels), hashChannel, joinCompiler, this::updateMemoryReservation);
+        this.sourceTypes = ImmutableList.copyOf(types.subList(0, types.size() - 1));
+        this.distinctTypes = distinctTypes.build();
+        this.markDistinctChannels = Ints.toArray(markDistinctChannels);
+        this.hashChannel = hashChannel;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), this.distinctTypes, this.markDistinctChannels, hashChannel, joinCompiler, this::updateMemoryReservation);
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
     }
 
     @Override
@@ -127,13 +199,22 @@ public class MarkDistinctOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && !hasUnfinishedInput();
+        return finishing && !hasUnfinishedInput() && !isSpilled();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (spillInProgress.isDone()) {
+            return NOT_BLOCKED;
+        }
+        return spillInProgress;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
@@ -142,6 +223,12 @@ public class MarkDistinctOperator
         requireNonNull(page, "page is null");
         checkState(needsInput());
 
+        if (isSpilled()) {
+            checkSpillSucceeded(spillInProgress);
+            spillInProgress = inputSpiller.get().partitionAndSpill(page, partition -> true).getSpillingFuture();
+            return;
+        }
+
         inputPage = page;
 
         unfinishedWork = markDistinctHash.markDistinctRows(page);
@@ -152,6 +239,9 @@ public class MarkDistinctOperator
     public Page getOutput()
     {
         if (unfinishedWork == null) {
+            if (finishing && isSpilled()) {
+                return getUnspilledOutput();
+            }
             return null;
         }
 
@@ -169,11 +259,146 @@ public class MarkDistinctOperator
         return outputPage;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkState(spillInProgress.isDone(), "Previous spill still in progress");
+        if (!spillEnabled || isSpilled() || (finishing && !hasUnfinishedInput())) {
+            return NOT_BLOCKED;
+        }
+
+        distinctValuesSpiller = Optional.of(partitioningSpillerFactory.create(
+                markDistinctHash.getDistinctValueTypes(),
+                new SpillPartitionFunction(distinctTypes, IntStream.range(0, distinctTypes.size()).toArray(), hashChannel.map(channel -> distinctTypes.size()), SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.aggregateSystemMemoryContext()));
+        inputSpiller = Optional.of(partitioningSpillerFactory.create(
+                sourceTypes,
+                new SpillPartitionFunction(distinctTypes, markDistinctChannels, hashChannel, SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.aggregateSystemMemoryContext()));
+
+        // the distinct values of the page being marked are not spilled, the page is spilled as input instead
+        ListenableFuture<?> distinctValuesSpilled = spillPages(distinctValuesSpiller.get(), markDistinctHash.getDistinctValues());
+        ListenableFuture<?> inputSpilled = immediateFuture(null);
+        if (inputPage != null) {
+            inputSpilled = inputSpiller.get().partitionAndSpill(inputPage, partition -> true).getSpillingFuture();
+        }
+        spillInProgress = allAsList(distinctValuesSpilled, inputSpilled);
+        revokingMemory = true;
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (!revokingMemory) {
+            return;
+        }
+        checkSpillSucceeded(spillInProgress);
+        revokingMemory = false;
+        inputPage = null;
+        unfinishedWork = null;
+        markDistinctHash = null;
+        localRevocableMemoryContext.setBytes(0);
+    }
+
+    @Override
+    public void close()
+    {
+        markDistinctHash = null;
+        closeSpillers();
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
     }
 
+    private boolean isSpilled()
+    {
+        return inputSpiller.isPresent();
+    }
+
+    private Page getUnspilledOutput()
+    {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        while (!unspilledInputPages.hasNext()) {
+            if (nextUnspilledPartition == SPILL_PARTITION_COUNT) {
+                inputSpiller.get().verifyAllPartitionsRead();
+                distinctValuesSpiller.get().verifyAllPartitionsRead();
+                closeSpillers();
+                markDistinctHash = null;
+                localUserMemoryContext.setBytes(0);
+                return null;
+            }
+            unspillPartition(nextUnspilledPartition);
+            nextUnspilledPartition++;
+        }
+
+        Page page = unspilledInputPages.next();
+        Work<Block> work = markDistinctHash.markDistinctRows(page.extractChannels(getSpilledDistinctChannels()));
+        // the memory of the unspilled partition is not revocable, so the work never yields
+        verify(work.process());
+        updateMemoryReservation();
+        return page.appendColumn(work.getResult());
+    }
+
+    private void unspillPartition(int partition)
+    {
+        markDistinctHash = null;
+        Iterator<Page> distinctValues = distinctValuesSpiller.get().getSpilledPages(partition);
+        unspilledInputPages = inputSpiller.get().getSpilledPages(partition);
+        if (!unspilledInputPages.hasNext()) {
+            // no rows to mark
+            return;
+        }
+
+        // the spilled distinct values and the unspilled input are hashed on the distinct channels followed by the hash
+        markDistinctHash = new MarkDistinctHash(
+                operatorContext.getSession(),
+                distinctTypes,
+                IntStream.range(0, distinctTypes.size()).toArray(),
+                hashChannel.map(channel -> distinctTypes.size()),
+                joinCompiler,
+                () -> {
+                    updateMemoryReservation();
+                    return true;
+                });
+        while (distinctValues.hasNext()) {
+            verify(markDistinctHash.markDistinctRows(distinctValues.next()).process());
+        }
+        updateMemoryReservation();
+    }
+
+    private int[] getSpilledDistinctChannels()
+    {
+        if (!hashChannel.isPresent()) {
+            return markDistinctChannels;
+        }
+        int[] channels = new int[markDistinctChannels.length + 1];
+        System.arraycopy(markDistinctChannels, 0, channels, 0, markDistinctChannels.length);
+        channels[markDistinctChannels.length] = hashChannel.get();
+        return channels;
+    }
+
+    private void closeSpillers()
+    {
+        try (Closer closer = Closer.create()) {
+            distinctValuesSpiller.ifPresent(closer::register);
+            inputSpiller.ifPresent(closer::register);
+            distinctValuesSpiller = Optional.empty();
+            inputSpiller = Optional.empty();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Update memory usage.
      *
@@ -186,7 +411,13 @@ public class MarkDistinctOperator
     {
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+        long memorySizeInBytes = markDistinctHash == null ? 0 : markDistinctHash.getEstimatedSize();
+        if (spillEnabled && !isSpilled()) {
+            localRevocableMemoryContext.setBytes(memorySizeInBytes);
+        }
+        else {
+            localUserMemoryContext.setBytes(memorySizeInBytes);
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.SystemSessionProperties.isExchangeStreamingEnabled;
 import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
 import static com.facebook.presto.util.MoreLists.mappedCopy;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -161,7 +162,9 @@ public class MergeOperator
         checkState(!blockedOnSplits.isDone(), "noMoreSplits has been called already");
 
         RemoteSplit remoteSplit = (RemoteSplit) split.getConnectorSplit();
-        ExchangeClient exchangeClient = closer.register(taskExchangeClientManager.createExchangeClient(operatorContext.localSystemMemoryContext()));
+        ExchangeClient exchangeClient = closer.register(taskExchangeClientManager.createExchangeClient(
+                operatorContext.localSystemMemoryContext(),
+                isExchangeStreamingEnabled(operatorContext.getSession())));
         exchangeClient.addLocation(remoteSplit.getLocation().toURI(), remoteSplit.getRemoteSourceTaskId());
         exchangeClient.noMoreLocations();
         pageProducers.add(exchangeClient.pages()
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.SortOrder;
+import com.facebook.presto.common.type.DecimalType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarcharType;
+import io.airlift.slice.Slice;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static java.lang.Float.floatToIntBits;
+import static java.lang.Float.intBitsToFloat;
+
+/**
+ * Encodes the leading sort key of a row into a long whose signed order agrees with the sort order
+ * of the key: if the prefix of a row is less than the prefix of another row, the row sorts first.
+ * Equal prefixes do not imply equal keys, e.g. for strings that share the first 8 bytes, so ties
+ * have to be resolved with the full comparator.
+ */
+final class NormalizedKeyPrefix
+{
+    private NormalizedKeyPrefix() {}
+
+    public static boolean isSupported(Type type)
+    {
+        return type.equals(BIGINT) ||
+                type.equals(INTEGER) ||
+                type.equals(SMALLINT) ||
+                type.equals(TINYINT) ||
+                type.equals(DATE) ||
+                type.equals(TIMESTAMP) ||
+                type.equals(BOOLEAN) ||
+                type.equals(DOUBLE) ||
+                type.equals(REAL) ||
+                type.equals(VARBINARY) ||
+                type instanceof VarcharType ||
+                (type instanceof DecimalType && ((DecimalType) type).isShort());
+    }
+
+    public static long encode(Type type, SortOrder sortOrder, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            // a value with the same prefix is ordered by the full comparator
+            return sortOrder.isNullsFirst() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        long prefix = encodeValue(type, block, position);
+        // bitwise not reverses the signed order
+        return sortOrder.isAscending() ? prefix : ~prefix;
+    }
+
+    private static long encodeValue(Type type, Block block, int position)
+    {
+        if (type.equals(DOUBLE)) {
+            // adding zero turns -0 into 0 which compare as equal, and doubleToLongBits collapses the NaNs;
+            // flip the magnitude bits of negative values, so that the bits order like the values
+            long bits = Double.doubleToLongBits(Double.longBitsToDouble(block.getLong(position)) + 0.0);
+            return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+        if (type.equals(REAL)) {
+            int bits = floatToIntBits(intBitsToFloat(block.getInt(position)) + 0.0f);
+            return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+        }
+        if (type.equals(BOOLEAN)) {
+            return block.getByte(position) != 0 ? 1 : 0;
+        }
+        if (type.equals(VARBINARY) || type instanceof VarcharType) {
+            return encodeBytes(block, position);
+        }
+        return type.getLong(block, position);
+    }
+
+    private static long encodeBytes(Block block, int position)
+    {
+        // the first 8 bytes in big endian order compare like the unsigned bytes of the value
+        int length = block.getSliceLength(position);
+        long prefix;
+        if (length >= Long.BYTES) {
+            prefix = Long.reverseBytes(block.getLong(position, 0));
+        }
+        else {
+            Slice slice = block.getSlice(position, 0, length);
+            prefix = 0;
+            for (int i = 0; i < length; i++) {
+                prefix |= (slice.getByte(i) & 0xFFL) << (Long.SIZE - Byte.SIZE * (i + 1));
+            }
+        }
+        // move the unsigned order into the signed range
+        return prefix ^ Long.MIN_VALUE;
+    }
+}
@@ -23,6 +23,7 @@ import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.memory.context.MemoryTrackingContext;
 import com.facebook.presto.operator.OperationTimer.OperationTiming;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.page.PagesSerde;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
@@ -40,6 +41,14 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.common.RuntimeMetricName.EXCHANGE_ALTERNATE_CODEC_PAGE_COUNT;
+import static com.facebook.presto.common.RuntimeMetricName.EXCHANGE_COMPRESSION_INPUT_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.EXCHANGE_COMPRESSION_OUTPUT_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.EXCHANGE_COMPRESSION_TIME_NANOS;
+import static com.facebook.presto.common.RuntimeMetricName.EXCHANGE_UNCOMPRESSED_PAGE_COUNT;
+import static com.facebook.presto.common.RuntimeUnit.BYTE;
+import static com.facebook.presto.common.RuntimeUnit.NANO;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.operator.BlockedReason.WAITING_FOR_MEMORY;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -232,6 +241,22 @@ public class OperatorContext
         outputPositions.update(positions);
     }
 
+    /**
+     * Record the compression statistics of the pages serialized or deserialized by an exchange operator.
+     * Must be called at most once, the statistics of the serde are not reset.
+     */
+    public void recordCompressionStats(PagesSerde serde)
+    {
+        if (serde.getCompressionInputBytes() == 0 && serde.getUncompressedPageCount() == 0) {
+            return;
+        }
+        runtimeStats.addMetricValue(EXCHANGE_COMPRESSION_INPUT_BYTES, BYTE, serde.getCompressionInputBytes());
+        runtimeStats.addMetricValue(EXCHANGE_COMPRESSION_OUTPUT_BYTES, BYTE, serde.getCompressionOutputBytes());
+        runtimeStats.addMetricValue(EXCHANGE_COMPRESSION_TIME_NANOS, NANO, serde.getCompressionTimeNanos());
+        runtimeStats.addMetricValue(EXCHANGE_UNCOMPRESSED_PAGE_COUNT, NONE, serde.getUncompressedPageCount());
+        runtimeStats.addMetricValue(EXCHANGE_ALTERNATE_CODEC_PAGE_COUNT, NONE, serde.getAlternateCodecPageCount());
+    }
+
     public void recordNullJoinBuildKeyCount(long positions)
     {
         nullJoinBuildKeyCount.getAndAdd(positions);
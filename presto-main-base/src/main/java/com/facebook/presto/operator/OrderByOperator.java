@@ -22,6 +22,7 @@ import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spiller.Spiller;
 import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -29,20 +30,27 @@ import com.google.common.util.concurrent.ListenableFuture;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
 import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
 import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Iterators.transform;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Objects.requireNonNull;
 
 public class OrderByOperator
         implements Operator
 {
+    @VisibleForTesting
+    static final int MIN_PARALLEL_SORT_RUN_POSITIONS = 16 * 1024;
+
     public static class OrderByOperatorFactory
             implements OperatorFactory
     {
@@ -57,6 +65,8 @@ public class OrderByOperator
         private final boolean spillEnabled;
         private final Optional<SpillerFactory> spillerFactory;
         private final OrderingCompiler orderingCompiler;
+        private final int sortParallelism;
+        private final Executor sortExecutor;
 
         private boolean closed;
 
@@ -72,6 +82,24 @@ public class OrderByOperator
                 boolean spillEnabled,
                 Optional<SpillerFactory> spillerFactory,
                 OrderingCompiler orderingCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, pagesIndexFactory, spillEnabled, spillerFactory, orderingCompiler, 1, directExecutor());
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                Optional<SpillerFactory> spillerFactory,
+                OrderingCompiler orderingCompiler,
+                int sortParallelism,
+                Executor sortExecutor)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -86,6 +114,9 @@ public class OrderByOperator
             this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
             this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
             checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
+            checkArgument(sortParallelism > 0, "sortParallelism must be greater than zero");
+            this.sortParallelism = sortParallelism;
+            this.sortExecutor = requireNonNull(sortExecutor, "sortExecutor is null");
         }
 
         @Override
@@ -104,7 +135,9 @@ public class OrderByOperator
                     pagesIndexFactory,
                     spillEnabled,
                     spillerFactory,
-                    orderingCompiler);
+                    orderingCompiler,
+                    sortParallelism,
+                    sortExecutor);
         }
 
         @Override
@@ -127,7 +160,9 @@ public class OrderByOperator
                     pagesIndexFactory,
                     spillEnabled,
                     spillerFactory,
-                    orderingCompiler);
+                    orderingCompiler,
+                    sortParallelism,
+                    sortExecutor);
         }
     }
 
@@ -152,11 +187,14 @@ public class OrderByOperator
     private final boolean spillEnabled;
     private final Optional<SpillerFactory> spillerFactory;
     private final OrderingCompiler orderingCompiler;
+    private final int sortParallelism;
+    private final Executor sortExecutor;
 
     private Optional<Spiller> spiller = Optional.empty();
     private ListenableFuture<?> spillInProgress = immediateFuture(null);
     private Runnable finishMemoryRevoke = () -> {};
 
+    private ListenableFuture<int[]> sortInProgress;
     private Iterator<Optional<Page>> sortedPages;
 
     private State state = State.NEEDS_INPUT;
@@ -171,7 +209,9 @@ public class OrderByOperator
             PagesIndex.Factory pagesIndexFactory,
             boolean spillEnabled,
             Optional<SpillerFactory> spillerFactory,
-            OrderingCompiler orderingCompiler)
+            OrderingCompiler orderingCompiler,
+            int sortParallelism,
+            Executor sortExecutor)
     {
         requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
 
@@ -188,6 +228,8 @@ public class OrderByOperator
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
         checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
+        this.sortParallelism = sortParallelism;
+        this.sortExecutor = requireNonNull(sortExecutor, "sortExecutor is null");
     }
 
     @Override
@@ -222,19 +264,27 @@ public class OrderByOperator
                 }
             }
 
-            pageIndex.sort(sortChannels, sortOrder);
-            Iterator<Page> sortedPagesIndex = pageIndex.getSortedPages();
-
-            List<WorkProcessor<Page>> spilledPages = getSpilledPages();
-            if (spilledPages.isEmpty()) {
-                sortedPages = transform(sortedPagesIndex, Optional::of);
+            int runCount = Math.min(sortParallelism, pageIndex.getPositionCount() / MIN_PARALLEL_SORT_RUN_POSITIONS);
+            if (runCount <= 1) {
+                pageIndex.sort(sortChannels, sortOrder);
+                createSortedPages(ImmutableList.of(pageIndex.getSortedPages()));
             }
             else {
-                sortedPages = mergeSpilledAndMemoryPages(spilledPages, sortedPagesIndex).yieldingIterator();
+                // the driver is blocked until the runs sorted on the sort executor are done
+                sortInProgress = pageIndex.sortRuns(sortChannels, sortOrder, runCount, sortExecutor);
             }
         }
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (sortInProgress != null && !sortInProgress.isDone()) {
+            return sortInProgress;
+        }
+        return NOT_BLOCKED;
+    }
+
     @Override
     public boolean isFinished()
     {
@@ -266,7 +316,20 @@ public class OrderByOperator
             return null;
         }
 
-        verify(sortedPages != null, "sortedPages is null");
+        if (sortedPages == null) {
+            verify(sortInProgress != null, "sortedPages is null");
+            if (!sortInProgress.isDone()) {
+                return null;
+            }
+            int[] runOffsets = getFutureValue(sortInProgress);
+            sortInProgress = null;
+            ImmutableList.Builder<Iterator<Page>> sortedRuns = ImmutableList.builder();
+            for (int run = 0; run < runOffsets.length - 1; run++) {
+                sortedRuns.add(pageIndex.getSortedPages(runOffsets[run], runOffsets[run + 1]));
+            }
+            createSortedPages(sortedRuns.build());
+        }
+
         if (!sortedPages.hasNext()) {
             state = State.FINISHED;
             return null;
@@ -338,11 +401,28 @@ public class OrderByOperator
                 .collect(toImmutableList());
     }
 
-    private WorkProcessor<Page> mergeSpilledAndMemoryPages(List<WorkProcessor<Page>> spilledPages, Iterator<Page> sortedPagesIndex)
+    /**
+     * Creates the output from the sorted runs of the buffered pages, which are merged
+     * with each other and with the spilled runs if there is more than one.
+     */
+    private void createSortedPages(List<Iterator<Page>> sortedRuns)
+    {
+        List<WorkProcessor<Page>> spilledPages = getSpilledPages();
+        if (spilledPages.isEmpty() && sortedRuns.size() == 1) {
+            sortedPages = transform(getOnlyElement(sortedRuns), Optional::of);
+        }
+        else {
+            sortedPages = mergeSpilledAndMemoryPages(spilledPages, sortedRuns).yieldingIterator();
+        }
+    }
+
+    private WorkProcessor<Page> mergeSpilledAndMemoryPages(List<WorkProcessor<Page>> spilledPages, List<Iterator<Page>> sortedRuns)
     {
         List<WorkProcessor<Page>> sortedStreams = ImmutableList.<WorkProcessor<Page>>builder()
                 .addAll(spilledPages)
-                .add(WorkProcessor.fromIterator(sortedPagesIndex))
+                .addAll(sortedRuns.stream()
+                        .map(WorkProcessor::fromIterator)
+                        .iterator())
                 .build();
 
         return mergeSortedPages(
@@ -377,6 +457,11 @@ public class OrderByOperator
     @Override
     public void close()
     {
+        if (sortInProgress != null) {
+            // the runs still sorting on the sort executor use the index
+            pageIndex.cancelSortRuns();
+            sortInProgress = null;
+        }
         pageIndex.clear();
         sortedPages = null;
         spiller.ifPresent(Spiller::close);
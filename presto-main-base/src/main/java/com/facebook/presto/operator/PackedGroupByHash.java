@@ -0,0 +1,680 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.array.IntBigArray;
+import com.facebook.presto.common.array.LongBigArray;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.LongArrayBlock;
+import com.facebook.presto.common.type.AbstractLongType;
+import com.facebook.presto.common.type.DecimalType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TimeType.TIME;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP_MICROSECONDS;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+import static com.facebook.presto.sql.planner.PlannerUtils.INITIAL_HASH_VALUE;
+import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
+import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link GroupByHash} for composite keys made of small fixed width types whose values and null
+ * flags fit into 128 bits. Every row is packed into a pair of longs once, after which hashing and
+ * comparison only deal with the two primitives instead of calling into the key types and blocks.
+ * <p>
+ * The raw hash is computed from the packed values with the same function as
+ * {@link InterpretedHashGenerator}, so it matches hashes precomputed by the planner.
+ */
+public class PackedGroupByHash
+        implements GroupByHash
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(PackedGroupByHash.class).instanceSize();
+
+    private static final float FILL_RATIO = 0.75f;
+    private static final int MAX_PACKED_BITS = 2 * Long.SIZE;
+
+    private static final int BOOLEAN_HASH = 0;
+    private static final int DECIMAL_HASH = 1;
+    private static final int LONG_HASH = 2;
+
+    private final List<Type> hashTypes;
+    private final List<Type> types;
+    private final int[] channels;
+    private final boolean outputRawHash;
+
+    // packed layout; word 0 is the high long, word 1 is the low long
+    private final int[] bitWidths;
+    private final int[] valueWords;
+    private final int[] valueShifts;
+    private final int[] nullWords;
+    private final int[] nullShifts;
+    private final int[] hashKinds;
+
+    private int hashCapacity;
+    private int maxFill;
+    private int mask;
+
+    // the hash table from packed values to groupIds
+    private LongBigArray highValues;
+    private LongBigArray lowValues;
+    private IntBigArray groupIds;
+
+    // reverse index from the groupId back to the packed values
+    private final LongBigArray highValuesByGroupId;
+    private final LongBigArray lowValuesByGroupId;
+
+    // scratch output of packRow
+    private long packedHigh;
+    private long packedLow;
+
+    private int nextGroupId;
+    private long hashCollisions;
+    private double expectedHashCollisions;
+
+    // reserve enough memory before rehash
+    private final UpdateMemory updateMemory;
+    private long preallocatedMemoryInBytes;
+    private long currentPageSizeInBytes;
+
+    public PackedGroupByHash(List<? extends Type> hashTypes, int[] hashChannels, boolean outputRawHash, int expectedSize, UpdateMemory updateMemory)
+    {
+        this.hashTypes = ImmutableList.copyOf(requireNonNull(hashTypes, "hashTypes is null"));
+        requireNonNull(hashChannels, "hashChannels is null");
+        checkArgument(hashTypes.size() == hashChannels.length, "hashTypes and hashChannels have different sizes");
+        checkArgument(isSupportedKeyTypes(hashTypes), "Key types do not fit into %s bits: %s", MAX_PACKED_BITS, hashTypes);
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+
+        this.types = outputRawHash ? ImmutableList.copyOf(Iterables.concat(hashTypes, ImmutableList.of(BIGINT))) : this.hashTypes;
+        this.channels = hashChannels.clone();
+        this.outputRawHash = outputRawHash;
+
+        int keyCount = hashChannels.length;
+        this.bitWidths = new int[keyCount];
+        this.valueWords = new int[keyCount];
+        this.valueShifts = new int[keyCount];
+        this.nullWords = new int[keyCount];
+        this.nullShifts = new int[keyCount];
+        this.hashKinds = new int[keyCount];
+
+        // Lay out the fields first-fit decreasing. All widths are powers of two (or a single bit), so
+        // this never leaves a gap a later field could have used and never splits a field across words.
+        int[] usedBits = new int[2];
+        for (int width = Long.SIZE; width >= 1; width /= 2) {
+            for (int i = 0; i < keyCount; i++) {
+                if (getBitWidth(this.hashTypes.get(i)) == width) {
+                    int word = usedBits[0] + width <= Long.SIZE ? 0 : 1;
+                    bitWidths[i] = width;
+                    valueWords[i] = word;
+                    valueShifts[i] = usedBits[word];
+                    usedBits[word] += width;
+                }
+            }
+        }
+        for (int i = 0; i < keyCount; i++) {
+            int word = usedBits[0] < Long.SIZE ? 0 : 1;
+            nullWords[i] = word;
+            nullShifts[i] = usedBits[word];
+            usedBits[word]++;
+            hashKinds[i] = getHashKind(this.hashTypes.get(i));
+        }
+        checkState(usedBits[0] <= Long.SIZE && usedBits[1] <= Long.SIZE, "packed keys do not fit into two longs");
+
+        hashCapacity = arraySize(expectedSize, FILL_RATIO);
+
+        maxFill = calculateMaxFill(hashCapacity);
+        mask = hashCapacity - 1;
+        highValues = new LongBigArray();
+        highValues.ensureCapacity(hashCapacity);
+        lowValues = new LongBigArray();
+        lowValues.ensureCapacity(hashCapacity);
+        groupIds = new IntBigArray(-1);
+        groupIds.ensureCapacity(hashCapacity);
+
+        highValuesByGroupId = new LongBigArray();
+        highValuesByGroupId.ensureCapacity(hashCapacity);
+        lowValuesByGroupId = new LongBigArray();
+        lowValuesByGroupId.ensureCapacity(hashCapacity);
+
+        // This interface is used for actively reserving memory (push model) for rehash.
+        // The caller can also query memory usage on this object (pull model)
+        this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+    }
+
+    public static boolean isSupportedKeyTypes(List<? extends Type> hashTypes)
+    {
+        if (hashTypes.isEmpty()) {
+            return false;
+        }
+        int totalBits = 0;
+        for (Type type : hashTypes) {
+            int bitWidth = getBitWidth(type);
+            if (bitWidth < 0) {
+                return false;
+            }
+            // the value and its null flag
+            totalBits += bitWidth + 1;
+        }
+        return totalBits <= MAX_PACKED_BITS;
+    }
+
+    private static int getBitWidth(Type type)
+    {
+        if (type.equals(BIGINT) || type.equals(TIMESTAMP) || type.equals(TIMESTAMP_MICROSECONDS) || type.equals(TIME) ||
+                (type instanceof DecimalType && ((DecimalType) type).isShort())) {
+            return Long.SIZE;
+        }
+        if (type.equals(INTEGER) || type.equals(DATE)) {
+            return Integer.SIZE;
+        }
+        if (type.equals(SMALLINT)) {
+            return Short.SIZE;
+        }
+        if (type.equals(TINYINT)) {
+            return Byte.SIZE;
+        }
+        if (type.equals(BOOLEAN)) {
+            return 1;
+        }
+        return -1;
+    }
+
+    private static int getHashKind(Type type)
+    {
+        if (type.equals(BOOLEAN)) {
+            return BOOLEAN_HASH;
+        }
+        if (type instanceof DecimalType) {
+            return DECIMAL_HASH;
+        }
+        return LONG_HASH;
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE +
+                groupIds.sizeOf() +
+                highValues.sizeOf() +
+                lowValues.sizeOf() +
+                highValuesByGroupId.sizeOf() +
+                lowValuesByGroupId.sizeOf() +
+                preallocatedMemoryInBytes;
+    }
+
+    @Override
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    @Override
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions + estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        checkArgument(groupId >= 0, "groupId is negative");
+        long high = highValuesByGroupId.get(groupId);
+        long low = lowValuesByGroupId.get(groupId);
+        for (int i = 0; i < channels.length; i++) {
+            appendKeyTo(high, low, i, pageBuilder.getBlockBuilder(outputChannelOffset + i));
+        }
+        if (outputRawHash) {
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(outputChannelOffset + channels.length), rawHash(high, low));
+        }
+    }
+
+    @Override
+    public Work<?> addPage(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new AddPageWork(page);
+    }
+
+    @Override
+    public List<Page> getBufferedPages()
+    {
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(hashTypes);
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            pageBuilder.declarePosition();
+            long high = highValuesByGroupId.get(groupId);
+            long low = lowValuesByGroupId.get(groupId);
+            for (int i = 0; i < channels.length; i++) {
+                appendKeyTo(high, low, i, pageBuilder.getBlockBuilder(i));
+            }
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        if (!pageBuilder.isEmpty()) {
+            pages.add(pageBuilder.build());
+        }
+        return pages.build();
+    }
+
+    @Override
+    public Work<GroupByIdBlock> getGroupIds(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new GetGroupIdsWork(page);
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels)
+    {
+        packRow(position, page, hashChannels);
+        long high = packedHigh;
+        long low = packedLow;
+        long hashPosition = getHashPosition(rawHash(high, low), mask);
+
+        // look for an empty slot or a slot containing this key
+        while (true) {
+            int groupId = groupIds.get(hashPosition);
+            if (groupId == -1) {
+                return false;
+            }
+            if (high == highValues.get(hashPosition) && low == lowValues.get(hashPosition)) {
+                return true;
+            }
+
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+    }
+
+    @Override
+    public long getRawHash(int groupId)
+    {
+        return rawHash(highValuesByGroupId.get(groupId), lowValuesByGroupId.get(groupId));
+    }
+
+    @VisibleForTesting
+    @Override
+    public int getCapacity()
+    {
+        return hashCapacity;
+    }
+
+    // packs the row into packedHigh and packedLow
+    private void packRow(int position, Page page, int[] hashChannels)
+    {
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < hashChannels.length; i++) {
+            Block block = page.getBlock(hashChannels[i]);
+            if (block.isNull(position)) {
+                if (nullWords[i] == 0) {
+                    high |= 1L << nullShifts[i];
+                }
+                else {
+                    low |= 1L << nullShifts[i];
+                }
+                continue;
+            }
+            long value = (readValue(block, position, bitWidths[i]) & valueMask(bitWidths[i])) << valueShifts[i];
+            if (valueWords[i] == 0) {
+                high |= value;
+            }
+            else {
+                low |= value;
+            }
+        }
+        packedHigh = high;
+        packedLow = low;
+    }
+
+    private static long readValue(Block block, int position, int bitWidth)
+    {
+        switch (bitWidth) {
+            case Long.SIZE:
+                return block.getLong(position);
+            case Integer.SIZE:
+                return block.getInt(position);
+            case Short.SIZE:
+                return block.getShort(position);
+            case Byte.SIZE:
+                return block.getByte(position);
+            case 1:
+                return block.getByte(position) != 0 ? 1 : 0;
+            default:
+                throw new IllegalArgumentException("Unsupported bit width: " + bitWidth);
+        }
+    }
+
+    private long unpack(long high, long low, int keyIndex)
+    {
+        int bitWidth = bitWidths[keyIndex];
+        long word = valueWords[keyIndex] == 0 ? high : low;
+        if (bitWidth == Long.SIZE) {
+            return word;
+        }
+        long value = (word >>> valueShifts[keyIndex]) & valueMask(bitWidth);
+        if (bitWidth == 1) {
+            return value;
+        }
+        // sign extend the narrow integer types
+        return (value << (Long.SIZE - bitWidth)) >> (Long.SIZE - bitWidth);
+    }
+
+    private boolean isNull(long high, long low, int keyIndex)
+    {
+        long word = nullWords[keyIndex] == 0 ? high : low;
+        return ((word >>> nullShifts[keyIndex]) & 1) != 0;
+    }
+
+    private void appendKeyTo(long high, long low, int keyIndex, BlockBuilder blockBuilder)
+    {
+        if (isNull(high, low, keyIndex)) {
+            blockBuilder.appendNull();
+            return;
+        }
+        Type type = hashTypes.get(keyIndex);
+        long value = unpack(high, low, keyIndex);
+        if (hashKinds[keyIndex] == BOOLEAN_HASH) {
+            type.writeBoolean(blockBuilder, value != 0);
+        }
+        else {
+            type.writeLong(blockBuilder, value);
+        }
+    }
+
+    // must logically match InterpretedHashGenerator
+    private long rawHash(long high, long low)
+    {
+        long result = INITIAL_HASH_VALUE;
+        for (int i = 0; i < channels.length; i++) {
+            long hash;
+            if (isNull(high, low, i)) {
+                hash = NULL_HASH_CODE;
+            }
+            else {
+                long value = unpack(high, low, i);
+                switch (hashKinds[i]) {
+                    case BOOLEAN_HASH:
+                        hash = value != 0 ? 1231 : 1237;
+                        break;
+                    case DECIMAL_HASH:
+                        hash = value;
+                        break;
+                    default:
+                        hash = AbstractLongType.hash(value);
+                }
+            }
+            result = CombineHashFunction.getHash(result, hash);
+        }
+        return result;
+    }
+
+    private int putIfAbsent(int position, Page page)
+    {
+        packRow(position, page, channels);
+        long high = packedHigh;
+        long low = packedLow;
+        long hashPosition = getHashPosition(rawHash(high, low), mask);
+
+        // look for an empty slot or a slot containing this key
+        while (true) {
+            int groupId = groupIds.get(hashPosition);
+            if (groupId == -1) {
+                break;
+            }
+
+            if (high == highValues.get(hashPosition) && low == lowValues.get(hashPosition)) {
+                return groupId;
+            }
+
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+            hashCollisions++;
+        }
+
+        return addNewGroup(hashPosition, high, low);
+    }
+
+    private int addNewGroup(long hashPosition, long high, long low)
+    {
+        // record group id in hash
+        int groupId = nextGroupId++;
+
+        highValues.set(hashPosition, high);
+        lowValues.set(hashPosition, low);
+        highValuesByGroupId.set(groupId, high);
+        lowValuesByGroupId.set(groupId, low);
+        groupIds.set(hashPosition, groupId);
+
+        // increase capacity, if necessary
+        if (needRehash()) {
+            tryRehash();
+        }
+        return groupId;
+    }
+
+    private boolean tryRehash()
+    {
+        long newCapacityLong = hashCapacity * 2L;
+        if (newCapacityLong > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of hash table cannot exceed 1 billion entries");
+        }
+        int newCapacity = toIntExact(newCapacityLong);
+
+        // An estimate of how much extra memory is needed before we can go ahead and expand the hash table.
+        // This includes the new capacity for both value arrays, groupIds, and both valuesByGroupId arrays as well as the size of the current page
+        preallocatedMemoryInBytes = newCapacity * (long) (2 * Long.BYTES + Integer.BYTES) + calculateMaxFill(newCapacity) * 2L * Long.BYTES + currentPageSizeInBytes;
+        if (!updateMemory.update()) {
+            // reserved memory but has exceeded the limit
+            return false;
+        }
+
+        expectedHashCollisions += estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+
+        int newMask = newCapacity - 1;
+        LongBigArray newHighValues = new LongBigArray();
+        newHighValues.ensureCapacity(newCapacity);
+        LongBigArray newLowValues = new LongBigArray();
+        newLowValues.ensureCapacity(newCapacity);
+        IntBigArray newGroupIds = new IntBigArray(-1);
+        newGroupIds.ensureCapacity(newCapacity);
+
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            long high = highValuesByGroupId.get(groupId);
+            long low = lowValuesByGroupId.get(groupId);
+
+            // find an empty slot for the address
+            long hashPosition = getHashPosition(rawHash(high, low), newMask);
+            while (newGroupIds.get(hashPosition) != -1) {
+                hashPosition = (hashPosition + 1) & newMask;
+                hashCollisions++;
+            }
+
+            // record the mapping
+            newHighValues.set(hashPosition, high);
+            newLowValues.set(hashPosition, low);
+            newGroupIds.set(hashPosition, groupId);
+        }
+
+        mask = newMask;
+        hashCapacity = newCapacity;
+        maxFill = calculateMaxFill(hashCapacity);
+        highValues = newHighValues;
+        lowValues = newLowValues;
+        groupIds = newGroupIds;
+
+        highValuesByGroupId.ensureCapacity(maxFill);
+        lowValuesByGroupId.ensureCapacity(maxFill);
+
+        preallocatedMemoryInBytes = 0;
+        // release temporary memory reservation
+        updateMemory.update();
+        return true;
+    }
+
+    private boolean needRehash()
+    {
+        return nextGroupId >= maxFill;
+    }
+
+    private static long valueMask(int bitWidth)
+    {
+        return bitWidth == Long.SIZE ? -1L : (1L << bitWidth) - 1;
+    }
+
+    private static long getHashPosition(long rawHash, int mask)
+    {
+        return murmurHash3(rawHash) & mask;
+    }
+
+    private static int calculateMaxFill(int hashSize)
+    {
+        checkArgument(hashSize > 0, "hashSize must be greater than 0");
+        int maxFill = (int) Math.ceil(hashSize * FILL_RATIO);
+        if (maxFill == hashSize) {
+            maxFill--;
+        }
+        checkArgument(hashSize > maxFill, "hashSize must be larger than maxFill");
+        return maxFill;
+    }
+
+    private class AddPageWork
+            implements Work<Void>
+    {
+        private final Page page;
+
+        private int lastPosition;
+
+        public AddPageWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+
+            // needRehash() == true indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                // get the group for the current row
+                putIfAbsent(lastPosition, page);
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public Void getResult()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class GetGroupIdsWork
+            implements Work<GroupByIdBlock>
+    {
+        private final long[] groupIds;
+        private final Page page;
+
+        private boolean finished;
+        private int lastPosition;
+
+        public GetGroupIdsWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+            // we know the exact size required for the block
+            this.groupIds = new long[page.getPositionCount()];
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+            checkState(!finished);
+
+            // needRehash() == true indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                // output the group id for this row
+                groupIds[lastPosition] = putIfAbsent(lastPosition, page);
+                lastPosition++;
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public GroupByIdBlock getResult()
+        {
+            checkState(lastPosition == page.getPositionCount(), "process has not yet finished");
+            checkState(!finished, "result has produced");
+            finished = true;
+            return new GroupByIdBlock(nextGroupId, new LongArrayBlock(groupIds.length, Optional.empty(), groupIds));
+        }
+    }
+}
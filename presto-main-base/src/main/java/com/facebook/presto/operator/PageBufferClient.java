@@ -53,6 +53,7 @@ import static com.facebook.presto.util.Failures.WORKER_NODE_ERROR;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.lang.Math.max;
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
 import static java.util.Objects.requireNonNull;
@@ -95,8 +96,9 @@ public final class PageBufferClient
     private boolean closed;
     @GuardedBy("this")
     private ListenableFuture<?> future;
+    private final long createTime = currentTimeMillis();
     @GuardedBy("this")
-    private long lastUpdate = currentTimeMillis();
+    private long lastUpdate = createTime;
     @GuardedBy("this")
     private long token;
     @GuardedBy("this")
@@ -108,6 +110,7 @@ public final class PageBufferClient
 
     private final AtomicLong rowsReceived = new AtomicLong();
     private final AtomicInteger pagesReceived = new AtomicInteger();
+    private final AtomicLong bytesReceived = new AtomicLong();
 
     private final AtomicLong rowsRejected = new AtomicLong();
     private final AtomicInteger pagesRejected = new AtomicInteger();
@@ -172,6 +175,8 @@ public final class PageBufferClient
 
         long rejectedRows = rowsRejected.get();
         int rejectedPages = pagesRejected.get();
+        long receivedBytes = bytesReceived.get();
+        long elapsedMillis = max((closed ? lastUpdate : currentTimeMillis()) - createTime, 1);
 
         return new PageBufferClientStatus(
                 location,
@@ -179,6 +184,8 @@ public final class PageBufferClient
                 lastUpdate,
                 rowsReceived.get(),
                 pagesReceived.get(),
+                receivedBytes,
+                receivedBytes * 1000 / elapsedMillis,
                 rejectedRows == 0 ? OptionalLong.empty() : OptionalLong.of(rejectedRows),
                 rejectedPages == 0 ? OptionalInt.empty() : OptionalInt.of(rejectedPages),
                 requestsScheduled.get(),
@@ -343,6 +350,7 @@ public final class PageBufferClient
                     if (pagesAccepted) {
                         pagesReceived.addAndGet(pageCount);
                         rowsReceived.addAndGet(rowCount);
+                        bytesReceived.addAndGet(pages.stream().mapToLong(SerializedPage::getSizeInBytes).sum());
                     }
                     else {
                         pagesRejected.addAndGet(pageCount);
@@ -36,6 +36,8 @@ public class PageBufferClientStatus
     private final long lastUpdateInMillis;
     private final long rowsReceived;
     private final int pagesReceived;
+    private final long bytesReceived;
+    private final long averageBytesPerSecond;
     // use optional to keep the output size down, since this renders for every destination
     private final OptionalLong rowsRejected;
     private final OptionalInt pagesRejected;
@@ -50,6 +52,8 @@ public class PageBufferClientStatus
             long lastUpdateInMillis,
             long rowsReceived,
             int pagesReceived,
+            long bytesReceived,
+            long averageBytesPerSecond,
             OptionalLong rowsRejected,
             OptionalInt pagesRejected,
             int requestsScheduled,
@@ -62,6 +66,8 @@ public class PageBufferClientStatus
         this.lastUpdateInMillis = lastUpdateInMillis;
         this.rowsReceived = rowsReceived;
         this.pagesReceived = pagesReceived;
+        this.bytesReceived = bytesReceived;
+        this.averageBytesPerSecond = averageBytesPerSecond;
         this.rowsRejected = requireNonNull(rowsRejected, "rowsRejected is null");
         this.pagesRejected = requireNonNull(pagesRejected, "pagesRejected is null");
         this.requestsScheduled = requestsScheduled;
@@ -77,6 +83,8 @@ public class PageBufferClientStatus
             @JsonProperty("lastUpdate") DateTime lastUpdate,
             @JsonProperty("rowsReceived") long rowsReceived,
             @JsonProperty("pagesReceived") int pagesReceived,
+            @JsonProperty("bytesReceived") long bytesReceived,
+            @JsonProperty("averageBytesPerSecond") long averageBytesPerSecond,
             @JsonProperty("rowsRejected") OptionalLong rowsRejected,
             @JsonProperty("pagesRejected") OptionalInt pagesRejected,
             @JsonProperty("requestsScheduled") int requestsScheduled,
@@ -89,6 +97,8 @@ public class PageBufferClientStatus
                 toTimeStampInMillis(lastUpdate),
                 rowsReceived,
                 pagesReceived,
+                bytesReceived,
+                averageBytesPerSecond,
                 rowsRejected,
                 pagesRejected,
                 requestsScheduled,
@@ -179,6 +189,23 @@ public class PageBufferClientStatus
         return httpRequestState;
     }
 
+    @JsonProperty
+    @ThriftField(12)
+    public long getBytesReceived()
+    {
+        return bytesReceived;
+    }
+
+    /**
+     * Average rate at which the serialized pages of this source were received since the client was created.
+     */
+    @JsonProperty
+    @ThriftField(13)
+    public long getAverageBytesPerSecond()
+    {
+        return averageBytesPerSecond;
+    }
+
     @Override
     public String toString()
     {
@@ -188,6 +215,8 @@ public class PageBufferClientStatus
                 .add("lastUpdateInMillis", lastUpdateInMillis)
                 .add("rowsReceived", rowsReceived)
                 .add("pagesReceived", pagesReceived)
+                .add("bytesReceived", bytesReceived)
+                .add("averageBytesPerSecond", averageBytesPerSecond)
                 .add("httpRequestState", httpRequestState)
                 .toString();
     }
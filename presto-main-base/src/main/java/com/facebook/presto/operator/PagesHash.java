@@ -16,16 +16,20 @@ package com.facebook.presto.operator;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.array.AdaptiveLongBigArray;
+import com.google.common.annotations.VisibleForTesting;
 import io.airlift.units.DataSize;
 import it.unimi.dsi.fastutil.HashCommon;
 import org.openjdk.jol.info.ClassLayout;
 
+import javax.annotation.Nullable;
+
 import java.util.Arrays;
 
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
 import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
 import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.slice.SizeOf.sizeOfIntArray;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
@@ -35,6 +39,9 @@ public final class PagesHash
 {
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(PagesHash.class).instanceSize();
     private static final DataSize CACHE_SIZE = new DataSize(128, KILOBYTE);
+    // number of hash table slots of a radix partition, so that the key range of a partition fits in the cache
+    @VisibleForTesting
+    static final int RADIX_PARTITION_SLOTS = (int) CACHE_SIZE.toBytes() / Integer.BYTES;
     private final AdaptiveLongBigArray addresses;
     private final int positionCount;
     private final PagesHashStrategy pagesHashStrategy;
@@ -51,6 +58,7 @@ public final class PagesHash
     private final long hashCollisions;
     private final double expectedHashCollisions;
     private final long positionIsNullCount;
+    private final long buildTimeNanos;
 
     public PagesHash(
             AdaptiveLongBigArray addresses,
@@ -58,6 +66,17 @@ public final class PagesHash
             PagesHashStrategy pagesHashStrategy,
             PositionLinks.FactoryBuilder positionLinks)
     {
+        this(addresses, positionCount, pagesHashStrategy, positionLinks, false);
+    }
+
+    public PagesHash(
+            AdaptiveLongBigArray addresses,
+            int positionCount,
+            PagesHashStrategy pagesHashStrategy,
+            PositionLinks.FactoryBuilder positionLinks,
+            boolean radixPartitioned)
+    {
+        long start = System.nanoTime();
         this.addresses = requireNonNull(addresses, "addresses is null");
         this.positionCount = positionCount;
         this.pagesHashStrategy = requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
@@ -72,6 +91,28 @@ public final class PagesHash
 
         positionToHashes = new byte[positionCount];
 
+        if (radixPartitioned && hashSize > RADIX_PARTITION_SLOTS) {
+            long[] counts = buildRadixPartitioned(positionLinks);
+            hashCollisions = counts[0];
+            positionIsNullCount = counts[1];
+        }
+        else {
+            long[] counts = buildSequential(positionLinks);
+            hashCollisions = counts[0];
+            positionIsNullCount = counts[1];
+        }
+
+        size = addresses.getRetainedSizeInBytes() + pagesHashStrategy.getSizeInBytes() +
+                sizeOf(key) + sizeOf(positionToHashes);
+        expectedHashCollisions = estimateNumberOfHashCollisions(positionCount, hashSize);
+        buildTimeNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Inserts the positions in their original order, returns the number of hash collisions and null positions.
+     */
+    private long[] buildSequential(PositionLinks.FactoryBuilder positionLinks)
+    {
         // We will process addresses in batches, to save memory on array of hashes.
         int positionsInStep = Math.min(positionCount + 1, (int) CACHE_SIZE.toBytes() / Integer.SIZE);
         long[] positionToFullHashes = new long[positionsInStep];
@@ -101,34 +142,84 @@ public final class PagesHash
                     continue;
                 }
 
-                long hash = positionToFullHashes[position];
-                int pos = getHashPosition(hash, mask);
-
-                // look for an empty slot or a slot containing this key
-                while (key[pos] != -1) {
-                    int currentKey = key[pos];
-                    if (((byte) hash) == positionToHashes[currentKey] && positionEqualsPositionIgnoreNulls(currentKey, realPosition)) {
-                        // found a slot for this key
-                        // link the new key position to the current key position
-                        realPosition = positionLinks.link(realPosition, currentKey);
-
-                        // key[pos] updated outside of this loop
-                        break;
-                    }
-                    // increment position and mask to handler wrap around
-                    pos = (pos + 1) & mask;
-                    hashCollisionsLocal++;
-                }
+                hashCollisionsLocal += insert(realPosition, getHashPosition(positionToFullHashes[position], mask), positionLinks);
+            }
+        }
+        return new long[] {hashCollisionsLocal, positionIsNullCountLocal};
+    }
+
+    /**
+     * Scatters the positions by the high bits of their hash table slot before inserting them, so that
+     * the inserts of each radix partition stay within a cache sized range of the key array instead of
+     * missing the cache on every row. The scatter is stable, so rows with the same key are linked in
+     * the same order as by {@link #buildSequential}. Returns the number of hash collisions and null positions.
+     */
+    private long[] buildRadixPartitioned(PositionLinks.FactoryBuilder positionLinks)
+    {
+        int partitionShift = Integer.numberOfTrailingZeros(RADIX_PARTITION_SLOTS);
+        int partitionCount = (mask + 1) >>> partitionShift;
 
-                key[pos] = realPosition;
+        // compute the slots of all positions and the partition sizes
+        int[] slots = new int[positionCount];
+        int[] partitionOffsets = new int[partitionCount + 1];
+        long positionIsNullCountLocal = 0;
+        for (int position = 0; position < positionCount; position++) {
+            long hash = readHashPosition(position);
+            positionToHashes[position] = (byte) hash;
+            if (isPositionNull(position)) {
+                ++positionIsNullCountLocal;
+                slots[position] = -1;
+                continue;
             }
+            slots[position] = getHashPosition(hash, mask);
+            partitionOffsets[(slots[position] >>> partitionShift) + 1]++;
+        }
+        for (int partition = 0; partition < partitionCount; partition++) {
+            partitionOffsets[partition + 1] += partitionOffsets[partition];
         }
 
-        size = addresses.getRetainedSizeInBytes() + pagesHashStrategy.getSizeInBytes() +
-                sizeOf(key) + sizeOf(positionToHashes);
-        hashCollisions = hashCollisionsLocal;
-        expectedHashCollisions = estimateNumberOfHashCollisions(positionCount, hashSize);
-        positionIsNullCount = positionIsNullCountLocal;
+        // scatter the positions into their partitions
+        int[] scatteredPositions = new int[partitionOffsets[partitionCount]];
+        for (int position = 0; position < positionCount; position++) {
+            int slot = slots[position];
+            if (slot != -1) {
+                scatteredPositions[partitionOffsets[slot >>> partitionShift]++] = position;
+            }
+        }
+
+        long hashCollisionsLocal = 0;
+        for (int position : scatteredPositions) {
+            hashCollisionsLocal += insert(position, slots[position], positionLinks);
+        }
+        return new long[] {hashCollisionsLocal, positionIsNullCountLocal};
+    }
+
+    /**
+     * Inserts the position starting at the given hash table slot, returns the number of hash collisions.
+     */
+    private long insert(int position, int pos, PositionLinks.FactoryBuilder positionLinks)
+    {
+        long hashCollisions = 0;
+        byte hash = positionToHashes[position];
+
+        // look for an empty slot or a slot containing this key
+        while (key[pos] != -1) {
+            int currentKey = key[pos];
+            if (hash == positionToHashes[currentKey] && positionEqualsPositionIgnoreNulls(currentKey, position)) {
+                // found a slot for this key
+                // link the new key position to the current key position
+                position = positionLinks.link(position, currentKey);
+
+                // key[pos] updated outside of this loop
+                break;
+            }
+            // increment position and mask to handler wrap around
+            pos = (pos + 1) & mask;
+            hashCollisions++;
+        }
+
+        key[pos] = position;
+        return hashCollisions;
     }
 
     public final int getChannelCount()
@@ -161,6 +252,24 @@ public final class PagesHash
         return positionIsNullCount;
     }
 
+    /**
+     * Returns the size of the arrays the radix partitioned build holds on top of the finished hash while it is built.
+     */
+    public static long getEstimatedBuildSizeInBytes(int positionCount, boolean radixPartitioned)
+    {
+        int hashSize = HashCommon.arraySize(positionCount, 0.75f);
+        if (!radixPartitioned || hashSize <= RADIX_PARTITION_SLOTS) {
+            return 0;
+        }
+        // the slots and the scattered positions of all positions, and the partition offsets
+        return 2 * sizeOfIntArray(positionCount) + sizeOfIntArray(hashSize / RADIX_PARTITION_SLOTS + 1);
+    }
+
+    public long getBuildTimeNanos()
+    {
+        return buildTimeNanos;
+    }
+
     public int getAddressIndex(int position, Page hashChannelsPage)
     {
         return getAddressIndex(position, hashChannelsPage, pagesHashStrategy.hashRow(position, hashChannelsPage));
@@ -180,6 +289,40 @@ public final class PagesHash
         return -1;
     }
 
+    /**
+     * Batched version of {@link #getAddressIndex}. The hash table slots of all positions are computed
+     * and loaded before any key is compared, so the cache misses of the independent lookups overlap
+     * instead of being paid one row at a time.
+     */
+    public void getAddressIndexes(int[] positions, int positionCount, Page hashChannelsPage, @Nullable long[] rawHashes, long[] addressIndexes)
+    {
+        int[] hashPositions = new int[positionCount];
+        byte[] hashBytes = new byte[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            long rawHash = rawHashes == null ? pagesHashStrategy.hashRow(position, hashChannelsPage) : rawHashes[position];
+            hashPositions[i] = getHashPosition(rawHash, mask);
+            hashBytes[i] = (byte) rawHash;
+        }
+
+        int[] candidates = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            candidates[i] = key[hashPositions[i]];
+        }
+
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            int pos = hashPositions[i];
+            int candidate = candidates[i];
+            while (candidate != -1 && !positionEqualsCurrentRowIgnoreNulls(candidate, hashBytes[i], position, hashChannelsPage)) {
+                // increment position and mask to handler wrap around
+                pos = (pos + 1) & mask;
+                candidate = key[pos];
+            }
+            addressIndexes[position] = candidate;
+        }
+    }
+
     public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
     {
         long pageAddress = addresses.get(toIntExact(position));
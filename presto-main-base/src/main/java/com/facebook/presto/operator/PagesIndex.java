@@ -35,6 +35,9 @@ import com.facebook.presto.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunction
 import com.facebook.presto.sql.gen.OrderingCompiler;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import it.unimi.dsi.fastutil.Swapper;
@@ -43,12 +46,17 @@ import org.openjdk.jol.info.ClassLayout;
 
 import javax.inject.Inject;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
@@ -60,8 +68,12 @@ import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddre
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.getDone;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
 import static io.airlift.slice.SizeOf.sizeOf;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -87,6 +99,13 @@ public class PagesIndex
     private final AdaptiveLongBigArray valueAddresses;
     private final ObjectArrayList<Block>[] channels;
     private final boolean eagerCompact;
+    private final boolean normalizedKeySortEnabled;
+
+    // normalized key prefixes of the positions while they are sorted, swapped together with the addresses
+    private long[] sortPrefixes;
+    private int sortPrefixesOffset;
+    // the runs sorted on the sort executor, they must not outlive the index contents
+    private List<SortRun> pendingSortRuns = ImmutableList.of();
 
     private int nextBlockToCompact;
     private int positionCount;
@@ -99,7 +118,8 @@ public class PagesIndex
             FunctionAndTypeManager functionAndTypeManager,
             List<Type> types,
             int expectedPositions,
-            boolean eagerCompact)
+            boolean eagerCompact,
+            boolean normalizedKeySortEnabled)
     {
         this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
@@ -108,6 +128,7 @@ public class PagesIndex
         this.valueAddresses = new AdaptiveLongBigArray();
         this.valueAddresses.ensureCapacity(expectedPositions);
         this.eagerCompact = eagerCompact;
+        this.normalizedKeySortEnabled = normalizedKeySortEnabled;
 
         //noinspection rawtypes
         channels = (ObjectArrayList<Block>[]) new ObjectArrayList[types.size()];
@@ -129,16 +150,23 @@ public class PagesIndex
         private static final OrderingCompiler ORDERING_COMPILER = new OrderingCompiler();
         private static final JoinCompiler JOIN_COMPILER = new JoinCompiler(MetadataManager.createTestMetadataManager());
         private final boolean eagerCompact;
+        private final boolean normalizedKeySortEnabled;
 
         public TestingFactory(boolean eagerCompact)
+        {
+            this(eagerCompact, false);
+        }
+
+        public TestingFactory(boolean eagerCompact, boolean normalizedKeySortEnabled)
         {
             this.eagerCompact = eagerCompact;
+            this.normalizedKeySortEnabled = normalizedKeySortEnabled;
         }
 
         @Override
         public PagesIndex newPagesIndex(List<Type> types, int expectedPositions)
         {
-            return new PagesIndex(ORDERING_COMPILER, JOIN_COMPILER, MetadataManager.createTestMetadataManager().getFunctionAndTypeManager(), types, expectedPositions, eagerCompact);
+            return new PagesIndex(ORDERING_COMPILER, JOIN_COMPILER, MetadataManager.createTestMetadataManager().getFunctionAndTypeManager(), types, expectedPositions, eagerCompact, normalizedKeySortEnabled);
         }
     }
 
@@ -148,6 +176,7 @@ public class PagesIndex
         private final OrderingCompiler orderingCompiler;
         private final JoinCompiler joinCompiler;
         private final boolean eagerCompact;
+        private final boolean normalizedKeySortEnabled;
         private final FunctionAndTypeManager functionAndTypeManager;
 
         @Inject
@@ -156,13 +185,14 @@ public class PagesIndex
             this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.eagerCompact = requireNonNull(featuresConfig, "featuresConfig is null").isPagesIndexEagerCompactionEnabled();
+            this.normalizedKeySortEnabled = featuresConfig.isPagesIndexNormalizedKeySortEnabled();
             this.functionAndTypeManager = requireNonNull(metadata, "metadata is null").getFunctionAndTypeManager();
         }
 
         @Override
         public PagesIndex newPagesIndex(List<Type> types, int expectedPositions)
         {
-            return new PagesIndex(orderingCompiler, joinCompiler, functionAndTypeManager, types, expectedPositions, eagerCompact);
+            return new PagesIndex(orderingCompiler, joinCompiler, functionAndTypeManager, types, expectedPositions, eagerCompact, normalizedKeySortEnabled);
         }
     }
 
@@ -269,11 +299,23 @@ public class PagesIndex
     public void swap(int a, int b)
     {
         valueAddresses.swap(a, b);
+        if (sortPrefixes != null) {
+            int prefixA = a - sortPrefixesOffset;
+            int prefixB = b - sortPrefixesOffset;
+            long prefix = sortPrefixes[prefixA];
+            sortPrefixes[prefixA] = sortPrefixes[prefixB];
+            sortPrefixes[prefixB] = prefix;
+        }
     }
 
     public int buildPage(int position, int[] outputChannels, PageBuilder pageBuilder)
     {
-        while (!pageBuilder.isFull() && position < positionCount) {
+        return buildPage(position, positionCount, outputChannels, pageBuilder);
+    }
+
+    public int buildPage(int position, int endPosition, int[] outputChannels, PageBuilder pageBuilder)
+    {
+        while (!pageBuilder.isFull() && position < endPosition) {
             long pageAddress = valueAddresses.get(position);
             int blockIndex = decodeSliceIndex(pageAddress);
             int blockPosition = decodePosition(pageAddress);
@@ -373,7 +415,132 @@ public class PagesIndex
 
     public void sort(List<Integer> sortChannels, List<SortOrder> sortOrders, int startPosition, int endPosition)
     {
-        createPagesIndexComparator(sortChannels, sortOrders).sort(this, startPosition, endPosition);
+        PagesIndexOrdering ordering = createPagesIndexComparator(sortChannels, sortOrders);
+        if (!useNormalizedKeys(sortChannels)) {
+            ordering.sort(this, startPosition, endPosition);
+            return;
+        }
+
+        computeSortPrefixes(sortChannels.get(0), sortOrders.get(0), startPosition, endPosition);
+        try {
+            normalizedKeyOrdering(ordering).sort(this, startPosition, endPosition);
+        }
+        finally {
+            sortPrefixes = null;
+        }
+    }
+
+    /**
+     * Sorts the positions as {@code runCount} consecutive runs, the first run on the calling thread
+     * and the others concurrently on the executor. The returned future completes with the start positions
+     * of the runs followed by the position count once all runs are sorted, the index must not be used
+     * until then, or until {@link #cancelSortRuns} returns. The runs have to be merged to get the positions
+     * in total order.
+     */
+    public ListenableFuture<int[]> sortRuns(List<Integer> sortChannels, List<SortOrder> sortOrders, int runCount, Executor executor)
+    {
+        checkArgument(runCount > 0, "runCount must be greater than zero");
+        PagesIndexOrdering ordering = createPagesIndexComparator(sortChannels, sortOrders);
+
+        // the runs are sorted by multiple threads, so the sort keys must not be loaded lazily
+        for (int channel : sortChannels) {
+            ObjectArrayList<Block> blocks = channels[channel];
+            for (int i = 0; i < blocks.size(); i++) {
+                blocks.set(i, blocks.get(i).getLoadedBlock());
+            }
+        }
+
+        int[] runOffsets = new int[runCount + 1];
+        for (int run = 0; run <= runCount; run++) {
+            runOffsets[run] = toIntExact((long) positionCount * run / runCount);
+        }
+
+        PagesIndexOrdering runOrdering = ordering;
+        if (useNormalizedKeys(sortChannels)) {
+            // the runs are disjoint, so they can share the prefixes of the whole index
+            computeSortPrefixes(sortChannels.get(0), sortOrders.get(0), 0, positionCount);
+            runOrdering = normalizedKeyOrdering(ordering);
+        }
+
+        List<SortRun> runs = new ArrayList<>(runCount - 1);
+        pendingSortRuns = runs;
+        try {
+            for (int run = 1; run < runCount; run++) {
+                SortRun sortRun = new SortRun(runOrdering, runOffsets[run], runOffsets[run + 1]);
+                runs.add(sortRun);
+                executor.execute(sortRun);
+            }
+            runOrdering.sort(this, runOffsets[0], runOffsets[1]);
+        }
+        catch (RuntimeException e) {
+            cancelSortRuns();
+            sortPrefixes = null;
+            throw e;
+        }
+
+        // the prefixes are shared by all runs, they are released once the last run is done
+        List<ListenableFuture<?>> runsDone = runs.stream()
+                .map(SortRun::getDone)
+                .collect(toImmutableList());
+        return Futures.whenAllComplete(runsDone).call(
+                () -> {
+                    sortPrefixes = null;
+                    for (ListenableFuture<?> runDone : runsDone) {
+                        getDone(runDone);
+                    }
+                    return runOffsets;
+                },
+                directExecutor());
+    }
+
+    /**
+     * Cancels the runs of the last {@link #sortRuns} call that have not started yet and waits for
+     * the others to finish, so that the index can be cleared.
+     */
+    public void cancelSortRuns()
+    {
+        for (SortRun run : pendingSortRuns) {
+            run.cancel();
+        }
+        for (SortRun run : pendingSortRuns) {
+            run.awaitDone();
+        }
+        pendingSortRuns = ImmutableList.of();
+    }
+
+    private boolean useNormalizedKeys(List<Integer> sortChannels)
+    {
+        return normalizedKeySortEnabled && !sortChannels.isEmpty() && NormalizedKeyPrefix.isSupported(types.get(sortChannels.get(0)));
+    }
+
+    private void computeSortPrefixes(int sortChannel, SortOrder sortOrder, int startPosition, int endPosition)
+    {
+        Type type = types.get(sortChannel);
+        long[] prefixes = new long[endPosition - startPosition];
+        for (int position = startPosition; position < endPosition; position++) {
+            long pageAddress = valueAddresses.get(position);
+            Block block = channels[sortChannel].get(decodeSliceIndex(pageAddress));
+            prefixes[position - startPosition] = NormalizedKeyPrefix.encode(type, sortOrder, block, decodePosition(pageAddress));
+        }
+        sortPrefixes = prefixes;
+        sortPrefixesOffset = startPosition;
+    }
+
+    /**
+     * Compares the normalized key prefixes first and falls back to the full comparator only for equal prefixes.
+     */
+    private PagesIndexOrdering normalizedKeyOrdering(PagesIndexOrdering ordering)
+    {
+        PagesIndexComparator comparator = ordering.getComparator();
+        long[] prefixes = sortPrefixes;
+        int offset = sortPrefixesOffset;
+        return new PagesIndexOrdering((pagesIndex, leftPosition, rightPosition) -> {
+            int result = Long.compare(prefixes[leftPosition - offset], prefixes[rightPosition - offset]);
+            if (result != 0) {
+                return result;
+            }
+            return comparator.compareTo(pagesIndex, leftPosition, rightPosition);
+        });
     }
 
     public boolean positionEqualsPosition(PagesHashStrategy partitionHashStrategy, int leftPosition, int rightPosition)
@@ -564,9 +731,15 @@ public class PagesIndex
 
     public Iterator<Page> getSortedPages()
     {
+        return getSortedPages(0, positionCount);
+    }
+
+    public Iterator<Page> getSortedPages(int startPosition, int endPosition)
+    {
+        checkArgument(startPosition >= 0 && startPosition <= endPosition && endPosition <= positionCount, "Invalid position range: [%s, %s)", startPosition, endPosition);
         return new AbstractIterator<Page>()
         {
-            private int currentPosition;
+            private int currentPosition = startPosition;
             private final PageBuilder pageBuilder = new PageBuilder(types);
             private final int[] outputChannels = new int[types.size()];
 
@@ -577,7 +750,7 @@ public class PagesIndex
             @Override
             public Page computeNext()
             {
-                currentPosition = buildPage(currentPosition, outputChannels, pageBuilder);
+                currentPosition = buildPage(currentPosition, endPosition, outputChannels, pageBuilder);
                 if (pageBuilder.isEmpty()) {
                     return endOfData();
                 }
@@ -587,4 +760,59 @@ public class PagesIndex
             }
         };
     }
+
+    private class SortRun
+            implements Runnable
+    {
+        private final PagesIndexOrdering ordering;
+        private final int startPosition;
+        private final int endPosition;
+        // claimed by the run when it starts, or by cancel before it starts
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final SettableFuture<?> done = SettableFuture.create();
+
+        private SortRun(PagesIndexOrdering ordering, int startPosition, int endPosition)
+        {
+            this.ordering = requireNonNull(ordering, "ordering is null");
+            this.startPosition = startPosition;
+            this.endPosition = endPosition;
+        }
+
+        public ListenableFuture<?> getDone()
+        {
+            return done;
+        }
+
+        @Override
+        public void run()
+        {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                ordering.sort(PagesIndex.this, startPosition, endPosition);
+                done.set(null);
+            }
+            catch (Throwable t) {
+                done.setException(t);
+            }
+        }
+
+        public void cancel()
+        {
+            if (claimed.compareAndSet(false, true)) {
+                done.cancel(false);
+            }
+        }
+
+        public void awaitDone()
+        {
+            try {
+                getUninterruptibly(done);
+            }
+            catch (ExecutionException | CancellationException ignored) {
+                // the failure is reported by the future returned from sortRuns
+            }
+        }
+    }
 }
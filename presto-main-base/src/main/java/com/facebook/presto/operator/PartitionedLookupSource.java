@@ -119,6 +119,12 @@ public class PartitionedLookupSource
                 .sum();
     }
 
+    @Override
+    public long getBuildTimeNanos()
+    {
+        return Arrays.stream(lookupSources).mapToLong(LookupSource::getBuildTimeNanos).sum();
+    }
+
     @Override
     public long getInMemorySizeInBytes()
     {
@@ -143,6 +149,54 @@ public class PartitionedLookupSource
         return encodePartitionedJoinPosition(partition, toIntExact(joinPosition));
     }
 
+    @Override
+    public boolean supportsBatchedJoinPositions()
+    {
+        return Arrays.stream(lookupSources).allMatch(LookupSource::supportsBatchedJoinPositions);
+    }
+
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, @Nullable long[] rawHashes, long[] joinPositions)
+    {
+        if (rawHashes == null) {
+            rawHashes = new long[hashChannelsPage.getPositionCount()];
+            for (int i = 0; i < positionCount; i++) {
+                rawHashes[positions[i]] = partitionGenerator.getRawHash(hashChannelsPage, positions[i]);
+            }
+        }
+
+        // group the positions by partition, so every partition is probed with a single batch
+        int[] partitions = new int[positionCount];
+        int[] partitionOffsets = new int[lookupSources.length + 1];
+        for (int i = 0; i < positionCount; i++) {
+            partitions[i] = partitionGenerator.getPartition(rawHashes[positions[i]]);
+            partitionOffsets[partitions[i] + 1]++;
+        }
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            partitionOffsets[partition + 1] += partitionOffsets[partition];
+        }
+        int[] partitionPositions = new int[positionCount];
+        int[] nextOffsets = Arrays.copyOf(partitionOffsets, lookupSources.length);
+        for (int i = 0; i < positionCount; i++) {
+            partitionPositions[nextOffsets[partitions[i]]++] = positions[i];
+        }
+
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            int start = partitionOffsets[partition];
+            int end = partitionOffsets[partition + 1];
+            if (start == end) {
+                continue;
+            }
+            int[] batch = Arrays.copyOfRange(partitionPositions, start, end);
+            lookupSources[partition].getJoinPositions(batch, batch.length, hashChannelsPage, allChannelsPage, rawHashes, joinPositions);
+            for (int position : batch) {
+                if (joinPositions[position] >= 0) {
+                    joinPositions[position] = encodePartitionedJoinPosition(partition, toIntExact(joinPositions[position]));
+                }
+            }
+        }
+    }
+
     @Override
     public long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
@@ -61,6 +61,7 @@ public final class PartitionedLookupSourceFactory
     private final Map<VariableReferenceExpression, Integer> layout;
     private final List<Type> hashChannelTypes;
     private final boolean outer;
+    private final int spillFanout;
     private final SpilledLookupSource spilledLookupSource;
 
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
@@ -79,8 +80,11 @@ public final class PartitionedLookupSourceFactory
     @GuardedBy("lock")
     private SpillingInfo spillingInfo = new SpillingInfo(0, ImmutableSet.of());
 
+    /**
+     * Spilled partitions with the handles of their sub-partitions, see {@link #spillFanout()}.
+     */
     @GuardedBy("lock")
-    private final Map<Integer, SpilledLookupSourceHandle> spilledPartitions = new HashMap<>();
+    private final Map<Integer, List<SpilledLookupSourceHandle>> spilledPartitions = new HashMap<>();
 
     @GuardedBy("lock")
     private TrackingLookupSourceSupplier lookupSourceSupplier;
@@ -107,8 +111,14 @@ public final class PartitionedLookupSourceFactory
     private final ConcurrentHashMap<SpillAwareLookupSourceProvider, LookupSource> suppliedLookupSources = new ConcurrentHashMap<>();
 
     public PartitionedLookupSourceFactory(List<Type> types, List<Type> outputTypes, List<Type> hashChannelTypes, int partitionCount, Map<VariableReferenceExpression, Integer> layout, boolean outer)
+    {
+        this(types, outputTypes, hashChannelTypes, partitionCount, layout, outer, 1);
+    }
+
+    public PartitionedLookupSourceFactory(List<Type> types, List<Type> outputTypes, List<Type> hashChannelTypes, int partitionCount, Map<VariableReferenceExpression, Integer> layout, boolean outer, int spillFanout)
     {
         checkArgument(Integer.bitCount(partitionCount) == 1, "partitionCount must be a power of 2");
+        checkArgument(Integer.bitCount(spillFanout) == 1, "spillFanout must be a power of 2");
 
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.outputTypes = ImmutableList.copyOf(requireNonNull(outputTypes, "outputTypes is null"));
@@ -117,6 +127,7 @@ public final class PartitionedLookupSourceFactory
         checkArgument(partitionCount > 0);
         this.partitions = (Supplier<LookupSource>[]) new Supplier<?>[partitionCount];
         this.outer = outer;
+        this.spillFanout = spillFanout;
         spilledLookupSource = new SpilledLookupSource(outputTypes.size());
     }
 
@@ -146,6 +157,17 @@ public final class PartitionedLookupSourceFactory
         return partitions.length;
     }
 
+    @Override
+    public int spillFanout()
+    {
+        return spillFanout;
+    }
+
+    public List<Type> getHashChannelTypes()
+    {
+        return hashChannelTypes;
+    }
+
     @Override
     public ListenableFuture<LookupSourceProvider> createLookupSourceProvider()
     {
@@ -208,21 +230,22 @@ public final class PartitionedLookupSourceFactory
         return partitionsNoLongerNeeded;
     }
 
-    public void setPartitionSpilledLookupSourceHandle(int partitionIndex, SpilledLookupSourceHandle spilledLookupSourceHandle)
+    public void setPartitionSpilledLookupSourceHandles(int partitionIndex, List<SpilledLookupSourceHandle> spilledLookupSourceHandles)
     {
-        requireNonNull(spilledLookupSourceHandle, "spilledLookupSourceHandle is null");
+        requireNonNull(spilledLookupSourceHandles, "spilledLookupSourceHandles is null");
+        checkArgument(spilledLookupSourceHandles.size() == spillFanout, "Expected %s spilled lookup source handles, but got %s", spillFanout, spilledLookupSourceHandles.size());
 
         boolean completed;
 
         lock.writeLock().lock();
         try {
             if (partitionsNoLongerNeeded.isDone()) {
-                spilledLookupSourceHandle.dispose();
+                spilledLookupSourceHandles.forEach(SpilledLookupSourceHandle::dispose);
                 return;
             }
 
             checkState(!spilledPartitions.containsKey(partitionIndex), "Partition already set as spilled");
-            spilledPartitions.put(partitionIndex, spilledLookupSourceHandle);
+            spilledPartitions.put(partitionIndex, ImmutableList.copyOf(spilledLookupSourceHandles));
             spillingInfo = new SpillingInfo(spillingInfo.spillEpoch() + 1, spilledPartitions.keySet());
 
             if (partitions[partitionIndex] != null) {
@@ -342,7 +365,7 @@ public final class PartitionedLookupSourceFactory
                 verify(!partitionedConsumption.isDone());
                 partitionedConsumption.set(new PartitionedConsumption<>(
                         partitionedConsumptionParticipants.getAsInt(),
-                        spilledPartitions.keySet(),
+                        getSpilledSubPartitions(),
                         this::loadSpilledLookupSource,
                         this::disposeSpilledLookupSource,
                         this::spilledLookupSourceDisposed));
@@ -355,6 +378,26 @@ public final class PartitionedLookupSourceFactory
         }
     }
 
+    /**
+     * Sub-partition {@code i} of partition {@code p} is numbered {@code p + i * partitions()}, which is the partition
+     * that a {@link com.facebook.presto.operator.exchange.LocalPartitionGenerator} with {@code partitions() * spillFanout()}
+     * partitions assigns to its rows. The sub-partitions of a partition are consumed one after the other, so that its
+     * build operator can unspill them in order.
+     */
+    @GuardedBy("lock")
+    private List<Integer> getSpilledSubPartitions()
+    {
+        ImmutableList.Builder<Integer> subPartitions = ImmutableList.builder();
+        spilledPartitions.keySet().stream()
+                .sorted()
+                .forEach(partition -> {
+                    for (int subPartition = 0; subPartition < spillFanout; subPartition++) {
+                        subPartitions.add(partition + subPartition * partitions.length);
+                    }
+                });
+        return subPartitions.build();
+    }
+
     private ListenableFuture<Supplier<LookupSource>> loadSpilledLookupSource(int partitionNumber)
     {
         return getSpilledLookupSourceHandle(partitionNumber).getLookupSource();
@@ -374,7 +417,8 @@ public final class PartitionedLookupSourceFactory
     {
         lock.readLock().lock();
         try {
-            return requireNonNull(spilledPartitions.get(partitionNumber), "spilledPartitions.get(partitionNumber) is null");
+            List<SpilledLookupSourceHandle> handles = requireNonNull(spilledPartitions.get(partitionNumber % partitions.length), "spilledPartitions.get(partitionNumber) is null");
+            return handles.get(partitionNumber / partitions.length);
         }
         finally {
             lock.readLock().unlock();
@@ -404,7 +448,7 @@ public final class PartitionedLookupSourceFactory
         lock.writeLock().lock();
         try {
             freePartitions();
-            spilledPartitions.values().forEach(SpilledLookupSourceHandle::dispose);
+            spilledPartitions.values().forEach(handles -> handles.forEach(SpilledLookupSourceHandle::dispose));
 
             // Setting destroyed must be last because it's a part of the state exposed by isDestroyed() without synchronization.
             destroyed.set(null);
@@ -22,25 +22,42 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.operator.SpillingUtils.spillPages;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class RowNumberOperator
         implements Operator
 {
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     public static class RowNumberOperatorFactory
             implements OperatorFactory
     {
@@ -55,6 +72,8 @@ public class RowNumberOperator
         private final int expectedPositions;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public RowNumberOperatorFactory(
                 int operatorId,
@@ -67,6 +86,23 @@ public class RowNumberOperator
                 Optional<Integer> hashChannel,
                 int expectedPositions,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public RowNumberOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<Integer> partitionChannels,
+                List<? extends Type> partitionTypes,
+                Optional<Integer> maxRowsPerPartition,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -80,6 +116,8 @@ public class RowNumberOperator
             checkArgument(expectedPositions > 0, "expectedPositions < 0");
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -97,7 +135,9 @@ public class RowNumberOperator
                     maxRowsPerPartition,
                     hashChannel,
                     expectedPositions,
-                    joinCompiler);
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
         }
 
         @Override
@@ -109,22 +149,23 @@ public class RowNumberOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new RowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler);
+            return new RowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
     private boolean finishing;
 
     private final int[] outputChannels;
     private final List<Type> types;
 
     private GroupByIdBlock partitionIds;
-    private final Optional<GroupByHash> groupByHash;
+    private Optional<GroupByHash> groupByHash;
 
     private Page inputPage;
-    private final LongBigArray partitionRowCount;
+    private LongBigArray partitionRowCount;
 
     private final Optional<Integer> maxRowsPerPartition;
     // Only present if maxRowsPerPartition is present
@@ -132,6 +173,25 @@ public class RowNumberOperator
 
     // for yield when memory is not available
     private Work<GroupByIdBlock> unfinishedWork;
+    // the number of partitions before the input page was added to the hash
+    private int inputPageFirstPartitionId;
+
+    private final List<Type> sourceTypes;
+    private final List<Type> partitionTypes;
+    private final int[] partitionChannels;
+    private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+
+    // once the row counts are spilled, all input is spilled and numbered partition by partition after the input is finished
+    private Optional<PartitioningSpiller> rowCountsSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputSpiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private boolean revokingMemory;
+    private int nextUnspilledPartition;
+    private Iterator<Page> unspilledInputPages = emptyIterator();
 
     public RowNumberOperator(
             OperatorContext operatorContext,
@@ -143,9 +203,26 @@ public class RowNumberOperator
             Optional<Integer> hashChannel,
             int expectedPositions,
             JoinCompiler joinCompiler)
+    {
+        this(operatorContext, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public RowNumberOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<Integer> partitionChannels,
+            List<Type> partitionTypes,
+            Optional<Integer> maxRowsPerPartition,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
         this.outputChannels = Ints.toArray(outputChannels);
         this.types = toTypes(sourceTypes, outputChannels);
 
@@ -157,13 +234,22 @@ public class RowNumberOperator
             selectedRowPageBuilder = Optional.empty();
         }
 
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
+        this.partitionTypes = ImmutableList.copyOf(requireNonNull(partitionTypes, "partitionTypes is null"));
+        this.partitionChannels = Ints.toArray(partitionChannels);
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        // the memory of a single partition does not grow with the input
+        this.spillEnabled = spillEnabled && !partitionChannels.isEmpty();
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+
         this.partitionRowCount = new LongBigArray(0);
         if (partitionChannels.isEmpty()) {
             this.groupByHash = Optional.empty();
         }
         else {
-            int[] channels = Ints.toArray(partitionChannels);
-            this.groupByHash = Optional.of(createGroupByHash(partitionTypes, channels, hashChannel, expectedPositions, isDictionaryAggregationEnabled(operatorContext.getSession()), joinCompiler, this::updateMemoryReservation));
+            this.groupByHash = Optional.of(createGroupByHash(partitionTypes, this.partitionChannels, hashChannel, expectedPositions, isDictionaryAggregationEnabled(operatorContext.getSession()), joinCompiler, this::updateMemoryReservation));
         }
     }
 
@@ -189,7 +275,16 @@ public class RowNumberOperator
             return partitionRowCount.get(0) == maxRowsPerPartition.get();
         }
 
-        return finishing && !hasUnfinishedInput();
+        return finishing && !hasUnfinishedInput() && !isSpilled();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (spillInProgress.isDone()) {
+            return NOT_BLOCKED;
+        }
+        return spillInProgress;
     }
 
     @Override
@@ -199,7 +294,7 @@ public class RowNumberOperator
             // Check if single partition is done
             return partitionRowCount.get(0) < maxRowsPerPartition.get() && !finishing && !hasUnfinishedInput();
         }
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
@@ -208,8 +303,15 @@ public class RowNumberOperator
         checkState(!finishing, "Operator is already finishing");
         requireNonNull(page, "page is null");
         checkState(!hasUnfinishedInput());
+        if (isSpilled()) {
+            checkSpillSucceeded(spillInProgress);
+            spillInProgress = inputSpiller.get().partitionAndSpill(page, partition -> true).getSpillingFuture();
+            return;
+        }
+
         inputPage = page;
         if (groupByHash.isPresent()) {
+            inputPageFirstPartitionId = groupByHash.get().getGroupCount();
             unfinishedWork = groupByHash.get().getGroupIds(inputPage);
             processUnfinishedWork();
         }
@@ -224,27 +326,87 @@ public class RowNumberOperator
         }
 
         if (inputPage == null) {
+            if (finishing && isSpilled()) {
+                return getUnspilledOutput();
+            }
             return null;
         }
 
-        Page outputPage;
-        if (maxRowsPerPartition.isPresent()) {
-            outputPage = getSelectedRows();
-        }
-        else {
-            outputPage = getRowsWithRowNumber();
-        }
+        Page outputPage = getOutputPage();
 
         inputPage = null;
         updateMemoryReservation();
         return outputPage;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkState(spillInProgress.isDone(), "Previous spill still in progress");
+        if (!spillEnabled || isSpilled() || (finishing && !hasUnfinishedInput())) {
+            return NOT_BLOCKED;
+        }
+
+        List<Type> rowCountTypes = ImmutableList.<Type>builder()
+                .addAll(groupByHash.get().getTypes())
+                .add(BIGINT)
+                .build();
+        rowCountsSpiller = Optional.of(partitioningSpillerFactory.create(
+                rowCountTypes,
+                new SpillPartitionFunction(partitionTypes, IntStream.range(0, partitionTypes.size()).toArray(), hashChannel.map(channel -> partitionTypes.size()), SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.aggregateSystemMemoryContext()));
+        inputSpiller = Optional.of(partitioningSpillerFactory.create(
+                sourceTypes,
+                new SpillPartitionFunction(partitionTypes, partitionChannels, hashChannel, SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.aggregateSystemMemoryContext()));
+
+        // the partitions of the page being numbered are not counted yet, the page is spilled as input instead
+        int partitionCount = groupByHash.get().getGroupCount();
+        ListenableFuture<?> inputSpilled = immediateFuture(null);
+        if (hasUnfinishedInput()) {
+            partitionCount = inputPageFirstPartitionId;
+            inputSpilled = inputSpiller.get().partitionAndSpill(inputPage, partition -> true).getSpillingFuture();
+        }
+        ListenableFuture<?> rowCountsSpilled = spillPages(rowCountsSpiller.get(), getRowCounts(rowCountTypes, partitionCount));
+        spillInProgress = allAsList(rowCountsSpilled, inputSpilled);
+        revokingMemory = true;
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        if (!revokingMemory) {
+            return;
+        }
+        checkSpillSucceeded(spillInProgress);
+        revokingMemory = false;
+        inputPage = null;
+        unfinishedWork = null;
+        partitionIds = null;
+        groupByHash = Optional.empty();
+        partitionRowCount = new LongBigArray(0);
+        localRevocableMemoryContext.setBytes(0);
+    }
+
+    @Override
+    public void close()
+    {
+        closeSpillers();
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
     }
 
+    private boolean isSpilled()
+    {
+        return inputSpiller.isPresent();
+    }
+
     /**
      * Update memory usage.
      *
@@ -258,7 +420,12 @@ public class RowNumberOperator
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
         long memorySizeInBytes = groupByHash.map(GroupByHash::getEstimatedSize).orElse(0L) + partitionRowCount.sizeOf();
-        localUserMemoryContext.setBytes(memorySizeInBytes);
+        if (spillEnabled && !isSpilled()) {
+            localRevocableMemoryContext.setBytes(memorySizeInBytes);
+        }
+        else {
+            localUserMemoryContext.setBytes(memorySizeInBytes);
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
@@ -277,7 +444,135 @@ public class RowNumberOperator
 
     private boolean isSinglePartition()
     {
-        return !groupByHash.isPresent();
+        return partitionChannels.length == 0;
+    }
+
+    private Page getOutputPage()
+    {
+        if (maxRowsPerPartition.isPresent()) {
+            return getSelectedRows();
+        }
+        return getRowsWithRowNumber();
+    }
+
+    private Iterator<Page> getRowCounts(List<Type> rowCountTypes, int partitionCount)
+    {
+        GroupByHash hash = groupByHash.get();
+        int rowCountChannel = rowCountTypes.size() - 1;
+        return new AbstractIterator<Page>()
+        {
+            private int partitionId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (partitionId == partitionCount) {
+                    return endOfData();
+                }
+                PageBuilder pageBuilder = new PageBuilder(rowCountTypes);
+                while (partitionId < partitionCount && !pageBuilder.isFull()) {
+                    pageBuilder.declarePosition();
+                    hash.appendValuesTo(partitionId, pageBuilder, 0);
+                    BIGINT.writeLong(pageBuilder.getBlockBuilder(rowCountChannel), partitionRowCount.get(partitionId));
+                    partitionId++;
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
+    private Page getUnspilledOutput()
+    {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        while (!unspilledInputPages.hasNext()) {
+            if (nextUnspilledPartition == SPILL_PARTITION_COUNT) {
+                inputSpiller.get().verifyAllPartitionsRead();
+                rowCountsSpiller.get().verifyAllPartitionsRead();
+                closeSpillers();
+                groupByHash = Optional.empty();
+                partitionRowCount = new LongBigArray(0);
+                localUserMemoryContext.setBytes(0);
+                return null;
+            }
+            unspillPartition(nextUnspilledPartition);
+            nextUnspilledPartition++;
+        }
+
+        inputPage = unspilledInputPages.next();
+        unfinishedWork = groupByHash.get().getGroupIds(inputPage.extractChannels(getSpilledPartitionChannels()));
+        // the memory of the unspilled partition is not revocable, so the work never yields
+        verify(processUnfinishedWork());
+        Page outputPage = getOutputPage();
+
+        inputPage = null;
+        updateMemoryReservation();
+        return outputPage;
+    }
+
+    private void unspillPartition(int partition)
+    {
+        groupByHash = Optional.empty();
+        partitionRowCount = new LongBigArray(0);
+        Iterator<Page> rowCounts = rowCountsSpiller.get().getSpilledPages(partition);
+        unspilledInputPages = inputSpiller.get().getSpilledPages(partition);
+        if (!unspilledInputPages.hasNext()) {
+            // no rows to number
+            return;
+        }
+
+        // the spilled row counts and the unspilled input are hashed on the partition channels followed by the hash
+        GroupByHash hash = createGroupByHash(
+                partitionTypes,
+                IntStream.range(0, partitionTypes.size()).toArray(),
+                hashChannel.map(channel -> partitionTypes.size()),
+                expectedPositions,
+                isDictionaryAggregationEnabled(operatorContext.getSession()),
+                joinCompiler,
+                () -> {
+                    updateMemoryReservation();
+                    return true;
+                });
+        groupByHash = Optional.of(hash);
+        int rowCountChannel = hash.getTypes().size();
+        while (rowCounts.hasNext()) {
+            Page page = rowCounts.next();
+            Work<GroupByIdBlock> work = hash.getGroupIds(page);
+            verify(work.process());
+            GroupByIdBlock ids = work.getResult();
+            partitionRowCount.ensureCapacity(ids.getGroupCount());
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                partitionRowCount.set(ids.getGroupId(position), BIGINT.getLong(page.getBlock(rowCountChannel), position));
+            }
+        }
+        updateMemoryReservation();
+    }
+
+    private int[] getSpilledPartitionChannels()
+    {
+        if (!hashChannel.isPresent()) {
+            return partitionChannels;
+        }
+        int[] channels = new int[partitionChannels.length + 1];
+        System.arraycopy(partitionChannels, 0, channels, 0, partitionChannels.length);
+        channels[partitionChannels.length] = hashChannel.get();
+        return channels;
+    }
+
+    private void closeSpillers()
+    {
+        try (Closer closer = Closer.create()) {
+            rowCountsSpiller.ifPresent(closer::register);
+            inputSpiller.ifPresent(closer::register);
+            rowCountsSpiller = Optional.empty();
+            inputSpiller = Optional.empty();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private Page getRowsWithRowNumber()
@@ -18,4 +18,14 @@ import java.net.URI;
 public interface RpcShuffleClientProvider
 {
     RpcShuffleClient get(URI location);
+
+    /**
+     * Returns a client that reads the location through the exchange stream of its node, which
+     * batches the reads of all the locations on the same node. Providers without a streaming
+     * transport return the regular client.
+     */
+    default RpcShuffleClient getStreaming(URI location)
+    {
+        return get(location);
+    }
 }
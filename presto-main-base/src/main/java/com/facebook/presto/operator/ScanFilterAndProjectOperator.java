@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.Session;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.RuntimeStats;
@@ -41,6 +42,7 @@ import com.facebook.presto.split.EmptySplitPageSource;
 import com.facebook.presto.split.PageSourceProvider;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.DataSize;
@@ -81,6 +83,7 @@ public class ScanFilterAndProjectOperator
     private final LocalMemoryContext outputMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
     private final Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier;
+    private final Optional<Supplier<Map<Integer, BlockedBloomFilter>>> bloomFilterSupplier;
     private final MergingPageOutput mergingOutput;
 
     private RecordCursor cursor;
@@ -104,6 +107,7 @@ public class ScanFilterAndProjectOperator
             Iterable<ColumnHandle> columns,
             Iterable<Type> types,
             Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier,
+            Optional<Supplier<Map<Integer, BlockedBloomFilter>>> bloomFilterSupplier,
             MergingPageOutput mergingOutput)
     {
         this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
@@ -118,6 +122,7 @@ public class ScanFilterAndProjectOperator
         this.pageProcessorMemoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.outputMemoryContext = operatorContext.newLocalSystemMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.dynamicFilterSupplier = requireNonNull(dynamicFilterSupplier, "dynamicFilterSupplier is null");
+        this.bloomFilterSupplier = requireNonNull(bloomFilterSupplier, "bloomFilterSupplier is null");
         this.mergingOutput = requireNonNull(mergingOutput, "mergingOutput is null");
 
         this.pageBuilder = new PageBuilder(ImmutableList.copyOf(requireNonNull(types, "types is null")));
@@ -300,6 +305,7 @@ public class ScanFilterAndProjectOperator
             if (page != null) {
                 // update operator stats
                 page = recordProcessedInput(page);
+                page = applyBloomFilters(page);
 
                 Iterator<Optional<Page>> output = pageProcessor.process(sqlFunctionProperties, yieldSignal, pageProcessorMemoryContext, page);
                 mergingOutput.addInput(output);
@@ -395,6 +401,49 @@ public class ScanFilterAndProjectOperator
         return (blocks == null) ? page : new Page(page.getPositionCount(), blocks);
     }
 
+    private Page applyBloomFilters(Page page)
+    {
+        Map<Integer, BlockedBloomFilter> bloomFilters = bloomFilterSupplier.map(Supplier::get).orElse(ImmutableMap.of());
+        if (bloomFilters.isEmpty() || page.getPositionCount() == 0) {
+            return page;
+        }
+
+        int[] retained = new int[page.getPositionCount()];
+        int retainedCount = 0;
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            if (mightMatch(bloomFilters, page, position)) {
+                retained[retainedCount++] = position;
+            }
+        }
+        if (retainedCount == page.getPositionCount()) {
+            return page;
+        }
+
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Block block = page.getBlock(channel);
+            // keep unloaded columns lazy, so that the rows pruned here are never materialized
+            if (block instanceof LazyBlock && !((LazyBlock) block).isLoaded()) {
+                int positionCount = retainedCount;
+                blocks[channel] = new LazyBlock(positionCount, lazyBlock -> lazyBlock.setBlock(block.getPositions(retained, 0, positionCount)));
+            }
+            else {
+                blocks[channel] = block.getPositions(retained, 0, retainedCount);
+            }
+        }
+        return new Page(retainedCount, blocks);
+    }
+
+    private static boolean mightMatch(Map<Integer, BlockedBloomFilter> bloomFilters, Page page, int position)
+    {
+        for (Map.Entry<Integer, BlockedBloomFilter> entry : bloomFilters.entrySet()) {
+            if (!entry.getValue().mightContain(page.getBlock(entry.getKey()), position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static Block[] copyOfPageBlocks(Page page)
     {
         Block[] blocks = new Block[page.getChannelCount()];
@@ -417,6 +466,7 @@ public class ScanFilterAndProjectOperator
         private final List<ColumnHandle> columns;
         private final List<Type> types;
         private final Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier;
+        private final Optional<Supplier<Map<Integer, BlockedBloomFilter>>> bloomFilterSupplier;
         private final DataSize minOutputPageSize;
         private final int minOutputPageRowCount;
         private boolean closed;
@@ -434,6 +484,24 @@ public class ScanFilterAndProjectOperator
                 Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier,
                 DataSize minOutputPageSize,
                 int minOutputPageRowCount)
+        {
+            this(operatorId, planNodeId, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, table, columns, types, dynamicFilterSupplier, Optional.empty(), minOutputPageSize, minOutputPageRowCount);
+        }
+
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                Supplier<CursorProcessor> cursorProcessor,
+                Supplier<PageProcessor> pageProcessor,
+                TableHandle table,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier,
+                Optional<Supplier<Map<Integer, BlockedBloomFilter>>> bloomFilterSupplier,
+                DataSize minOutputPageSize,
+                int minOutputPageRowCount)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -445,6 +513,7 @@ public class ScanFilterAndProjectOperator
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
             this.types = requireNonNull(types, "types is null");
             this.dynamicFilterSupplier = requireNonNull(dynamicFilterSupplier, "dynamicFilterSupplier is null");
+            this.bloomFilterSupplier = requireNonNull(bloomFilterSupplier, "bloomFilterSupplier is null");
             this.minOutputPageSize = requireNonNull(minOutputPageSize, "minOutputPageSize is null");
             this.minOutputPageRowCount = minOutputPageRowCount;
         }
@@ -455,6 +524,14 @@ public class ScanFilterAndProjectOperator
             return sourceId;
         }
 
+        @Override
+        public void prefetchSplit(Session session, Split split)
+        {
+            if (!closed && !(split.getConnectorSplit() instanceof EmptySplit)) {
+                pageSourceProvider.prefetch(session, split, table);
+            }
+        }
+
         @Override
         public SourceOperator createOperator(DriverContext driverContext)
         {
@@ -470,6 +547,7 @@ public class ScanFilterAndProjectOperator
                     columns,
                     types,
                     dynamicFilterSupplier,
+                    bloomFilterSupplier,
                     new MergingPageOutput(types, minOutputPageSize.toBytes(), minOutputPageRowCount));
         }
 
@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.plan.PlanNodeId;
 
 public interface SourceOperatorFactory
@@ -20,6 +22,13 @@ public interface SourceOperatorFactory
 {
     PlanNodeId getSourceId();
 
+    /**
+     * Called when a split for this source is queued, before a driver is created for it.
+     */
+    default void prefetchSplit(Session session, Split split)
+    {
+    }
+
     @Override
     SourceOperator createOperator(DriverContext driverContext);
 
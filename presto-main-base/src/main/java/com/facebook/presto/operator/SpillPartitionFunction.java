@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.Type;
+import io.airlift.slice.XxHash64;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Integer.bitCount;
+import static java.lang.Integer.numberOfTrailingZeros;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Partitions the rows spilled by an operator by the hash of their keys. The partition is taken from the
+ * high bits of the mixed hash, while the local exchanges use the low bits, so the rows of a single driver
+ * are spread over all the spill partitions.
+ */
+public class SpillPartitionFunction
+        implements PartitionFunction
+{
+    private final HashGenerator hashGenerator;
+    private final int partitionCount;
+    private final int partitionShift;
+
+    public SpillPartitionFunction(List<Type> keyTypes, int[] keyChannels, Optional<Integer> hashChannel, int partitionCount)
+    {
+        requireNonNull(keyTypes, "keyTypes is null");
+        requireNonNull(keyChannels, "keyChannels is null");
+        requireNonNull(hashChannel, "hashChannel is null");
+        checkArgument(partitionCount > 1 && bitCount(partitionCount) == 1, "partitionCount must be a power of 2 greater than 1");
+
+        if (hashChannel.isPresent()) {
+            this.hashGenerator = new PrecomputedHashGenerator(hashChannel.get());
+        }
+        else {
+            this.hashGenerator = new InterpretedHashGenerator(keyTypes, keyChannels);
+        }
+        this.partitionCount = partitionCount;
+        this.partitionShift = Long.SIZE - numberOfTrailingZeros(partitionCount);
+    }
+
+    @Override
+    public int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    @Override
+    public int getPartition(Page page, int position)
+    {
+        long rawHash = hashGenerator.hashPosition(position, page);
+        return (int) (XxHash64.hash(rawHash) >>> partitionShift);
+    }
+}
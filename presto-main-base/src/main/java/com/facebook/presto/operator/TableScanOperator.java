@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.Session;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.execution.ScheduledSplit;
@@ -81,6 +82,14 @@ public class TableScanOperator
             return sourceId;
         }
 
+        @Override
+        public void prefetchSplit(Session session, Split split)
+        {
+            if (!closed && !(split.getConnectorSplit() instanceof EmptySplit)) {
+                pageSourceProvider.prefetch(session, split, table);
+            }
+        }
+
         @Override
         public SourceOperator createOperator(DriverContext driverContext)
         {
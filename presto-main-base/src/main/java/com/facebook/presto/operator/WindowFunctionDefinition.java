@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.window.FrameInfo;
 import com.facebook.presto.operator.window.WindowFunctionSupplier;
 import com.facebook.presto.spi.function.WindowFunction;
@@ -80,4 +81,9 @@ public class WindowFunctionDefinition
     {
         return functionSupplier.createWindowFunction(argumentChannels, ignoreNulls);
     }
+
+    public WindowFunction createWindowFunction(LocalMemoryContext memoryContext)
+    {
+        return functionSupplier.createWindowFunction(argumentChannels, ignoreNulls, memoryContext);
+    }
 }
@@ -24,6 +24,7 @@ import com.facebook.presto.operator.WorkProcessor.TransformationState;
 import com.facebook.presto.operator.window.FrameInfo;
 import com.facebook.presto.operator.window.FramedWindowFunction;
 import com.facebook.presto.operator.window.WindowPartition;
+import com.facebook.presto.spi.function.WindowFunction;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spiller.Spiller;
 import com.facebook.presto.spiller.SpillerFactory;
@@ -237,7 +238,9 @@ public class WindowOperator
         this.operatorContext = operatorContext;
         this.outputChannels = Ints.toArray(outputChannels);
         this.windowFunctions = windowFunctionDefinitions.stream()
-                .map(functionDefinition -> new FramedWindowFunction(functionDefinition.createWindowFunction(), functionDefinition.getFrameInfo()))
+                .map(functionDefinition -> new FramedWindowFunction(
+                        functionDefinition.createWindowFunction(operatorContext.aggregateUserMemoryContext().newLocalMemoryContext(WindowFunction.class.getSimpleName())),
+                        functionDefinition.getFrameInfo()))
                 .collect(toImmutableList());
 
         this.outputTypes = Stream.concat(
@@ -94,7 +94,8 @@ public class LocalExchange
             List<Integer> partitionChannels,
             List<Type> partitioningChannelTypes,
             Optional<Integer> partitionHashChannel,
-            DataSize maxBufferedBytes)
+            DataSize maxBufferedBytes,
+            boolean partitionRebalancingEnabled)
     {
         this.allSinkFactories = Stream.generate(() -> new LocalExchangeSinkFactory(LocalExchange.this))
                 .limit(sinkFactoryCount)
@@ -112,7 +113,15 @@ public class LocalExchange
                 .map(buffer -> (Consumer<PageReference>) buffer::addPage)
                 .collect(toImmutableList());
 
-        this.memoryManager = new LocalExchangeMemoryManager(maxBufferedBytes.toBytes());
+        // rebalancing moves rows of a partition to other buffers, so it is only used for consumers that do not need all rows of a key
+        boolean rebalancePartitions = partitionRebalancingEnabled && bufferCount > 1 && partitioning.equals(FIXED_HASH_DISTRIBUTION);
+        Optional<List<Consumer<PageReference>>> rebalancedBuffers = rebalancePartitions ?
+                Optional.of(this.sources.stream()
+                        .map(buffer -> (Consumer<PageReference>) buffer::addRebalancedPage)
+                        .collect(toImmutableList())) :
+                Optional.empty();
+
+        this.memoryManager = new LocalExchangeMemoryManager(maxBufferedBytes.toBytes(), rebalancePartitions ? bufferCount : 0);
         if (partitioning.equals(SINGLE_DISTRIBUTION)) {
             exchangerSupplier = () -> new BroadcastExchanger(buffers, memoryManager);
         }
@@ -133,6 +142,7 @@ public class LocalExchange
             // partitioned exchange
             exchangerSupplier = () -> new PartitioningExchanger(
                     buffers,
+                    rebalancedBuffers,
                     memoryManager,
                     createPartitionFunction(
                             partitioningProviderManager,
@@ -328,6 +338,7 @@ public class LocalExchange
         private final PipelineExecutionStrategy exchangeSourcePipelineExecutionStrategy;
         private final DataSize maxBufferedBytes;
         private final int bufferCount;
+        private final boolean partitionRebalancingEnabled;
 
         @GuardedBy("this")
         private boolean noMoreSinkFactories;
@@ -351,6 +362,31 @@ public class LocalExchange
                 Optional<Integer> partitionHashChannel,
                 PipelineExecutionStrategy exchangeSourcePipelineExecutionStrategy,
                 DataSize maxBufferedBytes)
+        {
+            this(
+                    partitioningProviderManager,
+                    session,
+                    partitioning,
+                    defaultConcurrency,
+                    types,
+                    partitionChannels,
+                    partitionHashChannel,
+                    exchangeSourcePipelineExecutionStrategy,
+                    maxBufferedBytes,
+                    false);
+        }
+
+        public LocalExchangeFactory(
+                PartitioningProviderManager partitioningProviderManager,
+                Session session,
+                PartitioningHandle partitioning,
+                int defaultConcurrency,
+                List<Type> types,
+                List<Integer> partitionChannels,
+                Optional<Integer> partitionHashChannel,
+                PipelineExecutionStrategy exchangeSourcePipelineExecutionStrategy,
+                DataSize maxBufferedBytes,
+                boolean partitionRebalancingEnabled)
         {
             this.partitioningProviderManager = requireNonNull(partitioningProviderManager, "partitioningProviderManager is null");
             this.session = requireNonNull(session, "session is null");
@@ -364,6 +400,7 @@ public class LocalExchange
             this.partitionHashChannel = requireNonNull(partitionHashChannel, "partitionHashChannel is null");
             this.exchangeSourcePipelineExecutionStrategy = requireNonNull(exchangeSourcePipelineExecutionStrategy, "exchangeSourcePipelineExecutionStrategy is null");
             this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
+            this.partitionRebalancingEnabled = partitionRebalancingEnabled;
         }
 
         public synchronized LocalExchangeSinkFactoryId newSinkFactoryId()
@@ -403,7 +440,8 @@ public class LocalExchange
                         partitionChannels,
                         partitioningChannelTypes,
                         partitionHashChannel,
-                        maxBufferedBytes);
+                        maxBufferedBytes,
+                        partitionRebalancingEnabled);
                 for (LocalExchangeSinkFactoryId closedSinkFactoryId : closedSinkFactories) {
                     localExchange.getSinkFactory(closedSinkFactoryId).close();
                 }
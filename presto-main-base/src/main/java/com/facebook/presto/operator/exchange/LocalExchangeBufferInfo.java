@@ -21,21 +21,34 @@ import com.facebook.presto.util.Mergeable;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import static java.lang.Math.max;
+
 @ThriftStruct
 public class LocalExchangeBufferInfo
         implements Mergeable<LocalExchangeBufferInfo>, OperatorInfo
 {
     private final long bufferedBytes;
     private final int bufferedPages;
+    private final long maxBufferedBytes;
+    private final long rebalancedPages;
+
+    public LocalExchangeBufferInfo(long bufferedBytes, int bufferedPages)
+    {
+        this(bufferedBytes, bufferedPages, bufferedBytes, 0);
+    }
 
     @JsonCreator
     @ThriftConstructor
     public LocalExchangeBufferInfo(
             @JsonProperty("bufferedBytes") long bufferedBytes,
-            @JsonProperty("bufferedPages") int bufferedPages)
+            @JsonProperty("bufferedPages") int bufferedPages,
+            @JsonProperty("maxBufferedBytes") long maxBufferedBytes,
+            @JsonProperty("rebalancedPages") long rebalancedPages)
     {
         this.bufferedBytes = bufferedBytes;
         this.bufferedPages = bufferedPages;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.rebalancedPages = rebalancedPages;
     }
 
     @JsonProperty
@@ -52,9 +65,33 @@ public class LocalExchangeBufferInfo
         return bufferedPages;
     }
 
+    /**
+     * Bytes in the fullest buffer, compared to the buffered bytes this shows how skewed the exchange is.
+     */
+    @JsonProperty
+    @ThriftField(3)
+    public long getMaxBufferedBytes()
+    {
+        return maxBufferedBytes;
+    }
+
+    /**
+     * Pages of overloaded partitions that were sent to another buffer.
+     */
+    @JsonProperty
+    @ThriftField(4)
+    public long getRebalancedPages()
+    {
+        return rebalancedPages;
+    }
+
     @Override
     public LocalExchangeBufferInfo mergeWith(LocalExchangeBufferInfo other)
     {
-        return new LocalExchangeBufferInfo(bufferedBytes + other.getBufferedBytes(), bufferedPages + other.getBufferedPages());
+        return new LocalExchangeBufferInfo(
+                bufferedBytes + other.getBufferedBytes(),
+                bufferedPages + other.getBufferedPages(),
+                max(maxBufferedBytes, other.getMaxBufferedBytes()),
+                rebalancedPages + other.getRebalancedPages());
     }
 }
@@ -21,6 +21,7 @@ import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
@@ -32,15 +33,30 @@ public class LocalExchangeMemoryManager
 
     private final long maxBufferedBytes;
     private final AtomicLong bufferedBytes = new AtomicLong();
+    // buffered bytes of each buffer, only tracked for exchanges that rebalance partitions
+    private final AtomicLongArray bufferBufferedBytes;
 
     @Nullable
     @GuardedBy("this")
     private SettableFuture<?> notFullFuture;  // null represents "no callback registered"
 
     public LocalExchangeMemoryManager(long maxBufferedBytes)
+    {
+        this(maxBufferedBytes, 0);
+    }
+
+    public LocalExchangeMemoryManager(long maxBufferedBytes, int bufferCount)
     {
         checkArgument(maxBufferedBytes > 0, "maxBufferedBytes must be > 0");
+        checkArgument(bufferCount >= 0, "bufferCount must be >= 0");
         this.maxBufferedBytes = maxBufferedBytes;
+        this.bufferBufferedBytes = new AtomicLongArray(bufferCount);
+    }
+
+    public void updateMemoryUsage(int buffer, long bytesAdded)
+    {
+        bufferBufferedBytes.addAndGet(buffer, bytesAdded);
+        updateMemoryUsage(bytesAdded);
     }
 
     public void updateMemoryUsage(long bytesAdded)
@@ -84,4 +100,20 @@ public class LocalExchangeMemoryManager
     {
         return bufferedBytes.get();
     }
+
+    public long getBufferedBytes(int buffer)
+    {
+        return bufferBufferedBytes.get(buffer);
+    }
+
+    /**
+     * A buffer is overloaded when it holds more than its share of the exchange memory and more
+     * than twice the average of the other buffers, i.e. its consumer falls behind the other consumers.
+     */
+    public boolean isOverloaded(int buffer)
+    {
+        int bufferCount = bufferBufferedBytes.length();
+        long bytes = bufferBufferedBytes.get(buffer);
+        return bytes > maxBufferedBytes / bufferCount && bytes * (bufferCount - 1) > 2 * (bufferedBytes.get() - bytes);
+    }
 }
@@ -43,6 +43,7 @@ public class LocalExchangeSource
 
     private final BlockingQueue<PageReference> buffer = new LinkedBlockingDeque<>();
     private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicLong rebalancedPages = new AtomicLong();
 
     @Nullable
     @GuardedBy("this")
@@ -59,7 +60,17 @@ public class LocalExchangeSource
     {
         // This must be lock free to assure task info creation is fast
         // Note: the stats my be internally inconsistent
-        return new LocalExchangeBufferInfo(bufferedBytes.get(), buffer.size());
+        long bufferedBytes = this.bufferedBytes.get();
+        return new LocalExchangeBufferInfo(bufferedBytes, buffer.size(), bufferedBytes, rebalancedPages.get());
+    }
+
+    /**
+     * Adds a page of a partition that is assigned to another buffer, but whose consumer fell behind.
+     */
+    void addRebalancedPage(PageReference pageReference)
+    {
+        rebalancedPages.incrementAndGet();
+        addPage(pageReference);
     }
 
     void addPage(PageReference pageReference)
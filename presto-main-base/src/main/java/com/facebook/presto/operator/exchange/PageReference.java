@@ -73,5 +73,11 @@ final class PageReference
             requireNonNull(memoryManager, "memoryManager is null");
             return (releasedSizeInBytes) -> memoryManager.updateMemoryUsage(-releasedSizeInBytes);
         }
+
+        static PageReleasedListener forLocalExchangeMemoryManager(LocalExchangeMemoryManager memoryManager, int buffer)
+        {
+            requireNonNull(memoryManager, "memoryManager is null");
+            return (releasedSizeInBytes) -> memoryManager.updateMemoryUsage(buffer, -releasedSizeInBytes);
+        }
     }
 }
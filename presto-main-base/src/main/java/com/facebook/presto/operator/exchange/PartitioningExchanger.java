@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 class PartitioningExchanger
@@ -39,14 +40,33 @@ class PartitioningExchanger
     private final IntArrayList[] partitionAssignments;
     private final PageReleasedListener onPageReleased;
 
+    // present if the consumers accept the rows of a key in any buffer
+    private final Optional<List<Consumer<PageReference>>> rebalancedBuffers;
+    // buffers that receive the rows of each partition, more than one if the partition was overloaded
+    private final IntArrayList[] partitionBuffers;
+    private final PageReleasedListener[] onBufferPageReleased;
+
     public PartitioningExchanger(
             List<Consumer<PageReference>> partitions,
             LocalExchangeMemoryManager memoryManager,
             PartitionFunction partitionFunction,
             List<Integer> partitioningChannels,
             Optional<Integer> hashChannel)
+    {
+        this(partitions, Optional.empty(), memoryManager, partitionFunction, partitioningChannels, hashChannel);
+    }
+
+    public PartitioningExchanger(
+            List<Consumer<PageReference>> partitions,
+            Optional<List<Consumer<PageReference>>> rebalancedPartitions,
+            LocalExchangeMemoryManager memoryManager,
+            PartitionFunction partitionFunction,
+            List<Integer> partitioningChannels,
+            Optional<Integer> hashChannel)
     {
         this.buffers = ImmutableList.copyOf(requireNonNull(partitions, "partitions is null"));
+        this.rebalancedBuffers = requireNonNull(rebalancedPartitions, "rebalancedPartitions is null").map(ImmutableList::copyOf);
+        rebalancedBuffers.ifPresent(rebalanced -> checkArgument(rebalanced.size() == buffers.size(), "rebalancedPartitions and partitions must have the same size"));
         this.memoryManager = requireNonNull(memoryManager, "memoryManager is null");
         this.partitionFunction = requireNonNull(partitionFunction, "partitionFunction is null");
         this.partitioningChannels = Ints.toArray(requireNonNull(partitioningChannels, "partitioningChannels is null"));
@@ -54,8 +74,12 @@ class PartitioningExchanger
         this.onPageReleased = PageReleasedListener.forLocalExchangeMemoryManager(memoryManager);
 
         partitionAssignments = new IntArrayList[partitions.size()];
+        partitionBuffers = new IntArrayList[partitions.size()];
+        onBufferPageReleased = new PageReleasedListener[partitions.size()];
         for (int i = 0; i < partitionAssignments.length; i++) {
             partitionAssignments[i] = new IntArrayList();
+            partitionBuffers[i] = IntArrayList.wrap(new int[] {i});
+            onBufferPageReleased[i] = PageReleasedListener.forLocalExchangeMemoryManager(memoryManager, i);
         }
     }
 
@@ -79,12 +103,50 @@ class PartitioningExchanger
             IntArrayList positions = partitionAssignments[partition];
             if (!positions.isEmpty()) {
                 Page pageSplit = page.copyPositions(positions.elements(), 0, positions.size());
-                memoryManager.updateMemoryUsage(pageSplit.getRetainedSizeInBytes());
-                buffers.get(partition).accept(new PageReference(pageSplit, 1, onPageReleased));
+                if (rebalancedBuffers.isPresent()) {
+                    addRebalancedPage(partition, pageSplit);
+                }
+                else {
+                    memoryManager.updateMemoryUsage(pageSplit.getRetainedSizeInBytes());
+                    buffers.get(partition).accept(new PageReference(pageSplit, 1, onPageReleased));
+                }
             }
         }
     }
 
+    private void addRebalancedPage(int partition, Page page)
+    {
+        // send the page to the least loaded buffer of the partition
+        IntArrayList targets = partitionBuffers[partition];
+        int buffer = targets.getInt(0);
+        for (int i = 1; i < targets.size(); i++) {
+            if (memoryManager.getBufferedBytes(targets.getInt(i)) < memoryManager.getBufferedBytes(buffer)) {
+                buffer = targets.getInt(i);
+            }
+        }
+
+        // if all the buffers of the partition are overloaded, spread the partition to one more buffer
+        if (memoryManager.isOverloaded(buffer) && targets.size() < buffers.size()) {
+            int newBuffer = -1;
+            for (int i = 0; i < buffers.size(); i++) {
+                if (!targets.contains(i) && (newBuffer == -1 || memoryManager.getBufferedBytes(i) < memoryManager.getBufferedBytes(newBuffer))) {
+                    newBuffer = i;
+                }
+            }
+            targets.add(newBuffer);
+            buffer = newBuffer;
+        }
+
+        memoryManager.updateMemoryUsage(buffer, page.getRetainedSizeInBytes());
+        PageReference pageReference = new PageReference(page, 1, onBufferPageReleased[buffer]);
+        if (buffer == partition) {
+            buffers.get(buffer).accept(pageReference);
+        }
+        else {
+            rebalancedBuffers.get().get(buffer).accept(pageReference);
+        }
+    }
+
     private Page extractPartitioningChannels(Page inputPage)
     {
         // hash value is pre-computed, only needs to extract that channel
@@ -189,6 +189,7 @@ public class OptimizedPartitionedOutputOperator
     public void close()
     {
         systemMemoryContext.close();
+        operatorContext.recordCompressionStats(pagePartitioner.getSerde());
     }
 
     /**
@@ -564,6 +565,11 @@ public class OptimizedPartitionedOutputOperator
             }
         }
 
+        public PagesSerde getSerde()
+        {
+            return serde;
+        }
+
         public long getRetainedSizeInBytes()
         {
             // When called by the operator constructor, the blockDecodingAllocator was empty at the moment.
@@ -279,6 +279,7 @@ public class PartitionedOutputOperator
     public void close()
     {
         partitionFunction.zeroMemoryContext();
+        partitionFunction.recordCompressionStats();
     }
 
     private static class PagePartitioner
@@ -354,6 +355,11 @@ public class PartitionedOutputOperator
             systemMemoryContext.setBytes(0);
         }
 
+        public void recordCompressionStats()
+        {
+            operatorContext.recordCompressionStats(serde);
+        }
+
         public ListenableFuture<?> isFull()
         {
             return outputBuffer.isFull();
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator.window;
 
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.function.Signature;
 import com.facebook.presto.spi.function.WindowFunction;
 
@@ -47,6 +48,19 @@ public abstract class AbstractWindowFunctionSupplier
 
     @Override
     public final WindowFunction createWindowFunction(List<Integer> argumentChannels, boolean ignoreNulls)
+    {
+        checkArgumentChannels(argumentChannels);
+        return newWindowFunction(argumentChannels, ignoreNulls);
+    }
+
+    @Override
+    public final WindowFunction createWindowFunction(List<Integer> argumentChannels, boolean ignoreNulls, LocalMemoryContext memoryContext)
+    {
+        checkArgumentChannels(argumentChannels);
+        return newWindowFunction(argumentChannels, ignoreNulls, memoryContext);
+    }
+
+    private void checkArgumentChannels(List<Integer> argumentChannels)
     {
         requireNonNull(argumentChannels, "inputs is null");
         checkArgument(argumentChannels.size() == signature.getArgumentTypes().size(),
@@ -54,8 +68,6 @@ public abstract class AbstractWindowFunctionSupplier
                 signature.getArgumentTypes().size(),
                 signature.getNameSuffix(),
                 argumentChannels.size());
-
-        return newWindowFunction(argumentChannels, ignoreNulls);
     }
 
     /**
@@ -63,4 +75,13 @@ public abstract class AbstractWindowFunctionSupplier
      * inputs have already validated.
      */
     protected abstract WindowFunction newWindowFunction(List<Integer> inputs, boolean ignoreNulls);
+
+    /**
+     * Create window function instance that reports the memory it retains to the
+     * supplied memory context.  The inputs have already validated.
+     */
+    protected WindowFunction newWindowFunction(List<Integer> inputs, boolean ignoreNulls, LocalMemoryContext memoryContext)
+    {
+        return newWindowFunction(inputs, ignoreNulls);
+    }
 }
@@ -13,7 +13,9 @@
  */
 package com.facebook.presto.operator.window;
 
+import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.UpdateMemory;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.BuiltInAggregationFunctionImplementation;
@@ -22,38 +24,67 @@ import com.facebook.presto.spi.function.Signature;
 import com.facebook.presto.spi.function.WindowFunction;
 import com.facebook.presto.spi.function.WindowIndex;
 import com.facebook.presto.spi.function.aggregation.Accumulator;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.operator.aggregation.GenericAccumulatorFactory.generateAccumulatorFactory;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
 
 public class AggregateWindowFunction
         implements WindowFunction
 {
+    // number of rows aggregated into a leaf of the segment tree
+    private static final int SEGMENT_TREE_LEAF_SIZE = 32;
+    // partitions whose segment tree would retain more than this are evaluated without it
+    private static final long MAX_SEGMENT_TREE_SIZE_IN_BYTES = new DataSize(16, MEGABYTE).toBytes();
+
     private final List<Integer> argumentChannels;
     private final AccumulatorFactory accumulatorFactory;
+    private final boolean segmentTreeEnabled;
+    private final long maxSegmentTreeSizeInBytes;
+    private final LocalMemoryContext memoryContext;
 
     private WindowIndex windowIndex;
     private Accumulator accumulator;
     private int currentStart;
     private int currentEnd;
 
-    private AggregateWindowFunction(AggregationFunctionImplementation function, List<Integer> argumentChannels)
+    // intermediate states of the segment tree over the current partition, level 0 holds the leaves
+    private List<Block> segmentTree;
+    private boolean segmentTreeTooLarge;
+
+    private AggregateWindowFunction(
+            AggregationFunctionImplementation function,
+            List<Integer> argumentChannels,
+            boolean segmentTreeEnabled,
+            long maxSegmentTreeSizeInBytes,
+            LocalMemoryContext memoryContext)
     {
         checkState(function instanceof BuiltInAggregationFunctionImplementation);
         BuiltInAggregationFunctionImplementation builtinFunction = (BuiltInAggregationFunctionImplementation) function;
         this.argumentChannels = ImmutableList.copyOf(argumentChannels);
         this.accumulatorFactory = generateAccumulatorFactory(builtinFunction, createArgs(builtinFunction), Optional.empty());
+        // combining intermediate states is only possible for decomposable functions
+        this.segmentTreeEnabled = segmentTreeEnabled && builtinFunction.isDecomposable();
+        this.maxSegmentTreeSizeInBytes = maxSegmentTreeSizeInBytes;
+        this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
     }
 
     @Override
     public void reset(WindowIndex windowIndex)
     {
         this.windowIndex = windowIndex;
+        this.segmentTree = null;
+        this.segmentTreeTooLarge = false;
+        memoryContext.setBytes(0);
         resetAccumulator();
     }
 
@@ -69,6 +100,13 @@ public class AggregateWindowFunction
             accumulate(currentEnd + 1, frameEnd);
             currentEnd = frameEnd;
         }
+        else if (segmentTreeEnabled && frameEnd - frameStart + 1 >= 2 * SEGMENT_TREE_LEAF_SIZE && hasSegmentTree()) {
+            // sliding frame, combine the precomputed states covering the frame instead of accumulating every row
+            resetAccumulator();
+            accumulateWithSegmentTree(frameStart, frameEnd);
+            currentStart = frameStart;
+            currentEnd = frameEnd;
+        }
         else {
             // different frame
             resetAccumulator();
@@ -85,6 +123,93 @@ public class AggregateWindowFunction
         accumulator.addInput(windowIndex, argumentChannels, start, end);
     }
 
+    private boolean hasSegmentTree()
+    {
+        if (segmentTree == null && !segmentTreeTooLarge) {
+            segmentTree = buildSegmentTree();
+            segmentTreeTooLarge = segmentTree == null;
+        }
+        return segmentTree != null;
+    }
+
+    private void accumulateWithSegmentTree(int start, int end)
+    {
+        // leaves fully covered by the frame, the rows at the edges are accumulated directly
+        int leafStart = (start + SEGMENT_TREE_LEAF_SIZE - 1) / SEGMENT_TREE_LEAF_SIZE;
+        int leafEnd = (end + 1) / SEGMENT_TREE_LEAF_SIZE;
+        if (start < leafStart * SEGMENT_TREE_LEAF_SIZE) {
+            accumulate(start, leafStart * SEGMENT_TREE_LEAF_SIZE - 1);
+        }
+
+        // the states are combined in row order, as some functions are order sensitive
+        List<Block> rightStates = new ArrayList<>();
+        int level = 0;
+        int low = leafStart;
+        int high = leafEnd;
+        while (low < high) {
+            if ((low & 1) == 1) {
+                accumulator.addIntermediate(segmentTree.get(level).getRegion(low, 1));
+                low++;
+            }
+            if ((high & 1) == 1) {
+                high--;
+                rightStates.add(segmentTree.get(level).getRegion(high, 1));
+            }
+            low >>= 1;
+            high >>= 1;
+            level++;
+        }
+        for (int i = rightStates.size() - 1; i >= 0; i--) {
+            accumulator.addIntermediate(rightStates.get(i));
+        }
+
+        if (leafEnd * SEGMENT_TREE_LEAF_SIZE <= end) {
+            accumulate(leafEnd * SEGMENT_TREE_LEAF_SIZE, end);
+        }
+    }
+
+    /**
+     * Builds the segment tree of the current partition and charges its retained size to the memory context.
+     * Returns null when the tree grows larger than the size bound.
+     */
+    private List<Block> buildSegmentTree()
+    {
+        List<Block> levels = new ArrayList<>();
+        long retainedSizeInBytes = 0;
+        int leafCount = windowIndex.size() / SEGMENT_TREE_LEAF_SIZE;
+        BlockBuilder leaves = accumulator.getIntermediateType().createBlockBuilder(null, leafCount);
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            Accumulator leafAccumulator = accumulatorFactory.createAccumulator(UpdateMemory.NOOP);
+            leafAccumulator.addInput(windowIndex, argumentChannels, leaf * SEGMENT_TREE_LEAF_SIZE, (leaf + 1) * SEGMENT_TREE_LEAF_SIZE - 1);
+            leafAccumulator.evaluateIntermediate(leaves);
+            if (leaves.getRetainedSizeInBytes() > maxSegmentTreeSizeInBytes) {
+                return null;
+            }
+        }
+        levels.add(leaves.build());
+        retainedSizeInBytes += levels.get(0).getRetainedSizeInBytes();
+        memoryContext.setBytes(retainedSizeInBytes);
+
+        while (levels.get(levels.size() - 1).getPositionCount() > 1) {
+            Block children = levels.get(levels.size() - 1);
+            int nodeCount = (children.getPositionCount() + 1) / 2;
+            BlockBuilder nodes = accumulator.getIntermediateType().createBlockBuilder(null, nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                Accumulator nodeAccumulator = accumulatorFactory.createIntermediateAccumulator();
+                nodeAccumulator.addIntermediate(children.getRegion(2 * node, Math.min(2, children.getPositionCount() - 2 * node)));
+                nodeAccumulator.evaluateIntermediate(nodes);
+                if (retainedSizeInBytes + nodes.getRetainedSizeInBytes() > maxSegmentTreeSizeInBytes) {
+                    memoryContext.setBytes(0);
+                    return null;
+                }
+            }
+            levels.add(nodes.build());
+            retainedSizeInBytes += levels.get(levels.size() - 1).getRetainedSizeInBytes();
+            memoryContext.setBytes(retainedSizeInBytes);
+        }
+        return levels;
+    }
+
     private void resetAccumulator()
     {
         if (currentStart >= 0) {
@@ -98,6 +223,12 @@ public class AggregateWindowFunction
     }
 
     public static WindowFunctionSupplier supplier(Signature signature, final AggregationFunctionImplementation function)
+    {
+        return supplier(signature, function, false, MAX_SEGMENT_TREE_SIZE_IN_BYTES);
+    }
+
+    @VisibleForTesting
+    static WindowFunctionSupplier supplier(Signature signature, final AggregationFunctionImplementation function, boolean segmentTreeEnabled, long maxSegmentTreeSizeInBytes)
     {
         requireNonNull(function, "function is null");
         return new AbstractWindowFunctionSupplier(signature, null)
@@ -105,7 +236,20 @@ public class AggregateWindowFunction
             @Override
             protected WindowFunction newWindowFunction(List<Integer> inputs, boolean ignoreNulls)
             {
-                return new AggregateWindowFunction(function, inputs);
+                // the memory of the function is not charged to any operator
+                return newWindowFunction(inputs, ignoreNulls, newSimpleAggregatedMemoryContext().newLocalMemoryContext(AggregateWindowFunction.class.getSimpleName()));
+            }
+
+            @Override
+            protected WindowFunction newWindowFunction(List<Integer> inputs, boolean ignoreNulls, LocalMemoryContext memoryContext)
+            {
+                return new AggregateWindowFunction(function, inputs, segmentTreeEnabled, maxSegmentTreeSizeInBytes, memoryContext);
+            }
+
+            @Override
+            public WindowFunctionSupplier withSegmentTreeAggregation()
+            {
+                return supplier(signature, function, true, maxSegmentTreeSizeInBytes);
             }
         };
     }
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator.window;
 
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.function.Signature;
 import com.facebook.presto.spi.function.WindowFunction;
 
@@ -25,4 +26,23 @@ public interface WindowFunctionSupplier
     String getDescription();
 
     WindowFunction createWindowFunction(List<Integer> argumentChannels, boolean ignoreNulls);
+
+    /**
+     * Creates a function that reports the memory it retains for the current partition
+     * to the given memory context.
+     */
+    default WindowFunction createWindowFunction(List<Integer> argumentChannels, boolean ignoreNulls, LocalMemoryContext memoryContext)
+    {
+        return createWindowFunction(argumentChannels, ignoreNulls);
+    }
+
+    /**
+     * Returns a supplier of functions that evaluate sliding frames by combining precomputed
+     * partial results instead of aggregating every row of the frame, or this supplier if the
+     * function does not support it.
+     */
+    default WindowFunctionSupplier withSegmentTreeAggregation()
+    {
+        return this;
+    }
 }
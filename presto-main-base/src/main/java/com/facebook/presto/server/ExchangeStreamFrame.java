@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+
+import java.util.Optional;
+
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPage;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPage;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The response to one read of an {@link ExchangeStreamRequest}. A response contains a frame
+ * for every read that completed while the request was processed, in no particular order.
+ * <p>
+ * Encoding: the index of the read, a marker byte, and either the results (task instance id,
+ * token, next token, buffer complete flag, buffered bytes, and the serialized pages) or an error message.
+ */
+public class ExchangeStreamFrame
+{
+    private static final byte RESULTS = 0;
+    private static final byte ERROR = 1;
+
+    private final int readIndex;
+    private final Optional<BufferResult> result;
+    private final Optional<String> error;
+
+    private ExchangeStreamFrame(int readIndex, Optional<BufferResult> result, Optional<String> error)
+    {
+        this.readIndex = readIndex;
+        this.result = requireNonNull(result, "result is null");
+        this.error = requireNonNull(error, "error is null");
+    }
+
+    public int getReadIndex()
+    {
+        return readIndex;
+    }
+
+    public Optional<BufferResult> getResult()
+    {
+        return result;
+    }
+
+    public Optional<String> getError()
+    {
+        return error;
+    }
+
+    public static void writeResultFrame(SliceOutput output, int readIndex, BufferResult result)
+    {
+        output.writeInt(readIndex);
+        output.writeByte(RESULTS);
+        writeString(output, result.getTaskInstanceId());
+        output.writeLong(result.getToken());
+        output.writeLong(result.getNextToken());
+        output.writeBoolean(result.isBufferComplete());
+        output.writeLong(result.getBufferedBytes());
+        output.writeInt(result.getSerializedPages().size());
+        for (SerializedPage page : result.getSerializedPages()) {
+            writeSerializedPage(output, page);
+        }
+    }
+
+    public static void writeErrorFrame(SliceOutput output, int readIndex, String message)
+    {
+        output.writeInt(readIndex);
+        output.writeByte(ERROR);
+        writeString(output, message);
+    }
+
+    public static ExchangeStreamFrame readFrame(SliceInput input)
+    {
+        int readIndex = input.readInt();
+        byte marker = input.readByte();
+        if (marker == ERROR) {
+            return new ExchangeStreamFrame(readIndex, Optional.empty(), Optional.of(readString(input)));
+        }
+        if (marker != RESULTS) {
+            throw new IllegalArgumentException("Invalid exchange stream frame marker: " + marker);
+        }
+        String taskInstanceId = readString(input);
+        long token = input.readLong();
+        long nextToken = input.readLong();
+        boolean bufferComplete = input.readBoolean();
+        long bufferedBytes = input.readLong();
+        int pageCount = input.readInt();
+        ImmutableList.Builder<SerializedPage> pages = ImmutableList.builderWithExpectedSize(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            pages.add(readSerializedPage(input));
+        }
+        BufferResult result = new BufferResult(taskInstanceId, token, nextToken, bufferComplete, bufferedBytes, pages.build());
+        return new ExchangeStreamFrame(readIndex, Optional.of(result), Optional.empty());
+    }
+
+    private static void writeString(SliceOutput output, String value)
+    {
+        byte[] bytes = value.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.writeBytes(bytes);
+    }
+
+    private static String readString(SliceInput input)
+    {
+        return input.readSlice(input.readInt()).toStringUtf8();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("readIndex", readIndex)
+                .add("result", result.orElse(null))
+                .add("error", error.orElse(null))
+                .omitNullValues()
+                .toString();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A poll of the exchange stream between two nodes. It carries the reads and the acknowledgements
+ * of all the output buffers that a node reads from another node.
+ */
+public class ExchangeStreamRequest
+{
+    private final List<Read> reads;
+    private final List<Acknowledgement> acknowledgements;
+    private final long maxResponseSizeInBytes;
+
+    @JsonCreator
+    public ExchangeStreamRequest(
+            @JsonProperty("reads") List<Read> reads,
+            @JsonProperty("acknowledgements") List<Acknowledgement> acknowledgements,
+            @JsonProperty("maxResponseSizeInBytes") long maxResponseSizeInBytes)
+    {
+        this.reads = ImmutableList.copyOf(requireNonNull(reads, "reads is null"));
+        this.acknowledgements = ImmutableList.copyOf(requireNonNull(acknowledgements, "acknowledgements is null"));
+        checkArgument(maxResponseSizeInBytes > 0, "maxResponseSizeInBytes must be positive");
+        this.maxResponseSizeInBytes = maxResponseSizeInBytes;
+    }
+
+    @JsonProperty
+    public List<Read> getReads()
+    {
+        return reads;
+    }
+
+    @JsonProperty
+    public List<Acknowledgement> getAcknowledgements()
+    {
+        return acknowledgements;
+    }
+
+    @JsonProperty
+    public long getMaxResponseSizeInBytes()
+    {
+        return maxResponseSizeInBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("reads", reads.size())
+                .add("acknowledgements", acknowledgements.size())
+                .add("maxResponseSizeInBytes", maxResponseSizeInBytes)
+                .toString();
+    }
+
+    public static class Read
+    {
+        private final TaskId taskId;
+        private final OutputBufferId bufferId;
+        private final long token;
+        private final long maxSizeInBytes;
+
+        @JsonCreator
+        public Read(
+                @JsonProperty("taskId") TaskId taskId,
+                @JsonProperty("bufferId") OutputBufferId bufferId,
+                @JsonProperty("token") long token,
+                @JsonProperty("maxSizeInBytes") long maxSizeInBytes)
+        {
+            this.taskId = requireNonNull(taskId, "taskId is null");
+            this.bufferId = requireNonNull(bufferId, "bufferId is null");
+            this.token = token;
+            this.maxSizeInBytes = maxSizeInBytes;
+        }
+
+        @JsonProperty
+        public TaskId getTaskId()
+        {
+            return taskId;
+        }
+
+        @JsonProperty
+        public OutputBufferId getBufferId()
+        {
+            return bufferId;
+        }
+
+        @JsonProperty
+        public long getToken()
+        {
+            return token;
+        }
+
+        @JsonProperty
+        public long getMaxSizeInBytes()
+        {
+            return maxSizeInBytes;
+        }
+    }
+
+    public static class Acknowledgement
+    {
+        private final TaskId taskId;
+        private final OutputBufferId bufferId;
+        private final long token;
+
+        @JsonCreator
+        public Acknowledgement(
+                @JsonProperty("taskId") TaskId taskId,
+                @JsonProperty("bufferId") OutputBufferId bufferId,
+                @JsonProperty("token") long token)
+        {
+            this.taskId = requireNonNull(taskId, "taskId is null");
+            this.bufferId = requireNonNull(bufferId, "bufferId is null");
+            this.token = token;
+        }
+
+        @JsonProperty
+        public TaskId getTaskId()
+        {
+            return taskId;
+        }
+
+        @JsonProperty
+        public OutputBufferId getBufferId()
+        {
+            return bufferId;
+        }
+
+        @JsonProperty
+        public long getToken()
+        {
+            return token;
+        }
+    }
+}
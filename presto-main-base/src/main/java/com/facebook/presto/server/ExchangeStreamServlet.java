@@ -0,0 +1,319 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.airlift.concurrent.BoundedExecutor;
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.airlift.log.Logger;
+import com.facebook.airlift.stats.DistributionStat;
+import com.facebook.airlift.stats.TimeStat;
+import com.facebook.presto.execution.TaskManager;
+import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.operator.ExchangeClientConfig;
+import com.facebook.presto.server.ExchangeStreamRequest.Acknowledgement;
+import com.facebook.presto.server.ExchangeStreamRequest.Read;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.security.RolesAllowed;
+import javax.inject.Inject;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.concurrent.MoreFutures.addTimeout;
+import static com.facebook.airlift.concurrent.MoreFutures.getDone;
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_EXCHANGE_FRAMES;
+import static com.facebook.presto.server.ExchangeStreamFrame.writeErrorFrame;
+import static com.facebook.presto.server.ExchangeStreamFrame.writeResultFrame;
+import static com.facebook.presto.server.security.RoleType.INTERNAL;
+import static com.facebook.presto.util.TaskUtils.DEFAULT_MAX_WAIT_TIME;
+import static com.facebook.presto.util.TaskUtils.randomizeWaitTime;
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_NO_CONTENT;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
+
+/**
+ * Serves the exchange stream between two nodes, see {@link ExchangeStreamRequest}.
+ * <p>
+ * The reads of a request are long polls on the output buffers, like the per buffer result requests,
+ * but the response is sent as soon as any of the buffers has data, and it contains the results of
+ * all the buffers that have data by then. The buffers that do not have data are read again in the next
+ * request, which replaces their pending reads. If none of the buffers has data within the wait time,
+ * every read gets an empty result.
+ * <p>
+ * Pages are only released from the output buffers once they are acknowledged by a later read or
+ * an acknowledgement, so the sender keeps the pages the receiver has no room for in its memory budget
+ * and the producers are blocked by the output buffer memory manager until the receiver asks for more.
+ */
+@RolesAllowed(INTERNAL)
+public class ExchangeStreamServlet
+        extends HttpServlet
+{
+    private static final Logger log = Logger.get(ExchangeStreamServlet.class);
+
+    private final TaskManager taskManager;
+    private final JsonCodec<ExchangeStreamRequest> requestCodec;
+    private final Duration pageTransportTimeout;
+    private final Executor responseExecutor;
+    private final ScheduledExecutorService timeoutExecutor;
+
+    private final TimeStat requestTime = new TimeStat();
+    private final DistributionStat readsPerRequest = new DistributionStat();
+    private final DistributionStat framesPerResponse = new DistributionStat();
+
+    @Inject
+    public ExchangeStreamServlet(
+            TaskManager taskManager,
+            JsonCodec<ExchangeStreamRequest> requestCodec,
+            ExchangeClientConfig exchangeClientConfig,
+            @ForAsyncRpc BoundedExecutor responseExecutor,
+            @ForAsyncRpc ScheduledExecutorService timeoutExecutor)
+    {
+        this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.requestCodec = requireNonNull(requestCodec, "requestCodec is null");
+        this.pageTransportTimeout = requireNonNull(exchangeClientConfig.getAsyncPageTransportTimeout(), "asyncPageTransportTimeout is null");
+        this.responseExecutor = requireNonNull(responseExecutor, "responseExecutor is null");
+        this.timeoutExecutor = requireNonNull(timeoutExecutor, "timeoutExecutor is null");
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws IOException
+    {
+        ExchangeStreamRequest streamRequest;
+        try {
+            streamRequest = requestCodec.fromJson(ByteStreams.toByteArray(request.getInputStream()));
+        }
+        catch (IllegalArgumentException e) {
+            response.sendError(SC_BAD_REQUEST, format("Invalid exchange stream request: %s", e.getMessage()));
+            return;
+        }
+
+        // acknowledge first, so that the pages are released before the reads wait for new pages
+        for (Acknowledgement acknowledgement : streamRequest.getAcknowledgements()) {
+            taskManager.acknowledgeTaskResults(acknowledgement.getTaskId(), acknowledgement.getBufferId(), acknowledgement.getToken());
+        }
+
+        List<Read> reads = streamRequest.getReads();
+        if (reads.isEmpty()) {
+            response.setStatus(SC_NO_CONTENT);
+            return;
+        }
+        readsPerRequest.add(reads.size());
+
+        long start = System.nanoTime();
+        AsyncContext asyncContext = request.startAsync(request, response);
+
+        Duration waitTime = randomizeWaitTime(DEFAULT_MAX_WAIT_TIME);
+        asyncContext.setTimeout(waitTime.toMillis() + pageTransportTimeout.toMillis());
+        asyncContext.addListener(new AsyncListener()
+        {
+            public void onComplete(AsyncEvent event)
+            {
+                requestTime.add(Duration.nanosSince(start));
+            }
+
+            public void onError(AsyncEvent event)
+                    throws IOException
+            {
+                String errorMessage = format("Server error to process exchange stream request: %s", event.getThrowable().getMessage());
+                log.error(event.getThrowable(), errorMessage);
+                response.sendError(SC_INTERNAL_SERVER_ERROR, errorMessage);
+            }
+
+            public void onStartAsync(AsyncEvent event)
+            {
+            }
+
+            public void onTimeout(AsyncEvent event)
+                    throws IOException
+            {
+                String errorMessage = "Server timeout to process exchange stream request";
+                log.error(event.getThrowable(), errorMessage);
+                response.sendError(SC_INTERNAL_SERVER_ERROR, errorMessage);
+            }
+        });
+
+        List<ListenableFuture<BufferResult>> results = new ArrayList<>(reads.size());
+        SettableFuture<Boolean> anyResult = SettableFuture.create();
+        for (Read read : reads) {
+            ListenableFuture<BufferResult> result = taskManager.getTaskResults(read.getTaskId(), read.getBufferId(), read.getToken(), read.getMaxSizeInBytes());
+            result.addListener(() -> anyResult.set(true), directExecutor());
+            results.add(result);
+        }
+
+        ListenableFuture<Boolean> anyResultOrTimeout = addTimeout(anyResult, () -> false, waitTime, timeoutExecutor);
+        addCallback(anyResultOrTimeout, new FutureCallback<Boolean>()
+                {
+                    @Override
+                    public void onSuccess(Boolean hasResult)
+                    {
+                        Slice frames = writeFrames(reads, results, hasResult, streamRequest.getMaxResponseSizeInBytes());
+                        response.setHeader(CONTENT_TYPE, PRESTO_EXCHANGE_FRAMES);
+                        response.setHeader(CONTENT_LENGTH, String.valueOf(frames.length()));
+                        try {
+                            ServletOutputStream output = response.getOutputStream();
+                            output.setWriteListener(new SliceWriteListener(frames, asyncContext, output));
+                        }
+                        catch (IOException e) {
+                            log.error(e, "Failed to send exchange stream response");
+                            asyncContext.complete();
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable thrown)
+                    {
+                        String errorMessage = format("Error processing exchange stream request: %s", thrown.getMessage());
+                        log.error(thrown, errorMessage);
+                        try {
+                            response.sendError(SC_INTERNAL_SERVER_ERROR, errorMessage);
+                        }
+                        catch (IOException e) {
+                            log.error(e, "Failed to send response with error code: %s", e.getMessage());
+                        }
+                        asyncContext.complete();
+                    }
+                },
+                responseExecutor);
+    }
+
+    private Slice writeFrames(List<Read> reads, List<ListenableFuture<BufferResult>> results, boolean hasResult, long maxResponseSizeInBytes)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(1024);
+        long remainingBytes = maxResponseSizeInBytes;
+        int frames = 0;
+        for (int i = 0; i < reads.size(); i++) {
+            Read read = reads.get(i);
+            ListenableFuture<BufferResult> result = results.get(i);
+            if (!result.isDone()) {
+                if (!hasResult) {
+                    // none of the buffers has data within the wait time, so the client is told to poll again
+                    writeResultFrame(output, i, BufferResult.emptyResults(taskManager.getTaskInstanceId(read.getTaskId()), read.getToken(), false));
+                    frames++;
+                }
+                continue;
+            }
+
+            BufferResult bufferResult;
+            try {
+                bufferResult = getDone(result);
+            }
+            catch (RuntimeException e) {
+                writeErrorFrame(output, i, format("Error getting task result from TaskManager for %s/%s: %s", read.getTaskId(), read.getBufferId(), e.getMessage()));
+                frames++;
+                continue;
+            }
+
+            long resultSize = bufferResult.getSerializedPages().stream()
+                    .mapToLong(SerializedPage::getSizeInBytes)
+                    .sum();
+            // skipped results are not acknowledged, so they are returned again on the next request;
+            // the first result is always sent, to make progress with pages larger than the limit
+            if (frames > 0 && resultSize > remainingBytes) {
+                continue;
+            }
+            remainingBytes -= resultSize;
+            writeResultFrame(output, i, bufferResult);
+            frames++;
+        }
+        framesPerResponse.add(frames);
+        return output.slice();
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getRequestTime()
+    {
+        return requestTime;
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getReadsPerRequest()
+    {
+        return readsPerRequest;
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getFramesPerResponse()
+    {
+        return framesPerResponse;
+    }
+
+    private static class SliceWriteListener
+            implements WriteListener
+    {
+        private final Slice slice;
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream output;
+        private boolean written;
+
+        public SliceWriteListener(Slice slice, AsyncContext asyncContext, ServletOutputStream output)
+        {
+            this.slice = requireNonNull(slice, "slice is null");
+            this.asyncContext = requireNonNull(asyncContext, "asyncContext is null");
+            this.output = requireNonNull(output, "output is null");
+        }
+
+        @Override
+        public void onWritePossible()
+                throws IOException
+        {
+            if (!written) {
+                written = true;
+                output.write((byte[]) slice.getBase(), (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET), slice.length());
+            }
+            // a write that is not flushed yet calls back once the output is ready again
+            if (output.isReady()) {
+                asyncContext.complete();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            log.error(t);
+            asyncContext.complete();
+        }
+    }
+}
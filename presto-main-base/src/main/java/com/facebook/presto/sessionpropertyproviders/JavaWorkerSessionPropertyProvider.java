@@ -43,6 +43,8 @@ public class JavaWorkerSessionPropertyProvider
     public static final String ORDER_BY_AGGREGATION_SPILL_ENABLED = "order_by_aggregation_spill_enabled";
     public static final String WINDOW_SPILL_ENABLED = "window_spill_enabled";
     public static final String ORDER_BY_SPILL_ENABLED = "order_by_spill_enabled";
+    public static final String ROW_NUMBER_SPILL_ENABLED = "row_number_spill_enabled";
+    public static final String MARK_DISTINCT_SPILL_ENABLED = "mark_distinct_spill_enabled";
     public static final String AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT = "aggregation_operator_unspill_memory_limit";
     public static final String TOPN_OPERATOR_UNSPILL_MEMORY_LIMIT = "topn_operator_unspill_memory_limit";
     public static final String TEMP_STORAGE_SPILLER_BUFFER_SIZE = "temp_storage_spiller_buffer_size";
@@ -102,6 +104,16 @@ public class JavaWorkerSessionPropertyProvider
                         "Enable order by spilling if spill_enabled",
                         javaFeaturesConfig.isOrderBySpillEnabled(),
                         nativeExecution),
+                booleanProperty(
+                        ROW_NUMBER_SPILL_ENABLED,
+                        "Enable row number spilling if spill_enabled",
+                        javaFeaturesConfig.isRowNumberSpillEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        MARK_DISTINCT_SPILL_ENABLED,
+                        "Enable mark distinct spilling if spill_enabled",
+                        javaFeaturesConfig.isMarkDistinctSpillEnabled(),
+                        nativeExecution),
                 new PropertyMetadata<>(
                         AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT,
                         "Experimental: How much memory can should be allocated per aggregation operator in unspilling process",
@@ -182,6 +194,16 @@ public class JavaWorkerSessionPropertyProvider
         return session.getSystemProperty(ORDER_BY_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
     }
 
+    public static boolean isRowNumberSpillEnabled(Session session)
+    {
+        return session.getSystemProperty(ROW_NUMBER_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
+    }
+
+    public static boolean isMarkDistinctSpillEnabled(Session session)
+    {
+        return session.getSystemProperty(MARK_DISTINCT_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
+    }
+
     public static DataSize getAggregationOperatorUnspillMemoryLimit(Session session)
     {
         DataSize memoryLimitForMerge = session.getSystemProperty(AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT, DataSize.class);
@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
@@ -49,6 +51,20 @@ final class FileHolder
         return Files.newOutputStream(filePath, options);
     }
 
+    public synchronized AsynchronousFileChannel newAsynchronousFileChannel(OpenOption... options)
+            throws IOException
+    {
+        checkState(!deleted, "File already deleted");
+        return AsynchronousFileChannel.open(filePath, options);
+    }
+
+    public synchronized FileChannel newFileChannel(OpenOption... options)
+            throws IOException
+    {
+        checkState(!deleted, "File already deleted");
+        return FileChannel.open(filePath, options);
+    }
+
     public synchronized InputStream newInputStream(OpenOption... options)
             throws IOException
     {
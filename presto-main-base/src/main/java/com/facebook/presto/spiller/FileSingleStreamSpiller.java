@@ -19,6 +19,7 @@ import com.facebook.presto.operator.SpillContext;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.page.PagesSerde;
 import com.facebook.presto.spi.page.PagesSerdeUtil;
+import com.facebook.presto.spi.page.SerializedPage;
 import com.facebook.presto.spi.spiller.SpillCipher;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
@@ -27,32 +28,50 @@ import com.google.common.io.Closer;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.InputStreamSliceInput;
 import io.airlift.slice.OutputStreamSliceOutput;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static com.facebook.presto.common.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
 import static com.facebook.presto.execution.buffer.PageSplitterUtil.splitPage;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_SPILL_FAILURE;
+import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPage;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writeSerializedPage;
 import static com.facebook.presto.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_PREFIX;
 import static com.facebook.presto.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_SUFFIX;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static com.google.common.collect.Iterators.transform;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.Objects.requireNonNull;
 
 @NotThreadSafe
@@ -61,6 +80,12 @@ public class FileSingleStreamSpiller
 {
     @VisibleForTesting
     static final int BUFFER_SIZE = 4 * 1024;
+    @VisibleForTesting
+    static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAPPED_REGION_SIZE = 256 * 1024 * 1024;
+    // position count, codec markers, uncompressed size, size and checksum
+    private static final int SERIALIZED_PAGE_HEADER_SIZE = Integer.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int SERIALIZED_PAGE_SIZE_OFFSET = Integer.BYTES + Byte.BYTES + Integer.BYTES;
 
     private final FileHolder targetFile;
     private final Closer closer = Closer.create();
@@ -69,12 +94,15 @@ public class FileSingleStreamSpiller
     private final SpillContext localSpillContext;
     private final LocalMemoryContext memoryContext;
     private final Optional<SpillCipher> spillCipher;
+    private final boolean asyncWriteEnabled;
+    private final boolean memoryMappedReadEnabled;
 
     private final ListeningExecutorService executor;
 
     private boolean writable = true;
     private boolean committed;
     private volatile long spilledPagesInMemorySize;
+    private volatile long peakWriteBufferSize;
     private ListenableFuture<?> spillInProgress = Futures.immediateFuture(null);
 
     public FileSingleStreamSpiller(
@@ -85,6 +113,20 @@ public class FileSingleStreamSpiller
             SpillContext spillContext,
             LocalMemoryContext memoryContext,
             Optional<SpillCipher> spillCipher)
+    {
+        this(serde, executor, spillPath, spillerStats, spillContext, memoryContext, spillCipher, false, false);
+    }
+
+    public FileSingleStreamSpiller(
+            PagesSerde serde,
+            ListeningExecutorService executor,
+            Path spillPath,
+            SpillerStats spillerStats,
+            SpillContext spillContext,
+            LocalMemoryContext memoryContext,
+            Optional<SpillCipher> spillCipher,
+            boolean asyncWriteEnabled,
+            boolean memoryMappedReadEnabled)
     {
         this.serde = requireNonNull(serde, "serde is null");
         this.executor = requireNonNull(executor, "executor is null");
@@ -94,6 +136,8 @@ public class FileSingleStreamSpiller
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
         checkState(!spillCipher.isPresent() || !spillCipher.get().isDestroyed(), "spillCipher is already destroyed");
         this.spillCipher.ifPresent(cipher -> closer.register(cipher::destroy));
+        this.asyncWriteEnabled = asyncWriteEnabled;
+        this.memoryMappedReadEnabled = memoryMappedReadEnabled;
         // HACK!
         // The writePages() method is called in a separate thread pool and it's possible that
         // these spiller thread can run concurrently with the close() method.
@@ -104,7 +148,8 @@ public class FileSingleStreamSpiller
         // This means we start accounting for the memory before the spiller thread allocates it, and we release the memory reservation
         // before/after the spiller thread allocates that memory -- -- whether before or after depends on whether writePages() is in the
         // middle of execution when close() is called (note that this applies to both readPages() and writePages() methods).
-        this.memoryContext.setBytes(BUFFER_SIZE);
+        // With asynchronous writes the two write buffers are accounted for in the same way.
+        this.memoryContext.setBytes(asyncWriteEnabled ? BUFFER_SIZE + 2 * WRITE_BUFFER_SIZE : BUFFER_SIZE);
         try {
             this.targetFile = closer.register(new FileHolder(Files.createTempFile(spillPath, SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX)));
         }
@@ -118,7 +163,12 @@ public class FileSingleStreamSpiller
     {
         requireNonNull(pageIterator, "pageIterator is null");
         checkNoSpillInProgress();
-        spillInProgress = executor.submit(() -> writePages(pageIterator));
+        if (asyncWriteEnabled) {
+            spillInProgress = executor.submit(() -> writePagesDoubleBuffered(pageIterator));
+        }
+        else {
+            spillInProgress = executor.submit(() -> writePages(pageIterator));
+        }
         return spillInProgress;
     }
 
@@ -128,6 +178,12 @@ public class FileSingleStreamSpiller
         return spilledPagesInMemorySize;
     }
 
+    @VisibleForTesting
+    long getPeakWriteBufferSize()
+    {
+        return peakWriteBufferSize;
+    }
+
     @Override
     public Iterator<Page> getSpilledPages()
     {
@@ -159,9 +215,7 @@ public class FileSingleStreamSpiller
                 splitPage(page, DEFAULT_MAX_PAGE_SIZE_IN_BYTES).stream()
                         .map(serde::serialize)
                         .forEach(serializedPage -> {
-                            long pageSize = serializedPage.getSizeInBytes();
-                            localSpillContext.updateBytes(pageSize);
-                            spillerStats.addToTotalSpilledBytes(pageSize);
+                            recordSpilledPage(serializedPage);
                             writeSerializedPage(output, serializedPage);
                         });
             }
@@ -171,6 +225,69 @@ public class FileSingleStreamSpiller
         }
     }
 
+    /**
+     * Serializes the pages into one of two buffers while the other one is written to the spill file
+     * asynchronously, so that serialization and compression overlap with the disk writes. The time spent
+     * waiting for a previous write to finish is reported as write stall time.
+     */
+    private void writePagesDoubleBuffered(Iterator<Page> pageIterator)
+    {
+        checkState(writable, "Spilling no longer allowed. The spiller has been made non-writable on first read for subsequent reads to be consistent");
+        checkState(!committed, "Spilling no longer allowed. Spill file is already committed");
+        try (AsynchronousFileChannel channel = targetFile.newAsynchronousFileChannel(WRITE)) {
+            DynamicSliceOutput[] buffers = {new DynamicSliceOutput(WRITE_BUFFER_SIZE), new DynamicSliceOutput(WRITE_BUFFER_SIZE)};
+            int current = 0;
+            long filePosition = channel.size();
+            PendingWrite pendingWrite = null;
+            while (pageIterator.hasNext()) {
+                Page page = pageIterator.next();
+                spilledPagesInMemorySize += page.getSizeInBytes();
+                // page serialization requires  page.getSizeInBytes() + Integer.BYTES to fit in an integer
+                for (Page splitPage : splitPage(page, DEFAULT_MAX_PAGE_SIZE_IN_BYTES)) {
+                    SerializedPage serializedPage = serde.serialize(splitPage);
+                    recordSpilledPage(serializedPage);
+                    writeSerializedPage(buffers[current], serializedPage);
+                    peakWriteBufferSize = max(peakWriteBufferSize, buffers[current].size());
+                    // check after every split page, so that a page larger than the buffer does not grow it past one split page
+                    if (buffers[current].size() >= WRITE_BUFFER_SIZE) {
+                        // the other buffer can only be reused once its write is done
+                        awaitWrite(pendingWrite);
+                        pendingWrite = new PendingWrite(channel, buffers[current].slice().toByteBuffer(), filePosition);
+                        filePosition += buffers[current].size();
+                        current = 1 - current;
+                        buffers[current].reset();
+                    }
+                }
+            }
+            awaitWrite(pendingWrite);
+            if (buffers[current].size() > 0) {
+                awaitWrite(new PendingWrite(channel, buffers[current].slice().toByteBuffer(), filePosition));
+            }
+        }
+        catch (UncheckedIOException | IOException e) {
+            throw new PrestoException(GENERIC_SPILL_FAILURE, format("Failed to spill pages: %s", e.getMessage()), e);
+        }
+    }
+
+    private void awaitWrite(@Nullable PendingWrite pendingWrite)
+            throws IOException
+    {
+        if (pendingWrite == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        pendingWrite.await();
+        spillerStats.addToTotalSpillWriteStallTimeNanos(System.nanoTime() - start);
+    }
+
+    private void recordSpilledPage(SerializedPage serializedPage)
+    {
+        long pageSize = serializedPage.getSizeInBytes();
+        localSpillContext.updateBytes(pageSize);
+        spillerStats.addToTotalSpilledBytes(pageSize);
+        spillerStats.addToTotalUncompressedSpilledBytes(serializedPage.getUncompressedSizeInBytes());
+    }
+
     private Iterator<Page> readPages()
     {
         checkState(writable, "Repeated reads are disallowed to prevent potential resource leaks");
@@ -182,6 +299,12 @@ public class FileSingleStreamSpiller
             }
 
             checkState(committed, "Cannot read pages since spill file is not committed");
+            if (memoryMappedReadEnabled) {
+                FileChannel channel = closer.register(targetFile.newFileChannel(READ));
+                Iterator<Page> pages = new MemoryMappedPageReader(serde, channel);
+                spillerStats.addToTotalSpilledBytesRead(getSpilledPagesInMemorySize());
+                return closeWhenExhausted(pages, channel);
+            }
             InputStream input = closer.register(targetFile.newInputStream());
             Iterator<Page> deserializedPages = PagesSerdeUtil.readPages(serde, new InputStreamSliceInput(input, BUFFER_SIZE));
             Iterator<Page> compactPages = transform(deserializedPages, Page::compact);
@@ -211,6 +334,106 @@ public class FileSingleStreamSpiller
         checkState(spillInProgress.isDone(), "spill in progress");
     }
 
+    /**
+     * Reads the serialized pages directly from read only mappings of the spill file, so the page data is not
+     * copied through a heap buffer before it is deserialized. The file is mapped in regions of up to
+     * {@link #MAPPED_REGION_SIZE} bytes, and a region is remapped when it does not contain the next page.
+     * The pages reference the mapped data and may outlive the spiller, so the mappings are not unmapped
+     * explicitly. They are released when the last page referencing them is garbage collected.
+     */
+    private static class MemoryMappedPageReader
+            extends AbstractIterator<Page>
+    {
+        private final PagesSerde serde;
+        private final FileChannel channel;
+        private final long fileSize;
+
+        private long regionOffset;
+        private ByteBuffer region = ByteBuffer.allocate(0);
+
+        public MemoryMappedPageReader(PagesSerde serde, FileChannel channel)
+                throws IOException
+        {
+            this.serde = requireNonNull(serde, "serde is null");
+            this.channel = requireNonNull(channel, "channel is null");
+            this.fileSize = channel.size();
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            long pageOffset = regionOffset + region.position();
+            if (pageOffset >= fileSize) {
+                return endOfData();
+            }
+            try {
+                if (region.remaining() < SERIALIZED_PAGE_HEADER_SIZE) {
+                    map(pageOffset, SERIALIZED_PAGE_HEADER_SIZE);
+                }
+                int pageSize = SERIALIZED_PAGE_HEADER_SIZE + region.getInt(region.position() + SERIALIZED_PAGE_SIZE_OFFSET);
+                if (region.remaining() < pageSize) {
+                    map(pageOffset, pageSize);
+                }
+
+                // wrap only the bytes of the page, so that the page retains its own size rather than the whole mapping
+                ByteBuffer pageBuffer = region.duplicate();
+                ((Buffer) pageBuffer).limit(pageBuffer.position() + pageSize);
+                ((Buffer) region).position(region.position() + pageSize);
+                return serde.deserialize(readSerializedPage(Slices.wrappedBuffer(pageBuffer.slice()).getInput()));
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void map(long offset, int minimumSize)
+                throws IOException
+        {
+            long size = min(fileSize - offset, max(MAPPED_REGION_SIZE, minimumSize));
+            regionOffset = offset;
+            region = channel.map(READ_ONLY, offset, size).order(LITTLE_ENDIAN);
+        }
+    }
+
+    private static class PendingWrite
+    {
+        private final AsynchronousFileChannel channel;
+        private final ByteBuffer buffer;
+        private long position;
+        private Future<Integer> write;
+
+        public PendingWrite(AsynchronousFileChannel channel, ByteBuffer buffer, long position)
+        {
+            this.channel = requireNonNull(channel, "channel is null");
+            this.buffer = requireNonNull(buffer, "buffer is null");
+            this.position = position;
+            this.write = channel.write(buffer, position);
+        }
+
+        public void await()
+                throws IOException
+        {
+            try {
+                while (true) {
+                    position += write.get();
+                    if (!buffer.hasRemaining()) {
+                        return;
+                    }
+                    // a write may complete partially
+                    write = channel.write(buffer, position);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing spill file");
+            }
+            catch (ExecutionException e) {
+                throwIfInstanceOf(e.getCause(), IOException.class);
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
     private static <T> Iterator<T> closeWhenExhausted(Iterator<T> iterator, Closeable resource)
     {
         requireNonNull(iterator, "iterator is null");
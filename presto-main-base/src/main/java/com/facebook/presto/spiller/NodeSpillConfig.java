@@ -28,6 +28,8 @@ public class NodeSpillConfig
 
     private CompressionCodec spillCompressionCodec = CompressionCodec.NONE;
     private boolean spillEncryptionEnabled;
+    private boolean spillAsyncWriteEnabled;
+    private boolean spillMemoryMappedReadEnabled;
 
     @NotNull
     public DataSize getMaxSpillPerNode()
@@ -92,6 +94,30 @@ public class NodeSpillConfig
         return this;
     }
 
+    public boolean isSpillAsyncWriteEnabled()
+    {
+        return spillAsyncWriteEnabled;
+    }
+
+    @Config("experimental.spill-async-write-enabled")
+    public NodeSpillConfig setSpillAsyncWriteEnabled(boolean spillAsyncWriteEnabled)
+    {
+        this.spillAsyncWriteEnabled = spillAsyncWriteEnabled;
+        return this;
+    }
+
+    public boolean isSpillMemoryMappedReadEnabled()
+    {
+        return spillMemoryMappedReadEnabled;
+    }
+
+    @Config("experimental.spill-memory-mapped-read-enabled")
+    public NodeSpillConfig setSpillMemoryMappedReadEnabled(boolean spillMemoryMappedReadEnabled)
+    {
+        this.spillMemoryMappedReadEnabled = spillMemoryMappedReadEnabled;
+        return this;
+    }
+
     @NotNull
     public DataSize getTempStorageBufferSize()
     {
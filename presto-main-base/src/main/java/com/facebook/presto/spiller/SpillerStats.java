@@ -21,6 +21,8 @@ public class SpillerStats
 {
     protected final AtomicLong totalSpilledBytes = new AtomicLong();
     protected final AtomicLong totalSpilledBytesRead = new AtomicLong();
+    protected final AtomicLong totalUncompressedSpilledBytes = new AtomicLong();
+    protected final AtomicLong totalSpillWriteStallTimeNanos = new AtomicLong();
 
     @Managed
     public long getTotalSpilledBytes()
@@ -34,6 +36,18 @@ public class SpillerStats
         return totalSpilledBytesRead.get();
     }
 
+    @Managed
+    public long getTotalUncompressedSpilledBytes()
+    {
+        return totalUncompressedSpilledBytes.get();
+    }
+
+    @Managed
+    public long getTotalSpillWriteStallTimeNanos()
+    {
+        return totalSpillWriteStallTimeNanos.get();
+    }
+
     public void addToTotalSpilledBytes(long delta)
     {
         totalSpilledBytes.addAndGet(delta);
@@ -43,4 +57,14 @@ public class SpillerStats
     {
         totalSpilledBytesRead.addAndGet(delta);
     }
+
+    public void addToTotalUncompressedSpilledBytes(long delta)
+    {
+        totalUncompressedSpilledBytes.addAndGet(delta);
+    }
+
+    public void addToTotalSpillWriteStallTimeNanos(long delta)
+    {
+        totalSpillWriteStallTimeNanos.addAndGet(delta);
+    }
 }
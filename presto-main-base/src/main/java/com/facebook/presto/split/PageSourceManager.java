@@ -90,6 +90,22 @@ public class PageSourceManager
         return getPageSourceProvider(split).createPageSource(split.getTransactionHandle(), connectorSession, split.getConnectorSplit(), columns, split.getSplitContext());
     }
 
+    @Override
+    public void prefetch(Session session, Split split, TableHandle table)
+    {
+        requireNonNull(split, "split is null");
+
+        // the dynamic filter may still prune the split and is not resolved before the split starts
+        if (!table.getLayout().isPresent() || table.getDynamicFilter().isPresent()) {
+            return;
+        }
+        getPageSourceProvider(split).prefetch(
+                split.getTransactionHandle(),
+                session.toConnectorSession(split.getConnectorId()),
+                split.getConnectorSplit(),
+                table.getLayout().get());
+    }
+
     private ConnectorPageSourceProvider getPageSourceProvider(Split split)
     {
         ConnectorPageSourceProvider provider = pageSourceProviders.get(split.getConnectorId());
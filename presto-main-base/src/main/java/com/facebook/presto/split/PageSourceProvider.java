@@ -25,4 +25,11 @@ import java.util.List;
 public interface PageSourceProvider
 {
     ConnectorPageSource createPageSource(Session session, Split split, TableHandle table, List<ColumnHandle> columns, RuntimeStats runtimeStats);
+
+    /**
+     * Starts reading ahead the data of a split that is queued for execution.
+     */
+    default void prefetch(Session session, Split split, TableHandle table)
+    {
+    }
 }
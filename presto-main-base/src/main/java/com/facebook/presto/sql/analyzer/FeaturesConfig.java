@@ -122,6 +122,7 @@ public class FeaturesConfig
     private boolean optimizeMixedDistinctAggregations;
     private boolean forceSingleNodeOutput = true;
     private boolean pagesIndexEagerCompactionEnabled;
+    private boolean pagesIndexNormalizedKeySortEnabled;
     private boolean distributedSort = true;
     private boolean optimizeJoinsWithEmptySources;
     private boolean logFormattedQueryEnabled;
@@ -165,6 +166,7 @@ public class FeaturesConfig
     private int dynamicFilteringMaxPerDriverRowCount = 100;
     private DataSize dynamicFilteringMaxPerDriverSize = new DataSize(10, KILOBYTE);
     private int dynamicFilteringRangeRowLimitPerDriver;
+    private int dynamicFilteringBloomFilterRowLimitPerDriver;
 
     private boolean fragmentResultCachingEnabled;
 
@@ -301,6 +303,17 @@ public class FeaturesConfig
     private boolean nativeExecutionScaleWritersThreadsEnabled;
     private String expressionOptimizerName = DEFAULT_EXPRESSION_OPTIMIZER_NAME;
     private boolean addExchangeBelowPartialAggregationOverGroupId;
+    private boolean flatGroupByHashEnabled;
+    private boolean batchedJoinProbeEnabled;
+    private boolean radixPartitionedHashBuildEnabled;
+    private boolean windowSegmentTreeAggregationEnabled;
+    private boolean orderByParallelSortEnabled;
+    private boolean exchangeCompressionAdaptiveEnabled;
+    private boolean exchangeStreamingEnabled;
+    private boolean localExchangePartitionRebalancingEnabled;
+    private boolean skewedJoinSaltingEnabled;
+    private double skewedJoinKeyMinFraction = 0.1;
+    private int joinSpillPartitionFanout = 1;
 
     public enum PartitioningPrecisionStrategy
     {
@@ -1467,6 +1480,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public int getDynamicFilteringBloomFilterRowLimitPerDriver()
+    {
+        return dynamicFilteringBloomFilterRowLimitPerDriver;
+    }
+
+    @Config("dynamic-filtering-bloom-filter-row-limit-per-driver")
+    @ConfigDescription("Maximum number of build-side rows per driver up to which a bloom filter will be collected for dynamic filtering")
+    public FeaturesConfig setDynamicFilteringBloomFilterRowLimitPerDriver(int dynamicFilteringBloomFilterRowLimitPerDriver)
+    {
+        this.dynamicFilteringBloomFilterRowLimitPerDriver = dynamicFilteringBloomFilterRowLimitPerDriver;
+        return this;
+    }
+
     public boolean isFragmentResultCachingEnabled()
     {
         return fragmentResultCachingEnabled;
@@ -1565,6 +1591,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isPagesIndexNormalizedKeySortEnabled()
+    {
+        return pagesIndexNormalizedKeySortEnabled;
+    }
+
+    @Config("pages-index.normalized-key-sort-enabled")
+    @ConfigDescription("Compare normalized prefixes of the leading sort key before the full sort keys when sorting a pages index")
+    public FeaturesConfig setPagesIndexNormalizedKeySortEnabled(boolean pagesIndexNormalizedKeySortEnabled)
+    {
+        this.pagesIndexNormalizedKeySortEnabled = pagesIndexNormalizedKeySortEnabled;
+        return this;
+    }
+
     @MaxDataSize("1MB")
     public DataSize getFilterAndProjectMinOutputPageSize()
     {
@@ -2987,4 +3026,156 @@ public class FeaturesConfig
     {
         return addExchangeBelowPartialAggregationOverGroupId;
     }
+
+    public boolean isFlatGroupByHashEnabled()
+    {
+        return flatGroupByHashEnabled;
+    }
+
+    @Config("flat-group-by-hash-enabled")
+    @ConfigDescription("Use a flat, row oriented hash table for group by keys of fixed width and varchar types")
+    public FeaturesConfig setFlatGroupByHashEnabled(boolean flatGroupByHashEnabled)
+    {
+        this.flatGroupByHashEnabled = flatGroupByHashEnabled;
+        return this;
+    }
+
+    public boolean isBatchedJoinProbeEnabled()
+    {
+        return batchedJoinProbeEnabled;
+    }
+
+    @Config("batched-join-probe-enabled")
+    @ConfigDescription("Look up the join positions of a whole probe page at once instead of one row at a time")
+    public FeaturesConfig setBatchedJoinProbeEnabled(boolean batchedJoinProbeEnabled)
+    {
+        this.batchedJoinProbeEnabled = batchedJoinProbeEnabled;
+        return this;
+    }
+
+    public boolean isRadixPartitionedHashBuildEnabled()
+    {
+        return radixPartitionedHashBuildEnabled;
+    }
+
+    @Config("radix-partitioned-hash-build-enabled")
+    @ConfigDescription("Scatter the build side rows into cache sized radix partitions of the hash table before inserting them")
+    public FeaturesConfig setRadixPartitionedHashBuildEnabled(boolean radixPartitionedHashBuildEnabled)
+    {
+        this.radixPartitionedHashBuildEnabled = radixPartitionedHashBuildEnabled;
+        return this;
+    }
+
+    public boolean isWindowSegmentTreeAggregationEnabled()
+    {
+        return windowSegmentTreeAggregationEnabled;
+    }
+
+    @Config("window-segment-tree-aggregation-enabled")
+    @ConfigDescription("Evaluate aggregations over sliding window frames by combining partial results from a segment tree")
+    public FeaturesConfig setWindowSegmentTreeAggregationEnabled(boolean windowSegmentTreeAggregationEnabled)
+    {
+        this.windowSegmentTreeAggregationEnabled = windowSegmentTreeAggregationEnabled;
+        return this;
+    }
+
+    public boolean isOrderByParallelSortEnabled()
+    {
+        return orderByParallelSortEnabled;
+    }
+
+    @Config("order-by-parallel-sort-enabled")
+    @ConfigDescription("Sort the input of ORDER BY as multiple runs in parallel and merge them")
+    public FeaturesConfig setOrderByParallelSortEnabled(boolean orderByParallelSortEnabled)
+    {
+        this.orderByParallelSortEnabled = orderByParallelSortEnabled;
+        return this;
+    }
+
+    public boolean isExchangeCompressionAdaptiveEnabled()
+    {
+        return exchangeCompressionAdaptiveEnabled;
+    }
+
+    @Config("exchange.compression-adaptive-enabled")
+    @ConfigDescription("Sample the exchange compression ratio per stream, skip compression for streams that do not shrink and switch to ZSTD where it compresses much better")
+    public FeaturesConfig setExchangeCompressionAdaptiveEnabled(boolean exchangeCompressionAdaptiveEnabled)
+    {
+        this.exchangeCompressionAdaptiveEnabled = exchangeCompressionAdaptiveEnabled;
+        return this;
+    }
+
+    public boolean isExchangeStreamingEnabled()
+    {
+        return exchangeStreamingEnabled;
+    }
+
+    @Config("exchange.streaming-enabled")
+    @ConfigDescription("Read the results of remote tasks through one multiplexed exchange stream per node")
+    public FeaturesConfig setExchangeStreamingEnabled(boolean exchangeStreamingEnabled)
+    {
+        this.exchangeStreamingEnabled = exchangeStreamingEnabled;
+        return this;
+    }
+
+    public boolean isLocalExchangePartitionRebalancingEnabled()
+    {
+        return localExchangePartitionRebalancingEnabled;
+    }
+
+    @Config("exchange.local-partition-rebalancing-enabled")
+    @ConfigDescription("Spread overloaded partitions of local hash exchanges across more drivers when the consumer does not need all rows of a key")
+    public FeaturesConfig setLocalExchangePartitionRebalancingEnabled(boolean localExchangePartitionRebalancingEnabled)
+    {
+        this.localExchangePartitionRebalancingEnabled = localExchangePartitionRebalancingEnabled;
+        return this;
+    }
+
+    public boolean isSkewedJoinSaltingEnabled()
+    {
+        return skewedJoinSaltingEnabled;
+    }
+
+    @Config("optimizer.skewed-join-salting-enabled")
+    @ConfigDescription("Spread the rows of hot join keys found in the column histograms across partitions by salting them")
+    public FeaturesConfig setSkewedJoinSaltingEnabled(boolean skewedJoinSaltingEnabled)
+    {
+        this.skewedJoinSaltingEnabled = skewedJoinSaltingEnabled;
+        return this;
+    }
+
+    @DecimalMin(value = "0.0", inclusive = false)
+    @DecimalMax("1.0")
+    public double getSkewedJoinKeyMinFraction()
+    {
+        return skewedJoinKeyMinFraction;
+    }
+
+    @Config("optimizer.skewed-join-key-min-fraction")
+    @ConfigDescription("Minimum fraction of the probe rows that a join key must have to be salted")
+    public FeaturesConfig setSkewedJoinKeyMinFraction(double skewedJoinKeyMinFraction)
+    {
+        this.skewedJoinKeyMinFraction = skewedJoinKeyMinFraction;
+        return this;
+    }
+
+    @Min(1)
+    public int getJoinSpillPartitionFanout()
+    {
+        return joinSpillPartitionFanout;
+    }
+
+    @Config("experimental.join-spill-partition-fanout")
+    @ConfigDescription("Number of sub-partitions a spilled join build partition is split into, so that it can be unspilled in parts")
+    public FeaturesConfig setJoinSpillPartitionFanout(int joinSpillPartitionFanout)
+    {
+        this.joinSpillPartitionFanout = joinSpillPartitionFanout;
+        return this;
+    }
+
+    @AssertTrue(message = "experimental.join-spill-partition-fanout must be a power of 2")
+    public boolean isJoinSpillPartitionFanoutPowerOfTwo()
+    {
+        return Integer.bitCount(joinSpillPartitionFanout) == 1;
+    }
 }
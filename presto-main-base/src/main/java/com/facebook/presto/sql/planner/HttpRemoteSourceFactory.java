@@ -29,6 +29,7 @@ import java.util.List;
 
 import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionCodec;
 import static com.facebook.presto.SystemSessionProperties.isExchangeChecksumEnabled;
+import static com.facebook.presto.SystemSessionProperties.isExchangeCompressionAdaptiveEnabled;
 import static java.util.Objects.requireNonNull;
 
 public class HttpRemoteSourceFactory
@@ -52,7 +53,7 @@ public class HttpRemoteSourceFactory
                 operatorId,
                 planNodeId,
                 taskExchangeClientManager,
-                new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeChecksumEnabled(session)));
+                new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeChecksumEnabled(session), isExchangeCompressionAdaptiveEnabled(session)));
     }
 
     @Override
@@ -69,7 +70,7 @@ public class HttpRemoteSourceFactory
                 operatorId,
                 planNodeId,
                 taskExchangeClientManager,
-                new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeChecksumEnabled(session)),
+                new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeChecksumEnabled(session), isExchangeCompressionAdaptiveEnabled(session)),
                 orderingCompiler,
                 types,
                 outputChannels,
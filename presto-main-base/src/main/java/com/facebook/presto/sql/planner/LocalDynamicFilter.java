@@ -17,6 +17,7 @@ import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.expressions.DynamicFilters.DynamicFilterExtractResult;
 import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
+import com.facebook.presto.operator.BlockedBloomFilter;
 import com.facebook.presto.spi.plan.AbstractJoinNode;
 import com.facebook.presto.spi.plan.FilterNode;
 import com.facebook.presto.spi.plan.PlanNode;
@@ -35,6 +36,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 
+import static com.facebook.presto.common.function.OperatorType.EQUAL;
 import static com.facebook.presto.expressions.DynamicFilters.extractDynamicFilters;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Verify.verify;
@@ -57,6 +59,11 @@ public class LocalDynamicFilter
     // The resulting predicates from each build-side partition.
     private final List<TupleDomain<String>> partitions;
 
+    private final SettableFuture<Map<VariableReferenceExpression, BlockedBloomFilter>> bloomFilterResultFuture;
+
+    // The bloom filters from each build-side partition.
+    private final List<Map<String, BlockedBloomFilter>> bloomFilterPartitions;
+
     public LocalDynamicFilter(Multimap<String, DynamicFilterPlaceholder> probeVariables, Map<String, Integer> buildChannels, int partitionCount)
     {
         this.probeVariables = requireNonNull(probeVariables, "probeVariables is null");
@@ -67,6 +74,9 @@ public class LocalDynamicFilter
 
         this.partitionCount = partitionCount;
         this.partitions = new ArrayList<>(partitionCount);
+
+        this.bloomFilterResultFuture = SettableFuture.create();
+        this.bloomFilterPartitions = new ArrayList<>(partitionCount);
     }
 
     private synchronized void addPartition(TupleDomain<String> tupleDomain)
@@ -83,6 +93,43 @@ public class LocalDynamicFilter
         }
     }
 
+    private synchronized void addBloomFilterPartition(Map<String, BlockedBloomFilter> bloomFilters)
+    {
+        // Called concurrently by each DynamicFilterSourceOperator instance (when collection is over).
+        verify(bloomFilterPartitions.size() < partitionCount);
+        bloomFilterPartitions.add(bloomFilters);
+        if (bloomFilterPartitions.size() == partitionCount) {
+            verify(bloomFilterResultFuture.set(mergeBloomFilters()), "bloom filter result is provided more than once");
+        }
+    }
+
+    private Map<VariableReferenceExpression, BlockedBloomFilter> mergeBloomFilters()
+    {
+        ImmutableMap.Builder<VariableReferenceExpression, BlockedBloomFilter> builder = ImmutableMap.builder();
+        for (String filterId : buildChannels.keySet()) {
+            // A partition without a bloom filter may contain any value.
+            Optional<BlockedBloomFilter> merged = Optional.empty();
+            for (Map<String, BlockedBloomFilter> partition : bloomFilterPartitions) {
+                BlockedBloomFilter bloomFilter = partition.get(filterId);
+                if (bloomFilter == null) {
+                    merged = Optional.empty();
+                    break;
+                }
+                merged = Optional.of(merged.map(bloomFilter::union).orElse(bloomFilter));
+            }
+            if (!merged.isPresent()) {
+                continue;
+            }
+            for (DynamicFilterPlaceholder placeholder : probeVariables.get(filterId)) {
+                // Only equality can be checked with a bloom filter, and only if both sides hash the same way.
+                if (placeholder.getOperator() == EQUAL && placeholder.getInput().getType().equals(merged.get().getType())) {
+                    builder.put((VariableReferenceExpression) placeholder.getInput(), merged.get());
+                }
+            }
+        }
+        return builder.build();
+    }
+
     private TupleDomain<VariableReferenceExpression> convertTupleDomain(TupleDomain<String> result)
     {
         if (result.isNone()) {
@@ -161,6 +208,16 @@ public class LocalDynamicFilter
         return this::addPartition;
     }
 
+    public ListenableFuture<Map<VariableReferenceExpression, BlockedBloomFilter>> getBloomFilterResultFuture()
+    {
+        return bloomFilterResultFuture;
+    }
+
+    public Consumer<Map<String, BlockedBloomFilter>> getBloomFilterConsumer()
+    {
+        return this::addBloomFilterPartition;
+    }
+
     @Override
     public String toString()
     {
@@ -14,11 +14,16 @@
 package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.operator.BlockedBloomFilter;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.google.common.collect.ImmutableMap;
 
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @ThreadSafe
 public class LocalDynamicFiltersCollector
 {
@@ -29,9 +34,16 @@ public class LocalDynamicFiltersCollector
     @GuardedBy ("this")
     private TupleDomain<VariableReferenceExpression> predicate;
 
+    /**
+     * Bloom filters for the dynamic filters whose build side was too large for {@link #predicate}.
+     */
+    @GuardedBy ("this")
+    private Map<VariableReferenceExpression, BlockedBloomFilter> bloomFilters;
+
     public LocalDynamicFiltersCollector()
     {
         this.predicate = TupleDomain.all();
+        this.bloomFilters = ImmutableMap.of();
     }
 
     public synchronized TupleDomain<VariableReferenceExpression> getPredicate()
@@ -43,4 +55,16 @@ public class LocalDynamicFiltersCollector
     {
         this.predicate = this.predicate.intersect(predicate);
     }
+
+    public synchronized Map<VariableReferenceExpression, BlockedBloomFilter> getBloomFilters()
+    {
+        return bloomFilters;
+    }
+
+    public synchronized void intersectBloomFilters(Map<VariableReferenceExpression, BlockedBloomFilter> bloomFilters)
+    {
+        Map<VariableReferenceExpression, BlockedBloomFilter> result = new HashMap<>(this.bloomFilters);
+        bloomFilters.forEach((variable, bloomFilter) -> result.merge(variable, bloomFilter, (left, right) -> left.isCompatible(right) ? left.intersect(right) : left));
+        this.bloomFilters = ImmutableMap.copyOf(result);
+    }
 }
@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.common.type.ArrayType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.cost.VariableStatsEstimate;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.spi.plan.EquiJoinClause;
+import com.facebook.presto.spi.plan.JoinNode;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.spi.statistics.ConnectorHistogram;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.sql.planner.PlannerUtils;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.plan.UnnestNode;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.getJoinShardCount;
+import static com.facebook.presto.SystemSessionProperties.getSkewedJoinKeyMinFraction;
+import static com.facebook.presto.SystemSessionProperties.isSkewedJoinSaltingEnabled;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.plan.JoinDistributionType.PARTITIONED;
+import static com.facebook.presto.spi.plan.JoinType.INNER;
+import static com.facebook.presto.spi.plan.JoinType.LEFT;
+import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.IF;
+import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.IN;
+import static com.facebook.presto.sql.planner.plan.Patterns.join;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.sql.relational.Expressions.specialForm;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spreads the rows of hot join keys across partitions. The hot keys are the values that the
+ * histogram of a probe key assigns at least {@code skewed_join_key_min_fraction} of the rows.
+ * <p>
+ * Transforms
+ * <pre>
+ * - Join
+ *      l_key = r_key
+ *      - probe
+ *      - build
+ * </pre>
+ * into
+ * <pre>
+ * - Join
+ *      l_key = r_key and l_salt = r_salt
+ *      - Project
+ *          l_salt := IF(l_key IN (hot keys), random(join_shard_count), 0)
+ *          - probe
+ *      - Unnest
+ *          r_salt <- unnest salts
+ *          - Project
+ *              salts := sequence(0, IF(r_key IN (hot keys), join_shard_count - 1, 0))
+ *              - build
+ * </pre>
+ * The build rows of the hot keys are replicated once for every salt, and the probe rows of the
+ * hot keys pick one salt at random, so every probe row still matches every build row of its key.
+ * The other rows get salt 0 and are partitioned as before.
+ */
+public class SaltSkewedJoinKeys
+        implements Rule<JoinNode>
+{
+    private static final Pattern<JoinNode> PATTERN = join().matching(node ->
+            (node.getType() == INNER || node.getType() == LEFT) &&
+                    node.getDistributionType().equals(Optional.of(PARTITIONED)) &&
+                    !node.getCriteria().isEmpty() &&
+                    !node.getLeftHashVariable().isPresent() &&
+                    !node.getRightHashVariable().isPresent());
+
+    // resolution of the histogram scan, a key is found if it spans a few consecutive quantiles
+    private static final int HISTOGRAM_QUANTILES = 100;
+
+    private final FunctionAndTypeManager functionAndTypeManager;
+
+    public SaltSkewedJoinKeys(FunctionAndTypeManager functionAndTypeManager)
+    {
+        this.functionAndTypeManager = requireNonNull(functionAndTypeManager, "functionAndTypeManager is null");
+    }
+
+    @Override
+    public Pattern<JoinNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return isSkewedJoinSaltingEnabled(session);
+    }
+
+    @Override
+    public Result apply(JoinNode node, Captures captures, Context context)
+    {
+        if (isSalted(node, context)) {
+            return Result.empty();
+        }
+
+        int saltCount = getJoinShardCount(context.getSession());
+        if (saltCount <= 1) {
+            return Result.empty();
+        }
+
+        double minFraction = getSkewedJoinKeyMinFraction(context.getSession());
+        for (EquiJoinClause clause : node.getCriteria()) {
+            if (!isSupportedType(clause.getLeft().getType())) {
+                continue;
+            }
+            VariableStatsEstimate keyStats = context.getStatsProvider().getStats(node.getLeft()).getVariableStatistics(clause.getLeft());
+            if (!keyStats.getHistogram().isPresent()) {
+                continue;
+            }
+            Type type = clause.getLeft().getType();
+            List<Long> hotKeys = findHotKeys(keyStats.getHistogram().get(), minFraction).stream()
+                    .filter(hotKey -> type.equals(BIGINT) || (hotKey >= Integer.MIN_VALUE && hotKey <= Integer.MAX_VALUE))
+                    .collect(toImmutableList());
+            if (!hotKeys.isEmpty()) {
+                return Result.ofPlanNode(salt(node, clause, hotKeys, saltCount, context));
+            }
+        }
+        return Result.empty();
+    }
+
+    private PlanNode salt(JoinNode node, EquiJoinClause clause, List<Long> hotKeys, int saltCount, Context context)
+    {
+        VariableReferenceExpression leftSalt = context.getVariableAllocator().newVariable("salt", BIGINT);
+        RowExpression randomSalt = call(functionAndTypeManager, "random", BIGINT, constant((long) saltCount, BIGINT));
+        PlanNode left = PlannerUtils.addProjections(
+                node.getLeft(),
+                context.getIdAllocator(),
+                ImmutableMap.of(leftSalt, specialForm(IF, BIGINT, isHotKey(clause.getLeft(), hotKeys), randomSalt, constant(0L, BIGINT))));
+
+        RowExpression salts = call(
+                functionAndTypeManager,
+                "sequence",
+                new ArrayType(BIGINT),
+                constant(0L, BIGINT),
+                specialForm(IF, BIGINT, isHotKey(clause.getRight(), hotKeys), constant((long) saltCount - 1, BIGINT), constant(0L, BIGINT)));
+        VariableReferenceExpression saltsVariable = context.getVariableAllocator().newVariable(salts);
+        PlanNode right = PlannerUtils.addProjections(node.getRight(), context.getIdAllocator(), ImmutableMap.of(saltsVariable, salts));
+        VariableReferenceExpression rightSalt = context.getVariableAllocator().newVariable("salt", BIGINT);
+        UnnestNode unnest = new UnnestNode(
+                right.getSourceLocation(),
+                context.getIdAllocator().getNextId(),
+                right,
+                node.getRight().getOutputVariables(),
+                ImmutableMap.of(saltsVariable, ImmutableList.of(rightSalt)),
+                Optional.empty());
+
+        List<EquiJoinClause> criteria = new ArrayList<>(node.getCriteria());
+        criteria.add(new EquiJoinClause(leftSalt, rightSalt));
+        return new JoinNode(
+                node.getSourceLocation(),
+                node.getId(),
+                node.getStatsEquivalentPlanNode(),
+                node.getType(),
+                left,
+                unnest,
+                criteria,
+                node.getOutputVariables(),
+                node.getFilter(),
+                node.getLeftHashVariable(),
+                node.getRightHashVariable(),
+                node.getDistributionType(),
+                node.getDynamicFilters());
+    }
+
+    private static RowExpression isHotKey(VariableReferenceExpression key, List<Long> hotKeys)
+    {
+        ImmutableList.Builder<RowExpression> arguments = ImmutableList.builder();
+        arguments.add(key);
+        hotKeys.forEach(hotKey -> arguments.add(constant(hotKey, key.getType())));
+        return specialForm(IN, BOOLEAN, arguments.build());
+    }
+
+    private static boolean isSalted(JoinNode node, Context context)
+    {
+        // the build side of a salted join unnests the salts of its keys
+        PlanNode right = context.getLookup().resolve(node.getRight());
+        if (!(right instanceof UnnestNode)) {
+            return false;
+        }
+        List<VariableReferenceExpression> unnestedVariables = ((UnnestNode) right).getUnnestVariables().values().stream()
+                .flatMap(List::stream)
+                .collect(toImmutableList());
+        return node.getCriteria().stream().anyMatch(clause -> unnestedVariables.contains(clause.getRight()));
+    }
+
+    private static boolean isSupportedType(Type type)
+    {
+        // histograms describe values as doubles, which can be converted back to exact keys for integral types only
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(DATE);
+    }
+
+    /**
+     * Returns the values that span at least {@code minFraction} of the distribution, i.e. the values
+     * at which the inverse cumulative distribution stays flat.
+     */
+    @VisibleForTesting
+    static List<Long> findHotKeys(ConnectorHistogram histogram, double minFraction)
+    {
+        ImmutableList.Builder<Long> hotKeys = ImmutableList.builder();
+        double runValue = Double.NaN;
+        int runLength = 0;
+        for (int quantile = 0; quantile <= HISTOGRAM_QUANTILES; quantile++) {
+            Estimate estimate = histogram.inverseCumulativeProbability(quantile / (double) HISTOGRAM_QUANTILES);
+            if (estimate.isUnknown()) {
+                return ImmutableList.of();
+            }
+            double value = estimate.getValue();
+            if (value == runValue) {
+                runLength++;
+                continue;
+            }
+            addHotKey(hotKeys, runValue, runLength, minFraction);
+            runValue = value;
+            runLength = 1;
+        }
+        addHotKey(hotKeys, runValue, runLength, minFraction);
+        return hotKeys.build();
+    }
+
+    private static void addHotKey(ImmutableList.Builder<Long> hotKeys, double value, int runLength, double minFraction)
+    {
+        // a run of n equal quantiles covers at least n - 1 quantile intervals
+        if (runLength > 1 && (runLength - 1) / (double) HISTOGRAM_QUANTILES >= minFraction && value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            hotKeys.add((long) value);
+        }
+    }
+}
@@ -29,10 +29,14 @@ import com.facebook.presto.memory.MemoryPoolAssignment;
 import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
 import com.facebook.presto.memory.NodeMemoryConfig;
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.metadata.InMemoryNodeManager;
 import com.facebook.presto.metadata.InternalNode;
 import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.operator.ExchangeClientSupplier;
+import com.facebook.presto.operator.LocalShuffleClientProvider;
 import com.facebook.presto.operator.NoOpFragmentResultCacheManager;
+import com.facebook.presto.operator.PageBufferClient.PagesResponse;
+import com.facebook.presto.operator.RpcShuffleClient;
 import com.facebook.presto.operator.TaskMemoryReservationSummary;
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spiller.LocalSpillManager;
@@ -51,6 +55,7 @@ import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.airlift.json.JsonCodec.listJsonCodec;
@@ -67,7 +72,9 @@ import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
 import static com.facebook.presto.memory.LocalMemoryManager.RESERVED_POOL;
 import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertTrue;
 
@@ -151,6 +158,43 @@ public class TestSqlTaskManager
         }
     }
 
+    @Test
+    public void testLocalShuffleClient()
+            throws Exception
+    {
+        ScheduledExecutorService timeoutExecutor = newSingleThreadScheduledExecutor();
+        try (SqlTaskManager sqlTaskManager = createSqlTaskManager(new TaskManagerConfig())) {
+            TaskId taskId = TASK_ID;
+            createTask(sqlTaskManager, taskId, ImmutableSet.of(SPLIT), createInitialEmptyOutputBuffers(PARTITIONED).withBuffer(OUT, 0).withNoMoreBufferIds());
+
+            URI location = URI.create("http://localhost:8080/v1/task/" + taskId + "/results/" + OUT);
+            InMemoryNodeManager nodeManager = new InMemoryNodeManager(URI.create("http://localhost:8080"));
+            LocalShuffleClientProvider provider = new LocalShuffleClientProvider(() -> sqlTaskManager, nodeManager, timeoutExecutor);
+            assertTrue(provider.isLocal(location));
+            assertFalse(provider.isLocal(URI.create("http://localhost:8081/v1/task/" + taskId + "/results/" + OUT)));
+            assertFalse(provider.isLocal(URI.create("http://remote:8080/v1/task/" + taskId + "/results/" + OUT)));
+
+            RpcShuffleClient client = provider.get(location);
+            PagesResponse response = client.getResults(0, new DataSize(1, Unit.MEGABYTE)).get();
+            assertEquals(response.getTaskInstanceId(), sqlTaskManager.getTaskInstanceId(taskId));
+            assertEquals(response.getPages().size(), 1);
+            assertEquals(response.getPages().get(0).getPositionCount(), 1);
+
+            while (!response.isClientComplete()) {
+                client.acknowledgeResultsAsync(response.getNextToken());
+                response = client.getResults(response.getNextToken(), new DataSize(1, Unit.MEGABYTE)).get();
+            }
+            assertEquals(response.getPages().size(), 0);
+
+            client.abortResults().get();
+            TaskInfo taskInfo = sqlTaskManager.getTaskInfo(taskId);
+            assertEquals(taskInfo.getOutputBuffers().getState(), BufferState.FINISHED);
+        }
+        finally {
+            timeoutExecutor.shutdownNow();
+        }
+    }
+
     @Test
     public void testRemainingBufferMetadata()
             throws Exception
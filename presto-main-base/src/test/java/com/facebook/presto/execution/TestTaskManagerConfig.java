@@ -26,6 +26,8 @@ import java.util.concurrent.TimeUnit;
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
 import static com.facebook.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static com.facebook.presto.execution.TaskManagerConfig.SplitSchedulingPolicy.MULTILEVEL;
+import static com.facebook.presto.execution.TaskManagerConfig.SplitSchedulingPolicy.WEIGHTED_FAIR;
 import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracking.QUERY_FAIR;
 import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracking.TASK_FAIR;
 import static io.airlift.units.DataSize.Unit;
@@ -71,6 +73,9 @@ public class TestTaskManagerConfig
                 .setStatisticsCpuTimerEnabled(true)
                 .setLegacyLifespanCompletionCondition(false)
                 .setTaskPriorityTracking(TASK_FAIR)
+                .setSplitSchedulingPolicy(MULTILEVEL)
+                .setWorkStealingEnabled(false)
+                .setBlockedSplitSpinTime(new Duration(0, TimeUnit.MILLISECONDS))
                 .setInterruptRunawaySplitsTimeout(new Duration(600, SECONDS))
                 .setMemoryBasedSlowDownThreshold(1.0)
                 .setHighMemoryTaskKillerEnabled(false)
@@ -120,6 +125,9 @@ public class TestTaskManagerConfig
                 .put("task.statistics-cpu-timer-enabled", "false")
                 .put("task.legacy-lifespan-completion-condition", "true")
                 .put("task.task-priority-tracking", "QUERY_FAIR")
+                .put("task.split-scheduling-policy", "WEIGHTED_FAIR")
+                .put("task.work-stealing-enabled", "true")
+                .put("task.blocked-split-spin-time", "50us")
                 .put("task.interrupt-runaway-splits-timeout", "599s")
                 .put("experimental.task.memory-based-slowdown-threshold", "0.9")
                 .put("experimental.task.high-memory-task-killer-enabled", "true")
@@ -166,6 +174,9 @@ public class TestTaskManagerConfig
                 .setStatisticsCpuTimerEnabled(false)
                 .setLegacyLifespanCompletionCondition(true)
                 .setTaskPriorityTracking(QUERY_FAIR)
+                .setSplitSchedulingPolicy(WEIGHTED_FAIR)
+                .setWorkStealingEnabled(true)
+                .setBlockedSplitSpinTime(new Duration(50, TimeUnit.MICROSECONDS))
                 .setInterruptRunawaySplitsTimeout(new Duration(599, SECONDS))
                 .setMemoryBasedSlowDownThreshold(0.9)
                 .setHighMemoryTaskKillerEnabled(true)
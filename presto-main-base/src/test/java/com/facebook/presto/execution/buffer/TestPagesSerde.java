@@ -17,26 +17,34 @@ import com.facebook.presto.CompressionCodec;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.BlockEncodingManager;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 import java.util.stream.LongStream;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.page.PageCodecMarker.ALTERNATE_CODEC;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.readPages;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writePages;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
@@ -154,6 +162,69 @@ public class TestPagesSerde
         assertTrue(actualSize < expectedMaxSize, "Expected round trip size difference less than 20% of original page");
     }
 
+    @Test
+    public void testAdaptiveCompression()
+    {
+        PagesSerdeFactory serdeFactory = new PagesSerdeFactory(new BlockEncodingManager(), CompressionCodec.LZ4, false, true);
+        PagesSerde serde = serdeFactory.createPagesSerde();
+        PagesSerde deserializer = serdeFactory.createPagesSerde();
+        Random random = new Random(42);
+
+        // random bytes do not compress, the pages are sent as they are
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pages.add(createVarbinaryPage(random, 256));
+        }
+        assertRoundTrip(serde, deserializer, pages, VARBINARY);
+        assertEquals(serde.getUncompressedPageCount(), 100);
+        assertEquals(serde.getCompressionInputBytes(), 0);
+
+        // LZ4 has no entropy coding, so ZSTD compresses random letters of a small alphabet much better
+        pages.clear();
+        for (int i = 0; i < 100; i++) {
+            pages.add(createVarbinaryPage(random, 4));
+        }
+        assertRoundTrip(serde, deserializer, pages, VARBINARY);
+        assertTrue(serde.getAlternateCodecPageCount() > 0);
+        assertTrue(serde.getCompressionOutputBytes() < serde.getCompressionInputBytes() / 2);
+
+        // the deserializer sees the same pages
+        assertEquals(deserializer.getUncompressedPageCount(), serde.getUncompressedPageCount());
+        assertEquals(deserializer.getAlternateCodecPageCount(), serde.getAlternateCodecPageCount());
+        assertEquals(deserializer.getCompressionInputBytes(), serde.getCompressionInputBytes());
+        assertEquals(deserializer.getCompressionOutputBytes(), serde.getCompressionOutputBytes());
+    }
+
+    @Test
+    public void testAlternateCodecRequiresAdaptiveDeserializer()
+    {
+        PagesSerde adaptiveSerde = new PagesSerdeFactory(new BlockEncodingManager(), CompressionCodec.LZ4, false, true).createPagesSerde();
+        PagesSerde serde = new TestingPagesSerdeFactory(CompressionCodec.LZ4).createPagesSerde();
+        SerializedPage serializedPage = adaptiveSerde.serialize(createVarbinaryPage(new Random(42), 4));
+        assertTrue(ALTERNATE_CODEC.isSet(serializedPage.getPageCodecMarkers()));
+        assertThrows(IllegalStateException.class, () -> serde.deserialize(serializedPage));
+    }
+
+    private static void assertRoundTrip(PagesSerde serializer, PagesSerde deserializer, List<Page> pages, Type type)
+    {
+        for (Page page : pages) {
+            assertPageEquals(ImmutableList.of(type), deserializer.deserialize(serializer.serialize(page)), page);
+        }
+    }
+
+    private static Page createVarbinaryPage(Random random, int alphabetSize)
+    {
+        BlockBuilder builder = VARBINARY.createBlockBuilder(null, 64);
+        for (int position = 0; position < 64; position++) {
+            byte[] value = new byte[256];
+            for (int i = 0; i < value.length; i++) {
+                value[i] = (byte) ('a' + random.nextInt(alphabetSize));
+            }
+            VARBINARY.writeSlice(builder, Slices.wrappedBuffer(value));
+        }
+        return new Page(builder.build());
+    }
+
     private static int serializedSize(List<? extends Type> types, Page expectedPage, CompressionCodec codec)
     {
         PagesSerde serde = new TestingPagesSerdeFactory(codec).createPagesSerde();
@@ -17,6 +17,7 @@ import com.facebook.airlift.testing.TestingTicker;
 import com.facebook.presto.execution.SplitRunner;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.server.ServerConfig;
+import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.version.EmbedVersion;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
@@ -35,6 +36,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
 import static com.facebook.airlift.testing.Assertions.assertGreaterThan;
 import static com.facebook.airlift.testing.Assertions.assertLessThan;
 import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracking.QUERY_FAIR;
@@ -47,6 +49,7 @@ import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertTrue;
 
 public class TestTaskExecutor
@@ -343,8 +346,8 @@ public class TestTaskExecutor
     public void testLevelContributionCap()
     {
         MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2);
-        TaskHandle handle0 = new TaskHandle(new TaskId("test0", 0, 0, 0, 0), new TaskPriorityTracker(splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
-        TaskHandle handle1 = new TaskHandle(new TaskId("test1", 0, 0, 0, 0), new TaskPriorityTracker(splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+        TaskHandle handle0 = new TaskHandle(new TaskId("test0", 0, 0, 0, 0), new TaskPriorityTracker(new QueryId("test0"), splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty(), 1);
+        TaskHandle handle1 = new TaskHandle(new TaskId("test1", 0, 0, 0, 0), new TaskPriorityTracker(new QueryId("test1"), splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty(), 1);
 
         for (int i = 0; i < (LEVEL_THRESHOLD_SECONDS.length - 1); i++) {
             long levelAdvanceTime = SECONDS.toNanos(LEVEL_THRESHOLD_SECONDS[i + 1] - LEVEL_THRESHOLD_SECONDS[i]);
@@ -363,7 +366,7 @@ public class TestTaskExecutor
     public void testUpdateLevelWithCap()
     {
         MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2);
-        TaskHandle handle0 = new TaskHandle(new TaskId("test0", 0, 0, 0, 0), new TaskPriorityTracker(splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+        TaskHandle handle0 = new TaskHandle(new TaskId("test0", 0, 0, 0, 0), new TaskPriorityTracker(new QueryId("test0"), splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty(), 1);
 
         long quantaNanos = MINUTES.toNanos(10);
         handle0.addScheduledNanos(quantaNanos);
@@ -490,6 +493,62 @@ public class TestTaskExecutor
         }
     }
 
+    @Test(timeOut = 30_000)
+    public void testWorkStealing()
+            throws Exception
+    {
+        TaskExecutor taskExecutor = new TaskExecutor(
+                2,
+                8,
+                8,
+                8,
+                TASK_FAIR,
+                new Duration(10, MINUTES),
+                elements -> false,
+                new Duration(1, MINUTES),
+                new EmbedVersion(new ServerConfig()),
+                new MultilevelSplitQueue(2),
+                Ticker.systemTicker(),
+                true,
+                new Duration(0, SECONDS));
+        taskExecutor.start();
+
+        try {
+            TaskHandle taskHandle = taskExecutor.addTask(new TaskId("test", 0, 0, 0, 0), () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty());
+
+            // occupy one runner, so that the other one runs the split that blocks
+            BusySplitRunner other = new BusySplitRunner();
+            taskExecutor.enqueueSplits(taskHandle, false, ImmutableList.of(other));
+            other.started.get(10, SECONDS);
+
+            WakeupSplitRunner split = new WakeupSplitRunner();
+            taskExecutor.enqueueSplits(taskHandle, false, ImmutableList.of(split));
+            Thread owner = split.firstQuantumThread.get(10, SECONDS);
+
+            // keep the runner that owns the blocked split busy
+            BusySplitRunner ownerWork = new BusySplitRunner();
+            taskExecutor.enqueueSplits(taskHandle, false, ImmutableList.of(ownerWork));
+            assertEquals(ownerWork.started.get(10, SECONDS), owner);
+
+            // free the other runner, then unblock the split while its owner is still busy
+            other.release.set(null);
+            other.finished.get(10, SECONDS);
+            split.unblocked.set(null);
+
+            Thread runner = split.secondQuantumThread.get(10, SECONDS);
+            assertFalse(ownerWork.finished.isDone());
+            assertNotEquals(runner, owner);
+            assertEquals(taskExecutor.getWaitingSplits(), 0);
+
+            ownerWork.release.set(null);
+            ownerWork.finished.get(10, SECONDS);
+        }
+        finally {
+            taskExecutor.stop();
+        }
+        assertEquals(taskExecutor.getLocallyQueuedSplits(), 0);
+    }
+
     private void assertSplitStates(int endIndex, TestingJob[] splits)
     {
         // assert that splits up to and including endIndex are all started
@@ -613,6 +672,76 @@ public class TestTaskExecutor
         }
     }
 
+    private static class BusySplitRunner
+            implements SplitRunner
+    {
+        private final SettableFuture<Thread> started = SettableFuture.create();
+        private final SettableFuture<?> release = SettableFuture.create();
+        private final SettableFuture<?> finished = SettableFuture.create();
+
+        @Override
+        public boolean isFinished()
+        {
+            return finished.isDone();
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            started.set(Thread.currentThread());
+            getFutureValue(release);
+            finished.set(null);
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "busy-split";
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    private static class WakeupSplitRunner
+            implements SplitRunner
+    {
+        private final SettableFuture<Thread> firstQuantumThread = SettableFuture.create();
+        private final SettableFuture<?> unblocked = SettableFuture.create();
+        private final SettableFuture<Thread> secondQuantumThread = SettableFuture.create();
+
+        @Override
+        public boolean isFinished()
+        {
+            return secondQuantumThread.isDone();
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            if (!firstQuantumThread.isDone()) {
+                firstQuantumThread.set(Thread.currentThread());
+                return unblocked;
+            }
+            secondQuantumThread.set(Thread.currentThread());
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "wakeup-split";
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
     private static class MockSplitRunner
             implements SplitRunner
     {
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
+import com.facebook.airlift.testing.TestingTicker;
+import com.facebook.presto.execution.SplitRunner;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.spi.QueryId;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import static com.facebook.presto.operator.Operator.NOT_BLOCKED;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestWeightedFairSplitQueue
+{
+    private static final long QUANTA_NANOS = SECONDS.toNanos(1);
+
+    private final TestingTicker ticker = new TestingTicker();
+
+    @Test
+    public void testSharesFollowWeights()
+    {
+        WeightedFairSplitQueue queue = new WeightedFairSplitQueue(ticker);
+        // the first query has many tasks, but only a third of the weight of the second one
+        List<TaskHandle> batchTasks = ImmutableList.of(createTask(queue, "batch", 0, 1), createTask(queue, "batch", 1, 1), createTask(queue, "batch", 2, 1));
+        TaskHandle interactiveTask = createTask(queue, "interactive", 0, 3);
+        for (TaskHandle task : batchTasks) {
+            for (int i = 0; i < 4; i++) {
+                queue.offer(createSplit(task));
+            }
+        }
+        queue.offer(createSplit(interactiveTask));
+        queue.offer(createSplit(interactiveTask));
+
+        Map<String, Integer> quantas = runQuantas(queue, 400);
+        assertEquals(quantas.get("interactive"), (Integer) 300);
+        assertEquals(quantas.get("batch"), (Integer) 100);
+        assertEquals(queue.size(), 14);
+    }
+
+    @Test
+    public void testIdleQueryDoesNotBankTime()
+            throws Exception
+    {
+        WeightedFairSplitQueue queue = new WeightedFairSplitQueue(ticker);
+        TaskHandle firstTask = createTask(queue, "first", 0, 1);
+        queue.offer(createSplit(firstTask));
+        runQuantas(queue, 100);
+
+        // the new query starts at the virtual time of the queue instead of 100 quantas behind the first query
+        TaskHandle secondTask = createTask(queue, "second", 0, 1);
+        queue.offer(createSplit(secondTask));
+        assertEquals(queue.getQueryVirtualTime(new QueryId("second")), queue.getQueryVirtualTime(new QueryId("first")) - QUANTA_NANOS);
+
+        Map<String, Integer> quantas = runQuantas(queue, 10);
+        assertEquals(quantas.get("first"), (Integer) 5);
+        assertEquals(quantas.get("second"), (Integer) 5);
+    }
+
+    @Test
+    public void testRemove()
+            throws Exception
+    {
+        WeightedFairSplitQueue queue = new WeightedFairSplitQueue(ticker);
+        TaskHandle firstTask = createTask(queue, "first", 0, 1);
+        TaskHandle secondTask = createTask(queue, "second", 0, 1);
+        PrioritizedSplitRunner first = createSplit(firstTask);
+        PrioritizedSplitRunner second = createSplit(secondTask);
+        PrioritizedSplitRunner third = createSplit(secondTask);
+        queue.offer(first);
+        queue.offer(second);
+        queue.offer(third);
+        assertEquals(queue.size(), 3);
+        assertEquals(queue.getWaitingQueries(), 2);
+
+        queue.remove(first);
+        assertEquals(queue.size(), 2);
+        assertEquals(queue.getWaitingQueries(), 1);
+
+        queue.removeAll(ImmutableList.of(second, first));
+        assertEquals(queue.size(), 1);
+        assertEquals(queue.take(), third);
+        assertEquals(queue.size(), 0);
+        assertEquals(queue.getWaitingQueries(), 0);
+    }
+
+    @Test
+    public void testStats()
+            throws Exception
+    {
+        WeightedFairSplitQueue queue = new WeightedFairSplitQueue(ticker);
+        TaskHandle task = createTask(queue, "query", 0, 1);
+        queue.offer(createSplit(task));
+        ticker.increment(10, SECONDS);
+        PrioritizedSplitRunner split = queue.take();
+        task.addScheduledNanos(QUANTA_NANOS);
+        queue.offer(split);
+
+        assertEquals(queue.getMaxQueryCpuShare(), 1.0);
+        assertTrue(queue.getQueryStats().startsWith("query: cpuShare=1.000, weight=1, waitingSplits=1, averageQueuedTime=10000.00ms"), queue.getQueryStats());
+        assertEquals(queue.getQueuedTime().getCount(), 1.0);
+    }
+
+    private Map<String, Integer> runQuantas(WeightedFairSplitQueue queue, int quantas)
+    {
+        Map<String, Integer> quantasPerQuery = new HashMap<>();
+        for (int i = 0; i < quantas; i++) {
+            PrioritizedSplitRunner split;
+            try {
+                split = queue.take();
+            }
+            catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            TaskHandle task = split.getTaskHandle();
+            quantasPerQuery.merge(task.getTaskId().getQueryId().getId(), 1, Integer::sum);
+            task.addScheduledNanos(QUANTA_NANOS);
+            queue.offer(split);
+        }
+        return quantasPerQuery;
+    }
+
+    private PrioritizedSplitRunner createSplit(TaskHandle task)
+    {
+        return new PrioritizedSplitRunner(task, new NoopSplitRunner(), ticker, new CounterStat(), new CounterStat(), new TimeStat(), new TimeStat());
+    }
+
+    private static TaskHandle createTask(SplitQueue queue, String queryId, int taskId, int weight)
+    {
+        return new TaskHandle(
+                new TaskId(queryId, 0, 0, taskId, 0),
+                new TaskPriorityTracker(new QueryId(queryId), queue),
+                () -> 0,
+                1,
+                new Duration(1, SECONDS),
+                OptionalInt.empty(),
+                weight);
+    }
+
+    private static class NoopSplitRunner
+            implements SplitRunner
+    {
+        @Override
+        public boolean isFinished()
+        {
+            return false;
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            return NOT_BLOCKED;
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "noop";
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
@@ -56,6 +56,7 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.operator.UpdateMemory.NOOP;
 import static it.unimi.dsi.fastutil.HashCommon.arraySize;
@@ -102,6 +103,34 @@ public class BenchmarkGroupByHash
         return pageBuilder.build();
     }
 
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public Object flatGroupByHashPreCompute(BenchmarkData data)
+    {
+        GroupByHash groupByHash = new FlatGroupByHash(data.getTypes(), data.getChannels(), data.getHashChannel(), EXPECTED_SIZE, NOOP);
+        for (Page page : data.getPages()) {
+            Work<?> work = groupByHash.addPage(page);
+            boolean finished;
+            do {
+                finished = work.process();
+            }
+            while (!finished);
+        }
+
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        pages.add(pageBuilder.build());
+        return pageBuilder.build();
+    }
+
     @Benchmark
     @OperationsPerInvocation(POSITIONS)
     public List<Page> benchmarkHashPosition(BenchmarkData data)
@@ -174,6 +203,40 @@ public class BenchmarkGroupByHash
         return pageBuilder.build();
     }
 
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public Object packedGroupByHash(PackedBenchmarkData data)
+    {
+        GroupByHash groupByHash;
+        if (data.isPacked()) {
+            groupByHash = new PackedGroupByHash(data.getTypes(), data.getChannels(), false, EXPECTED_SIZE, NOOP);
+        }
+        else {
+            groupByHash = new MultiChannelGroupByHash(data.getTypes(), data.getChannels(), Optional.empty(), EXPECTED_SIZE, false, getJoinCompiler(), NOOP);
+        }
+        for (Page page : data.getPages()) {
+            Work<?> work = groupByHash.addPage(page);
+            boolean finished;
+            do {
+                finished = work.process();
+            }
+            while (!finished);
+        }
+
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        pages.add(pageBuilder.build());
+        return pageBuilder.build();
+    }
+
     @Benchmark
     @OperationsPerInvocation(POSITIONS)
     public long baseline(BaselinePagesData data)
@@ -287,6 +350,27 @@ public class BenchmarkGroupByHash
         return pages.build();
     }
 
+    private static List<Page> createIntegerPages(int positionCount, int groupCount, int channelCount)
+    {
+        List<Type> types = Collections.nCopies(channelCount, INTEGER);
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+
+        PageBuilder pageBuilder = new PageBuilder(types);
+        for (int position = 0; position < positionCount; position++) {
+            int rand = ThreadLocalRandom.current().nextInt(groupCount);
+            pageBuilder.declarePosition();
+            for (int numChannel = 0; numChannel < channelCount; numChannel++) {
+                INTEGER.writeLong(pageBuilder.getBlockBuilder(numChannel), rand + numChannel);
+            }
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        pages.add(pageBuilder.build());
+        return pages.build();
+    }
+
     @SuppressWarnings("FieldMayBeFinal")
     @State(Scope.Thread)
     public static class BaselinePagesData
@@ -423,6 +507,55 @@ public class BenchmarkGroupByHash
         }
     }
 
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class PackedBenchmarkData
+    {
+        @Param({"2", "3"})
+        private int channelCount = 2;
+
+        @Param(GROUP_COUNT_STRING)
+        private int groupCount = GROUP_COUNT;
+
+        @Param({"true", "false"})
+        private boolean packed = true;
+
+        private List<Page> pages;
+        private List<Type> types;
+        private int[] channels;
+
+        @Setup
+        public void setup()
+        {
+            pages = createIntegerPages(POSITIONS, groupCount, channelCount);
+            types = Collections.nCopies(channelCount, INTEGER);
+            channels = new int[channelCount];
+            for (int i = 0; i < channelCount; i++) {
+                channels[i] = i;
+            }
+        }
+
+        public List<Page> getPages()
+        {
+            return pages;
+        }
+
+        public List<Type> getTypes()
+        {
+            return types;
+        }
+
+        public int[] getChannels()
+        {
+            return channels;
+        }
+
+        public boolean isPacked()
+        {
+            return packed;
+        }
+    }
+
     private static JoinCompiler getJoinCompiler()
     {
         return new JoinCompiler(MetadataManager.createTestMetadataManager());
@@ -441,6 +574,10 @@ public class BenchmarkGroupByHash
         singleChannelBenchmarkData.setup();
         new BenchmarkGroupByHash().bigintGroupByHash(singleChannelBenchmarkData);
 
+        PackedBenchmarkData packedBenchmarkData = new PackedBenchmarkData();
+        packedBenchmarkData.setup();
+        new BenchmarkGroupByHash().packedGroupByHash(packedBenchmarkData);
+
         Options options = new OptionsBuilder()
                 .verbosity(VerboseMode.NORMAL)
                 .include(".*" + BenchmarkGroupByHash.class.getSimpleName() + ".*")
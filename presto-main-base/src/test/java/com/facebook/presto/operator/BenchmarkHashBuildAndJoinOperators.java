@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.Session;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.execution.Lifespan;
@@ -53,6 +54,7 @@ import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.SystemSessionProperties.BATCHED_JOIN_PROBE_ENABLED;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
@@ -182,6 +184,9 @@ public class BenchmarkHashBuildAndJoinOperators
         @Param({"bigint", "all"})
         protected String outputColumns = "bigint";
 
+        @Param({"false", "true"})
+        protected boolean batchedProbe;
+
         protected List<Page> probePages;
         protected List<Integer> outputChannels;
 
@@ -211,6 +216,15 @@ public class BenchmarkHashBuildAndJoinOperators
             initializeProbePages();
         }
 
+        @Override
+        public TaskContext createTaskContext()
+        {
+            Session session = Session.builder(TEST_SESSION)
+                    .setSystemProperty(BATCHED_JOIN_PROBE_ENABLED, String.valueOf(batchedProbe))
+                    .build();
+            return TestingTaskContext.createTaskContext(executor, scheduledExecutor, session, new DataSize(2, GIGABYTE));
+        }
+
         public JoinBridgeManager<PartitionedLookupSourceFactory> getLookupSourceFactory()
         {
             return lookupSourceFactory;
@@ -32,6 +32,7 @@ import org.testng.annotations.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.IntStream;
@@ -71,6 +72,8 @@ import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.lang.Float.floatToRawIntBits;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestDynamicFilterSourceOperator
@@ -80,6 +83,7 @@ public class TestDynamicFilterSourceOperator
     private PipelineContext pipelineContext;
 
     private ImmutableList.Builder<TupleDomain<String>> partitions;
+    private ImmutableList.Builder<Map<String, BlockedBloomFilter>> bloomFilterPartitions;
 
     @BeforeMethod
     public void setUp()
@@ -90,6 +94,7 @@ public class TestDynamicFilterSourceOperator
                 .addPipelineContext(0, true, true, false);
 
         partitions = ImmutableList.builder();
+        bloomFilterPartitions = ImmutableList.builder();
     }
 
     @AfterMethod(alwaysRun = true)
@@ -141,6 +146,21 @@ public class TestDynamicFilterSourceOperator
                 useNewNanDefinition);
     }
 
+    private OperatorFactory createOperatorFactoryWithBloomFilter(int maxFilterPositionsCount, int bloomFilterCollectionLimit, DynamicFilterSourceOperator.Channel... buildChannels)
+    {
+        return new DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory(
+                0,
+                new PlanNodeId("PLAN_NODE_ID"),
+                this::consumePredicate,
+                bloomFilterPartitions::add,
+                ImmutableList.copyOf(buildChannels),
+                maxFilterPositionsCount,
+                new DataSize(10, KILOBYTE),
+                1_000_000,
+                bloomFilterCollectionLimit,
+                true);
+    }
+
     private void consumePredicate(TupleDomain<String> partitionPredicate)
     {
         partitions.add(partitionPredicate);
@@ -582,4 +602,122 @@ public class TestDynamicFilterSourceOperator
                         new Page(createLongSequenceBlock(0, maxPositionsCount + 1))),
                 ImmutableList.of(TupleDomain.all()));
     }
+
+    @Test
+    public void testCollectBloomFilterWhenTooManyPositions()
+    {
+        int maxPositionsCount = 100;
+        OperatorFactory operatorFactory = createOperatorFactoryWithBloomFilter(maxPositionsCount, 1_000, channel(0, BIGINT));
+        verifyPassthrough(createOperator(operatorFactory),
+                ImmutableList.of(BIGINT),
+                new Page(createLongSequenceBlock(0, maxPositionsCount)),
+                new Page(createLongSequenceBlock(maxPositionsCount, 3 * maxPositionsCount)));
+        operatorFactory.noMoreOperators();
+
+        assertEquals(partitions.build(), ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "0",
+                Domain.create(ValueSet.ofRanges(range(BIGINT, 0L, true, 3L * maxPositionsCount - 1, true)), false)))));
+
+        List<Map<String, BlockedBloomFilter>> bloomFilters = bloomFilterPartitions.build();
+        assertEquals(bloomFilters.size(), 1);
+        BlockedBloomFilter bloomFilter = bloomFilters.get(0).get("0");
+        assertEquals(bloomFilter.getType(), BIGINT);
+        // values collected before and after the distinct values limit was exceeded
+        Block values = createLongSequenceBlock(0, 3 * maxPositionsCount);
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            assertTrue(bloomFilter.mightContain(values, position));
+        }
+        Block missing = createLongSequenceBlock(1_000_000, 1_001_000);
+        int falsePositives = 0;
+        for (int position = 0; position < missing.getPositionCount(); position++) {
+            if (bloomFilter.mightContain(missing, position)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < missing.getPositionCount() / 10, "too many false positives: " + falsePositives);
+        assertFalse(bloomFilter.mightContain(createLongsBlock((Long) null), 0));
+    }
+
+    @Test
+    public void testBloomFilterMemoryReservation()
+    {
+        int maxPositionsCount = 100;
+        OperatorFactory operatorFactory = createOperatorFactoryWithBloomFilter(maxPositionsCount, 1_000, channel(0, BIGINT));
+        Operator operator = createOperator(operatorFactory);
+        operator.addInput(new Page(createLongSequenceBlock(0, maxPositionsCount)));
+        assertEquals(operator.getOperatorContext().getOperatorStats().getSystemMemoryReservationInBytes(), 0);
+
+        // the bloom filter is created once the distinct values limit is exceeded, and held until the operator finishes
+        operator.getOutput();
+        operator.addInput(new Page(createLongSequenceBlock(maxPositionsCount, 3 * maxPositionsCount)));
+        operator.getOutput();
+        long bloomFilterSizeInBytes = BlockedBloomFilter.create(BIGINT, 1_000).getRetainedSizeInBytes();
+        assertEquals(operator.getOperatorContext().getOperatorStats().getSystemMemoryReservationInBytes(), bloomFilterSizeInBytes);
+
+        operator.finish();
+        assertEquals(operator.getOperatorContext().getOperatorStats().getSystemMemoryReservationInBytes(), 0);
+        operatorFactory.noMoreOperators();
+        assertEquals(bloomFilterPartitions.build().size(), 1);
+    }
+
+    @Test
+    public void testCollectBloomFilterLimit()
+    {
+        int maxPositionsCount = 100;
+        OperatorFactory operatorFactory = createOperatorFactoryWithBloomFilter(maxPositionsCount, 2 * maxPositionsCount, channel(0, BIGINT));
+        verifyPassthrough(createOperator(operatorFactory),
+                ImmutableList.of(BIGINT),
+                new Page(createLongSequenceBlock(0, maxPositionsCount + 1)),
+                new Page(createLongSequenceBlock(0, maxPositionsCount + 1)));
+        operatorFactory.noMoreOperators();
+
+        assertEquals(bloomFilterPartitions.build(), ImmutableList.of(ImmutableMap.of()));
+    }
+
+    @Test
+    public void testBloomFilterForSmallBuildSide()
+    {
+        OperatorFactory operatorFactory = createOperatorFactoryWithBloomFilter(100, 1_000, channel(0, BIGINT));
+        verifyPassthrough(createOperator(operatorFactory),
+                ImmutableList.of(BIGINT),
+                new Page(createLongsBlock(1, 2, 3)));
+        operatorFactory.noMoreOperators();
+
+        // the distinct values are precise, the bloom filter is reported for merging with the other drivers
+        assertEquals(partitions.build(), ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "0",
+                Domain.multipleValues(BIGINT, ImmutableList.of(1L, 2L, 3L))))));
+        List<Map<String, BlockedBloomFilter>> bloomFilters = bloomFilterPartitions.build();
+        assertEquals(bloomFilters.size(), 1);
+        Block values = createLongsBlock(1, 2, 3);
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            assertTrue(bloomFilters.get(0).get("0").mightContain(values, position));
+        }
+    }
+
+    @Test
+    public void testBloomFilterMixedExactAndTooLargePartitions()
+    {
+        int maxPositionsCount = 100;
+        OperatorFactory operatorFactory = createOperatorFactoryWithBloomFilter(maxPositionsCount, 1_000, channel(0, BIGINT));
+        // stays below the distinct values limit
+        verifyPassthrough(createOperator(operatorFactory),
+                ImmutableList.of(BIGINT),
+                new Page(createLongSequenceBlock(10_000, 10_010)));
+        // exceeds the distinct values limit
+        verifyPassthrough(createOperator(operatorFactory),
+                ImmutableList.of(BIGINT),
+                new Page(createLongSequenceBlock(0, 3 * maxPositionsCount)));
+        operatorFactory.noMoreOperators();
+
+        List<Map<String, BlockedBloomFilter>> bloomFilters = bloomFilterPartitions.build();
+        assertEquals(bloomFilters.size(), 2);
+        BlockedBloomFilter merged = bloomFilters.get(0).get("0").union(bloomFilters.get(1).get("0"));
+        // the union must not prune the values of either partition
+        for (Block values : ImmutableList.of(createLongSequenceBlock(10_000, 10_010), createLongSequenceBlock(0, 3 * maxPositionsCount))) {
+            for (int position = 0; position < values.getPositionCount(); position++) {
+                assertTrue(merged.mightContain(values, position));
+            }
+        }
+    }
 }
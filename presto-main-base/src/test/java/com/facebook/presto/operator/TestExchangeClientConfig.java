@@ -43,7 +43,9 @@ public class TestExchangeClientConfig
                 .setPageBufferClientMaxCallbackThreads(25)
                 .setClientThreads(25)
                 .setAcknowledgePages(true)
-                .setResponseSizeExponentialMovingAverageDecayingAlpha(0.1));
+                .setResponseSizeExponentialMovingAverageDecayingAlpha(0.1)
+                .setLocalTransportEnabled(false)
+                .setStreamBatchDelay(new Duration(5, TimeUnit.MILLISECONDS)));
     }
 
     @Test
@@ -60,6 +62,8 @@ public class TestExchangeClientConfig
                 .put("exchange.page-buffer-client.max-callback-threads", "16")
                 .put("exchange.acknowledge-pages", "false")
                 .put("exchange.response-size-exponential-moving-average-decaying-alpha", "0.42")
+                .put("exchange.local-transport-enabled", "true")
+                .put("exchange.stream-batch-delay", "20ms")
                 .build();
 
         ExchangeClientConfig expected = new ExchangeClientConfig()
@@ -72,7 +76,9 @@ public class TestExchangeClientConfig
                 .setClientThreads(2)
                 .setPageBufferClientMaxCallbackThreads(16)
                 .setAcknowledgePages(false)
-                .setResponseSizeExponentialMovingAverageDecayingAlpha(0.42);
+                .setResponseSizeExponentialMovingAverageDecayingAlpha(0.42)
+                .setLocalTransportEnabled(true)
+                .setStreamBatchDelay(new Duration(20, TimeUnit.MILLISECONDS));
 
         assertFullMapping(properties, expected);
     }
@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
+import com.facebook.presto.sql.gen.JoinCompiler;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.block.BlockAssertions.assertBlockEquals;
+import static com.facebook.presto.block.BlockAssertions.createBooleansBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.UpdateMemory.NOOP;
+import static com.facebook.presto.type.TypeUtils.getHashBlock;
+import static com.google.common.math.DoubleMath.log2;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestFlatGroupByHash
+{
+    private static final JoinCompiler JOIN_COMPILER = new JoinCompiler(MetadataManager.createTestMetadataManager());
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, BOOLEAN);
+    private static final int[] CHANNELS = {0, 1, 2};
+
+    @Test
+    public void testSupportedKeyTypes()
+    {
+        assertTrue(FlatGroupByHash.isSupportedKeyTypes(TYPES));
+        assertFalse(FlatGroupByHash.isSupportedKeyTypes(ImmutableList.of(BIGINT, DOUBLE)));
+        assertFalse(FlatGroupByHash.isSupportedKeyTypes(ImmutableList.of()));
+
+        assertTrue(createGroupByHash(TYPES, CHANNELS, Optional.empty(), 100, false, true, JOIN_COMPILER, NOOP) instanceof FlatGroupByHash);
+        assertTrue(createGroupByHash(TYPES, CHANNELS, Optional.empty(), 100, false, false, JOIN_COMPILER, NOOP) instanceof MultiChannelGroupByHash);
+        assertTrue(createGroupByHash(ImmutableList.of(BIGINT, DOUBLE), new int[] {0, 1}, Optional.empty(), 100, false, true, JOIN_COMPILER, NOOP) instanceof MultiChannelGroupByHash);
+    }
+
+    @Test
+    public void testGroupIdsWithNulls()
+    {
+        Page page = new Page(
+                createLongsBlock(1L, 1L, null, 2L, 1L, null, 1L),
+                createStringsBlock("a", "a", "a", null, "b", "a", "a"),
+                createBooleansBlock(true, true, true, false, true, true, false));
+        GroupByHash groupByHash = new FlatGroupByHash(TYPES, CHANNELS, Optional.empty(), 100, NOOP);
+
+        Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+        assertTrue(work.process());
+        GroupByIdBlock groupIds = work.getResult();
+        assertEquals(groupIds.getGroupCount(), 5);
+        long[] expected = {0, 0, 1, 2, 3, 1, 4};
+        for (int position = 0; position < expected.length; position++) {
+            assertEquals(groupIds.getGroupId(position), expected[position]);
+        }
+
+        // round trip the keys through the flat records
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+        }
+        Page output = pageBuilder.build();
+        assertBlockEquals(BIGINT, output.getBlock(0), createLongsBlock(1L, null, 2L, 1L, 1L));
+        assertBlockEquals(VARCHAR, output.getBlock(1), createStringsBlock("a", "a", null, "b", "a"));
+        assertBlockEquals(BOOLEAN, output.getBlock(2), createBooleansBlock(true, true, false, true, false));
+
+        assertEquals(groupByHash.getBufferedPages().get(0).getPositionCount(), 5);
+    }
+
+    @Test
+    public void testMatchesMultiChannelGroupByHash()
+    {
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR);
+        int[] channels = {0, 1};
+        Block longs = createLongSequenceBlock(0, 10_000);
+        Block strings = createStringSequenceBlock(0, 10_000);
+        Block hashBlock = getHashBlock(types, longs, strings);
+        Page page = new Page(longs, strings, hashBlock);
+
+        GroupByHash flat = new FlatGroupByHash(types, channels, Optional.of(2), 4, NOOP);
+        GroupByHash multiChannel = new MultiChannelGroupByHash(types, channels, Optional.of(2), 4, false, JOIN_COMPILER, NOOP);
+        for (int tries = 0; tries < 2; tries++) {
+            assertTrue(flat.addPage(page).process());
+            assertTrue(multiChannel.addPage(page).process());
+        }
+
+        assertEquals(flat.getGroupCount(), multiChannel.getGroupCount());
+        assertEquals(flat.getTypes(), multiChannel.getTypes());
+        for (int groupId = 0; groupId < flat.getGroupCount(); groupId++) {
+            assertEquals(flat.getRawHash(groupId), multiChannel.getRawHash(groupId));
+        }
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            assertTrue(flat.contains(position, page, channels));
+            assertTrue(flat.contains(position, page, channels, hashBlock.getLong(position)));
+        }
+
+        Page missing = new Page(createLongsBlock(1L), createStringsBlock("2"));
+        assertFalse(flat.contains(0, missing, channels));
+    }
+
+    @Test
+    public void testMemoryReservationYield()
+    {
+        int length = 1_000_000;
+        Block valuesBlock = createLongSequenceBlock(0, length);
+        Block stringsBlock = createStringSequenceBlock(0, length);
+        Page page = new Page(valuesBlock, stringsBlock);
+
+        AtomicInteger rehashCount = new AtomicInteger();
+        AtomicInteger allowedRehashes = new AtomicInteger(4);
+        GroupByHash groupByHash = new FlatGroupByHash(ImmutableList.of(BIGINT, VARCHAR), new int[] {0, 1}, Optional.empty(), 1, () -> {
+            if (rehashCount.get() >= allowedRehashes.get()) {
+                return false;
+            }
+            rehashCount.incrementAndGet();
+            return true;
+        });
+
+        Work<?> work = groupByHash.addPage(page);
+        int yields = 0;
+        while (!work.process()) {
+            yields++;
+            allowedRehashes.addAndGet(4);
+        }
+        assertTrue(yields > 0);
+        assertEquals(groupByHash.getGroupCount(), length);
+        // update memory is called twice per rehash, once to reserve and once to release
+        assertEquals(rehashCount.get(), 2 * log2(length / 0.75, RoundingMode.FLOOR));
+    }
+}
@@ -75,7 +75,10 @@ import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.SystemSessionProperties.BATCHED_JOIN_PROBE_ENABLED;
 import static com.facebook.presto.SystemSessionProperties.QUERY_MAX_MEMORY_PER_NODE;
+import static com.facebook.presto.SystemSessionProperties.QUERY_MAX_REVOCABLE_MEMORY_PER_NODE;
+import static com.facebook.presto.SystemSessionProperties.RADIX_PARTITIONED_HASH_BUILD_ENABLED;
 import static com.facebook.presto.SystemSessionProperties.getQueryMaxMemoryPerNode;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
@@ -93,6 +96,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterators.unmodifiableIterator;
 import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.slice.SizeOf.sizeOfIntArray;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.lang.String.format;
@@ -335,6 +339,20 @@ public class TestHashJoinOperator
         innerJoinWithSpill(probeHashEnabled, whenSpill, SINGLE_STREAM_SPILLER_FACTORY, PARTITIONING_SPILLER_FACTORY);
     }
 
+    @Test(dataProvider = "joinWithSpillValues")
+    public void testInnerJoinWithSpillInSubPartitions(boolean probeHashEnabled, List<WhenSpill> whenSpill, boolean isDictionaryProcessingJoinEnabled)
+            throws Exception
+    {
+        // the sub-partitions of a spilled partition fit in the revocable memory together
+        innerJoinWithSpill(probeHashEnabled, whenSpill, SINGLE_STREAM_SPILLER_FACTORY, PARTITIONING_SPILLER_FACTORY, TEST_SESSION, 4);
+
+        // every sub-partition is unspilled separately
+        Session session = Session.builder(TEST_SESSION)
+                .setSystemProperty(QUERY_MAX_REVOCABLE_MEMORY_PER_NODE, "1B")
+                .build();
+        innerJoinWithSpill(probeHashEnabled, whenSpill, SINGLE_STREAM_SPILLER_FACTORY, PARTITIONING_SPILLER_FACTORY, session, 4);
+    }
+
     @Test(dataProvider = "joinWithFailingSpillValues")
     public void testInnerJoinWithFailingSpill(boolean probeHashEnabled, List<WhenSpill> whenSpill, WhenSpillFails whenSpillFails, boolean isDictionaryProcessingJoinEnabled)
             throws Throwable
@@ -375,9 +393,21 @@ public class TestHashJoinOperator
 
     private void innerJoinWithSpill(boolean probeHashEnabled, List<WhenSpill> whenSpill, SingleStreamSpillerFactory buildSpillerFactory, PartitioningSpillerFactory joinSpillerFactory)
             throws Exception
+    {
+        innerJoinWithSpill(probeHashEnabled, whenSpill, buildSpillerFactory, joinSpillerFactory, TEST_SESSION, 1);
+    }
+
+    private void innerJoinWithSpill(
+            boolean probeHashEnabled,
+            List<WhenSpill> whenSpill,
+            SingleStreamSpillerFactory buildSpillerFactory,
+            PartitioningSpillerFactory joinSpillerFactory,
+            Session session,
+            int spillFanout)
+            throws Exception
     {
         TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId("query", 0, 0, 0, 0), executor);
-        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, scheduledExecutor, TEST_SESSION, taskStateMachine);
+        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, scheduledExecutor, session, taskStateMachine);
 
         DriverContext joinDriverContext = taskContext.addPipelineContext(2, true, true, false).addDriverContext();
 
@@ -397,7 +427,7 @@ public class TestHashJoinOperator
                 .addSequencePage(4, 30, 300)
                 .addSequencePage(4, 40, 400);
 
-        BuildSideSetup buildSideSetup = setupBuildSide(true, taskContext, Ints.asList(0), buildPages, Optional.of(filterFunction), true, buildSpillerFactory);
+        BuildSideSetup buildSideSetup = setupBuildSide(true, taskContext, Ints.asList(0), buildPages, Optional.of(filterFunction), true, buildSpillerFactory, false, spillFanout);
         JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactoryManager = buildSideSetup.getLookupSourceFactoryManager();
 
         // probe factory
@@ -966,6 +996,117 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), probeInput, expected, true, getHashChannels(probePages, buildPages));
     }
 
+    @Test(dataProvider = "hashJoinTestValues")
+    public void testProbeOuterJoinWithBatchedProbe(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+    {
+        Session batchedProbeSession = testSessionBuilder()
+                .setSystemProperty(BATCHED_JOIN_PROBE_ENABLED, "true")
+                .build();
+        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, scheduledExecutor, batchedProbeSession);
+
+        InternalJoinFilterFunction filterFunction = new TestInternalJoinFilterFunction((
+                (leftPosition, leftPage, rightPosition, rightPage) -> BIGINT.getLong(leftPage.getBlock(1), leftPosition) != 3));
+
+        // build factory
+        List<Type> buildTypes = ImmutableList.of(VARCHAR, BIGINT);
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), buildTypes)
+                .row("a", 1L)
+                .row("b", 2L)
+                .row("a", 3L)
+                .row(null, 4L)
+                .row("c", 5L)
+                .row("a", 6L);
+        BuildSideSetup buildSideSetup = setupBuildSide(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.of(filterFunction), false, SINGLE_STREAM_SPILLER_FACTORY);
+        JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactory = buildSideSetup.getLookupSourceFactoryManager();
+
+        // probe factory
+        List<Type> probeTypes = ImmutableList.of(VARCHAR);
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), probeTypes);
+        List<Page> probeInput = probePages
+                .row("a")
+                .row((String) null)
+                .row("b")
+                .row("d")
+                .pageBreak()
+                .row("c")
+                .row("a")
+                .build();
+        OperatorFactory joinOperatorFactory = probeOuterJoinOperatorFactory(lookupSourceFactory, probePages);
+
+        // build drivers and operators
+        instantiateBuildDrivers(buildSideSetup, taskContext);
+        buildLookupSource(buildSideSetup);
+
+        // expected
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes))
+                .row("a", "a", 6L)
+                .row("a", "a", 1L)
+                .row(null, null, null)
+                .row("b", "b", 2L)
+                .row("d", null, null)
+                .row("c", "c", 5L)
+                .row("a", "a", 6L)
+                .row("a", "a", 1L)
+                .build();
+
+        assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), probeInput, expected, true, getHashChannels(probePages, buildPages));
+    }
+
+    @Test(dataProvider = "hashJoinTestValues")
+    public void testInnerJoinWithRadixPartitionedBuild(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+    {
+        Session radixBuildSession = testSessionBuilder()
+                .setSystemProperty(RADIX_PARTITIONED_HASH_BUILD_ENABLED, "true")
+                .build();
+        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, scheduledExecutor, radixBuildSession);
+
+        // build factory, large enough for the hash table to span multiple radix partitions, with every key present twice
+        List<Type> buildTypes = ImmutableList.of(BIGINT, BIGINT);
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), buildTypes)
+                .addSequencePage(100_000, 0, 0)
+                .addSequencePage(100_000, 0, 1_000_000);
+        BuildSideSetup buildSideSetup = setupBuildSide(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty(), false, SINGLE_STREAM_SPILLER_FACTORY);
+        JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactory = buildSideSetup.getLookupSourceFactoryManager();
+
+        // probe factory
+        List<Type> probeTypes = ImmutableList.of(BIGINT);
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), probeTypes);
+        List<Page> probeInput = probePages
+                .addSequencePage(1000, 99_500)
+                .build();
+        OperatorFactory joinOperatorFactory = innerJoinOperatorFactory(lookupSourceFactory, probePages, PARTITIONING_SPILLER_FACTORY);
+
+        // build drivers and operators
+        instantiateBuildDrivers(buildSideSetup, taskContext);
+        buildLookupSource(buildSideSetup);
+
+        // expected, the rows with the same key are returned in the same order as with the sequential build
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes));
+        for (long key = 99_500; key < 100_000; key++) {
+            expected.row(key, key, 1_000_000 + key);
+            expected.row(key, key, key);
+        }
+
+        assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), probeInput, expected.build(), true, getHashChannels(probePages, buildPages));
+    }
+
+    @Test
+    public void testRadixPartitionedBuildSizeInBytes()
+    {
+        // 200_000 positions need a hash table of 2^19 slots, which spans 16 radix partitions
+        int positionCount = 200_000;
+        int partitionCount = (1 << 19) / PagesHash.RADIX_PARTITION_SLOTS;
+        assertEquals(partitionCount, 16);
+
+        // the slots and the scattered positions of every position, and the offsets of the partitions
+        long buildArraysSize = 2 * sizeOfIntArray(positionCount) + sizeOfIntArray(partitionCount + 1);
+        assertEquals(PagesHash.getEstimatedBuildSizeInBytes(positionCount, true), buildArraysSize);
+
+        // the sequential build and a hash table within a single partition do not allocate the arrays
+        assertEquals(PagesHash.getEstimatedBuildSizeInBytes(positionCount, false), 0);
+        assertEquals(PagesHash.getEstimatedBuildSizeInBytes(1000, true), 0);
+    }
+
     @Test(dataProvider = "hashJoinTestValues")
     public void testOuterJoinWithNullProbeAndFilterFunction(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
     {
@@ -1542,6 +1683,21 @@ public class TestHashJoinOperator
             boolean spillEnabled,
             SingleStreamSpillerFactory singleStreamSpillerFactory,
             boolean enforceBroadcastMemoryLimit)
+    {
+        return setupBuildSide(parallelBuild, taskContext, hashChannels, buildPages,
+                filterFunction, spillEnabled, singleStreamSpillerFactory, enforceBroadcastMemoryLimit, 1);
+    }
+
+    private BuildSideSetup setupBuildSide(
+            boolean parallelBuild,
+            TaskContext taskContext,
+            List<Integer> hashChannels,
+            RowPagesBuilder buildPages,
+            Optional<InternalJoinFilterFunction> filterFunction,
+            boolean spillEnabled,
+            SingleStreamSpillerFactory singleStreamSpillerFactory,
+            boolean enforceBroadcastMemoryLimit,
+            int spillFanout)
     {
         Optional<JoinFilterFunctionFactory> filterFunctionFactory = filterFunction
                 .map(function -> (session, addresses, pages) -> new StandardJoinFilterFunction(function, addresses, pages));
@@ -1587,7 +1743,8 @@ public class TestHashJoinOperator
                         .collect(toImmutableList()),
                 partitionCount,
                 requireNonNull(ImmutableMap.of(), "layout is null"),
-                false));
+                false,
+                spillFanout));
 
         HashBuilderOperatorFactory buildOperatorFactory = new HashBuilderOperatorFactory(
                 1,
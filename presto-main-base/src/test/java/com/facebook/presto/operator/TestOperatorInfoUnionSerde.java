@@ -129,6 +129,8 @@ public class TestOperatorInfoUnionSerde
         assertThat(pageBufferClientStatus.getLastUpdate()).isEqualTo(new DateTime(2022, 10, 28, 16, 7, 15, 0));
         assertThat(pageBufferClientStatus.getRowsReceived()).isEqualTo(7174L);
         assertThat(pageBufferClientStatus.getPagesReceived()).isEqualTo(612);
+        assertThat(pageBufferClientStatus.getBytesReceived()).isEqualTo(58193L);
+        assertThat(pageBufferClientStatus.getAverageBytesPerSecond()).isEqualTo(1024L);
         assertThat(pageBufferClientStatus.getRowsRejected()).isEqualTo(OptionalLong.of(93L));
         assertThat(pageBufferClientStatus.getPagesRejected()).isEqualTo(OptionalInt.of(12));
         assertThat(pageBufferClientStatus.getRequestsScheduled()).isEqualTo(2);
@@ -152,6 +154,8 @@ public class TestOperatorInfoUnionSerde
                         new DateTime(2022, 10, 28, 16, 7, 15, 0).getMillis(),
                         7174L,
                         612,
+                        58193L,
+                        1024L,
                         OptionalLong.of(93L),
                         OptionalInt.of(12),
                         2,
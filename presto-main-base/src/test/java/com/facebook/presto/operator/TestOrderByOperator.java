@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.spi.plan.PlanNodeId;
@@ -21,6 +22,7 @@ import com.facebook.presto.sql.gen.OrderingCompiler;
 import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.TestingTaskContext;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import org.testng.annotations.AfterMethod;
@@ -28,6 +30,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -52,6 +55,9 @@ import static java.lang.String.format;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
@@ -128,6 +134,138 @@ public class TestOrderByOperator
                 format("Spill state mismatch. Expected spill: %s, spill count: %s", spillEnabled, spillerFactory.getSpillsCount()));
     }
 
+    @Test(dataProvider = "spillEnabled")
+    public void testParallelSort(boolean spillEnabled, boolean revokeMemoryWhenAddingPages, long memoryLimit)
+    {
+        // enough rows for multiple runs, in an order that interleaves the values of all runs
+        int numberOfRows = 4 * OrderByOperator.MIN_PARALLEL_SORT_RUN_POSITIONS + 1000;
+        RowPagesBuilder inputBuilder = rowPagesBuilder(BIGINT, DOUBLE);
+        for (int i = 0; i < numberOfRows; i++) {
+            long value = (i * 7919L) % numberOfRows;
+            inputBuilder.row(value, (double) value);
+            if (i % 10_000 == 0) {
+                inputBuilder.pageBreak();
+            }
+        }
+
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                ImmutableList.of(1),
+                10,
+                ImmutableList.of(0),
+                ImmutableList.of(ASC_NULLS_LAST),
+                new PagesIndex.TestingFactory(false),
+                spillEnabled,
+                Optional.of(spillerFactory),
+                new OrderingCompiler(),
+                4,
+                executor);
+
+        DriverContext driverContext = createDriverContext(memoryLimit);
+        MaterializedResult.Builder expectedBuilder = resultBuilder(driverContext.getSession(), DOUBLE);
+        for (int i = 0; i < numberOfRows; i++) {
+            expectedBuilder.row((double) i);
+        }
+        MaterializedResult expected = expectedBuilder.build();
+
+        List<Page> pages = toPages(operatorFactory, driverContext, inputBuilder.build(), revokeMemoryWhenAddingPages);
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), expected.getTypes(), pages);
+        assertEquals(actual.getMaterializedRows(), expected.getMaterializedRows());
+    }
+
+    @Test
+    public void testParallelSortDoesNotBlockDriverThread()
+            throws Exception
+    {
+        int numberOfRows = 2 * OrderByOperator.MIN_PARALLEL_SORT_RUN_POSITIONS;
+        List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
+                .addSequencePage(numberOfRows, 0, 0)
+                .build();
+
+        // runs the sorts only when asked to
+        List<Runnable> queuedSorts = new ArrayList<>();
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                ImmutableList.of(1),
+                10,
+                ImmutableList.of(0),
+                ImmutableList.of(DESC_NULLS_LAST),
+                new PagesIndex.TestingFactory(false),
+                false,
+                Optional.empty(),
+                new OrderingCompiler(),
+                2,
+                queuedSorts::add);
+
+        DriverContext driverContext = createDriverContext(0);
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            input.forEach(operator::addInput);
+            operator.finish();
+
+            // the driver sorted its own run, and waits for the other one without holding the thread
+            assertEquals(queuedSorts.size(), 1);
+            assertFalse(operator.isBlocked().isDone());
+            assertNull(operator.getOutput());
+
+            queuedSorts.forEach(Runnable::run);
+            assertTrue(operator.isBlocked().isDone());
+
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
+            while (!operator.isFinished()) {
+                Page page = operator.getOutput();
+                if (page != null) {
+                    pages.add(page);
+                }
+            }
+            MaterializedResult.Builder expectedBuilder = resultBuilder(driverContext.getSession(), DOUBLE);
+            for (int i = 0; i < numberOfRows; i++) {
+                expectedBuilder.row((double) numberOfRows - i - 1);
+            }
+            MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.of(DOUBLE), pages.build());
+            assertEquals(actual.getMaterializedRows(), expectedBuilder.build().getMaterializedRows());
+        }
+    }
+
+    @Test
+    public void testCloseCancelsQueuedSortRuns()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
+                .addSequencePage(2 * OrderByOperator.MIN_PARALLEL_SORT_RUN_POSITIONS, 0, 0)
+                .build();
+
+        List<Runnable> queuedSorts = new ArrayList<>();
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                ImmutableList.of(1),
+                10,
+                ImmutableList.of(0),
+                ImmutableList.of(DESC_NULLS_LAST),
+                new PagesIndex.TestingFactory(false),
+                false,
+                Optional.empty(),
+                new OrderingCompiler(),
+                2,
+                queuedSorts::add);
+
+        Operator operator = operatorFactory.createOperator(createDriverContext(0));
+        input.forEach(operator::addInput);
+        operator.finish();
+        ListenableFuture<?> blocked = operator.isBlocked();
+        assertEquals(queuedSorts.size(), 1);
+
+        // the queued run must not sort the cleared index once the executor gets to it
+        operator.close();
+        assertTrue(blocked.isDone());
+        queuedSorts.forEach(Runnable::run);
+    }
+
     @Test(dataProvider = "spillEnabled")
     public void testSingleFieldKey(boolean spillEnabled, boolean revokeMemoryWhenAddingPages, long memoryLimit)
     {
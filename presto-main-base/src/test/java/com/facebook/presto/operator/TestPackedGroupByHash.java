@@ -0,0 +1,330 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.DecimalType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
+import com.facebook.presto.sql.gen.JoinCompiler;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.block.BlockAssertions.assertBlockEquals;
+import static com.facebook.presto.block.BlockAssertions.createBooleansBlock;
+import static com.facebook.presto.block.BlockAssertions.createIntsBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createRandomBlockForType;
+import static com.facebook.presto.block.BlockAssertions.createTypedLongsBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DecimalType.createDecimalType;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.UpdateMemory.NOOP;
+import static com.facebook.presto.type.TypeUtils.getHashBlock;
+import static com.google.common.math.DoubleMath.log2;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestPackedGroupByHash
+{
+    private static final JoinCompiler JOIN_COMPILER = new JoinCompiler(MetadataManager.createTestMetadataManager());
+    private static final DecimalType SHORT_DECIMAL = createDecimalType(10, 2);
+
+    @Test
+    public void testSupportedKeyTypes()
+    {
+        assertTrue(PackedGroupByHash.isSupportedKeyTypes(ImmutableList.of(INTEGER, DATE, INTEGER)));
+        assertTrue(PackedGroupByHash.isSupportedKeyTypes(ImmutableList.of(BIGINT, INTEGER, SMALLINT, TINYINT, BOOLEAN)));
+        // two longs leave no room for their null flags
+        assertFalse(PackedGroupByHash.isSupportedKeyTypes(ImmutableList.of(BIGINT, BIGINT)));
+        assertFalse(PackedGroupByHash.isSupportedKeyTypes(ImmutableList.of(INTEGER, DOUBLE)));
+        assertFalse(PackedGroupByHash.isSupportedKeyTypes(ImmutableList.of(INTEGER, VARCHAR)));
+        assertFalse(PackedGroupByHash.isSupportedKeyTypes(ImmutableList.of(createDecimalType(20, 2))));
+        assertFalse(PackedGroupByHash.isSupportedKeyTypes(ImmutableList.of()));
+
+        assertTrue(createGroupByHash(ImmutableList.of(BIGINT, INTEGER), new int[] {0, 1}, Optional.empty(), 100, false, JOIN_COMPILER, NOOP) instanceof PackedGroupByHash);
+        assertTrue(createGroupByHash(ImmutableList.of(BIGINT, BIGINT), new int[] {0, 1}, Optional.empty(), 100, false, JOIN_COMPILER, NOOP) instanceof MultiChannelGroupByHash);
+        assertTrue(createGroupByHash(ImmutableList.of(BIGINT), new int[] {0}, Optional.empty(), 100, false, JOIN_COMPILER, NOOP) instanceof BigintGroupByHash);
+
+        // dictionary processing and an explicitly enabled FlatGroupByHash take precedence
+        assertTrue(createGroupByHash(ImmutableList.of(BIGINT, INTEGER), new int[] {0, 1}, Optional.empty(), 100, true, JOIN_COMPILER, NOOP) instanceof MultiChannelGroupByHash);
+        assertTrue(createGroupByHash(ImmutableList.of(BIGINT, INTEGER), new int[] {0, 1}, Optional.empty(), 100, false, true, JOIN_COMPILER, NOOP) instanceof FlatGroupByHash);
+    }
+
+    @Test
+    public void testWidthBoundary()
+    {
+        // 64 + 32 + 16 + 8 + 1 + 1 value bits and 6 null flags fill both longs exactly
+        List<Type> types = ImmutableList.of(BIGINT, INTEGER, SMALLINT, TINYINT, BOOLEAN, BOOLEAN);
+        assertTrue(PackedGroupByHash.isSupportedKeyTypes(types));
+        List<Type> tooWide = ImmutableList.<Type>builder().addAll(types).add(BOOLEAN).build();
+        assertFalse(PackedGroupByHash.isSupportedKeyTypes(tooWide));
+        assertTrue(createGroupByHash(tooWide, new int[] {0, 1, 2, 3, 4, 5, 6}, Optional.empty(), 100, false, JOIN_COMPILER, NOOP) instanceof MultiChannelGroupByHash);
+
+        assertMatchesMultiChannelGroupByHash(types);
+    }
+
+    @Test
+    public void testNullFlags()
+    {
+        // a null key must not collide with the zero value that is packed in its place
+        List<Type> types = ImmutableList.of(INTEGER, DATE, BOOLEAN);
+        Page page = new Page(
+                createIntsBlock(0, null, 0, 0, null, null, 0),
+                createTypedLongsBlock(DATE, Arrays.asList(0L, 0L, null, 0L, null, null, 0L)),
+                createBooleansBlock(false, false, false, null, false, null, false));
+        GroupByHash groupByHash = new PackedGroupByHash(types, new int[] {0, 1, 2}, false, 100, NOOP);
+
+        Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+        assertTrue(work.process());
+        GroupByIdBlock groupIds = work.getResult();
+        assertEquals(groupIds.getGroupCount(), 6);
+        long[] expected = {0, 1, 2, 3, 4, 5, 0};
+        for (int position = 0; position < expected.length; position++) {
+            assertEquals(groupIds.getGroupId(position), expected[position]);
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+        }
+        Page output = pageBuilder.build();
+        assertBlockEquals(INTEGER, output.getBlock(0), createIntsBlock(0, null, 0, 0, null, null));
+        assertBlockEquals(DATE, output.getBlock(1), createTypedLongsBlock(DATE, Arrays.asList(0L, 0L, null, 0L, null, null)));
+        assertBlockEquals(BOOLEAN, output.getBlock(2), createBooleansBlock(false, false, false, null, false, null));
+    }
+
+    @Test
+    public void testMixedIntegerDateBigintKeys()
+    {
+        assertMatchesMultiChannelGroupByHash(ImmutableList.of(INTEGER, DATE, INTEGER));
+        assertMatchesMultiChannelGroupByHash(ImmutableList.of(DATE, BIGINT));
+        assertMatchesMultiChannelGroupByHash(ImmutableList.of(BIGINT, INTEGER));
+        assertMatchesMultiChannelGroupByHash(ImmutableList.of(DATE, BIGINT, SMALLINT, BOOLEAN));
+        // 64 + 32 + 32 value bits leave no room for the null flags
+        assertFalse(PackedGroupByHash.isSupportedKeyTypes(ImmutableList.of(INTEGER, DATE, BIGINT)));
+    }
+
+    @Test
+    public void testGroupIdsWithNulls()
+    {
+        List<Type> types = ImmutableList.of(BIGINT, INTEGER, TINYINT, BOOLEAN);
+        Page page = new Page(
+                createLongsBlock(-1L, -1L, null, Long.MIN_VALUE, -1L, null, -1L),
+                createIntsBlock(-5, -5, 0, null, Integer.MAX_VALUE, 0, -5),
+                createTypedLongsBlock(TINYINT, Arrays.asList(-128L, -128L, 0L, 127L, null, 0L, -128L)),
+                createBooleansBlock(true, true, false, null, true, false, false));
+        GroupByHash groupByHash = new PackedGroupByHash(types, new int[] {0, 1, 2, 3}, false, 100, NOOP);
+
+        Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+        assertTrue(work.process());
+        GroupByIdBlock groupIds = work.getResult();
+        assertEquals(groupIds.getGroupCount(), 5);
+        long[] expected = {0, 0, 1, 2, 3, 1, 4};
+        for (int position = 0; position < expected.length; position++) {
+            assertEquals(groupIds.getGroupId(position), expected[position]);
+        }
+
+        // negative values have to be sign extended when unpacked
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+        }
+        Page output = pageBuilder.build();
+        assertBlockEquals(BIGINT, output.getBlock(0), createLongsBlock(-1L, null, Long.MIN_VALUE, -1L, -1L));
+        assertBlockEquals(INTEGER, output.getBlock(1), createIntsBlock(-5, 0, null, Integer.MAX_VALUE, -5));
+        assertBlockEquals(TINYINT, output.getBlock(2), createTypedLongsBlock(TINYINT, Arrays.asList(-128L, 0L, 127L, null, -128L)));
+        assertBlockEquals(BOOLEAN, output.getBlock(3), createBooleansBlock(true, false, null, true, false));
+
+        assertEquals(groupByHash.getBufferedPages().get(0).getPositionCount(), 5);
+    }
+
+    @Test
+    public void testMatchesMultiChannelGroupByHash()
+    {
+        List<Type> types = ImmutableList.of(INTEGER, SMALLINT, SHORT_DECIMAL, BOOLEAN);
+        int[] channels = {0, 1, 2, 3};
+        Block[] blocks = new Block[types.size()];
+        for (int i = 0; i < types.size(); i++) {
+            blocks[i] = createRandomBlockForType(types.get(i), 10_000, 0.1f, 0.0f, false, ImmutableList.of());
+        }
+        Block hashBlock = getHashBlock(types, blocks);
+        Page page = new Page(blocks).appendColumn(hashBlock);
+
+        GroupByHash packed = new PackedGroupByHash(types, channels, true, 4, NOOP);
+        GroupByHash multiChannel = new MultiChannelGroupByHash(types, channels, Optional.of(4), 4, false, JOIN_COMPILER, NOOP);
+        for (int tries = 0; tries < 2; tries++) {
+            assertTrue(packed.addPage(page).process());
+            assertTrue(multiChannel.addPage(page).process());
+        }
+
+        assertEquals(packed.getGroupCount(), multiChannel.getGroupCount());
+        assertEquals(packed.getTypes(), multiChannel.getTypes());
+        for (int groupId = 0; groupId < packed.getGroupCount(); groupId++) {
+            assertEquals(packed.getRawHash(groupId), multiChannel.getRawHash(groupId));
+        }
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            assertTrue(packed.contains(position, page, channels));
+        }
+
+        // the raw hash output column matches the precomputed hash
+        Work<GroupByIdBlock> work = packed.getGroupIds(page);
+        assertTrue(work.process());
+        GroupByIdBlock groupIds = work.getResult();
+        PageBuilder pageBuilder = new PageBuilder(packed.getTypes());
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            pageBuilder.declarePosition();
+            packed.appendValuesTo((int) groupIds.getGroupId(position), pageBuilder, 0);
+        }
+        Page output = pageBuilder.build();
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            assertEquals(BIGINT.getLong(output.getBlock(4), position), BIGINT.getLong(hashBlock, position));
+        }
+    }
+
+    @Test
+    public void testMemoryReservationYield()
+    {
+        int length = 1_000_000;
+        Block valuesBlock = createLongSequenceBlock(0, length);
+        Block booleansBlock = createBooleansBlock(true, length);
+        Page page = new Page(valuesBlock, booleansBlock);
+
+        AtomicInteger rehashCount = new AtomicInteger();
+        AtomicInteger allowedRehashes = new AtomicInteger(4);
+        GroupByHash groupByHash = new PackedGroupByHash(ImmutableList.of(BIGINT, BOOLEAN), new int[] {0, 1}, false, 1, () -> {
+            if (rehashCount.get() >= allowedRehashes.get()) {
+                return false;
+            }
+            rehashCount.incrementAndGet();
+            return true;
+        });
+
+        Work<?> work = groupByHash.addPage(page);
+        int yields = 0;
+        while (!work.process()) {
+            yields++;
+            allowedRehashes.addAndGet(4);
+        }
+        assertTrue(yields > 0);
+        assertEquals(groupByHash.getGroupCount(), length);
+        // update memory is called twice per rehash, once to reserve and once to release
+        assertEquals(rehashCount.get(), 2 * log2(length / 0.75, RoundingMode.FLOOR));
+    }
+
+    private static void assertMatchesMultiChannelGroupByHash(List<Type> types)
+    {
+        int positionCount = 10_000;
+        Random random = new Random(types.hashCode());
+        int[] channels = new int[types.size()];
+        Block[] blocks = new Block[types.size()];
+        for (int i = 0; i < types.size(); i++) {
+            channels[i] = i;
+            blocks[i] = createLowCardinalityBlock(types.get(i), positionCount, random);
+        }
+        Page page = new Page(blocks).appendColumn(getHashBlock(types, blocks));
+
+        GroupByHash packed = new PackedGroupByHash(types, channels, true, 4, NOOP);
+        GroupByHash multiChannel = new MultiChannelGroupByHash(types, channels, Optional.of(types.size()), 4, false, JOIN_COMPILER, NOOP);
+        Work<GroupByIdBlock> packedWork = packed.getGroupIds(page);
+        Work<GroupByIdBlock> multiChannelWork = multiChannel.getGroupIds(page);
+        assertTrue(packedWork.process());
+        assertTrue(multiChannelWork.process());
+        GroupByIdBlock packedGroupIds = packedWork.getResult();
+        GroupByIdBlock multiChannelGroupIds = multiChannelWork.getResult();
+        for (int position = 0; position < positionCount; position++) {
+            assertEquals(packedGroupIds.getGroupId(position), multiChannelGroupIds.getGroupId(position));
+        }
+
+        assertEquals(packed.getGroupCount(), multiChannel.getGroupCount());
+        PageBuilder packedOutput = new PageBuilder(packed.getTypes());
+        PageBuilder multiChannelOutput = new PageBuilder(multiChannel.getTypes());
+        for (int groupId = 0; groupId < packed.getGroupCount(); groupId++) {
+            assertEquals(packed.getRawHash(groupId), multiChannel.getRawHash(groupId));
+            packedOutput.declarePosition();
+            packed.appendValuesTo(groupId, packedOutput, 0);
+            multiChannelOutput.declarePosition();
+            multiChannel.appendValuesTo(groupId, multiChannelOutput, 0);
+        }
+        Page expected = multiChannelOutput.build();
+        Page actual = packedOutput.build();
+        for (int channel = 0; channel < packed.getTypes().size(); channel++) {
+            assertBlockEquals(packed.getTypes().get(channel), actual.getBlock(channel), expected.getBlock(channel));
+        }
+    }
+
+    private static Block createLowCardinalityBlock(Type type, int positionCount, Random random)
+    {
+        // the minimum and maximum values exercise sign extension and the full width of every field
+        long minValue;
+        long maxValue;
+        if (type.equals(BIGINT)) {
+            minValue = Long.MIN_VALUE;
+            maxValue = Long.MAX_VALUE;
+        }
+        else if (type.equals(INTEGER) || type.equals(DATE)) {
+            minValue = Integer.MIN_VALUE;
+            maxValue = Integer.MAX_VALUE;
+        }
+        else if (type.equals(SMALLINT)) {
+            minValue = Short.MIN_VALUE;
+            maxValue = Short.MAX_VALUE;
+        }
+        else if (type.equals(TINYINT)) {
+            minValue = Byte.MIN_VALUE;
+            maxValue = Byte.MAX_VALUE;
+        }
+        else {
+            minValue = 0;
+            maxValue = 1;
+        }
+        long[] values = {minValue, maxValue, 0, 1, -1};
+
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            if (random.nextInt(10) == 0) {
+                blockBuilder.appendNull();
+            }
+            else if (type.equals(BOOLEAN)) {
+                BOOLEAN.writeBoolean(blockBuilder, random.nextBoolean());
+            }
+            else {
+                type.writeLong(blockBuilder, values[random.nextInt(values.length)]);
+            }
+        }
+        return blockBuilder.build();
+    }
+}
@@ -14,6 +14,8 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.SortOrder;
 import com.facebook.presto.common.type.Type;
 import com.google.common.collect.ImmutableList;
 import org.testng.annotations.Test;
@@ -22,8 +24,29 @@ import java.util.Arrays;
 import java.util.List;
 
 import static com.facebook.presto.SequencePageBuilder.createSequencePage;
+import static com.facebook.presto.block.BlockAssertions.createBlockOfReals;
+import static com.facebook.presto.block.BlockAssertions.createDoublesBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createRandomBooleansBlock;
+import static com.facebook.presto.block.BlockAssertions.createRandomIntsBlock;
+import static com.facebook.presto.block.BlockAssertions.createRandomLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createRandomShortDecimalsBlock;
+import static com.facebook.presto.block.BlockAssertions.createRandomSmallintsBlock;
+import static com.facebook.presto.block.BlockAssertions.createRandomStringBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.common.block.SortOrder.ASC_NULLS_LAST;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DecimalType.createDecimalType;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static java.lang.Double.NEGATIVE_INFINITY;
+import static java.lang.Double.NaN;
+import static java.lang.Double.POSITIVE_INFINITY;
 import static java.lang.String.format;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
@@ -82,6 +105,42 @@ public class TestPagesIndex
         assertEquals(lazyCompactPagesIndex.getEstimatedSize(), eagerCompactPagesIndex.getEstimatedSize());
     }
 
+    @Test
+    public void testNormalizedKeySort()
+    {
+        assertNormalizedKeySort(BIGINT, createRandomLongsBlock(1000, 0.1f));
+        assertNormalizedKeySort(BIGINT, createLongsBlock(Long.MIN_VALUE, Long.MAX_VALUE, null, -1L, 0L, Long.MIN_VALUE, null, Long.MAX_VALUE));
+        assertNormalizedKeySort(INTEGER, createRandomIntsBlock(1000, 0.1f));
+        assertNormalizedKeySort(SMALLINT, createRandomSmallintsBlock(1000, 0.1f));
+        assertNormalizedKeySort(BOOLEAN, createRandomBooleansBlock(1000, 0.1f));
+        assertNormalizedKeySort(createDecimalType(10, 2), createRandomShortDecimalsBlock(1000, 0.1f));
+        // random bits include NaNs with different bit patterns
+        assertNormalizedKeySort(REAL, createRandomIntsBlock(1000, 0.1f));
+        assertNormalizedKeySort(REAL, createBlockOfReals(0.0f, -0.0f, null, Float.NaN, -1.0f, 0.0f, Float.NEGATIVE_INFINITY));
+        assertNormalizedKeySort(DOUBLE, createDoublesBlock(NaN, -0.0, 0.0, null, NEGATIVE_INFINITY, POSITIVE_INFINITY, -1.5, 1.5, Double.MIN_VALUE, -Double.MAX_VALUE, NaN, 0.0));
+        assertNormalizedKeySort(VARCHAR, createRandomStringBlock(1000, 0.1f, 20));
+        // strings that are equal in the first 8 bytes or shorter than 8 bytes
+        assertNormalizedKeySort(VARCHAR, createStringsBlock("abcdefghij", "abcdefghi", "abcdefgh", "abcdefgh\0", "abc", "ab\u00ff", "", null, "\u00ff\u00ff", "abcdefghijk", "abc\0", "abcdefghij"));
+    }
+
+    private static void assertNormalizedKeySort(Type type, Block block)
+    {
+        List<Type> types = ImmutableList.of(type, BIGINT);
+        // the unique second key makes the order of the rows deterministic
+        Page page = new Page(block, createLongSequenceBlock(0, block.getPositionCount()));
+        for (SortOrder sortOrder : SortOrder.values()) {
+            PagesIndex expected = new PagesIndex.TestingFactory(false).newPagesIndex(types, 10);
+            PagesIndex actual = new PagesIndex.TestingFactory(false, true).newPagesIndex(types, 10);
+            expected.addPage(page);
+            actual.addPage(page);
+            expected.sort(ImmutableList.of(0, 1), ImmutableList.of(sortOrder, ASC_NULLS_LAST));
+            actual.sort(ImmutableList.of(0, 1), ImmutableList.of(sortOrder, ASC_NULLS_LAST));
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                assertEquals(actual.getLong(1, position), expected.getLong(1, position), format("%s %s position %s", type, sortOrder, position));
+            }
+        }
+    }
+
     private static PagesIndex newPagesIndex(List<Type> types, int expectedPositions, boolean eagerCompact)
     {
         return new PagesIndex.TestingFactory(eagerCompact).newPagesIndex(types, expectedPositions);
@@ -20,10 +20,12 @@ import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.GenericPartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 import org.testng.annotations.AfterClass;
@@ -31,11 +33,14 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static com.facebook.airlift.testing.Assertions.assertGreaterThan;
@@ -46,11 +51,13 @@ import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.createPagesWithDistinctHashKeys;
 import static com.facebook.presto.operator.GroupByHashYieldAssertion.finishOperatorWithYieldingGroupByHash;
+import static com.facebook.presto.operator.OperatorAssertion.finishOperator;
 import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.operator.OperatorAssertion.toPages;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.Math.min;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
@@ -374,6 +381,111 @@ public class TestRowNumberOperator
         assertEquals(Sets.intersection(expectedRowsSet, actualSet).size(), 3);
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testRowNumberPartitionedWithSpill(boolean hashEnabled)
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT, DOUBLE);
+        for (int page = 0; page < 5; page++) {
+            rowPagesBuilder.addSequencePage(100, page * 20, 0);
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        for (Optional<Integer> maxRowsPerPartition : ImmutableList.of(Optional.<Integer>empty(), Optional.of(3))) {
+            DriverContext driverContext = getDriverContext();
+            DummySingleStreamSpillerFactory spillerFactory = new DummySingleStreamSpillerFactory();
+            RowNumberOperator.RowNumberOperatorFactory operatorFactory = new RowNumberOperator.RowNumberOperatorFactory(
+                    0,
+                    new PlanNodeId("test"),
+                    rowPagesBuilder.getTypes(),
+                    Ints.asList(0, 1),
+                    Ints.asList(0),
+                    ImmutableList.of(BIGINT),
+                    maxRowsPerPartition,
+                    rowPagesBuilder.getHashChannel(),
+                    10,
+                    joinCompiler,
+                    true,
+                    new GenericPartitioningSpillerFactory(spillerFactory));
+
+            // the memory is revoked after the first page, so the other pages are numbered after they are unspilled
+            List<Page> pages = toPages(operatorFactory, driverContext, input);
+            assertGreaterThan(spillerFactory.getSpillsCount(), 0L);
+            assertRowNumbers(pages, input, maxRowsPerPartition);
+        }
+    }
+
+    @Test
+    public void testMemoryRevokeWhileNumberingPage()
+            throws Exception
+    {
+        DriverContext driverContext = getDriverContext();
+        List<Page> input = rowPagesBuilder(BIGINT, DOUBLE)
+                .addSequencePage(100, 0, 0)
+                .addSequencePage(100, 50, 0)
+                .build();
+
+        RowNumberOperator.RowNumberOperatorFactory operatorFactory = new RowNumberOperator.RowNumberOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                Ints.asList(0, 1),
+                Ints.asList(0),
+                ImmutableList.of(BIGINT),
+                Optional.empty(),
+                Optional.empty(),
+                10,
+                joinCompiler,
+                true,
+                new GenericPartitioningSpillerFactory(new DummySingleStreamSpillerFactory()));
+
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
+            operator.addInput(input.get(0));
+            pages.add(operator.getOutput());
+
+            // the partitions of the second page are in the hash, but its rows are not numbered yet
+            operator.addInput(input.get(1));
+            getFutureValue(operator.startMemoryRevoke());
+            operator.finishMemoryRevoke();
+
+            pages.addAll(finishOperator(operator));
+            assertRowNumbers(pages.build(), input, Optional.empty());
+        }
+    }
+
+    private static void assertRowNumbers(List<Page> pages, List<Page> input, Optional<Integer> maxRowsPerPartition)
+    {
+        Map<Long, Integer> rowCounts = new HashMap<>();
+        for (Page page : input) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                rowCounts.merge(BIGINT.getLong(page.getBlock(0), position), 1, Integer::sum);
+            }
+        }
+
+        Map<Long, ImmutableSortedSet.Builder<Long>> rowNumbers = new HashMap<>();
+        int rowCount = 0;
+        for (Page page : pages) {
+            int rowNumberChannel = page.getChannelCount() - 1;
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                rowNumbers.computeIfAbsent(BIGINT.getLong(page.getBlock(0), position), key -> ImmutableSortedSet.naturalOrder())
+                        .add(BIGINT.getLong(page.getBlock(rowNumberChannel), position));
+                rowCount++;
+            }
+        }
+
+        int expectedRowCount = 0;
+        for (Map.Entry<Long, Integer> entry : rowCounts.entrySet()) {
+            int expectedRowNumbers = min(entry.getValue(), maxRowsPerPartition.orElse(Integer.MAX_VALUE));
+            ImmutableSortedSet.Builder<Long> expected = ImmutableSortedSet.naturalOrder();
+            for (long rowNumber = 1; rowNumber <= expectedRowNumbers; rowNumber++) {
+                expected.add(rowNumber);
+            }
+            assertEquals(rowNumbers.get(entry.getKey()).build(), expected.build(), "row numbers of partition " + entry.getKey());
+            expectedRowCount += expectedRowNumbers;
+        }
+        assertEquals(rowCount, expectedRowCount);
+    }
+
     private static Block getRowNumberColumn(List<Page> pages)
     {
         BlockBuilder builder = BIGINT.createBlockBuilder(null, pages.size() * 100);
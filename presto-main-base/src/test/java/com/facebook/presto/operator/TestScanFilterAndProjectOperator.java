@@ -44,9 +44,11 @@ import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.sql.gen.ExpressionCompiler;
 import com.facebook.presto.sql.gen.PageFunctionCompiler;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.testing.MaterializedRow;
 import com.facebook.presto.testing.TestingSplit;
 import com.facebook.presto.testing.TestingTransactionHandle;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
@@ -146,6 +148,57 @@ public class TestScanFilterAndProjectOperator
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void testPageSourceBloomFilter()
+    {
+        BlockedBloomFilter bloomFilter = BlockedBloomFilter.create(BIGINT, 100);
+        Block keys = BlockAssertions.createLongsBlock(3L, 7L);
+        for (int position = 0; position < keys.getPositionCount(); position++) {
+            bloomFilter.add(keys, position);
+        }
+        Block values = BlockAssertions.createLongSequenceBlock(0, 10);
+        Page input = new Page(
+                BlockAssertions.createLongSequenceBlock(0, 10),
+                new LazyBlock(10, lazyBlock -> lazyBlock.setBlock(values)));
+        DriverContext driverContext = newDriverContext();
+
+        List<RowExpression> projections = ImmutableList.of(field(0, BIGINT), field(1, BIGINT));
+        Supplier<CursorProcessor> cursorProcessor = expressionCompiler.compileCursorProcessor(driverContext.getSession().getSqlFunctionProperties(), Optional.empty(), projections, "key");
+        Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(driverContext.getSession().getSqlFunctionProperties(), Optional.empty(), projections);
+
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                new PlanNodeId("0"),
+                (session, split, table, columns, runtimeStats) -> new FixedPageSource(ImmutableList.of(input)),
+                cursorProcessor,
+                pageProcessor,
+                TESTING_TABLE_HANDLE,
+                ImmutableList.of(),
+                ImmutableList.of(BIGINT, BIGINT),
+                Optional.empty(),
+                Optional.of(() -> ImmutableMap.of(0, bloomFilter)),
+                new DataSize(0, BYTE),
+                0);
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(
+                new ScheduledSplit(
+                        0,
+                        operator.getSourceId(),
+                        new Split(new ConnectorId("test"), TestingTransactionHandle.create(), TestingSplit.createLocalSplit())));
+        operator.noMoreSplits();
+
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.of(BIGINT, BIGINT), toPages(operator));
+        // false positives are possible, but the keys are always retained and lazy columns stay aligned
+        assertTrue(actual.getRowCount() >= keys.getPositionCount() && actual.getRowCount() < input.getPositionCount());
+        for (MaterializedRow row : actual.getMaterializedRows()) {
+            assertEquals(row.getField(1), row.getField(0));
+        }
+        assertTrue(actual.getMaterializedRows().stream().anyMatch(row -> row.getField(0).equals(3L)));
+        assertTrue(actual.getMaterializedRows().stream().anyMatch(row -> row.getField(0).equals(7L)));
+    }
+
     @Test
     public void testPageSourceMergeOutput()
     {
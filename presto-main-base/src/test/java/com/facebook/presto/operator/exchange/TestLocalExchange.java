@@ -51,6 +51,7 @@ import java.util.function.ToIntFunction;
 import java.util.stream.Stream;
 
 import static com.facebook.airlift.testing.Assertions.assertContains;
+import static com.facebook.presto.block.BlockAssertions.createLongRepeatBlock;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.operator.PipelineExecutionStrategy.GROUPED_EXECUTION;
 import static com.facebook.presto.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
@@ -451,6 +452,73 @@ public class TestLocalExchange
         });
     }
 
+    @Test(dataProvider = "executionStrategy")
+    public void testPartitionRebalancing(PipelineExecutionStrategy executionStrategy)
+    {
+        LocalExchangeFactory localExchangeFactory = new LocalExchangeFactory(
+                partitioningProviderManager,
+                session,
+                FIXED_HASH_DISTRIBUTION,
+                2,
+                TYPES,
+                ImmutableList.of(0),
+                Optional.empty(),
+                executionStrategy,
+                new DataSize(retainedSizeOfPages(2), BYTE),
+                true);
+        LocalExchangeSinkFactoryId localExchangeSinkFactoryId = localExchangeFactory.newSinkFactoryId();
+        localExchangeFactory.noMoreSinkFactories();
+
+        // all rows have the same key
+        Page page = new Page(createLongRepeatBlock(42, 100));
+        int partition = new LocalPartitionGenerator(new InterpretedHashGenerator(TYPES, new int[] {0}), 2).getPartition(page, 0);
+
+        run(localExchangeFactory, executionStrategy, exchange -> {
+            LocalExchangeSinkFactory sinkFactory = exchange.getSinkFactory(localExchangeSinkFactoryId);
+            LocalExchangeSink sink = sinkFactory.createSink();
+            sinkFactory.close();
+            sinkFactory.noMoreSinkFactories();
+
+            LocalExchangeSource hotSource = exchange.getSource(partition);
+            LocalExchangeSource otherSource = exchange.getSource(1 - partition);
+
+            // the partition stays in its buffer until the buffer holds more than its share of the memory
+            sink.addPage(page);
+            assertSource(hotSource, 1);
+            assertSource(otherSource, 0);
+
+            int pages = 1;
+            while (otherSource.getBufferInfo().getBufferedPages() == 0) {
+                assertTrue(pages < 3, "partition was not rebalanced");
+                sink.addPage(page);
+                pages++;
+            }
+            assertSource(hotSource, pages - 1);
+            assertSource(otherSource, 1);
+            assertEquals(otherSource.getBufferInfo().getRebalancedPages(), 1);
+            assertEquals(hotSource.getBufferInfo().getRebalancedPages(), 0);
+            LocalExchangeBufferInfo bufferInfo = hotSource.getBufferInfo().mergeWith(otherSource.getBufferInfo());
+            assertEquals(bufferInfo.getBufferedPages(), pages);
+            assertEquals(bufferInfo.getMaxBufferedBytes(), hotSource.getBufferInfo().getBufferedBytes());
+            assertEquals(bufferInfo.getRebalancedPages(), 1);
+
+            // once the consumer catches up, the partition goes to its own buffer again
+            for (int i = 0; i < pages - 1; i++) {
+                assertRemovePage(hotSource, page);
+            }
+            sink.addPage(page);
+            assertSource(hotSource, 1);
+            assertSource(otherSource, 1);
+
+            sink.finish();
+            assertRemovePage(hotSource, page);
+            assertRemovePage(otherSource, page);
+            assertSourceFinished(hotSource);
+            assertSourceFinished(otherSource);
+            assertExchangeTotalBufferedBytes(exchange, 0);
+        });
+    }
+
     @Test
     public void testCreatePartitionFunction()
     {
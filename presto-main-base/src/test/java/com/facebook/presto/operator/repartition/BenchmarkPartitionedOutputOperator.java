@@ -35,6 +35,7 @@ import com.facebook.presto.operator.PrecomputedHashGenerator;
 import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.operator.repartition.OptimizedPartitionedOutputOperator.OptimizedPartitionedOutputFactory;
 import com.facebook.presto.operator.repartition.PartitionedOutputOperator.PartitionedOutputFactory;
+import com.facebook.presto.spi.page.PagesSerde;
 import com.facebook.presto.spi.page.SerializedPage;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.OutputPartitioning;
@@ -94,9 +95,11 @@ import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Collections.nCopies;
+import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
 
 @State(Scope.Thread)
 @OutputTimeUnit(MILLISECONDS)
@@ -126,6 +129,18 @@ public class BenchmarkPartitionedOutputOperator
         operator.finish();
     }
 
+    @Benchmark
+    public long optimizedAddPageAndDeserialize(BenchmarkData data)
+    {
+        // the full round trip of a repartitioning exchange: partition, serialize and decode the pages on the receiving side
+        OptimizedPartitionedOutputOperator operator = data.createOptimizedPartitionedOutputOperator(true);
+        for (int i = 0; i < data.pageCount; i++) {
+            operator.addInput(data.dataPage);
+        }
+        operator.finish();
+        return data.deserializedPositions;
+    }
+
     @Test
     public void verifyAddPage()
     {
@@ -142,6 +157,19 @@ public class BenchmarkPartitionedOutputOperator
         new BenchmarkPartitionedOutputOperator().optimizedAddPage(data);
     }
 
+    @Test
+    public void verifyOptimizedAddPageAndDeserialize()
+    {
+        for (String type : ImmutableList.of("BIGINT", "LINEITEM", "ORDERS")) {
+            BenchmarkData data = new BenchmarkData();
+            data.type = type;
+            data.hasNull = true;
+            data.setup();
+            data.pageCount = 10;
+            assertEquals(new BenchmarkPartitionedOutputOperator().optimizedAddPageAndDeserialize(data), (long) BenchmarkData.POSITION_COUNT * data.pageCount);
+        }
+    }
+
     @State(Scope.Thread)
     public static class BenchmarkData
     {
@@ -151,6 +179,7 @@ public class BenchmarkPartitionedOutputOperator
         private static final DataSize MAX_PARTITION_BUFFER_SIZE = new DataSize(256, MEGABYTE);
         private static final ExecutorService EXECUTOR = newCachedThreadPool(daemonThreadsNamed("test-EXECUTOR-%s"));
         private static final ScheduledExecutorService SCHEDULER = newScheduledThreadPool(1, daemonThreadsNamed("test-%s"));
+        private static final Type SHORT_DECIMAL = createDecimalType(12, 2);
 
         @SuppressWarnings("unused")
         @Param({"NONE", "LZ4"})
@@ -174,7 +203,9 @@ public class BenchmarkPartitionedOutputOperator
                 "MAP(BIGINT,BIGINT)",
                 "MAP(BIGINT,MAP(BIGINT,BIGINT))",
                 "ROW(BIGINT,BIGINT)",
-                "ROW(ARRAY(BIGINT),ARRAY(BIGINT))"
+                "ROW(ARRAY(BIGINT),ARRAY(BIGINT))",
+                "LINEITEM",
+                "ORDERS"
         })
         private String type = "BIGINT";
 
@@ -185,6 +216,7 @@ public class BenchmarkPartitionedOutputOperator
         private List<Type> types;
         private int pageCount;
         private Page dataPage;
+        private long deserializedPositions;
 
         @Setup
         public void setup()
@@ -277,6 +309,18 @@ public class BenchmarkPartitionedOutputOperator
                     dataPage = PageAssertions.createPageWithRandomData(types, POSITION_COUNT, primitiveNullRate, nestedNullRate);
                     pageCount = 1000;
                     break;
+                case "LINEITEM":
+                    // orderkey, partkey, suppkey, linenumber, quantity, extendedprice, discount, shipdate, returnflag, shipmode, comment
+                    types = ImmutableList.of(BIGINT, BIGINT, BIGINT, INTEGER, SHORT_DECIMAL, SHORT_DECIMAL, SHORT_DECIMAL, INTEGER, VARCHAR, VARCHAR, VARCHAR);
+                    dataPage = PageAssertions.createPageWithRandomData(types, POSITION_COUNT, primitiveNullRate, nestedNullRate);
+                    pageCount = 500;
+                    break;
+                case "ORDERS":
+                    // orderkey, custkey, orderstatus, totalprice, orderdate, orderpriority, shippriority, comment
+                    types = ImmutableList.of(BIGINT, BIGINT, VARCHAR, SHORT_DECIMAL, INTEGER, VARCHAR, INTEGER, VARCHAR);
+                    dataPage = PageAssertions.createPageWithRandomData(types, POSITION_COUNT, primitiveNullRate, nestedNullRate);
+                    pageCount = 500;
+                    break;
 
                 default:
                     throw new UnsupportedOperationException("Unsupported dataType");
@@ -305,7 +349,7 @@ public class BenchmarkPartitionedOutputOperator
             }
         }
 
-        private PartitionedOutputBuffer createPartitionedOutputBuffer()
+        private PartitionedOutputBuffer createPartitionedOutputBuffer(Optional<PagesSerde> deserializer)
         {
             OutputBuffers buffers = createInitialEmptyOutputBuffers(PARTITIONED);
             for (int partition = 0; partition < PARTITION_COUNT; partition++) {
@@ -313,13 +357,19 @@ public class BenchmarkPartitionedOutputOperator
             }
             PartitionedOutputBuffer buffer = createPartitionedBuffer(
                     buffers.withNoMoreBufferIds(),
-                    new DataSize(Long.MAX_VALUE, BYTE)); // don't let output buffer block
+                    new DataSize(Long.MAX_VALUE, BYTE), // don't let output buffer block
+                    deserializer);
             buffer.registerLifespanCompletionCallback(ignore -> {});
 
             return buffer;
         }
 
         private OptimizedPartitionedOutputOperator createOptimizedPartitionedOutputOperator()
+        {
+            return createOptimizedPartitionedOutputOperator(false);
+        }
+
+        private OptimizedPartitionedOutputOperator createOptimizedPartitionedOutputOperator(boolean deserializeOutput)
         {
             PartitionFunction partitionFunction = new BucketPartitionFunction(
                     HASH.createBucketFunction(ImmutableList.of(BIGINT), true, PARTITION_COUNT),
@@ -327,7 +377,8 @@ public class BenchmarkPartitionedOutputOperator
             OutputPartitioning outputPartitioning = createOutputPartitioning(partitionFunction);
 
             PagesSerdeFactory serdeFactory = new PagesSerdeFactory(new BlockEncodingManager(), getCompressionCodec(codec));
-            PartitionedOutputBuffer buffer = createPartitionedOutputBuffer();
+            deserializedPositions = 0;
+            PartitionedOutputBuffer buffer = createPartitionedOutputBuffer(deserializeOutput ? Optional.of(serdeFactory.createPagesSerde()) : Optional.empty());
 
             OptimizedPartitionedOutputFactory operatorFactory = new OptimizedPartitionedOutputFactory(buffer, MAX_PARTITION_BUFFER_SIZE);
 
@@ -342,7 +393,7 @@ public class BenchmarkPartitionedOutputOperator
             OutputPartitioning outputPartitioning = createOutputPartitioning(partitionFunction);
 
             PagesSerdeFactory serdeFactory = new PagesSerdeFactory(new BlockEncodingManager(), getCompressionCodec(codec));
-            PartitionedOutputBuffer buffer = createPartitionedOutputBuffer();
+            PartitionedOutputBuffer buffer = createPartitionedOutputBuffer(Optional.empty());
 
             PartitionedOutputFactory operatorFactory = new PartitionedOutputFactory(buffer, MAX_PARTITION_BUFFER_SIZE);
 
@@ -376,7 +427,7 @@ public class BenchmarkPartitionedOutputOperator
                     .addDriverContext();
         }
 
-        private TestingPartitionedOutputBuffer createPartitionedBuffer(OutputBuffers buffers, DataSize dataSize)
+        private TestingPartitionedOutputBuffer createPartitionedBuffer(OutputBuffers buffers, DataSize dataSize, Optional<PagesSerde> deserializer)
         {
             return new TestingPartitionedOutputBuffer(
                     "task-instance-id",
@@ -384,27 +435,37 @@ public class BenchmarkPartitionedOutputOperator
                     buffers,
                     dataSize,
                     () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
-                    SCHEDULER);
+                    SCHEDULER,
+                    deserializer);
         }
 
-        private static class TestingPartitionedOutputBuffer
+        private class TestingPartitionedOutputBuffer
                 extends PartitionedOutputBuffer
         {
+            private final Optional<PagesSerde> deserializer;
+
             public TestingPartitionedOutputBuffer(
                     String taskInstanceId,
                     StateMachine<BufferState> state,
                     OutputBuffers outputBuffers,
                     DataSize maxBufferSize,
                     Supplier<LocalMemoryContext> systemMemoryContextSupplier,
-                    Executor notificationExecutor)
+                    Executor notificationExecutor,
+                    Optional<PagesSerde> deserializer)
             {
                 super(taskInstanceId, state, outputBuffers, maxBufferSize.toBytes(), systemMemoryContextSupplier, notificationExecutor);
+                this.deserializer = requireNonNull(deserializer, "deserializer is null");
             }
 
-            // Use a dummy enqueue method to avoid OutOfMemory error
+            // Use a dummy enqueue method to avoid OutOfMemory error, the pages are only decoded if requested
             @Override
             public void enqueue(Lifespan lifespan, int partitionNumber, List<SerializedPage> pages)
             {
+                if (deserializer.isPresent()) {
+                    for (SerializedPage page : pages) {
+                        deserializedPositions += deserializer.get().deserialize(page).getPositionCount();
+                    }
+                }
             }
         }
     }
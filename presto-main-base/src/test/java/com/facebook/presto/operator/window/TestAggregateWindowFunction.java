@@ -13,15 +13,31 @@
  */
 package com.facebook.presto.operator.window;
 
+import com.facebook.presto.Session;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.spi.function.FunctionHandle;
+import com.facebook.presto.spi.function.WindowFunction;
 import com.facebook.presto.testing.MaterializedResult;
+import com.google.common.collect.ImmutableList;
 import org.intellij.lang.annotations.Language;
 import org.testng.annotations.Test;
 
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.SystemSessionProperties.WINDOW_SEGMENT_TREE_AGGREGATION_ENABLED;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestAggregateWindowFunction
         extends AbstractTestWindowFunction
@@ -530,4 +546,71 @@ public class TestAggregateWindowFunction
                         .row(null, null, null)
                         .build());
     }
+
+    @Test
+    public void testSegmentTreeAggregation()
+    {
+        @Language("SQL") String sql = "SELECT x,\n" +
+                "sum(x % 7) OVER (PARTITION BY x % 3 ORDER BY x ROWS BETWEEN 100 PRECEDING AND 50 FOLLOWING),\n" +
+                "min((x * 37) % 101) OVER (PARTITION BY x % 3 ORDER BY x ROWS BETWEEN 100 PRECEDING AND 50 FOLLOWING),\n" +
+                "max((x * 37) % 101) OVER (PARTITION BY x % 3 ORDER BY x ROWS BETWEEN 3 FOLLOWING AND 200 FOLLOWING),\n" +
+                "count(CASE WHEN x % 5 = 0 THEN x END) OVER (ORDER BY x ROWS BETWEEN 80 PRECEDING AND 2 PRECEDING),\n" +
+                "array_agg(x) OVER (ORDER BY x DESC ROWS BETWEEN 70 PRECEDING AND CURRENT ROW)\n" +
+                "FROM UNNEST(sequence(1, 5000)) AS t(x)\n" +
+                "ORDER BY x";
+        Session session = Session.builder(TEST_SESSION)
+                .setSystemProperty(WINDOW_SEGMENT_TREE_AGGREGATION_ENABLED, "true")
+                .build();
+        assertEquals(queryRunner.execute(session, sql).getMaterializedRows(), queryRunner.execute(sql).getMaterializedRows());
+    }
+
+    @Test
+    public void testSegmentTreeMemory()
+    {
+        // the tree of a partition is charged to the memory context until the next partition starts
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        WindowFunction sum = createSegmentTreeSum(16_000_000, memoryContext);
+        assertSlidingSum(sum, 1000);
+        assertTrue(memoryContext.getBytes() > 0);
+        // frames of a short partition are aggregated without a tree
+        assertSlidingSum(sum, 50);
+        assertEquals(memoryContext.getBytes(), 0);
+
+        // a tree above the size bound is dropped and the frames are aggregated row by row
+        memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        sum = createSegmentTreeSum(100, memoryContext);
+        assertSlidingSum(sum, 1000);
+        assertEquals(memoryContext.getBytes(), 0);
+    }
+
+    private WindowFunction createSegmentTreeSum(long maxSegmentTreeSizeInBytes, LocalMemoryContext memoryContext)
+    {
+        FunctionAndTypeManager functionAndTypeManager = queryRunner.getMetadata().getFunctionAndTypeManager();
+        FunctionHandle functionHandle = functionAndTypeManager.lookupFunction("sum", fromTypes(BIGINT));
+        return AggregateWindowFunction.supplier(
+                        functionAndTypeManager.getWindowFunctionImplementation(functionHandle).getSignature(),
+                        functionAndTypeManager.getAggregateFunctionImplementation(functionHandle),
+                        true,
+                        maxSegmentTreeSizeInBytes)
+                .createWindowFunction(ImmutableList.of(0), false, memoryContext);
+    }
+
+    private static void assertSlidingSum(WindowFunction sum, int positionCount)
+    {
+        PagesIndex pagesIndex = new PagesIndex.TestingFactory(false).newPagesIndex(ImmutableList.of(BIGINT), positionCount);
+        pagesIndex.addPage(new Page(createLongSequenceBlock(0, positionCount)));
+        sum.reset(new PagesWindowIndex(pagesIndex, 0, positionCount));
+
+        // ROWS BETWEEN 100 PRECEDING AND 100 FOLLOWING
+        BlockBuilder output = BIGINT.createBlockBuilder(null, positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            sum.processRow(output, position, position, Math.max(0, position - 100), Math.min(positionCount - 1, position + 100));
+        }
+        Block block = output.build();
+        for (int position = 0; position < positionCount; position++) {
+            long frameStart = Math.max(0, position - 100);
+            long frameEnd = Math.min(positionCount - 1, position + 100);
+            assertEquals(BIGINT.getLong(block, position), (frameStart + frameEnd) * (frameEnd - frameStart + 1) / 2);
+        }
+    }
 }
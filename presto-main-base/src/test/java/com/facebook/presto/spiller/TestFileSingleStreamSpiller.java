@@ -14,6 +14,7 @@
 package com.facebook.presto.spiller;
 
 import com.facebook.presto.CompressionCodec;
+import com.facebook.presto.SequencePageBuilder;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.block.BlockEncodingManager;
@@ -34,13 +35,16 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
+import static com.facebook.presto.common.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.google.common.io.MoreFiles.deleteRecursively;
 import static com.google.common.io.MoreFiles.listFiles;
@@ -85,17 +89,158 @@ public class TestFileSingleStreamSpiller
     public void testSpillCompression(CompressionCodec codec)
             throws Exception
     {
-        assertSpill(codec, false);
+        assertSpill(codec, false, false, false);
     }
 
     @Test(dataProvider = "testCompressionCodec")
     public void testSpillEncryptionWithCompression(CompressionCodec codec)
             throws Exception
     {
-        assertSpill(codec, true);
+        assertSpill(codec, true, false, false);
     }
 
-    private void assertSpill(CompressionCodec compressionCodec, boolean encryption)
+    @Test(dataProvider = "testCompressionCodec")
+    public void testAsyncSpillEncryptionWithCompression(CompressionCodec codec)
+            throws Exception
+    {
+        assertSpill(codec, true, true, false);
+    }
+
+    @Test(dataProvider = "testCompressionCodec")
+    public void testMemoryMappedReadWithCompression(CompressionCodec codec)
+            throws Exception
+    {
+        assertSpill(codec, false, false, true);
+        assertSpill(codec, true, true, true);
+    }
+
+    @Test
+    public void testAsyncSpillMultipleWriteBuffers()
+            throws Exception
+    {
+        File spillPath = new File(tempDirectory, UUID.randomUUID().toString());
+        SpillerStats spillerStats = new SpillerStats();
+        FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
+                executor,
+                new BlockEncodingManager(),
+                spillerStats,
+                ImmutableList.of(spillPath.toPath()),
+                1.0,
+                CompressionCodec.LZ4,
+                false,
+                true,
+                true);
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        List<Type> types = ImmutableList.of(BIGINT, DOUBLE, VARCHAR);
+        SingleStreamSpiller spiller = spillerFactory.create(types, new TestingSpillContext(), memoryContext);
+        assertEquals(memoryContext.getBytes(), FileSingleStreamSpiller.BUFFER_SIZE + 2 * FileSingleStreamSpiller.WRITE_BUFFER_SIZE);
+
+        // enough pages to fill several write buffers, spilled in two batches
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pages.add(SequencePageBuilder.createSequencePage(types, 1_000, i, i, i));
+        }
+        spiller.spill(pages.subList(0, 100).iterator()).get();
+        spiller.spill(pages.subList(100, 200).iterator()).get();
+
+        assertTrue(spillerStats.getTotalSpilledBytes() > 2 * FileSingleStreamSpiller.WRITE_BUFFER_SIZE);
+        assertTrue(spillerStats.getTotalUncompressedSpilledBytes() > spillerStats.getTotalSpilledBytes(), "sequence pages should be compressible");
+        assertTrue(spillerStats.getTotalSpillWriteStallTimeNanos() >= 0);
+
+        List<Page> spilledPages = ImmutableList.copyOf(spiller.getSpilledPages());
+        assertEquals(spilledPages.size(), pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            PageAssertions.assertPageEquals(types, spilledPages.get(i), pages.get(i));
+        }
+        spiller.close();
+        assertEquals(listFiles(spillPath.toPath()).size(), 0);
+        assertEquals(memoryContext.getBytes(), 0);
+    }
+
+    @Test
+    public void testAsyncSpillPageLargerThanWriteBuffer()
+            throws Exception
+    {
+        File spillPath = new File(tempDirectory, UUID.randomUUID().toString());
+        FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
+                executor,
+                new BlockEncodingManager(),
+                new SpillerStats(),
+                ImmutableList.of(spillPath.toPath()),
+                1.0,
+                CompressionCodec.NONE,
+                false,
+                true,
+                false);
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        List<Type> types = ImmutableList.of(BIGINT, DOUBLE, VARCHAR);
+        FileSingleStreamSpiller spiller = (FileSingleStreamSpiller) spillerFactory.create(types, new TestingSpillContext(), memoryContext);
+
+        Page page = SequencePageBuilder.createSequencePage(types, 300_000);
+        assertTrue(page.getSizeInBytes() > 4 * FileSingleStreamSpiller.WRITE_BUFFER_SIZE);
+        spiller.spill(page).get();
+
+        // the page is split and the buffer is flushed once it holds a full write buffer
+        assertTrue(spiller.getPeakWriteBufferSize() > 0);
+        assertTrue(spiller.getPeakWriteBufferSize() <= FileSingleStreamSpiller.WRITE_BUFFER_SIZE + DEFAULT_MAX_PAGE_SIZE_IN_BYTES);
+
+        List<Page> spilledPages = ImmutableList.copyOf(spiller.getSpilledPages());
+        assertTrue(spilledPages.size() > 1);
+        int position = 0;
+        for (Page spilledPage : spilledPages) {
+            PageAssertions.assertPageEquals(types, spilledPage, page.getRegion(position, spilledPage.getPositionCount()));
+            position += spilledPage.getPositionCount();
+        }
+        assertEquals(position, page.getPositionCount());
+        spiller.close();
+        assertEquals(listFiles(spillPath.toPath()).size(), 0);
+    }
+
+    @Test
+    public void testMemoryMappedReadRetainedSize()
+            throws Exception
+    {
+        File spillPath = new File(tempDirectory, UUID.randomUUID().toString());
+        SpillerStats spillerStats = new SpillerStats();
+        FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
+                executor,
+                new BlockEncodingManager(),
+                spillerStats,
+                ImmutableList.of(spillPath.toPath()),
+                1.0,
+                CompressionCodec.NONE,
+                false,
+                false,
+                true);
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR);
+        SingleStreamSpiller spiller = spillerFactory.create(types, new TestingSpillContext(), memoryContext);
+
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            pages.add(SequencePageBuilder.createSequencePage(types, 1_000, i, i));
+        }
+        spiller.spill(pages.iterator()).get();
+
+        // the pages are not copied, and each of them retains its own data rather than the whole mapping
+        List<Page> spilledPages = ImmutableList.copyOf(spiller.getSpilledPages());
+        assertEquals(spilledPages.size(), pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            PageAssertions.assertPageEquals(types, spilledPages.get(i), pages.get(i));
+            assertTrue(spilledPages.get(i).getRetainedSizeInBytes() < 2 * pages.get(i).getRetainedSizeInBytes());
+        }
+        assertTrue(spillerStats.getTotalSpilledBytes() > 10 * pages.get(0).getRetainedSizeInBytes());
+
+        spiller.close();
+        assertEquals(listFiles(spillPath.toPath()).size(), 0);
+
+        // the pages outlive the spiller, so the mapped data must stay readable after it is closed
+        for (int i = 0; i < pages.size(); i++) {
+            PageAssertions.assertPageEquals(types, spilledPages.get(i), pages.get(i));
+        }
+    }
+
+    private void assertSpill(CompressionCodec compressionCodec, boolean encryption, boolean asyncWrite, boolean memoryMappedRead)
             throws Exception
     {
         File spillPath = new File(tempDirectory, UUID.randomUUID().toString());
@@ -106,7 +251,9 @@ public class TestFileSingleStreamSpiller
                 ImmutableList.of(spillPath.toPath()),
                 1.0,
                 compressionCodec,
-                encryption);
+                encryption,
+                asyncWrite,
+                memoryMappedRead);
         LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
         SingleStreamSpiller singleStreamSpiller = spillerFactory.create(TYPES, new TestingSpillContext(), memoryContext);
         assertTrue(singleStreamSpiller instanceof FileSingleStreamSpiller);
@@ -115,7 +262,8 @@ public class TestFileSingleStreamSpiller
         Page page = buildPage();
 
         // The spillers will reserve memory in their constructors
-        assertEquals(memoryContext.getBytes(), 4096);
+        long reservedBytes = asyncWrite ? FileSingleStreamSpiller.BUFFER_SIZE + 2 * FileSingleStreamSpiller.WRITE_BUFFER_SIZE : 4096;
+        assertEquals(memoryContext.getBytes(), reservedBytes);
         spiller.spill(page).get();
         spiller.spill(Iterators.forArray(page, page, page)).get();
         assertEquals(listFiles(spillPath.toPath()).size(), 1);
@@ -134,7 +282,7 @@ public class TestFileSingleStreamSpiller
         // assertEquals(memoryContext.getBytes(), 0);
 
         Iterator<Page> spilledPagesIterator = spiller.getSpilledPages();
-        assertEquals(memoryContext.getBytes(), FileSingleStreamSpiller.BUFFER_SIZE);
+        assertEquals(memoryContext.getBytes(), reservedBytes);
         ImmutableList<Page> spilledPages = ImmutableList.copyOf(spilledPagesIterator);
         // The spillers release their memory reservations when they are closed, therefore at this point
         // they will have non-zero memory reservation.
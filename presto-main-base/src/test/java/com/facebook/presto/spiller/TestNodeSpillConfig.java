@@ -38,6 +38,8 @@ public class TestNodeSpillConfig
                 .setQueryMaxSpillPerNode(new DataSize(100, GIGABYTE))
                 .setSpillCompressionCodec(CompressionCodec.NONE)
                 .setSpillEncryptionEnabled(false)
+                .setSpillAsyncWriteEnabled(false)
+                .setSpillMemoryMappedReadEnabled(false)
                 .setTempStorageBufferSize(new DataSize(4, KILOBYTE)));
     }
 
@@ -50,6 +52,8 @@ public class TestNodeSpillConfig
                 .put("experimental.query-max-spill-per-node", "15 MB")
                 .put("experimental.spill-compression-codec", "LZ4")
                 .put("experimental.spill-encryption-enabled", "true")
+                .put("experimental.spill-async-write-enabled", "true")
+                .put("experimental.spill-memory-mapped-read-enabled", "true")
                 .put("experimental.temp-storage-buffer-size", "24MB")
                 .build();
 
@@ -59,6 +63,8 @@ public class TestNodeSpillConfig
                 .setQueryMaxSpillPerNode(new DataSize(15, MEGABYTE))
                 .setSpillCompressionCodec(CompressionCodec.LZ4)
                 .setSpillEncryptionEnabled(true)
+                .setSpillAsyncWriteEnabled(true)
+                .setSpillMemoryMappedReadEnabled(true)
                 .setTempStorageBufferSize(new DataSize(24, MEGABYTE));
 
         assertFullMapping(properties, expected);
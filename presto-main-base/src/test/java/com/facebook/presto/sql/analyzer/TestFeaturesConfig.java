@@ -121,6 +121,7 @@ public class TestFeaturesConfig
                 .setDynamicFilteringMaxPerDriverRowCount(100)
                 .setDynamicFilteringMaxPerDriverSize(new DataSize(10, KILOBYTE))
                 .setDynamicFilteringRangeRowLimitPerDriver(0)
+                .setDynamicFilteringBloomFilterRowLimitPerDriver(0)
                 .setFragmentResultCachingEnabled(false)
                 .setEnableStatsCalculator(true)
                 .setEnableStatsCollectionForTemporaryTable(false)
@@ -133,6 +134,7 @@ public class TestFeaturesConfig
                 .setPushAggregationThroughJoin(true)
                 .setForceSingleNodeOutput(true)
                 .setPagesIndexEagerCompactionEnabled(false)
+                .setPagesIndexNormalizedKeySortEnabled(false)
                 .setFilterAndProjectMinOutputPageSize(new DataSize(500, KILOBYTE))
                 .setFilterAndProjectMinOutputPageRowCount(256)
                 .setUseMarkDistinct(true)
@@ -258,6 +260,17 @@ public class TestFeaturesConfig
                 .setAddExchangeBelowPartialAggregationOverGroupId(false)
                 .setInnerJoinPushdownEnabled(false)
                 .setInEqualityJoinPushdownEnabled(false)
+                .setFlatGroupByHashEnabled(false)
+                .setBatchedJoinProbeEnabled(false)
+                .setRadixPartitionedHashBuildEnabled(false)
+                .setWindowSegmentTreeAggregationEnabled(false)
+                .setOrderByParallelSortEnabled(false)
+                .setExchangeCompressionAdaptiveEnabled(false)
+                .setExchangeStreamingEnabled(false)
+                .setLocalExchangePartitionRebalancingEnabled(false)
+                .setSkewedJoinSaltingEnabled(false)
+                .setSkewedJoinKeyMinFraction(0.1)
+                .setJoinSpillPartitionFanout(1)
                 .setPrestoSparkExecutionEnvironment(false));
     }
 
@@ -275,6 +288,7 @@ public class TestFeaturesConfig
                 .put("dynamic-filtering-max-per-driver-row-count", "256")
                 .put("dynamic-filtering-max-per-driver-size", "64kB")
                 .put("dynamic-filtering-range-row-limit-per-driver", "1000")
+                .put("dynamic-filtering-bloom-filter-row-limit-per-driver", "100000")
                 .put("fragment-result-cache.enabled", "true")
                 .put("experimental.enable-stats-calculator", "false")
                 .put("experimental.enable-stats-collection-for-temporary-table", "true")
@@ -339,6 +353,7 @@ public class TestFeaturesConfig
                 .put("optimizer.enable-intermediate-aggregations", "true")
                 .put("optimizer.force-single-node-output", "false")
                 .put("pages-index.eager-compaction-enabled", "true")
+                .put("pages-index.normalized-key-sort-enabled", "true")
                 .put("experimental.filter-and-project-min-output-page-size", "1MB")
                 .put("experimental.filter-and-project-min-output-page-row-count", "2048")
                 .put("optimizer.use-mark-distinct", "false")
@@ -464,6 +479,17 @@ public class TestFeaturesConfig
                 .put("expression-optimizer-name", "custom")
                 .put("exclude-invalid-worker-session-properties", "true")
                 .put("optimizer.add-exchange-below-partial-aggregation-over-group-id", "true")
+                .put("flat-group-by-hash-enabled", "true")
+                .put("batched-join-probe-enabled", "true")
+                .put("radix-partitioned-hash-build-enabled", "true")
+                .put("window-segment-tree-aggregation-enabled", "true")
+                .put("order-by-parallel-sort-enabled", "true")
+                .put("exchange.compression-adaptive-enabled", "true")
+                .put("exchange.streaming-enabled", "true")
+                .put("exchange.local-partition-rebalancing-enabled", "true")
+                .put("optimizer.skewed-join-salting-enabled", "true")
+                .put("optimizer.skewed-join-key-min-fraction", "0.2")
+                .put("experimental.join-spill-partition-fanout", "8")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -477,6 +503,7 @@ public class TestFeaturesConfig
                 .setDynamicFilteringMaxPerDriverRowCount(256)
                 .setDynamicFilteringMaxPerDriverSize(new DataSize(64, KILOBYTE))
                 .setDynamicFilteringRangeRowLimitPerDriver(1000)
+                .setDynamicFilteringBloomFilterRowLimitPerDriver(100000)
                 .setFragmentResultCachingEnabled(true)
                 .setEnableStatsCalculator(false)
                 .setEnableStatsCollectionForTemporaryTable(true)
@@ -540,6 +567,7 @@ public class TestFeaturesConfig
                 .setEnableIntermediateAggregations(true)
                 .setForceSingleNodeOutput(false)
                 .setPagesIndexEagerCompactionEnabled(true)
+                .setPagesIndexNormalizedKeySortEnabled(true)
                 .setFilterAndProjectMinOutputPageSize(new DataSize(1, MEGABYTE))
                 .setFilterAndProjectMinOutputPageRowCount(2048)
                 .setUseMarkDistinct(false)
@@ -667,6 +695,17 @@ public class TestFeaturesConfig
                 .setAddExchangeBelowPartialAggregationOverGroupId(true)
                 .setInEqualityJoinPushdownEnabled(true)
                 .setInnerJoinPushdownEnabled(true)
+                .setFlatGroupByHashEnabled(true)
+                .setBatchedJoinProbeEnabled(true)
+                .setRadixPartitionedHashBuildEnabled(true)
+                .setWindowSegmentTreeAggregationEnabled(true)
+                .setOrderByParallelSortEnabled(true)
+                .setExchangeCompressionAdaptiveEnabled(true)
+                .setExchangeStreamingEnabled(true)
+                .setLocalExchangePartitionRebalancingEnabled(true)
+                .setSkewedJoinSaltingEnabled(true)
+                .setSkewedJoinKeyMinFraction(0.2)
+                .setJoinSpillPartitionFanout(8)
                 .setPrestoSparkExecutionEnvironment(true);
         assertFullMapping(properties, expected);
     }
@@ -37,6 +37,8 @@ public class TestJavaFeaturesConfig
                 .setOrderByAggregationSpillEnabled(true)
                 .setWindowSpillEnabled(true)
                 .setOrderBySpillEnabled(true)
+                .setRowNumberSpillEnabled(true)
+                .setMarkDistinctSpillEnabled(true)
                 .setTopNSpillEnabled(true)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("4MB"))
                 .setTopNOperatorUnspillMemoryLimit(DataSize.valueOf("4MB")));
@@ -54,6 +56,8 @@ public class TestJavaFeaturesConfig
                 .put("experimental.order-by-aggregation-spill-enabled", "false")
                 .put("experimental.window-spill-enabled", "false")
                 .put("experimental.order-by-spill-enabled", "false")
+                .put("experimental.row-number-spill-enabled", "false")
+                .put("experimental.mark-distinct-spill-enabled", "false")
                 .put("experimental.topn-spill-enabled", "false")
                 .put("experimental.aggregation-operator-unspill-memory-limit", "100MB")
                 .put("experimental.topn-operator-unspill-memory-limit", "100MB")
@@ -68,6 +72,8 @@ public class TestJavaFeaturesConfig
                 .setOrderByAggregationSpillEnabled(false)
                 .setWindowSpillEnabled(false)
                 .setOrderBySpillEnabled(false)
+                .setRowNumberSpillEnabled(false)
+                .setMarkDistinctSpillEnabled(false)
                 .setTopNSpillEnabled(false)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("100MB"))
                 .setTopNOperatorUnspillMemoryLimit(DataSize.valueOf("100MB"));
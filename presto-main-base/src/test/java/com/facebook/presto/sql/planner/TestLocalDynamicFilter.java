@@ -18,6 +18,7 @@ import com.facebook.presto.Session;
 import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
+import com.facebook.presto.operator.BlockedBloomFilter;
 import com.facebook.presto.spi.plan.JoinNode;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
 import com.facebook.presto.sql.Optimizer;
@@ -26,6 +27,7 @@ import com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ListenableFuture;
 import org.testng.annotations.Test;
@@ -40,12 +42,15 @@ import java.util.function.Consumer;
 import static com.facebook.presto.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
 import static com.facebook.presto.SystemSessionProperties.FORCE_SINGLE_NODE_OUTPUT;
 import static com.facebook.presto.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static com.facebook.presto.block.BlockAssertions.createIntsBlock;
 import static com.facebook.presto.common.function.OperatorType.EQUAL;
+import static com.facebook.presto.common.function.OperatorType.LESS_THAN;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.testing.assertions.Assert.assertEquals;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestLocalDynamicFilter
         extends BasePlanTest
@@ -123,6 +128,52 @@ public class TestLocalDynamicFilter
                 new VariableReferenceExpression(Optional.empty(), "a", INTEGER), Domain.multipleValues(INTEGER, ImmutableList.of(10L, 20L)))));
     }
 
+    @Test
+    public void testMultiplePartitionsBloomFilter()
+            throws ExecutionException, InterruptedException
+    {
+        VariableReferenceExpression variable = new VariableReferenceExpression(Optional.empty(), "a", INTEGER);
+        LocalDynamicFilter filter = new LocalDynamicFilter(
+                ImmutableMultimap.of(
+                        "123", new DynamicFilterPlaceholder("123", variable, EQUAL),
+                        "123", new DynamicFilterPlaceholder("123", new VariableReferenceExpression(Optional.empty(), "b", INTEGER), LESS_THAN)),
+                ImmutableMap.of("123", 0),
+                2);
+        Consumer<Map<String, BlockedBloomFilter>> consumer = filter.getBloomFilterConsumer();
+        ListenableFuture<Map<VariableReferenceExpression, BlockedBloomFilter>> result = filter.getBloomFilterResultFuture();
+
+        BlockedBloomFilter first = BlockedBloomFilter.create(INTEGER, 100);
+        first.add(createIntsBlock(10), 0);
+        BlockedBloomFilter second = BlockedBloomFilter.create(INTEGER, 100);
+        second.add(createIntsBlock(20), 0);
+
+        consumer.accept(ImmutableMap.of("123", first));
+        assertFalse(result.isDone());
+        consumer.accept(ImmutableMap.of("123", second));
+
+        // only the equality placeholder can be filtered with the union of the partitions
+        Map<VariableReferenceExpression, BlockedBloomFilter> bloomFilters = result.get();
+        assertEquals(bloomFilters.keySet(), ImmutableSet.of(variable));
+        assertTrue(bloomFilters.get(variable).mightContain(createIntsBlock(10), 0));
+        assertTrue(bloomFilters.get(variable).mightContain(createIntsBlock(20), 0));
+    }
+
+    @Test
+    public void testBloomFilterMissingInPartition()
+            throws ExecutionException, InterruptedException
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(
+                ImmutableMultimap.of("123", new DynamicFilterPlaceholder("123", new VariableReferenceExpression(Optional.empty(), "a", INTEGER), EQUAL)),
+                ImmutableMap.of("123", 0),
+                2);
+        Consumer<Map<String, BlockedBloomFilter>> consumer = filter.getBloomFilterConsumer();
+        ListenableFuture<Map<VariableReferenceExpression, BlockedBloomFilter>> result = filter.getBloomFilterResultFuture();
+
+        consumer.accept(ImmutableMap.of("123", BlockedBloomFilter.create(INTEGER, 100)));
+        consumer.accept(ImmutableMap.of());
+        assertEquals(result.get(), ImmutableMap.of());
+    }
+
     @Test
     public void testNone()
             throws ExecutionException, InterruptedException
@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.VariableStatsEstimate;
+import com.facebook.presto.spi.plan.EquiJoinClause;
+import com.facebook.presto.spi.plan.JoinDistributionType;
+import com.facebook.presto.spi.plan.JoinType;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.spi.statistics.ConnectorHistogram;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.facebook.presto.sql.planner.iterative.rule.test.RuleAssert;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.JOIN_SHARD_COUNT;
+import static com.facebook.presto.SystemSessionProperties.SKEWED_JOIN_KEY_MIN_FRACTION;
+import static com.facebook.presto.SystemSessionProperties.SKEWED_JOIN_SALTING_ENABLED;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.plan.JoinDistributionType.PARTITIONED;
+import static com.facebook.presto.spi.plan.JoinDistributionType.REPLICATED;
+import static com.facebook.presto.spi.plan.JoinType.FULL;
+import static com.facebook.presto.spi.plan.JoinType.INNER;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.equiJoinClause;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.expression;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.join;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.project;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.unnest;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.values;
+import static com.facebook.presto.sql.planner.iterative.rule.SaltSkewedJoinKeys.findHotKeys;
+import static org.testng.Assert.assertEquals;
+
+public class TestSaltSkewedJoinKeys
+        extends BaseRuleTest
+{
+    // 40% of the rows have key 7, the others are spread over [100, 200]
+    private static final ConnectorHistogram SKEWED_HISTOGRAM = new PointMassHistogram(7, 0.4, 100, 200);
+    private static final ConnectorHistogram UNIFORM_HISTOGRAM = new PointMassHistogram(7, 0, 100, 200);
+
+    @Test
+    public void testFindHotKeys()
+    {
+        assertEquals(findHotKeys(SKEWED_HISTOGRAM, 0.1), ImmutableList.of(7L));
+        assertEquals(findHotKeys(SKEWED_HISTOGRAM, 0.5), ImmutableList.of());
+        assertEquals(findHotKeys(UNIFORM_HISTOGRAM, 0.1), ImmutableList.of());
+        assertEquals(findHotKeys(new PointMassHistogram(-3, 1, 0, 0), 0.1), ImmutableList.of(-3L));
+    }
+
+    @Test
+    public void testSaltHotKeys()
+    {
+        assertSalting(SKEWED_HISTOGRAM, INNER, PARTITIONED)
+                .matches(
+                        join(
+                                INNER,
+                                ImmutableList.of(equiJoinClause("A1", "B1"), equiJoinClause("LEFT_SALT", "RIGHT_SALT")),
+                                project(
+                                        ImmutableMap.of("LEFT_SALT", expression("IF(A1 IN (BIGINT '7'), random(BIGINT '8'), BIGINT '0')")),
+                                        values("A1")),
+                                unnest(
+                                        ImmutableMap.of("SALTS", ImmutableList.of("RIGHT_SALT")),
+                                        project(
+                                                ImmutableMap.of("SALTS", expression("sequence(BIGINT '0', IF(B1 IN (BIGINT '7'), BIGINT '7', BIGINT '0'))")),
+                                                values("B1")))));
+    }
+
+    @Test
+    public void testDoesNotFire()
+    {
+        assertSalting(UNIFORM_HISTOGRAM, INNER, PARTITIONED).doesNotFire();
+        assertSalting(SKEWED_HISTOGRAM, INNER, REPLICATED).doesNotFire();
+        assertSalting(SKEWED_HISTOGRAM, FULL, PARTITIONED).doesNotFire();
+        assertSalting(SKEWED_HISTOGRAM, INNER, PARTITIONED)
+                .setSystemProperty(SKEWED_JOIN_SALTING_ENABLED, "false")
+                .doesNotFire();
+    }
+
+    private RuleAssert assertSalting(ConnectorHistogram histogram, JoinType joinType, JoinDistributionType distributionType)
+    {
+        return tester().assertThat(new SaltSkewedJoinKeys(getMetadata().getFunctionAndTypeManager()))
+                .setSystemProperty(SKEWED_JOIN_SALTING_ENABLED, "true")
+                .setSystemProperty(SKEWED_JOIN_KEY_MIN_FRACTION, "0.1")
+                .setSystemProperty(JOIN_SHARD_COUNT, "8")
+                .overrideStats("valuesA", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(10000)
+                        .addVariableStatistics(ImmutableMap.of(
+                                new VariableReferenceExpression(Optional.empty(), "A1", BIGINT),
+                                VariableStatsEstimate.builder()
+                                        .setLowValue(7)
+                                        .setHighValue(200)
+                                        .setDistinctValuesCount(100)
+                                        .setHistogram(Optional.of(histogram))
+                                        .build()))
+                        .build())
+                .on(p -> {
+                    VariableReferenceExpression a1 = p.variable("A1", BIGINT);
+                    VariableReferenceExpression b1 = p.variable("B1", BIGINT);
+                    return p.join(
+                            joinType,
+                            p.values(new PlanNodeId("valuesA"), a1),
+                            p.values(new PlanNodeId("valuesB"), b1),
+                            ImmutableList.of(new EquiJoinClause(a1, b1)),
+                            ImmutableList.of(a1, b1),
+                            Optional.empty(),
+                            Optional.empty(),
+                            Optional.empty(),
+                            Optional.of(distributionType),
+                            ImmutableMap.of());
+                });
+    }
+
+    /**
+     * A fraction of the values is a single key, the others are uniformly distributed over a range above the key.
+     */
+    private static class PointMassHistogram
+            implements ConnectorHistogram
+    {
+        private final double key;
+        private final double keyFraction;
+        private final double low;
+        private final double high;
+
+        public PointMassHistogram(double key, double keyFraction, double low, double high)
+        {
+            this.key = key;
+            this.keyFraction = keyFraction;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        public Estimate cumulativeProbability(double value, boolean inclusive)
+        {
+            if (value < key) {
+                return Estimate.of(0);
+            }
+            if (value < low) {
+                return Estimate.of(keyFraction);
+            }
+            return Estimate.of(keyFraction + (1 - keyFraction) * Math.min(1, (value - low) / (high - low)));
+        }
+
+        @Override
+        public Estimate inverseCumulativeProbability(double percentile)
+        {
+            if (percentile <= keyFraction) {
+                return Estimate.of(key);
+            }
+            return Estimate.of(low + (high - low) * (percentile - keyFraction) / (1 - keyFraction));
+        }
+
+        @Override
+        public long getEstimatedSize()
+        {
+            return 0;
+        }
+    }
+}
@@ -26,19 +26,31 @@ public class HttpAndThriftRpcShuffleClientProvider
 {
     private final HttpShuffleClientProvider httpShuffleClientProvider;
     private final ThriftShuffleClientProvider thriftShuffleClientProvider;
+    private final HttpStreamingShuffleClientProvider httpStreamingShuffleClientProvider;
+    private final LocalShuffleClientProvider localShuffleClientProvider;
+    private final boolean localTransportEnabled;
 
     @Inject
     public HttpAndThriftRpcShuffleClientProvider(
             @ForExchange HttpShuffleClientProvider httpShuffleClientProvider,
-            @ForExchange ThriftShuffleClientProvider thriftShuffleClientProvider)
+            @ForExchange ThriftShuffleClientProvider thriftShuffleClientProvider,
+            HttpStreamingShuffleClientProvider httpStreamingShuffleClientProvider,
+            LocalShuffleClientProvider localShuffleClientProvider,
+            ExchangeClientConfig exchangeClientConfig)
     {
         this.httpShuffleClientProvider = httpShuffleClientProvider;
         this.thriftShuffleClientProvider = thriftShuffleClientProvider;
+        this.httpStreamingShuffleClientProvider = httpStreamingShuffleClientProvider;
+        this.localShuffleClientProvider = localShuffleClientProvider;
+        this.localTransportEnabled = exchangeClientConfig.isLocalTransportEnabled();
     }
 
     @Override
     public RpcShuffleClient get(URI location)
     {
+        if (localTransportEnabled && localShuffleClientProvider.isLocal(location)) {
+            return localShuffleClientProvider.get(location);
+        }
         switch (location.getScheme().toLowerCase(Locale.getDefault())) {
             case "https":
             case "http":
@@ -49,4 +61,20 @@ public class HttpAndThriftRpcShuffleClientProvider
                 throw new PrestoException(GENERIC_INTERNAL_ERROR, "unsupported task result client scheme " + location.getScheme());
         }
     }
+
+    @Override
+    public RpcShuffleClient getStreaming(URI location)
+    {
+        if (localTransportEnabled && localShuffleClientProvider.isLocal(location)) {
+            return localShuffleClientProvider.get(location);
+        }
+        switch (location.getScheme().toLowerCase(Locale.getDefault())) {
+            case "https":
+            case "http":
+                return httpStreamingShuffleClientProvider.get(location);
+            default:
+                // the thrift transport already multiplexes the requests to a node over a connection
+                return get(location);
+        }
+    }
 }
@@ -0,0 +1,305 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.airlift.http.client.HttpClient;
+import com.facebook.airlift.http.client.HttpStatus;
+import com.facebook.airlift.http.client.Request;
+import com.facebook.airlift.http.client.Response;
+import com.facebook.airlift.http.client.ResponseHandler;
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.operator.PageBufferClient.PagesResponse;
+import com.facebook.presto.server.ExchangeStreamFrame;
+import com.facebook.presto.server.ExchangeStreamRequest;
+import com.facebook.presto.server.ExchangeStreamRequest.Acknowledgement;
+import com.facebook.presto.server.ExchangeStreamRequest.Read;
+import com.facebook.presto.spi.HostAddress;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.MediaType;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.SliceInput;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
+import static com.facebook.airlift.http.client.Request.Builder.preparePost;
+import static com.facebook.airlift.http.client.ResponseHandlerUtils.propagate;
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_EXCHANGE_FRAMES_TYPE;
+import static com.facebook.presto.operator.PageBufferClient.PagesResponse.createPagesResponse;
+import static com.facebook.presto.server.ExchangeStreamFrame.readFrame;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The exchange stream from this node to another node. It multiplexes the reads and acknowledgements
+ * of all the {@link StreamingRpcShuffleClient}s of the node into batched requests to the
+ * exchange stream servlet of the other node.
+ * <p>
+ * Reads and acknowledgements that arrive within the batch delay are sent together. Every read is
+ * part of at most one request at a time: the server answers a request as soon as any of its reads
+ * has data, and the reads without data are sent again with the next request. Each read carries
+ * the size limit computed by the exchange client from its free buffer space, and a request
+ * carries the limit for the whole response.
+ */
+@ThreadSafe
+final class HttpExchangeStream
+{
+    private final HttpClient httpClient;
+    private final JsonCodec<ExchangeStreamRequest> requestCodec;
+    private final URI uri;
+    private final long maxResponseSizeInBytes;
+    private final long batchDelayNanos;
+    private final ScheduledExecutorService scheduler;
+
+    @GuardedBy("this")
+    private final Map<StreamingRpcShuffleClient, PendingRead> unsentReads = new LinkedHashMap<>();
+    @GuardedBy("this")
+    private final Map<StreamingRpcShuffleClient, Long> unsentAcknowledgements = new LinkedHashMap<>();
+    @GuardedBy("this")
+    private boolean requestScheduled;
+
+    HttpExchangeStream(
+            HttpClient httpClient,
+            JsonCodec<ExchangeStreamRequest> requestCodec,
+            URI uri,
+            DataSize maxResponseSize,
+            Duration batchDelay,
+            ScheduledExecutorService scheduler)
+    {
+        this.httpClient = requireNonNull(httpClient, "httpClient is null");
+        this.requestCodec = requireNonNull(requestCodec, "requestCodec is null");
+        this.uri = requireNonNull(uri, "uri is null");
+        this.maxResponseSizeInBytes = requireNonNull(maxResponseSize, "maxResponseSize is null").toBytes();
+        this.batchDelayNanos = requireNonNull(batchDelay, "batchDelay is null").roundTo(NANOSECONDS);
+        this.scheduler = requireNonNull(scheduler, "scheduler is null");
+    }
+
+    public ListenableFuture<PagesResponse> read(StreamingRpcShuffleClient source, long token, DataSize maxResponseSize)
+    {
+        PendingRead read = new PendingRead(source, token, maxResponseSize.toBytes());
+        synchronized (this) {
+            unsentReads.put(source, read);
+            // the read acknowledges the previous pages as well
+            unsentAcknowledgements.remove(source);
+            scheduleRequest();
+        }
+        // the page buffer client cancels the read when it is closed
+        read.getFuture().addListener(
+                () -> {
+                    if (read.getFuture().isCancelled()) {
+                        synchronized (this) {
+                            unsentReads.remove(source, read);
+                        }
+                    }
+                },
+                directExecutor());
+        return read.getFuture();
+    }
+
+    public synchronized void acknowledge(StreamingRpcShuffleClient source, long token)
+    {
+        if (unsentReads.containsKey(source)) {
+            return;
+        }
+        unsentAcknowledgements.put(source, token);
+        scheduleRequest();
+    }
+
+    @GuardedBy("this")
+    private void scheduleRequest()
+    {
+        if (requestScheduled) {
+            return;
+        }
+        requestScheduled = true;
+        scheduler.schedule(this::sendRequest, batchDelayNanos, NANOSECONDS);
+    }
+
+    private void sendRequest()
+    {
+        List<PendingRead> reads;
+        ImmutableList.Builder<Acknowledgement> acknowledgements = ImmutableList.builder();
+        synchronized (this) {
+            requestScheduled = false;
+            reads = ImmutableList.copyOf(unsentReads.values());
+            unsentReads.clear();
+            unsentAcknowledgements.forEach((source, token) -> acknowledgements.add(new Acknowledgement(source.getTaskId(), source.getBufferId(), token)));
+            unsentAcknowledgements.clear();
+        }
+
+        ExchangeStreamRequest request = new ExchangeStreamRequest(
+                reads.stream()
+                        .map(read -> new Read(read.getSource().getTaskId(), read.getSource().getBufferId(), read.getToken(), read.getMaxSizeInBytes()))
+                        .collect(ImmutableList.toImmutableList()),
+                acknowledgements.build(),
+                maxResponseSizeInBytes);
+        if (request.getReads().isEmpty() && request.getAcknowledgements().isEmpty()) {
+            return;
+        }
+
+        ListenableFuture<List<ExchangeStreamFrame>> response = httpClient.executeAsync(
+                preparePost()
+                        .setUri(uri)
+                        .setHeader(CONTENT_TYPE, JSON_UTF_8.toString())
+                        .setBodyGenerator(jsonBodyGenerator(requestCodec, request))
+                        .build(),
+                new FramesResponseHandler());
+        addCallback(response, new FutureCallback<List<ExchangeStreamFrame>>()
+        {
+            @Override
+            public void onSuccess(List<ExchangeStreamFrame> frames)
+            {
+                requestComplete(reads, frames);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                // the page buffer clients retry with backoff, like for failed result requests
+                reads.forEach(read -> read.getFuture().setException(t));
+            }
+        }, directExecutor());
+    }
+
+    private void requestComplete(List<PendingRead> reads, List<ExchangeStreamFrame> frames)
+    {
+        boolean[] answered = new boolean[reads.size()];
+        for (ExchangeStreamFrame frame : frames) {
+            PendingRead read = reads.get(frame.getReadIndex());
+            answered[frame.getReadIndex()] = true;
+            if (frame.getError().isPresent()) {
+                read.getFuture().setException(new PageTransportErrorException(HostAddress.fromUri(uri), frame.getError().get()));
+                continue;
+            }
+            BufferResult result = frame.getResult().get();
+            read.getFuture().set(createPagesResponse(
+                    result.getTaskInstanceId(),
+                    result.getToken(),
+                    result.getNextToken(),
+                    result.getSerializedPages(),
+                    result.isBufferComplete()));
+        }
+
+        synchronized (this) {
+            boolean resend = false;
+            for (int i = 0; i < reads.size(); i++) {
+                PendingRead read = reads.get(i);
+                if (!answered[i] && !read.getFuture().isDone()) {
+                    unsentReads.putIfAbsent(read.getSource(), read);
+                    resend = true;
+                }
+            }
+            if (resend) {
+                scheduleRequest();
+            }
+        }
+    }
+
+    private static class PendingRead
+    {
+        private final StreamingRpcShuffleClient source;
+        private final long token;
+        private final long maxSizeInBytes;
+        private final SettableFuture<PagesResponse> future = SettableFuture.create();
+
+        public PendingRead(StreamingRpcShuffleClient source, long token, long maxSizeInBytes)
+        {
+            this.source = requireNonNull(source, "source is null");
+            this.token = token;
+            this.maxSizeInBytes = maxSizeInBytes;
+        }
+
+        public StreamingRpcShuffleClient getSource()
+        {
+            return source;
+        }
+
+        public long getToken()
+        {
+            return token;
+        }
+
+        public long getMaxSizeInBytes()
+        {
+            return maxSizeInBytes;
+        }
+
+        public SettableFuture<PagesResponse> getFuture()
+        {
+            return future;
+        }
+    }
+
+    private static class FramesResponseHandler
+            implements ResponseHandler<List<ExchangeStreamFrame>, RuntimeException>
+    {
+        @Override
+        public List<ExchangeStreamFrame> handleException(Request request, Exception exception)
+        {
+            throw propagate(request, exception);
+        }
+
+        @Override
+        public List<ExchangeStreamFrame> handle(Request request, Response response)
+        {
+            // a request with acknowledgements only has no content
+            if (response.getStatusCode() == HttpStatus.NO_CONTENT.code()) {
+                return ImmutableList.of();
+            }
+            if (response.getStatusCode() != HttpStatus.OK.code()) {
+                throw new PageTransportErrorException(
+                        HostAddress.fromUri(request.getUri()),
+                        format("Expected response code from %s to be 200, but was %s", request.getUri(), response.getStatusCode()));
+            }
+            String contentType = response.getHeader(CONTENT_TYPE);
+            if (contentType == null || !MediaType.parse(contentType).is(PRESTO_EXCHANGE_FRAMES_TYPE)) {
+                throw new PageTransportErrorException(
+                        HostAddress.fromUri(request.getUri()),
+                        format("Expected %s response from %s but got %s", PRESTO_EXCHANGE_FRAMES_TYPE, request.getUri(), contentType));
+            }
+
+            List<ExchangeStreamFrame> frames = new ArrayList<>();
+            try (SliceInput input = new InputStreamSliceInput(response.getInputStream())) {
+                while (input.isReadable()) {
+                    frames.add(readFrame(input));
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return frames;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.airlift.http.client.HttpClient;
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.presto.server.ExchangeStreamRequest;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.Inject;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import java.net.URI;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+public class HttpStreamingShuffleClientProvider
+        implements RpcShuffleClientProvider
+{
+    private final HttpClient httpClient;
+    // a stream that expires keeps serving the clients that use it, new clients use a new stream
+    private final LoadingCache<URI, HttpExchangeStream> streams;
+
+    @Inject
+    public HttpStreamingShuffleClientProvider(
+            @ForExchange HttpClient httpClient,
+            JsonCodec<ExchangeStreamRequest> requestCodec,
+            ExchangeClientConfig config,
+            @ForExchange ScheduledExecutorService scheduler)
+    {
+        this.httpClient = requireNonNull(httpClient, "httpClient is null");
+        requireNonNull(requestCodec, "requestCodec is null");
+        requireNonNull(scheduler, "scheduler is null");
+        // leave room for the encoding, like the exchange client does for its requests
+        DataSize maxResponseSize = new DataSize(config.getMaxResponseSize().toBytes() * 0.75, BYTE);
+        Duration batchDelay = config.getStreamBatchDelay();
+        this.streams = CacheBuilder.newBuilder()
+                .expireAfterAccess(10, MINUTES)
+                .build(CacheLoader.from(uri -> new HttpExchangeStream(httpClient, requestCodec, uri, maxResponseSize, batchDelay, scheduler)));
+    }
+
+    @Override
+    public RpcShuffleClient get(URI location)
+    {
+        URI streamUri = uriBuilderFrom(location).replacePath("/v1/exchange/stream").build();
+        return new StreamingRpcShuffleClient(streams.getUnchecked(streamUri), new HttpRpcShuffleClient(httpClient, location), location);
+    }
+}
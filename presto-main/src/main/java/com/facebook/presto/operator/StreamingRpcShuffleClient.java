@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.operator.PageBufferClient.PagesResponse;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.net.URI;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the results of a remote task through the exchange stream to its node. The buffer is
+ * aborted with a regular request, since that is not on the critical path.
+ */
+@ThreadSafe
+public final class StreamingRpcShuffleClient
+        implements RpcShuffleClient
+{
+    private final HttpExchangeStream stream;
+    private final RpcShuffleClient delegate;
+    private final TaskId taskId;
+    private final OutputBufferId bufferId;
+
+    StreamingRpcShuffleClient(HttpExchangeStream stream, RpcShuffleClient delegate, URI location)
+    {
+        this.stream = requireNonNull(stream, "stream is null");
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        requireNonNull(location, "location is null");
+
+        // location format: {scheme}://{host}:{port}/v1/task/{taskId}/results/{bufferId}
+        String[] paths = location.getPath().split("/");
+        this.taskId = TaskId.valueOf(paths[3]);
+        this.bufferId = OutputBufferId.fromString(paths[5]);
+    }
+
+    public TaskId getTaskId()
+    {
+        return taskId;
+    }
+
+    public OutputBufferId getBufferId()
+    {
+        return bufferId;
+    }
+
+    @Override
+    public ListenableFuture<PagesResponse> getResults(long token, DataSize maxResponseSize)
+    {
+        return stream.read(this, token, maxResponseSize);
+    }
+
+    @Override
+    public void acknowledgeResultsAsync(long nextToken)
+    {
+        stream.acknowledge(this, nextToken);
+    }
+
+    @Override
+    public ListenableFuture<?> abortResults()
+    {
+        return delegate.abortResults();
+    }
+
+    @Override
+    public Throwable rewriteException(Throwable throwable)
+    {
+        return delegate.rewriteException(throwable);
+    }
+}
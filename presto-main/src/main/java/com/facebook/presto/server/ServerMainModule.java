@@ -67,7 +67,9 @@ import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.execution.TaskThresholdMemoryRevokingScheduler;
 import com.facebook.presto.execution.buffer.SpoolingOutputBufferFactory;
 import com.facebook.presto.execution.executor.MultilevelSplitQueue;
+import com.facebook.presto.execution.executor.SplitQueue;
 import com.facebook.presto.execution.executor.TaskExecutor;
+import com.facebook.presto.execution.executor.WeightedFairSplitQueue;
 import com.facebook.presto.execution.scheduler.FlatNetworkTopology;
 import com.facebook.presto.execution.scheduler.LegacyNetworkTopology;
 import com.facebook.presto.execution.scheduler.NetworkTopology;
@@ -112,10 +114,13 @@ import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.operator.FileFragmentResultCacheConfig;
 import com.facebook.presto.operator.FileFragmentResultCacheManager;
 import com.facebook.presto.operator.ForExchange;
+import com.facebook.presto.operator.ForSort;
 import com.facebook.presto.operator.FragmentCacheStats;
 import com.facebook.presto.operator.FragmentResultCacheManager;
 import com.facebook.presto.operator.HttpAndThriftRpcShuffleClientProvider;
 import com.facebook.presto.operator.HttpShuffleClientProvider;
+import com.facebook.presto.operator.HttpStreamingShuffleClientProvider;
+import com.facebook.presto.operator.LocalShuffleClientProvider;
 import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.NoOpFragmentResultCacheManager;
 import com.facebook.presto.operator.OperatorStats;
@@ -272,6 +277,7 @@ import static com.facebook.drift.client.ExceptionClassification.HostStatus.NORMA
 import static com.facebook.drift.client.guice.DriftClientBinder.driftClientBinder;
 import static com.facebook.drift.codec.guice.ThriftCodecBinder.thriftCodecBinder;
 import static com.facebook.drift.server.guice.DriftServerBinder.driftServerBinder;
+import static com.facebook.presto.execution.TaskManagerConfig.SplitSchedulingPolicy.WEIGHTED_FAIR;
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType.FLAT;
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType.LEGACY;
 import static com.facebook.presto.server.ServerConfig.POOL_TYPE;
@@ -525,8 +531,16 @@ public class ServerMainModule
         newExporter(binder).export(TaskManager.class).withGeneratedName();
         binder.bind(TaskExecutor.class).in(Scopes.SINGLETON);
         newExporter(binder).export(TaskExecutor.class).withGeneratedName();
-        binder.bind(MultilevelSplitQueue.class).in(Scopes.SINGLETON);
-        newExporter(binder).export(MultilevelSplitQueue.class).withGeneratedName();
+        if (buildConfigObject(TaskManagerConfig.class).getSplitSchedulingPolicy() == WEIGHTED_FAIR) {
+            binder.bind(WeightedFairSplitQueue.class).in(Scopes.SINGLETON);
+            binder.bind(SplitQueue.class).to(WeightedFairSplitQueue.class);
+            newExporter(binder).export(WeightedFairSplitQueue.class).withGeneratedName();
+        }
+        else {
+            binder.bind(MultilevelSplitQueue.class).in(Scopes.SINGLETON);
+            binder.bind(SplitQueue.class).to(MultilevelSplitQueue.class);
+            newExporter(binder).export(MultilevelSplitQueue.class).withGeneratedName();
+        }
         binder.bind(LocalExecutionPlanner.class).in(Scopes.SINGLETON);
         configBinder(binder).bindConfig(FileFragmentResultCacheConfig.class);
         binder.bind(FragmentCacheStats.class).in(Scopes.SINGLETON);
@@ -574,6 +588,9 @@ public class ServerMainModule
         binder.bind(ThriftShuffleClientProvider.class)
                 .annotatedWith(ForExchange.class)
                 .to(ThriftShuffleClientProvider.class);
+        binder.bind(LocalShuffleClientProvider.class).in(Scopes.SINGLETON);
+        binder.bind(HttpStreamingShuffleClientProvider.class).in(Scopes.SINGLETON);
+        jsonCodecBinder(binder).bindJsonCodec(ExchangeStreamRequest.class);
         binder.bind(ExchangeClientSupplier.class).to(ExchangeClientFactory.class).in(Scopes.SINGLETON);
 
         httpClientBinder(binder).bindHttpClient("exchange", ForExchange.class)
@@ -809,6 +826,14 @@ public class ServerMainModule
                 .to(AsyncPageTransportServlet.class)
                 .in(Scopes.SINGLETON);
 
+        // Exchange stream
+        binder.bind(ExchangeStreamServlet.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ExchangeStreamServlet.class).withGeneratedName();
+        newMapBinder(binder, String.class, Servlet.class, TheServlet.class)
+                .addBinding("/v1/exchange/stream")
+                .to(ExchangeStreamServlet.class)
+                .in(Scopes.SINGLETON);
+
         // cleanup
         binder.bind(ExecutorCleanup.class).in(Scopes.SINGLETON);
 
@@ -854,6 +879,15 @@ public class ServerMainModule
         return newScheduledThreadPool(config.getClientThreads(), daemonThreadsNamed("exchange-client-%s"));
     }
 
+    @Provides
+    @Singleton
+    @ForSort
+    public static ExecutorService createSortExecutor(TaskManagerConfig config)
+    {
+        // shared by the order by operators that sort their runs in parallel
+        return newFixedThreadPool(config.getTaskConcurrency(), daemonThreadsNamed("order-by-sort-%s"));
+    }
+
     @Provides
     @Singleton
     @ForAsyncRpc
@@ -907,12 +941,14 @@ public class ServerMainModule
         public ExecutorCleanup(
                 @ForExchange ScheduledExecutorService exchangeExecutor,
                 @ForAsyncRpc ExecutorService httpResponseExecutor,
-                @ForAsyncRpc ScheduledExecutorService httpTimeoutExecutor)
+                @ForAsyncRpc ScheduledExecutorService httpTimeoutExecutor,
+                @ForSort ExecutorService sortExecutor)
         {
             executors = ImmutableList.of(
                     exchangeExecutor,
                     httpResponseExecutor,
-                    httpTimeoutExecutor);
+                    httpTimeoutExecutor,
+                    sortExecutor);
         }
 
         @PreDestroy
@@ -0,0 +1,330 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.airlift.http.client.HttpStatus;
+import com.facebook.airlift.http.client.Request;
+import com.facebook.airlift.http.client.Response;
+import com.facebook.airlift.http.client.testing.TestingHttpClient;
+import com.facebook.airlift.http.client.testing.TestingResponse;
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.presto.block.BlockAssertions;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.memory.context.SimpleLocalMemoryContext;
+import com.facebook.presto.operator.PageBufferClient.PagesResponse;
+import com.facebook.presto.server.ExchangeStreamRequest;
+import com.facebook.presto.server.ExchangeStreamRequest.Acknowledgement;
+import com.facebook.presto.server.ExchangeStreamRequest.Read;
+import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_EXCHANGE_FRAMES;
+import static com.facebook.presto.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.server.ExchangeStreamFrame.writeResultFrame;
+import static com.google.common.collect.Maps.uniqueIndex;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.String.format;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestHttpExchangeStream
+{
+    private static final PagesSerde PAGES_SERDE = testingPagesSerde();
+    private static final JsonCodec<ExchangeStreamRequest> REQUEST_CODEC = jsonCodec(ExchangeStreamRequest.class);
+    private static final DataSize MAX_RESPONSE_SIZE = new DataSize(10, MEGABYTE);
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService pageBufferClientCallbackExecutor;
+    private ExecutorService testingHttpClientExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        scheduler = newScheduledThreadPool(4, daemonThreadsNamed("test-%s"));
+        pageBufferClientCallbackExecutor = newSingleThreadExecutor();
+        testingHttpClientExecutor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+        pageBufferClientCallbackExecutor.shutdownNow();
+        testingHttpClientExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testReadsAreBatched()
+    {
+        MockExchangeStreamProcessor processor = new MockExchangeStreamProcessor();
+        URI location1 = URI.create("http://localhost:8080/v1/task/query.0.0.1.0/results/0");
+        URI location2 = URI.create("http://localhost:8080/v1/task/query.0.0.2.0/results/0");
+        processor.addPage(location1, createPage(1));
+        processor.addPage(location1, createPage(2));
+        processor.addPage(location2, createPage(3));
+
+        // a long delay, so that the reads are sent in one request
+        HttpExchangeStream stream = createStream(processor, new Duration(100, MILLISECONDS));
+        StreamingRpcShuffleClient client1 = createClient(processor, stream, location1);
+        StreamingRpcShuffleClient client2 = createClient(processor, stream, location2);
+        ListenableFuture<PagesResponse> read1 = client1.getResults(0, MAX_RESPONSE_SIZE);
+        ListenableFuture<PagesResponse> read2 = client2.getResults(0, MAX_RESPONSE_SIZE);
+
+        PagesResponse response1 = getUnchecked(read1);
+        assertEquals(response1.getToken(), 0);
+        assertEquals(response1.getNextToken(), 2);
+        assertEquals(response1.getPages().size(), 2);
+        PagesResponse response2 = getUnchecked(read2);
+        assertEquals(response2.getNextToken(), 1);
+        assertEquals(processor.getRequests(), ImmutableList.of(2));
+
+        // the acknowledgements are sent with the next request
+        client1.acknowledgeResultsAsync(2);
+        client2.acknowledgeResultsAsync(1);
+        ListenableFuture<PagesResponse> read3 = client2.getResults(1, MAX_RESPONSE_SIZE);
+        processor.addPage(location2, createPage(4));
+        assertEquals(getUnchecked(read3).getPages().size(), 1);
+        assertEquals(processor.getAcknowledgedToken(location1), 2);
+        assertEquals(processor.getAcknowledgedToken(location2), 1);
+    }
+
+    @Test
+    public void testReadsWithoutDataAreSentAgain()
+    {
+        MockExchangeStreamProcessor processor = new MockExchangeStreamProcessor();
+        URI location1 = URI.create("http://localhost:8080/v1/task/query.0.0.1.0/results/0");
+        URI location2 = URI.create("http://localhost:8080/v1/task/query.0.0.2.0/results/0");
+        processor.addPage(location2, createPage(1));
+
+        HttpExchangeStream stream = createStream(processor, new Duration(100, MILLISECONDS));
+        ListenableFuture<PagesResponse> read1 = createClient(processor, stream, location1).getResults(0, MAX_RESPONSE_SIZE);
+        ListenableFuture<PagesResponse> read2 = createClient(processor, stream, location2).getResults(0, MAX_RESPONSE_SIZE);
+
+        assertEquals(getUnchecked(read2).getPages().size(), 1);
+        assertFalse(read1.isDone());
+
+        processor.addPage(location1, createPage(2));
+        PagesResponse response1 = getUnchecked(read1);
+        assertEquals(response1.getPages().size(), 1);
+        assertEquals(processor.getRequests().get(0), (Integer) 2);
+        assertTrue(processor.getRequests().size() >= 2);
+    }
+
+    @Test(timeOut = 60_000)
+    public void testExchangeClient()
+    {
+        MockExchangeStreamProcessor processor = new MockExchangeStreamProcessor();
+        List<URI> locations = ImmutableList.of(
+                URI.create("http://localhost:8080/v1/task/query.0.0.1.0/results/0"),
+                URI.create("http://localhost:8080/v1/task/query.0.0.2.0/results/0"),
+                URI.create("http://localhost:8081/v1/task/query.0.0.3.0/results/0"));
+        for (URI location : locations) {
+            processor.addPage(location, createPage(1));
+            processor.addPage(location, createPage(2));
+            processor.setComplete(location);
+        }
+
+        HttpStreamingShuffleClientProvider provider = new HttpStreamingShuffleClientProvider(
+                new TestingHttpClient(processor, testingHttpClientExecutor),
+                REQUEST_CODEC,
+                new ExchangeClientConfig(),
+                scheduler);
+        ExchangeClient exchangeClient = new ExchangeClient(
+                new DataSize(32, MEGABYTE),
+                MAX_RESPONSE_SIZE,
+                1,
+                new Duration(1, MINUTES),
+                true,
+                0.2,
+                provider,
+                scheduler,
+                new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                pageBufferClientCallbackExecutor);
+
+        for (int i = 0; i < locations.size(); i++) {
+            exchangeClient.addLocation(locations.get(i), TaskId.valueOf("query.0.0." + (i + 1) + ".0"));
+        }
+        exchangeClient.noMoreLocations();
+
+        int positions = 0;
+        while (!exchangeClient.isFinished()) {
+            SerializedPage page = exchangeClient.pollPage();
+            if (page == null) {
+                getUnchecked(exchangeClient.isBlocked());
+                continue;
+            }
+            positions += page.getPositionCount();
+        }
+        assertEquals(positions, 9);
+        assertNull(exchangeClient.pollPage());
+
+        Map<URI, PageBufferClientStatus> statuses = uniqueIndex(exchangeClient.getStatus().getPageBufferClientStatuses(), PageBufferClientStatus::getUri);
+        for (URI location : locations) {
+            PageBufferClientStatus status = statuses.get(location);
+            assertEquals(status.getState(), "closed");
+            assertEquals(status.getPagesReceived(), 2);
+            assertTrue(status.getBytesReceived() > 0);
+            assertTrue(status.getAverageBytesPerSecond() > 0);
+        }
+        assertEquals(processor.getAbortedLocations().size(), locations.size());
+    }
+
+    private HttpExchangeStream createStream(MockExchangeStreamProcessor processor, Duration batchDelay)
+    {
+        return new HttpExchangeStream(
+                new TestingHttpClient(processor, testingHttpClientExecutor),
+                REQUEST_CODEC,
+                URI.create("http://localhost:8080/v1/exchange/stream"),
+                MAX_RESPONSE_SIZE,
+                batchDelay,
+                scheduler);
+    }
+
+    private StreamingRpcShuffleClient createClient(MockExchangeStreamProcessor processor, HttpExchangeStream stream, URI location)
+    {
+        return new StreamingRpcShuffleClient(stream, new HttpRpcShuffleClient(new TestingHttpClient(processor, testingHttpClientExecutor), location), location);
+    }
+
+    private static Page createPage(int size)
+    {
+        return new Page(BlockAssertions.createLongSequenceBlock(0, size));
+    }
+
+    /**
+     * Serves the exchange stream from in memory buffers. Unlike the servlet, a request is answered
+     * right away, and the reads without data are left out of the response.
+     */
+    private static class MockExchangeStreamProcessor
+            implements TestingHttpClient.Processor
+    {
+        private static final String TASK_INSTANCE_ID = "task-instance-id";
+
+        private final Map<URI, List<SerializedPage>> buffers = new ConcurrentHashMap<>();
+        private final Map<URI, Boolean> completed = new ConcurrentHashMap<>();
+        private final Map<URI, Long> acknowledgedTokens = new ConcurrentHashMap<>();
+        private final List<Integer> requests = new ArrayList<>();
+        private final List<URI> abortedLocations = new ArrayList<>();
+
+        public synchronized void addPage(URI location, Page page)
+        {
+            buffers.computeIfAbsent(location, ignored -> new ArrayList<>()).add(PAGES_SERDE.serialize(page));
+        }
+
+        public synchronized void setComplete(URI location)
+        {
+            completed.put(location, true);
+        }
+
+        public synchronized List<Integer> getRequests()
+        {
+            return ImmutableList.copyOf(requests);
+        }
+
+        public synchronized List<URI> getAbortedLocations()
+        {
+            return ImmutableList.copyOf(abortedLocations);
+        }
+
+        public long getAcknowledgedToken(URI location)
+        {
+            return acknowledgedTokens.getOrDefault(location, 0L);
+        }
+
+        @Override
+        public synchronized Response handle(Request request)
+                throws Exception
+        {
+            if (request.getMethod().equalsIgnoreCase("DELETE")) {
+                abortedLocations.add(request.getUri());
+                return new TestingResponse(HttpStatus.NO_CONTENT, ImmutableListMultimap.of(), new byte[0]);
+            }
+            assertEquals(request.getUri().getPath(), "/v1/exchange/stream");
+            DynamicSliceOutput body = new DynamicSliceOutput(64);
+            request.getBodyGenerator().write(body);
+            ExchangeStreamRequest streamRequest = REQUEST_CODEC.fromJson(body.slice().getBytes());
+
+            for (Acknowledgement acknowledgement : streamRequest.getAcknowledgements()) {
+                acknowledgedTokens.merge(getLocation(request, acknowledgement.getTaskId(), acknowledgement.getBufferId().toString()), acknowledgement.getToken(), Math::max);
+            }
+            List<Read> reads = streamRequest.getReads();
+            if (reads.isEmpty()) {
+                return new TestingResponse(HttpStatus.NO_CONTENT, ImmutableListMultimap.of(), new byte[0]);
+            }
+            requests.add(reads.size());
+
+            List<BufferResult> results = new ArrayList<>();
+            for (Read read : reads) {
+                URI location = getLocation(request, read.getTaskId(), read.getBufferId().toString());
+                acknowledgedTokens.merge(location, read.getToken(), Math::max);
+                List<SerializedPage> pages = buffers.getOrDefault(location, ImmutableList.of());
+                int token = (int) read.getToken();
+                if (token < pages.size()) {
+                    results.add(new BufferResult(TASK_INSTANCE_ID, token, pages.size(), false, 0, pages.subList(token, pages.size())));
+                }
+                else if (completed.getOrDefault(location, false)) {
+                    results.add(BufferResult.emptyResults(TASK_INSTANCE_ID, token, true));
+                }
+                else {
+                    results.add(null);
+                }
+            }
+
+            DynamicSliceOutput output = new DynamicSliceOutput(64);
+            for (int i = 0; i < reads.size(); i++) {
+                if (results.get(i) != null) {
+                    writeResultFrame(output, i, results.get(i));
+                }
+            }
+            return new TestingResponse(HttpStatus.OK, ImmutableListMultimap.of(CONTENT_TYPE, PRESTO_EXCHANGE_FRAMES), output.slice().getBytes());
+        }
+
+        private static URI getLocation(Request request, TaskId taskId, String bufferId)
+        {
+            URI uri = request.getUri();
+            return URI.create(format("%s://%s:%s/v1/task/%s/results/%s", uri.getScheme(), uri.getHost(), uri.getPort(), taskId, bufferId));
+        }
+    }
+}
@@ -24,16 +24,29 @@ import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 import static com.facebook.presto.orc.OrcDataSourceUtils.getDiskRangeSlice;
 import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
@@ -46,10 +59,28 @@ public abstract class AbstractOrcDataSource
     private final DataSize maxBufferSize;
     private final DataSize streamBufferSize;
     private final boolean lazyReadSmallRanges;
+    private final Optional<OrcAsyncReadOptions> asyncReadOptions;
     private long readTimeNanos;
     private long readBytes;
+    private Prefetch prefetch;
 
     public AbstractOrcDataSource(OrcDataSourceId id, long size, DataSize maxMergeDistance, DataSize maxBufferSize, DataSize streamBufferSize, boolean lazyReadSmallRanges)
+    {
+        this(id, size, maxMergeDistance, maxBufferSize, streamBufferSize, lazyReadSmallRanges, Optional.empty());
+    }
+
+    /**
+     * With async read options, {@link #readInternal} may be called concurrently from the threads of the
+     * executor, so it must not depend on a shared file position.
+     */
+    public AbstractOrcDataSource(
+            OrcDataSourceId id,
+            long size,
+            DataSize maxMergeDistance,
+            DataSize maxBufferSize,
+            DataSize streamBufferSize,
+            boolean lazyReadSmallRanges,
+            Optional<OrcAsyncReadOptions> asyncReadOptions)
     {
         this.id = requireNonNull(id, "id is null");
 
@@ -60,11 +91,20 @@ public abstract class AbstractOrcDataSource
         this.maxBufferSize = requireNonNull(maxBufferSize, "maxBufferSize is null");
         this.streamBufferSize = requireNonNull(streamBufferSize, "streamBufferSize is null");
         this.lazyReadSmallRanges = lazyReadSmallRanges;
+        this.asyncReadOptions = requireNonNull(asyncReadOptions, "asyncReadOptions is null");
     }
 
     protected abstract void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
             throws IOException;
 
+    /**
+     * Called when a prefetched range is dropped, with the bytes that were served from it and
+     * the bytes that were read but never used.
+     */
+    protected void prefetchDiscarded(long hitBytes, long wastedBytes)
+    {
+    }
+
     @Override
     public OrcDataSourceId getId()
     {
@@ -102,7 +142,9 @@ public abstract class AbstractOrcDataSource
     {
         long start = System.nanoTime();
 
-        readInternal(position, buffer, bufferOffset, bufferLength);
+        if (!readPrefetched(position, buffer, bufferOffset, bufferLength)) {
+            readInternal(position, buffer, bufferOffset, bufferLength);
+        }
 
         readTimeNanos += System.nanoTime() - start;
         readBytes += bufferLength;
@@ -155,7 +197,8 @@ public abstract class AbstractOrcDataSource
         Iterable<DiskRange> mergedRanges = mergeAdjacentDiskRanges(diskRanges.values(), maxMergeDistance, maxBufferSize);
 
         ImmutableMap.Builder<K, OrcDataSourceInput> slices = ImmutableMap.builder();
-        if (lazyReadSmallRanges) {
+        // async reads issue all merged ranges up front, so nothing is left to read lazily
+        if (lazyReadSmallRanges && !asyncReadOptions.isPresent()) {
             for (DiskRange mergedRange : mergedRanges) {
                 LazyBufferLoader mergedRangeLazyLoader = new LazyBufferLoader(mergedRange);
                 for (Entry<K, DiskRange> diskRangeEntry : diskRanges.entrySet()) {
@@ -168,14 +211,7 @@ public abstract class AbstractOrcDataSource
             }
         }
         else {
-            Map<DiskRange, byte[]> buffers = new LinkedHashMap<>();
-            for (DiskRange mergedRange : mergedRanges) {
-                // read full range in one request
-                byte[] buffer = new byte[mergedRange.getLength()];
-                readFully(mergedRange.getOffset(), buffer);
-                buffers.put(mergedRange, buffer);
-            }
-
+            Map<DiskRange, byte[]> buffers = readMergedDiskRanges(mergedRanges);
             for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
                 slices.put(entry.getKey(), new OrcDataSourceInput(getDiskRangeSlice(entry.getValue(), buffers).getInput(), entry.getValue().getLength()));
             }
@@ -186,6 +222,149 @@ public abstract class AbstractOrcDataSource
         return sliceStreams;
     }
 
+    private Map<DiskRange, byte[]> readMergedDiskRanges(Iterable<DiskRange> mergedRanges)
+            throws IOException
+    {
+        Map<DiskRange, byte[]> buffers = new LinkedHashMap<>();
+        List<DiskRange> asyncRanges = new ArrayList<>();
+        for (DiskRange mergedRange : mergedRanges) {
+            byte[] buffer = new byte[mergedRange.getLength()];
+            buffers.put(mergedRange, buffer);
+            if (asyncReadOptions.isPresent() && !isPrefetched(mergedRange.getOffset(), mergedRange.getLength())) {
+                asyncRanges.add(mergedRange);
+            }
+            else {
+                // read full range in one request
+                readFully(mergedRange.getOffset(), buffer);
+            }
+        }
+
+        if (asyncRanges.size() == 1) {
+            DiskRange mergedRange = asyncRanges.get(0);
+            readFully(mergedRange.getOffset(), buffers.get(mergedRange));
+        }
+        else if (!asyncRanges.isEmpty()) {
+            readConcurrently(asyncRanges, buffers);
+        }
+        return buffers;
+    }
+
+    private void readConcurrently(List<DiskRange> diskRanges, Map<DiskRange, byte[]> buffers)
+            throws IOException
+    {
+        OrcAsyncReadOptions options = asyncReadOptions.get();
+        long start = System.nanoTime();
+
+        List<AsyncRead> reads = new ArrayList<>(diskRanges.size());
+        try {
+            for (DiskRange diskRange : diskRanges) {
+                // keep at most maxConcurrentReads reads of this data source in flight
+                if (reads.size() >= options.getMaxConcurrentReads()) {
+                    waitFor(reads.get(reads.size() - options.getMaxConcurrentReads()).getData());
+                }
+                AsyncRead read = new AsyncRead(diskRange.getOffset(), buffers.get(diskRange));
+                reads.add(read);
+                options.getExecutor().execute(read);
+            }
+            for (AsyncRead read : reads) {
+                waitFor(read.getData());
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            // the caller may close the file once the failure is reported, so no sibling read may still be running
+            for (AsyncRead read : reads) {
+                read.cancel();
+            }
+            throw e;
+        }
+
+        readTimeNanos += System.nanoTime() - start;
+        for (DiskRange diskRange : diskRanges) {
+            readBytes += diskRange.getLength();
+        }
+    }
+
+    @Override
+    public final void prefetch(DiskRange diskRange, OrcLocalMemoryContext memoryContext)
+    {
+        requireNonNull(diskRange, "diskRange is null");
+        requireNonNull(memoryContext, "memoryContext is null");
+        if (!asyncReadOptions.isPresent() || diskRange.getLength() > asyncReadOptions.get().getMaxPrefetchSize().toBytes()) {
+            return;
+        }
+
+        discardPrefetch();
+        AsyncRead read = new AsyncRead(diskRange.getOffset(), new byte[diskRange.getLength()]);
+        memoryContext.setBytes(diskRange.getLength());
+        prefetch = new Prefetch(diskRange, read, memoryContext);
+        asyncReadOptions.get().getExecutor().execute(read);
+    }
+
+    /**
+     * Drops the pending prefetch, if any. Subclasses call this before releasing the file.
+     */
+    protected final void discardPrefetch()
+    {
+        if (prefetch == null) {
+            return;
+        }
+        prefetch.getRead().cancel();
+        prefetch.getMemoryContext().setBytes(0);
+        long length = prefetch.getDiskRange().getLength();
+        long hitBytes = min(prefetch.getHitBytes(), length);
+        prefetch = null;
+        prefetchDiscarded(hitBytes, length - hitBytes);
+    }
+
+    private boolean isPrefetched(long position, int length)
+    {
+        return prefetch != null && prefetch.getDiskRange().getOffset() <= position && position + length <= prefetch.getDiskRange().getEnd();
+    }
+
+    private boolean readPrefetched(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        if (!isPrefetched(position, bufferLength)) {
+            return false;
+        }
+
+        byte[] data;
+        try {
+            data = prefetch.getRead().getData().get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch (ExecutionException | CancellationException e) {
+            // the range is read again directly, which reports the failure if it persists
+            discardPrefetch();
+            return false;
+        }
+
+        System.arraycopy(data, toIntExact(position - prefetch.getDiskRange().getOffset()), buffer, bufferOffset, bufferLength);
+        prefetch.addHitBytes(bufferLength);
+        return true;
+    }
+
+    private static void waitFor(Future<?> read)
+            throws IOException
+    {
+        try {
+            read.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throwIfInstanceOf(cause, IOException.class);
+            throwIfUnchecked(cause);
+            throw new IOException(cause);
+        }
+    }
+
     private <K> Map<K, OrcDataSourceInput> readLargeDiskRanges(Map<K, DiskRange> diskRanges)
     {
         if (diskRanges.isEmpty()) {
@@ -208,6 +387,99 @@ public abstract class AbstractOrcDataSource
         return id.toString();
     }
 
+    /**
+     * A read of a range into a buffer on the executor. Once cancelled, the read either never
+     * started or has finished, so the file can be closed.
+     */
+    private final class AsyncRead
+            implements Runnable
+    {
+        private final long position;
+        private final byte[] buffer;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<byte[]> data = new CompletableFuture<>();
+
+        public AsyncRead(long position, byte[] buffer)
+        {
+            this.position = position;
+            this.buffer = requireNonNull(buffer, "buffer is null");
+        }
+
+        public CompletableFuture<byte[]> getData()
+        {
+            return data;
+        }
+
+        @Override
+        public void run()
+        {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                readInternal(position, buffer, 0, buffer.length);
+                data.complete(buffer);
+            }
+            catch (Throwable t) {
+                data.completeExceptionally(t);
+            }
+        }
+
+        public void cancel()
+        {
+            if (started.compareAndSet(false, true)) {
+                data.cancel(false);
+                return;
+            }
+            try {
+                getUninterruptibly(data);
+            }
+            catch (ExecutionException | CancellationException ignored) {
+                // the failure is reported by the read that waits for it, if any
+            }
+        }
+    }
+
+    private static final class Prefetch
+    {
+        private final DiskRange diskRange;
+        private final AsyncRead read;
+        private final OrcLocalMemoryContext memoryContext;
+        private long hitBytes;
+
+        public Prefetch(DiskRange diskRange, AsyncRead read, OrcLocalMemoryContext memoryContext)
+        {
+            this.diskRange = requireNonNull(diskRange, "diskRange is null");
+            this.read = requireNonNull(read, "read is null");
+            this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+        }
+
+        public DiskRange getDiskRange()
+        {
+            return diskRange;
+        }
+
+        public AsyncRead getRead()
+        {
+            return read;
+        }
+
+        public OrcLocalMemoryContext getMemoryContext()
+        {
+            return memoryContext;
+        }
+
+        public long getHitBytes()
+        {
+            return hitBytes;
+        }
+
+        public void addHitBytes(long bytes)
+        {
+            hitBytes += bytes;
+        }
+    }
+
     private final class LazyBufferLoader
     {
         private final DiskRange diskRange;
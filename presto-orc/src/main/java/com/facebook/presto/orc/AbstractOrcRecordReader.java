@@ -77,6 +77,7 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
     protected final OrcAggregatedMemoryContext systemMemoryUsage;
 
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(AbstractOrcRecordReader.class).instanceSize();
+    private static final double MIN_PREFETCH_INCLUDED_STREAMS_FRACTION = 0.5;
 
     private final OrcDataSource orcDataSource;
 
@@ -99,6 +100,7 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
     private final StripeReader stripeReader;
     private int currentStripe = -1;
     private OrcAggregatedMemoryContext currentStripeSystemMemoryContext;
+    private final OrcLocalMemoryContext prefetchMemoryContext;
     private Optional<DwrfEncryptionInfo> dwrfEncryptionInfo = Optional.empty();
 
     private final long fileRowCount;
@@ -242,6 +244,7 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
         this.userMetadata = ImmutableMap.copyOf(Maps.transformValues(userMetadata, Slices::copyOf));
 
         this.currentStripeSystemMemoryContext = this.systemMemoryUsage.newOrcAggregatedMemoryContext();
+        this.prefetchMemoryContext = this.systemMemoryUsage.newOrcLocalMemoryContext("stripePrefetch");
 
         Set<Integer> includedOrcColumns = getIncludedOrcColumns(types, this.presentColumns, requireNonNull(requiredSubfields, "requiredSubfields is null"));
         this.encryptionLibrary = encryptionLibrary;
@@ -504,6 +507,7 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
             throws IOException
     {
         try (Closer closer = Closer.create()) {
+            closer.register(prefetchMemoryContext::close);
             closer.register(orcDataSource);
             for (StreamReader column : streamReaders) {
                 if (column != null) {
@@ -670,6 +674,11 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
 
         SharedBuffer sharedDecompressionBuffer = new SharedBuffer(currentStripeSystemMemoryContext.newOrcLocalMemoryContext("sharedDecompressionBuffer"));
         Stripe stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext, dwrfEncryptionInfo, sharedDecompressionBuffer);
+
+        // let the data source fetch the next stripe while this one is decoded
+        if (currentStripe + 1 < stripes.size()) {
+            prefetchStripe(stripes.get(currentStripe + 1));
+        }
         if (stripe != null) {
             for (StreamReader column : streamReaders) {
                 if (column != null) {
@@ -682,6 +691,20 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
         fileIntrospector.ifPresent(introspector -> introspector.onStripe(stripeInformation, stripe));
     }
 
+    private void prefetchStripe(StripeInformation stripe)
+    {
+        long offset = stripe.getOffset();
+        long length = stripe.getTotalLength();
+        if (stripeReader.getIncludedStreamsFraction() < MIN_PREFETCH_INCLUDED_STREAMS_FRACTION) {
+            // most of the stripe belongs to columns that are not read, so only the footer is worth fetching
+            offset += stripe.getIndexLength() + stripe.getDataLength();
+            length = stripe.getFooterLength();
+        }
+        if (length > 0 && length <= Integer.MAX_VALUE) {
+            orcDataSource.prefetch(new DiskRange(offset, toIntExact(length)), prefetchMemoryContext);
+        }
+    }
+
     @VisibleForTesting
     public static List<byte[]> getDecryptionKeyMetadata(int currentStripe, List<StripeInformation> stripes)
     {
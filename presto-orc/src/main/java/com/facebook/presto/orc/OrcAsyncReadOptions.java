@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import io.airlift.units.DataSize;
+
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lets an {@link AbstractOrcDataSource} issue the merged ranges of a read concurrently and
+ * prefetch the next stripe. The executor bounds the reads of all data sources sharing it,
+ * while {@code maxConcurrentReads} bounds the reads in flight for a single data source.
+ */
+public class OrcAsyncReadOptions
+{
+    private final Executor executor;
+    private final int maxConcurrentReads;
+    private final DataSize maxPrefetchSize;
+
+    public OrcAsyncReadOptions(Executor executor, int maxConcurrentReads, DataSize maxPrefetchSize)
+    {
+        this.executor = requireNonNull(executor, "executor is null");
+        checkArgument(maxConcurrentReads > 0, "maxConcurrentReads must be positive");
+        this.maxConcurrentReads = maxConcurrentReads;
+        this.maxPrefetchSize = requireNonNull(maxPrefetchSize, "maxPrefetchSize is null");
+    }
+
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
+    public int getMaxConcurrentReads()
+    {
+        return maxConcurrentReads;
+    }
+
+    public DataSize getMaxPrefetchSize()
+    {
+        return maxPrefetchSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("maxConcurrentReads", maxConcurrentReads)
+                .add("maxPrefetchSize", maxPrefetchSize)
+                .toString();
+    }
+}
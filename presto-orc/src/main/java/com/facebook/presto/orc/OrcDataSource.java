@@ -37,6 +37,15 @@ public interface OrcDataSource
     <K> Map<K, OrcDataSourceInput> readFully(Map<K, DiskRange> diskRanges)
             throws IOException;
 
+    /**
+     * Hints that the given range is about to be read. Data sources that support it start reading
+     * the range in the background and serve later reads that fall within it from memory. The
+     * prefetched buffer is charged to the memory context until it is dropped.
+     */
+    default void prefetch(DiskRange diskRange, OrcLocalMemoryContext memoryContext)
+    {
+    }
+
     @Override
     default void close()
             throws IOException
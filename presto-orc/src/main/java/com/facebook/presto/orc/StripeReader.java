@@ -79,6 +79,7 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.lang.Math.min;
 import static java.lang.Math.multiplyExact;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
@@ -100,6 +101,7 @@ public class StripeReader
     private final Multimap<Integer, Integer> dwrfEncryptionGroupColumns;
     private final RuntimeStats runtimeStats;
     private final Optional<OrcFileIntrospector> fileIntrospector;
+    private double includedStreamsFraction = 1.0;
 
     public StripeReader(
             OrcDataSource orcDataSource,
@@ -184,6 +186,14 @@ public class StripeReader
             }
         }
 
+        long stripeStreamsLength = stripe.getIndexLength() + stripe.getDataLength();
+        if (stripeStreamsLength > 0) {
+            long includedStreamsLength = includedStreams.values().stream()
+                    .mapToLong(Stream::getLength)
+                    .sum();
+            includedStreamsFraction = min(1.0, (double) includedStreamsLength / stripeStreamsLength);
+        }
+
         // handle stripes with more than one row group or a dictionary
         boolean invalidCheckPoint = false;
         if ((stripe.getNumberOfRows() > rowsInRowGroup) || hasRowGroupDictionary) {
@@ -290,6 +300,15 @@ public class StripeReader
         return new Stripe(stripe.getNumberOfRows(), columnEncodings, ImmutableList.of(rowGroup), dictionaryStreamSources);
     }
 
+    /**
+     * Returns the fraction of the index and data bytes of the last read stripe that belong to the
+     * streams of the included columns.
+     */
+    public double getIncludedStreamsFraction()
+    {
+        return includedStreamsFraction;
+    }
+
     private StripeEncryptionGroup getStripeEncryptionGroup(DwrfDataEncryptor decryptor, Slice encryptedGroup, Collection<Integer> columns, OrcAggregatedMemoryContext systemMemoryUsage)
             throws IOException
     {
@@ -0,0 +1,221 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestOrcAsyncReads
+{
+    private static final int FILE_SIZE = 1024 * 1024;
+
+    private final ExecutorService executor = newCachedThreadPool();
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentReadsOfMergedRanges()
+            throws IOException
+    {
+        TestingAsyncOrcDataSource dataSource = new TestingAsyncOrcDataSource(new OrcAsyncReadOptions(executor, 2, new DataSize(0, BYTE)));
+
+        ImmutableMap.Builder<Integer, DiskRange> diskRanges = ImmutableMap.builder();
+        for (int i = 0; i < 8; i++) {
+            // far enough apart not to be merged
+            diskRanges.put(i, new DiskRange(i * 100_000L, 1000));
+        }
+        Map<Integer, OrcDataSourceInput> inputs = dataSource.readFully(diskRanges.build());
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals(inputs.get(i).getInput().readByte(), valueAt(i * 100_000L));
+        }
+        assertEquals(dataSource.getReadCount(), 8);
+        assertEquals(dataSource.getReadBytes(), 8 * 1000);
+        assertTrue(dataSource.getMaxReadsInFlight() <= 2, "more reads in flight than allowed: " + dataSource.getMaxReadsInFlight());
+    }
+
+    @Test
+    public void testPrefetch()
+            throws IOException
+    {
+        TestingAsyncOrcDataSource dataSource = new TestingAsyncOrcDataSource(new OrcAsyncReadOptions(executor, 2, new DataSize(1, MEGABYTE)));
+        OrcAggregatedMemoryContext memoryContext = new TestingHiveOrcAggregatedMemoryContext();
+        dataSource.prefetch(new DiskRange(1000, 10_000), memoryContext.newOrcLocalMemoryContext("prefetch"));
+        assertEquals(memoryContext.getBytes(), 10_000);
+
+        byte[] buffer = new byte[100];
+        dataSource.readFully(5000, buffer);
+        assertEquals(buffer[0], valueAt(5000));
+        assertEquals(buffer[99], valueAt(5099));
+        // the only read of the file is the prefetch
+        assertEquals(dataSource.getReadCount(), 1);
+
+        // a read outside of the prefetched range goes to the file
+        dataSource.readFully(20_000, buffer);
+        assertEquals(buffer[0], valueAt(20_000));
+        assertEquals(dataSource.getReadCount(), 2);
+
+        dataSource.close();
+        assertEquals(dataSource.getPrefetchHitBytes(), 100);
+        assertEquals(dataSource.getPrefetchWastedBytes(), 9900);
+        assertEquals(memoryContext.getBytes(), 0);
+    }
+
+    @Test
+    public void testPrefetchLargerThanLimitIsIgnored()
+            throws IOException
+    {
+        TestingAsyncOrcDataSource dataSource = new TestingAsyncOrcDataSource(new OrcAsyncReadOptions(executor, 2, new DataSize(1, KILOBYTE)));
+        OrcAggregatedMemoryContext memoryContext = new TestingHiveOrcAggregatedMemoryContext();
+        dataSource.prefetch(new DiskRange(0, 10_000), memoryContext.newOrcLocalMemoryContext("prefetch"));
+        assertEquals(memoryContext.getBytes(), 0);
+        dataSource.close();
+
+        assertEquals(dataSource.getReadCount(), 0);
+        assertEquals(dataSource.getPrefetchWastedBytes(), 0);
+    }
+
+    @Test
+    public void testFailedReadWaitsForSiblingReads()
+    {
+        TestingAsyncOrcDataSource dataSource = new TestingAsyncOrcDataSource(new OrcAsyncReadOptions(executor, 2, new DataSize(0, BYTE)));
+        dataSource.setFailingPosition(100_000);
+
+        ImmutableMap.Builder<Integer, DiskRange> diskRanges = ImmutableMap.builder();
+        for (int i = 0; i < 8; i++) {
+            diskRanges.put(i, new DiskRange(i * 100_000L, 1000));
+        }
+        try {
+            dataSource.readFully(diskRanges.build());
+            fail("expected the read to fail");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "read failed");
+        }
+        // the file may be closed after the failure, so no read is still running
+        assertEquals(dataSource.getReadsInFlight(), 0);
+        int readCount = dataSource.getReadCount();
+        assertTrue(readCount < 8, "reads were issued after the failure");
+        sleepUninterruptibly(50, MILLISECONDS);
+        assertEquals(dataSource.getReadCount(), readCount);
+    }
+
+    private static byte valueAt(long position)
+    {
+        return (byte) (position % 127);
+    }
+
+    private static class TestingAsyncOrcDataSource
+            extends AbstractOrcDataSource
+    {
+        private final AtomicInteger readCount = new AtomicInteger();
+        private final AtomicInteger readsInFlight = new AtomicInteger();
+        private final AtomicInteger maxReadsInFlight = new AtomicInteger();
+        private volatile long failingPosition = -1;
+        private long prefetchHitBytes;
+        private long prefetchWastedBytes;
+
+        public TestingAsyncOrcDataSource(OrcAsyncReadOptions asyncReadOptions)
+        {
+            super(new OrcDataSourceId("test"), FILE_SIZE, new DataSize(1, KILOBYTE), new DataSize(8, MEGABYTE), new DataSize(8, MEGABYTE), false, Optional.of(asyncReadOptions));
+        }
+
+        @Override
+        protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
+                throws IOException
+        {
+            readCount.incrementAndGet();
+            if (position == failingPosition) {
+                throw new IOException("read failed");
+            }
+            int inFlight = readsInFlight.incrementAndGet();
+            maxReadsInFlight.accumulateAndGet(inFlight, Math::max);
+            try {
+                Thread.sleep(10);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (int i = 0; i < bufferLength; i++) {
+                buffer[bufferOffset + i] = valueAt(position + i);
+            }
+            readsInFlight.decrementAndGet();
+        }
+
+        @Override
+        protected void prefetchDiscarded(long hitBytes, long wastedBytes)
+        {
+            prefetchHitBytes += hitBytes;
+            prefetchWastedBytes += wastedBytes;
+        }
+
+        @Override
+        public void close()
+        {
+            discardPrefetch();
+        }
+
+        public void setFailingPosition(long failingPosition)
+        {
+            this.failingPosition = failingPosition;
+        }
+
+        public int getReadsInFlight()
+        {
+            return readsInFlight.get();
+        }
+
+        public int getReadCount()
+        {
+            return readCount.get();
+        }
+
+        public int getMaxReadsInFlight()
+        {
+            return maxReadsInFlight.get();
+        }
+
+        public long getPrefetchHitBytes()
+        {
+            return prefetchHitBytes;
+        }
+
+        public long getPrefetchWastedBytes()
+        {
+            return prefetchWastedBytes;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet;
+
+import io.airlift.slice.XxHash64;
+import org.apache.parquet.io.api.Binary;
+
+import static io.airlift.slice.Slices.wrappedBuffer;
+
+/**
+ * Hashes values for Parquet bloom filters: 64 bit xxHash with a zero seed over the plain encoded
+ * (little endian) bytes of the value, like {@link org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter#hash}.
+ * Unlike the methods of the filter, these do not share a buffer, so they can be used by any number of threads.
+ */
+public final class BloomFilterHashes
+{
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    private BloomFilterHashes() {}
+
+    public static long hash(int value)
+    {
+        // xxHash of the four bytes of the value, the slice based hash would need an allocation per value
+        long hash = PRIME64_5 + Integer.BYTES;
+        hash ^= (value & 0xFFFF_FFFFL) * PRIME64_1;
+        hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    public static long hash(long value)
+    {
+        return XxHash64.hash(value);
+    }
+
+    public static long hash(float value)
+    {
+        return hash(Float.floatToRawIntBits(value));
+    }
+
+    public static long hash(double value)
+    {
+        return hash(Double.doubleToRawLongBits(value));
+    }
+
+    public static long hash(Binary value)
+    {
+        return XxHash64.hash(wrappedBuffer(value.toByteBuffer()));
+    }
+}
@@ -27,5 +27,16 @@ public interface ColumnReader
 
     ColumnChunk readNext();
 
+    /**
+     * Reads only the given positions of the batch prepared by {@link #prepareNextRead(int)}.
+     * Positions must be sorted in increasing order. Readers that can skip values while decoding
+     * override this; the default decodes the whole batch and copies out the requested positions.
+     */
+    default ColumnChunk readNext(int[] positions, int positionCount)
+    {
+        ColumnChunk columnChunk = readNext();
+        return new ColumnChunk(columnChunk.getBlock().getPositions(positions, 0, positionCount), columnChunk.getDefinitionLevels(), columnChunk.getRepetitionLevels());
+    }
+
     long getRetainedSizeInBytes();
 }
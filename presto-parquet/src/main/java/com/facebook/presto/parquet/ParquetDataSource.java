@@ -13,10 +13,15 @@
  */
 package com.facebook.presto.parquet;
 
+import org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.format.BloomFilterHeader;
+import org.apache.parquet.format.Util;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.internal.column.columnindex.ColumnIndex;
 import org.apache.parquet.internal.column.columnindex.OffsetIndex;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Optional;
@@ -24,6 +29,9 @@ import java.util.Optional;
 public interface ParquetDataSource
         extends Closeable
 {
+    // the thrift encoded bloom filter header is about 15 bytes, and it is always followed by a bitset of at least 32 bytes
+    int BLOOM_FILTER_HEADER_MAX_SIZE = 64;
+
     ParquetDataSourceId getId();
 
     long getReadBytes();
@@ -38,6 +46,38 @@ public interface ParquetDataSource
 
     Optional<OffsetIndex> readOffsetIndex(ColumnChunkMetaData column) throws IOException;
 
+    /**
+     * Reads the split block bloom filter of the column chunk, if the writer stored one.
+     * Filters with an algorithm, hash or compression that the reader does not understand are ignored.
+     */
+    default Optional<BloomFilter> readBloomFilter(ColumnChunkMetaData column)
+            throws IOException
+    {
+        long offset = column.getBloomFilterOffset();
+        if (offset < 0) {
+            return Optional.empty();
+        }
+
+        byte[] headerBuffer = new byte[BLOOM_FILTER_HEADER_MAX_SIZE];
+        readFully(offset, headerBuffer);
+        ByteArrayInputStream headerStream = new ByteArrayInputStream(headerBuffer);
+        BloomFilterHeader header = Util.readBloomFilterHeader(headerStream);
+        int headerSize = headerBuffer.length - headerStream.available();
+
+        int numBytes = header.getNumBytes();
+        if (!header.getAlgorithm().isSetBLOCK() ||
+                !header.getHash().isSetXXHASH() ||
+                !header.getCompression().isSetUNCOMPRESSED() ||
+                numBytes < BlockSplitBloomFilter.LOWER_BOUND_BYTES ||
+                numBytes > BlockSplitBloomFilter.UPPER_BOUND_BYTES) {
+            return Optional.empty();
+        }
+
+        byte[] bitset = new byte[numBytes];
+        readFully(offset + headerSize, bitset);
+        return Optional.of(new BlockSplitBloomFilter(bitset));
+    }
+
     @Override
     default void close()
             throws IOException
@@ -113,6 +113,23 @@ public class Int32FlatBatchReader
         return columnChunk;
     }
 
+    @Override
+    public ColumnChunk readNext(int[] positions, int positionCount)
+    {
+        ColumnChunk columnChunk = null;
+        try {
+            seek();
+            columnChunk = readPositions(positions, positionCount);
+        }
+        catch (IOException exception) {
+            throw new PrestoException(PARQUET_IO_READ_ERROR, "Error reading Parquet column " + columnDescriptor, exception);
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return columnChunk;
+    }
+
     @Override
     public long getRetainedSizeInBytes()
     {
@@ -225,6 +242,110 @@ public class Int32FlatBatchReader
         return new ColumnChunk(block, new int[0], new int[0]);
     }
 
+    private ColumnChunk readPositions(int[] positions, int positionCount)
+            throws IOException
+    {
+        checkArgument(positionCount <= nextBatchSize, "positionCount %s is larger than the batch size %s", positionCount, nextBatchSize);
+        int[] values = new int[positionCount];
+        boolean[] isNull = new boolean[positionCount];
+        boolean[] chunkIsNull = field.isRequired() ? null : new boolean[nextBatchSize];
+
+        int totalNonNullCount = 0;
+        int outputIndex = 0;
+        int remainingInBatch = nextBatchSize;
+        int batchOffset = 0;
+        while (remainingInBatch > 0) {
+            if (remainingCountInPage == 0) {
+                if (!readNextPage()) {
+                    break;
+                }
+            }
+
+            int chunkSize = Math.min(remainingCountInPage, remainingInBatch);
+            int chunkEnd = batchOffset + chunkSize;
+            if (outputIndex == positionCount || positions[outputIndex] >= chunkEnd) {
+                // none of the requested positions are in this chunk
+                if (chunkSize == remainingCountInPage) {
+                    remainingCountInPage = 0;
+                }
+                else {
+                    int skipSize = chunkSize;
+                    if (chunkIsNull != null) {
+                        skipSize = definitionLevelDecoder.readNext(chunkIsNull, 0, chunkSize);
+                    }
+                    valuesDecoder.skip(skipSize);
+                    remainingCountInPage -= chunkSize;
+                }
+                batchOffset = chunkEnd;
+                remainingInBatch -= chunkSize;
+                continue;
+            }
+
+            if (chunkIsNull != null) {
+                definitionLevelDecoder.readNext(chunkIsNull, 0, chunkSize);
+            }
+
+            // decode runs of consecutive requested non-null values and skip the values in between
+            int skipSize = 0;
+            int runStart = outputIndex;
+            int runLength = 0;
+            for (int position = batchOffset; position < chunkEnd; position++) {
+                boolean valueIsNull = chunkIsNull != null && chunkIsNull[position - batchOffset];
+                if (outputIndex < positionCount && positions[outputIndex] == position) {
+                    if (valueIsNull) {
+                        if (runLength > 0) {
+                            valuesDecoder.readNext(values, runStart, runLength);
+                            runLength = 0;
+                        }
+                        isNull[outputIndex] = true;
+                    }
+                    else {
+                        if (skipSize > 0) {
+                            valuesDecoder.skip(skipSize);
+                            skipSize = 0;
+                        }
+                        if (runLength == 0) {
+                            runStart = outputIndex;
+                        }
+                        runLength++;
+                        totalNonNullCount++;
+                    }
+                    outputIndex++;
+                }
+                else if (!valueIsNull) {
+                    if (runLength > 0) {
+                        valuesDecoder.readNext(values, runStart, runLength);
+                        runLength = 0;
+                    }
+                    skipSize++;
+                }
+            }
+            if (runLength > 0) {
+                valuesDecoder.readNext(values, runStart, runLength);
+            }
+            if (skipSize > 0) {
+                valuesDecoder.skip(skipSize);
+            }
+
+            batchOffset = chunkEnd;
+            remainingInBatch -= chunkSize;
+            remainingCountInPage -= chunkSize;
+        }
+
+        if (remainingInBatch != 0) {
+            throw new ParquetDecodingException("Still remaining to be read in current batch.");
+        }
+
+        if (positionCount > 0 && totalNonNullCount == 0) {
+            Block block = RunLengthEncodedBlock.create(field.getType(), null, positionCount);
+            return new ColumnChunk(block, new int[0], new int[0]);
+        }
+
+        boolean hasNoNull = totalNonNullCount == positionCount;
+        Block block = new IntArrayBlock(positionCount, hasNoNull ? Optional.empty() : Optional.of(isNull), values);
+        return new ColumnChunk(block, new int[0], new int[0]);
+    }
+
     private void seek()
             throws IOException
     {
@@ -242,6 +363,12 @@ public class Int32FlatBatchReader
             }
 
             int chunkSize = Math.min(remainingCountInPage, remainingInBatch);
+            if (chunkSize == remainingCountInPage) {
+                // the rest of the page is dropped without decoding it
+                remainingInBatch -= chunkSize;
+                remainingCountInPage = 0;
+                continue;
+            }
             int skipSize = chunkSize;
             if (!columnDescriptor.isRequired()) {
                 boolean[] isNull = new boolean[readOffset];
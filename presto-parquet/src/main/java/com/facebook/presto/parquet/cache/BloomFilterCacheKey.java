@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.cache;
+
+import com.facebook.presto.parquet.ParquetDataSourceId;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the bloom filter of a column chunk. The modification time is part of the key,
+ * so that the filters of a rewritten file are never returned.
+ */
+public final class BloomFilterCacheKey
+{
+    private final ParquetDataSourceId dataSourceId;
+    private final long bloomFilterOffset;
+    private final long modificationTime;
+
+    public BloomFilterCacheKey(ParquetDataSourceId dataSourceId, long bloomFilterOffset, long modificationTime)
+    {
+        this.dataSourceId = requireNonNull(dataSourceId, "dataSourceId is null");
+        this.bloomFilterOffset = bloomFilterOffset;
+        this.modificationTime = modificationTime;
+    }
+
+    public ParquetDataSourceId getDataSourceId()
+    {
+        return dataSourceId;
+    }
+
+    public long getBloomFilterOffset()
+    {
+        return bloomFilterOffset;
+    }
+
+    public long getModificationTime()
+    {
+        return modificationTime;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BloomFilterCacheKey that = (BloomFilterCacheKey) o;
+        return bloomFilterOffset == that.bloomFilterOffset &&
+                modificationTime == that.modificationTime &&
+                dataSourceId.equals(that.dataSourceId);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(dataSourceId, bloomFilterOffset, modificationTime);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("dataSourceId", dataSourceId)
+                .add("bloomFilterOffset", bloomFilterOffset)
+                .add("modificationTime", modificationTime)
+                .toString();
+    }
+}
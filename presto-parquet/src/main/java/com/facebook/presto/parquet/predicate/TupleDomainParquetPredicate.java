@@ -17,11 +17,14 @@ import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.Range;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.ValueSet;
+import com.facebook.presto.common.type.DecimalType;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarbinaryType;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.ParquetDataSourceId;
 import com.facebook.presto.parquet.RichColumnDescriptor;
 import com.facebook.presto.parquet.dictionary.Dictionary;
+import com.facebook.presto.parquet.reader.ParquetBloomFilterStore;
 import com.facebook.presto.spi.PrestoWarning;
 import com.facebook.presto.spi.WarningCollector;
 import com.google.common.annotations.VisibleForTesting;
@@ -31,6 +34,7 @@ import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
 import org.apache.parquet.filter2.predicate.FilterApi;
 import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
@@ -38,12 +42,16 @@ import org.apache.parquet.hadoop.metadata.ColumnPath;
 import org.apache.parquet.internal.column.columnindex.ColumnIndex;
 import org.apache.parquet.internal.filter2.columnindex.ColumnIndexStore;
 import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.LogicalTypeAnnotation.DecimalLogicalTypeAnnotation;
 import org.apache.parquet.schema.PrimitiveType;
 import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
 
 import java.io.Serializable;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -52,20 +60,28 @@ import java.util.function.Function;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.Chars.isCharType;
+import static com.facebook.presto.common.type.Chars.padSpaces;
 import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.Decimals.decodeUnscaledValue;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.RealType.REAL;
 import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
 import static com.facebook.presto.common.type.Varchars.isVarcharType;
+import static com.facebook.presto.parquet.BloomFilterHashes.hash;
 import static com.facebook.presto.parquet.ParquetWarningCode.PARQUET_FILE_STATISTICS_CORRUPTION;
 import static com.facebook.presto.parquet.predicate.PredicateUtils.isStatisticsOverflow;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.Float.floatToRawIntBits;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.util.Objects.requireNonNull;
+import static org.apache.parquet.schema.OriginalType.TIMESTAMP_MILLIS;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FLOAT;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
@@ -393,6 +409,144 @@ public class TupleDomainParquetPredicate
         return true;
     }
 
+    @Override
+    public boolean matches(ParquetBloomFilterStore bloomFilterStore)
+    {
+        requireNonNull(bloomFilterStore, "bloomFilterStore is null");
+        if (effectivePredicate.isNone()) {
+            return false;
+        }
+        Map<ColumnDescriptor, Domain> effectivePredicateDomains = effectivePredicate.getDomains()
+                .orElseThrow(() -> new IllegalStateException("Effective predicate other than none should have domains"));
+
+        for (RichColumnDescriptor column : columns) {
+            Domain effectivePredicateDomain = effectivePredicateDomains.get(column);
+            // nulls are not added to the bloom filters
+            if (effectivePredicateDomain == null || effectivePredicateDomain.isNullAllowed()) {
+                continue;
+            }
+
+            Optional<List<Object>> discreteValues = extractDiscreteValues(effectivePredicateDomain.getValues());
+            if (!discreteValues.isPresent()) {
+                continue;
+            }
+
+            Optional<BloomFilter> bloomFilter = bloomFilterStore.getBloomFilter(ColumnPath.get(column.getPath()));
+            if (!bloomFilter.isPresent()) {
+                continue;
+            }
+
+            // if none of the discrete predicate values are found in the bloom filter, the section can be skipped
+            if (discreteValues.get().stream().noneMatch(value -> checkInBloomFilter(bloomFilter.get(), value, effectivePredicateDomain.getType(), column.getPrimitiveType()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Optional<List<Object>> extractDiscreteValues(ValueSet valueSet)
+    {
+        return valueSet.getValuesProcessor().transform(
+                ranges -> {
+                    ImmutableList.Builder<Object> discreteValues = ImmutableList.builder();
+                    for (Range range : ranges.getOrderedRanges()) {
+                        if (!range.isSingleValue()) {
+                            return Optional.empty();
+                        }
+                        discreteValues.add(range.getSingleValue());
+                    }
+                    return Optional.of(discreteValues.build());
+                },
+                discreteValues -> Optional.of(ImmutableList.copyOf(discreteValues.getValues())),
+                allOrNone -> allOrNone.isAll() ? Optional.empty() : Optional.of(ImmutableList.of()));
+    }
+
+    // checks whether a value of the effective predicate is likely to be part of the bloom filter,
+    // the value has to be hashed like the writer hashed the physical value
+    @VisibleForTesting
+    public static boolean checkInBloomFilter(BloomFilter bloomFilter, Object predicateValue, Type type, PrimitiveType primitiveType)
+    {
+        PrimitiveTypeName physicalType = primitiveType.getPrimitiveTypeName();
+        if (type.equals(TINYINT) || type.equals(SMALLINT) || type.equals(INTEGER) || type.equals(BIGINT) || type.equals(DATE)) {
+            long value = (long) predicateValue;
+            if (physicalType == INT32) {
+                // a value outside of the int range can not be stored in the column
+                return value == (int) value && bloomFilter.findHash(hash((int) value));
+            }
+            if (physicalType == INT64) {
+                return bloomFilter.findHash(hash(value));
+            }
+            return true;
+        }
+
+        // negative and positive zero are equal, but they are hashed differently
+        if (type.equals(DOUBLE) && physicalType == PrimitiveTypeName.DOUBLE) {
+            double value = (double) predicateValue;
+            return value == 0 || bloomFilter.findHash(hash(value));
+        }
+        if (type.equals(REAL) && physicalType == FLOAT) {
+            float value = intBitsToFloat(toIntExact((long) predicateValue));
+            return value == 0 || bloomFilter.findHash(hash(value));
+        }
+
+        if ((isVarcharType(type) || type instanceof VarbinaryType) && physicalType == BINARY) {
+            return bloomFilter.findHash(hash(Binary.fromConstantByteArray(((Slice) predicateValue).getBytes())));
+        }
+
+        // char values are trimmed, but other writers may store them padded to the declared length
+        if (isCharType(type) && physicalType == BINARY) {
+            Slice value = (Slice) predicateValue;
+            return bloomFilter.findHash(hash(Binary.fromConstantByteArray(value.getBytes()))) ||
+                    bloomFilter.findHash(hash(Binary.fromConstantByteArray(padSpaces(value, type).getBytes())));
+        }
+
+        if (type instanceof DecimalType) {
+            return checkDecimalInBloomFilter(bloomFilter, predicateValue, (DecimalType) type, primitiveType);
+        }
+
+        // microseconds are truncated to milliseconds and INT96 values may be shifted to a time zone on read,
+        // so only millisecond values are read back exactly as they were hashed
+        if (type.equals(TIMESTAMP) && physicalType == INT64 && primitiveType.getOriginalType() == TIMESTAMP_MILLIS) {
+            return bloomFilter.findHash(hash((long) predicateValue));
+        }
+
+        return true;
+    }
+
+    private static boolean checkDecimalInBloomFilter(BloomFilter bloomFilter, Object predicateValue, DecimalType type, PrimitiveType primitiveType)
+    {
+        // the unscaled value is only comparable when the file uses the scale of the predicate
+        LogicalTypeAnnotation annotation = primitiveType.getLogicalTypeAnnotation();
+        if (!(annotation instanceof DecimalLogicalTypeAnnotation) || ((DecimalLogicalTypeAnnotation) annotation).getScale() != type.getScale()) {
+            return true;
+        }
+
+        BigInteger value = type.isShort() ? BigInteger.valueOf((long) predicateValue) : decodeUnscaledValue((Slice) predicateValue);
+        switch (primitiveType.getPrimitiveTypeName()) {
+            case INT32:
+                // a value outside of the physical range can not be stored in the column
+                return value.bitLength() < Integer.SIZE && bloomFilter.findHash(hash(value.intValue()));
+            case INT64:
+                return value.bitLength() < Long.SIZE && bloomFilter.findHash(hash(value.longValue()));
+            case FIXED_LEN_BYTE_ARRAY:
+                // big-endian two's complement, sign extended to the type length
+                byte[] bytes = value.toByteArray();
+                int typeLength = primitiveType.getTypeLength();
+                if (bytes.length > typeLength) {
+                    return false;
+                }
+                byte[] padded = new byte[typeLength];
+                Arrays.fill(padded, 0, typeLength - bytes.length, value.signum() < 0 ? (byte) 0xFF : 0);
+                System.arraycopy(bytes, 0, padded, typeLength - bytes.length, bytes.length);
+                return bloomFilter.findHash(hash(Binary.fromConstantByteArray(padded)));
+            case BINARY:
+                // big-endian two's complement in the minimal number of bytes
+                return bloomFilter.findHash(hash(Binary.fromConstantByteArray(value.toByteArray())));
+            default:
+                return true;
+        }
+    }
+
     @VisibleForTesting
     public Domain getDomain(Type type, long rowCount, ColumnIndex columnIndex, RichColumnDescriptor descriptor)
     {
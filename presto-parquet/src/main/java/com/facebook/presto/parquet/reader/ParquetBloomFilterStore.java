@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.reader;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.parquet.ParquetDataSource;
+import com.facebook.presto.parquet.cache.ParquetMetadataSource;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lazily reads the bloom filters of the column chunks of a row group, so that only the filters
+ * of the columns with an equality predicate are read.
+ */
+public class ParquetBloomFilterStore
+{
+    private static final Logger log = Logger.get(ParquetBloomFilterStore.class);
+
+    private final ParquetDataSource dataSource;
+    private final ParquetMetadataSource metadataSource;
+    private final boolean cacheable;
+    private final long modificationTime;
+    private final Map<ColumnPath, ColumnChunkMetaData> columns = new HashMap<>();
+    private final Map<ColumnPath, Optional<BloomFilter>> bloomFilters = new HashMap<>();
+
+    public ParquetBloomFilterStore(ParquetDataSource dataSource, BlockMetaData block, ParquetMetadataSource metadataSource, boolean cacheable, long modificationTime)
+    {
+        this.dataSource = requireNonNull(dataSource, "dataSource is null");
+        this.metadataSource = requireNonNull(metadataSource, "metadataSource is null");
+        this.cacheable = cacheable;
+        this.modificationTime = modificationTime;
+        for (ColumnChunkMetaData column : block.getColumns()) {
+            if (column.getBloomFilterOffset() >= 0) {
+                columns.put(column.getPath(), column);
+            }
+        }
+    }
+
+    public static Optional<ParquetBloomFilterStore> getBloomFilterStore(
+            ParquetDataSource dataSource,
+            BlockMetaData block,
+            ParquetMetadataSource metadataSource,
+            boolean cacheable,
+            long modificationTime,
+            boolean bloomFilterEnabled)
+    {
+        if (!bloomFilterEnabled) {
+            return Optional.empty();
+        }
+        for (ColumnChunkMetaData column : block.getColumns()) {
+            if (column.getBloomFilterOffset() >= 0) {
+                return Optional.of(new ParquetBloomFilterStore(dataSource, block, metadataSource, cacheable, modificationTime));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<BloomFilter> getBloomFilter(ColumnPath path)
+    {
+        ColumnChunkMetaData column = columns.get(path);
+        if (column == null) {
+            return Optional.empty();
+        }
+        return bloomFilters.computeIfAbsent(path, ignored -> readBloomFilter(column));
+    }
+
+    private Optional<BloomFilter> readBloomFilter(ColumnChunkMetaData column)
+    {
+        try {
+            return metadataSource.getBloomFilter(dataSource, column, cacheable, modificationTime);
+        }
+        catch (IOException e) {
+            // If the I/O issue still stands it will fail the reading later;
+            // otherwise we only skip the filtering with the missing bloom filter.
+            log.warn(e, "Failed to read bloom filter of column %s in %s", column.getPath(), dataSource.getId());
+            return Optional.empty();
+        }
+    }
+}
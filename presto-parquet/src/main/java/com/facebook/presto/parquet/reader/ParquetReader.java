@@ -323,6 +323,12 @@ public class ParquetReader
 
     private ColumnChunk readPrimitive(PrimitiveField field)
             throws IOException
+    {
+        return readPrimitive(field, Optional.empty(), batchSize);
+    }
+
+    private ColumnChunk readPrimitive(PrimitiveField field, Optional<int[]> positions, int positionCount)
+            throws IOException
     {
         ColumnDescriptor columnDescriptor = field.getDescriptor();
 
@@ -386,7 +392,7 @@ public class ParquetReader
             }
         }
 
-        ColumnChunk columnChunk = columnReader.readNext();
+        ColumnChunk columnChunk = positions.isPresent() ? columnReader.readNext(positions.get(), positionCount) : columnReader.readNext();
         columnChunk = typeCoercion(columnChunk, field.getDescriptor().getPrimitiveType().getPrimitiveTypeName(), field.getType());
 
         if (enableVerification) {
@@ -396,7 +402,7 @@ public class ParquetReader
         }
 
         // update max size per primitive column chunk
-        long bytesPerCell = columnChunk.getBlock().getSizeInBytes() / batchSize;
+        long bytesPerCell = columnChunk.getBlock().getSizeInBytes() / max(positionCount, 1);
         if (maxBytesPerCell[fieldId] < bytesPerCell) {
             // update batch size
             maxCombinedBytesPerRow = maxCombinedBytesPerRow - maxBytesPerCell[fieldId] + bytesPerCell;
@@ -533,6 +539,24 @@ public class ParquetReader
         return readColumnChunk(field).getBlock();
     }
 
+    /**
+     * Reads only the given positions of the current batch, which must be sorted in increasing order.
+     * Flat primitive columns skip the values of the other positions while decoding; other columns are
+     * read in full and the positions are copied out of the result.
+     */
+    public Block readBlock(Field field, int[] positions, int positionCount)
+            throws IOException
+    {
+        checkArgument(positionCount <= batchSize, "positionCount %s is larger than the batch size %s", positionCount, batchSize);
+        if (!(field instanceof PrimitiveField) || enableVerification || ((PrimitiveField) field).getDescriptor().getPath().length > 1) {
+            return readBlock(field).getPositions(positions, 0, positionCount);
+        }
+
+        ColumnChunk columnChunk = readPrimitive((PrimitiveField) field, Optional.of(positions), positionCount);
+        parquetReaderMemoryContext.setBytes(getRetainedSizeInBytes());
+        return columnChunk.getBlock();
+    }
+
     private ColumnChunk readColumnChunk(Field field)
             throws IOException
     {
@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.values.ValuesWriter;
+import org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.io.api.Binary;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Optional;
+
+import static com.facebook.presto.parquet.BloomFilterHashes.hash;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the hashes of the values written to a column chunk, and builds a split block bloom filter
+ * that is just large enough for the distinct values of the chunk. When the chunk has more distinct
+ * values than a filter of the maximum size can hold with the requested false positive probability,
+ * no filter is written for the chunk.
+ */
+public final class BloomFilterBuilder
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BloomFilterBuilder.class).instanceSize();
+
+    private final double fpp;
+    private final int maxBytes;
+    private final int maxDistinctValues;
+    private final SizedLongOpenHashSet hashes = new SizedLongOpenHashSet();
+    private boolean overflow;
+
+    public BloomFilterBuilder(double fpp, int maxBytes)
+    {
+        checkArgument(fpp > 0 && fpp < 1, "fpp must be between 0 and 1");
+        checkArgument(maxBytes >= BlockSplitBloomFilter.LOWER_BOUND_BYTES, "maxBytes is less than %s", BlockSplitBloomFilter.LOWER_BOUND_BYTES);
+        this.fpp = fpp;
+        this.maxBytes = maxBytes;
+        // the split block filter needs -8 / ln(1 - fpp^(1/8)) bits per distinct value, see BlockSplitBloomFilter#optimalNumOfBits
+        double bitsPerValue = -8 / Math.log(1 - Math.pow(fpp, 1.0 / 8));
+        this.maxDistinctValues = max(1, (int) (maxBytes * (double) Byte.SIZE / bitsPerValue));
+    }
+
+    public ValuesWriter wrap(ValuesWriter valuesWriter)
+    {
+        return new HashingValuesWriter(valuesWriter);
+    }
+
+    public Optional<BloomFilter> build()
+    {
+        if (overflow || hashes.isEmpty()) {
+            return Optional.empty();
+        }
+        BloomFilter bloomFilter = new BlockSplitBloomFilter(getFilterBytes(), maxBytes);
+        LongIterator iterator = hashes.iterator();
+        while (iterator.hasNext()) {
+            bloomFilter.insertHash(iterator.nextLong());
+        }
+        return Optional.of(bloomFilter);
+    }
+
+    public void reset()
+    {
+        hashes.clear();
+        hashes.trim();
+        overflow = false;
+    }
+
+    public long getRetainedBytes()
+    {
+        // the filter is allocated next to the hashes when the chunk is flushed
+        long filterBytes = overflow || hashes.isEmpty() ? 0 : getFilterBytes();
+        return INSTANCE_SIZE + hashes.getRetainedSizeInBytes() + filterBytes;
+    }
+
+    // mirrors the sizing of BlockSplitBloomFilter: clamped to the bounds and rounded up to a power of two
+    private int getFilterBytes()
+    {
+        int numBytes = BlockSplitBloomFilter.optimalNumOfBits(hashes.size(), fpp) / Byte.SIZE;
+        numBytes = min(max(numBytes, BlockSplitBloomFilter.LOWER_BOUND_BYTES), maxBytes);
+        if (Integer.bitCount(numBytes) != 1) {
+            numBytes = Integer.highestOneBit(numBytes) << 1;
+        }
+        if (numBytes > maxBytes || numBytes < 0) {
+            numBytes = maxBytes;
+        }
+        return numBytes;
+    }
+
+    private void add(long hash)
+    {
+        if (overflow) {
+            return;
+        }
+        hashes.add(hash);
+        if (hashes.size() > maxDistinctValues) {
+            overflow = true;
+            hashes.clear();
+            hashes.trim();
+        }
+    }
+
+    // exposes the key array, which is sized by the capacity of the set rather than its size
+    private static class SizedLongOpenHashSet
+            extends LongOpenHashSet
+    {
+        private static final int INSTANCE_SIZE = ClassLayout.parseClass(SizedLongOpenHashSet.class).instanceSize();
+
+        public long getRetainedSizeInBytes()
+        {
+            return INSTANCE_SIZE + sizeOf(key);
+        }
+    }
+
+    private class HashingValuesWriter
+            extends ValuesWriter
+    {
+        private final ValuesWriter delegate;
+
+        private HashingValuesWriter(ValuesWriter delegate)
+        {
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public void writeBytes(Binary value)
+        {
+            add(hash(value));
+            delegate.writeBytes(value);
+        }
+
+        @Override
+        public void writeInteger(int value)
+        {
+            add(hash(value));
+            delegate.writeInteger(value);
+        }
+
+        @Override
+        public void writeLong(long value)
+        {
+            add(hash(value));
+            delegate.writeLong(value);
+        }
+
+        @Override
+        public void writeDouble(double value)
+        {
+            add(hash(value));
+            delegate.writeDouble(value);
+        }
+
+        @Override
+        public void writeFloat(float value)
+        {
+            add(hash(value));
+            delegate.writeFloat(value);
+        }
+
+        @Override
+        public void writeBoolean(boolean value)
+        {
+            // a bloom filter does not help with two values
+            delegate.writeBoolean(value);
+        }
+
+        @Override
+        public long getBufferedSize()
+        {
+            return delegate.getBufferedSize();
+        }
+
+        @Override
+        public BytesInput getBytes()
+        {
+            return delegate.getBytes();
+        }
+
+        @Override
+        public Encoding getEncoding()
+        {
+            return delegate.getEncoding();
+        }
+
+        @Override
+        public void reset()
+        {
+            delegate.reset();
+        }
+
+        @Override
+        public void close()
+        {
+            delegate.close();
+        }
+
+        @Override
+        public DictionaryPage toDictPageAndClose()
+        {
+            return delegate.toDictPageAndClose();
+        }
+
+        @Override
+        public void resetDictionary()
+        {
+            delegate.resetDictionary();
+        }
+
+        @Override
+        public long getAllocatedSize()
+        {
+            return delegate.getAllocatedSize();
+        }
+
+        @Override
+        public String memUsageString(String prefix)
+        {
+            return delegate.memUsageString(prefix);
+        }
+    }
+}
@@ -25,11 +25,19 @@ import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 import org.apache.parquet.column.ParquetProperties;
 import org.apache.parquet.column.ParquetProperties.Builder;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.format.BloomFilterAlgorithm;
+import org.apache.parquet.format.BloomFilterCompression;
+import org.apache.parquet.format.BloomFilterHash;
+import org.apache.parquet.format.BloomFilterHeader;
 import org.apache.parquet.format.ColumnMetaData;
 import org.apache.parquet.format.FileMetaData;
 import org.apache.parquet.format.RowGroup;
 import org.apache.parquet.format.SchemaElement;
+import org.apache.parquet.format.SplitBlockAlgorithm;
+import org.apache.parquet.format.Uncompressed;
 import org.apache.parquet.format.Util;
+import org.apache.parquet.format.XxHash;
 import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
@@ -39,14 +47,18 @@ import org.openjdk.jol.info.ClassLayout;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
 
 import static com.facebook.presto.parquet.writer.ParquetDataOutput.createDataOutput;
 import static com.facebook.presto.parquet.writer.ParquetWriterOptions.DEFAULT_MAX_PAGE_SIZE;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Maps.immutableEntry;
 import static io.airlift.slice.SizeOf.SIZE_OF_INT;
 import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.lang.Math.max;
@@ -81,6 +93,9 @@ public class ParquetWriter
     private final int chunkMaxLogicalBytes;
 
     private ImmutableList.Builder<RowGroup> rowGroupBuilder = ImmutableList.builder();
+    // the bloom filters are written after all row groups, the offsets are set in the column metadata of the footer
+    private final List<Entry<ColumnMetaData, BloomFilter>> bloomFilters = new ArrayList<>();
+    private long bloomFiltersRetainedBytes;
 
     private int rows;
     private boolean closed;
@@ -119,7 +134,7 @@ public class ParquetWriter
         }
         ParquetProperties parquetProperties = parquetPropertiesBuilder.build();
         CompressionCodecName compressionCodecName = getCompressionCodecName(compressionCodecClass);
-        this.columnWriters = ParquetWriters.getColumnWriters(messageType, primitiveTypes, parquetProperties, compressionCodecName);
+        this.columnWriters = ParquetWriters.getColumnWriters(messageType, primitiveTypes, parquetProperties, compressionCodecName, writerOption);
 
         this.chunkMaxLogicalBytes = max(1, CHUNK_MAX_BYTES / 2);
     }
@@ -138,6 +153,7 @@ public class ParquetWriter
     {
         return INSTANCE_SIZE +
                 outputStream.getRetainedSize() +
+                bloomFiltersRetainedBytes +
                 columnWriters.stream().mapToLong(ColumnWriter::getRetainedBytes).sum();
     }
 
@@ -204,6 +220,7 @@ public class ParquetWriter
         columnWriters.forEach(ColumnWriter::close);
 
         flush();
+        writeBloomFilters();
         writeFooter();
         outputStream.close();
     }
@@ -212,6 +229,7 @@ public class ParquetWriter
     //
     // MAGIC
     // variable: Data
+    // variable: Bloom filters
     // variable: Metadata
     // 4 bytes: MetadataLength
     // MAGIC
@@ -236,7 +254,15 @@ public class ParquetWriter
         List<ColumnMetaData> metadatas = bufferDataList.stream()
                 .map(BufferData::getMetaData)
                 .collect(toImmutableList());
-        updateRowGroups(updateColumnMetadataOffset(metadatas, stripeStartOffset));
+        List<ColumnMetaData> rowGroupMetadatas = updateColumnMetadataOffset(metadatas, stripeStartOffset);
+        updateRowGroups(rowGroupMetadatas);
+        for (int i = 0; i < bufferDataList.size(); i++) {
+            Optional<BloomFilter> bloomFilter = bufferDataList.get(i).getBloomFilter();
+            if (bloomFilter.isPresent()) {
+                bloomFilters.add(immutableEntry(rowGroupMetadatas.get(i), bloomFilter.get()));
+                bloomFiltersRetainedBytes += bloomFilter.get().getBitsetSize();
+            }
+        }
 
         // flush pages
         bufferDataList.stream()
@@ -245,6 +271,24 @@ public class ParquetWriter
                 .forEach(data -> data.writeData(outputStream));
     }
 
+    private void writeBloomFilters()
+            throws IOException
+    {
+        for (Entry<ColumnMetaData, BloomFilter> entry : bloomFilters) {
+            BloomFilter bloomFilter = entry.getValue();
+            entry.getKey().setBloom_filter_offset(outputStream.longSize());
+            BloomFilterHeader header = new BloomFilterHeader(
+                    bloomFilter.getBitsetSize(),
+                    BloomFilterAlgorithm.BLOCK(new SplitBlockAlgorithm()),
+                    BloomFilterHash.XXHASH(new XxHash()),
+                    BloomFilterCompression.UNCOMPRESSED(new Uncompressed()));
+            Util.writeBloomFilterHeader(header, outputStream);
+            bloomFilter.writeTo(outputStream);
+        }
+        bloomFilters.clear();
+        bloomFiltersRetainedBytes = 0;
+    }
+
     private void writeFooter()
             throws IOException
     {
@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static com.facebook.presto.parquet.writer.ParquetCompressor.getCompressor;
@@ -63,6 +64,7 @@ public abstract class PrimitiveColumnWriter
 
     private final Type type;
     private final CompressionCodecName compressionCodec;
+    private final Optional<BloomFilterBuilder> bloomFilterBuilder;
 
     protected boolean closed;
     protected boolean getDataStreamsCalled;
@@ -77,7 +79,7 @@ public abstract class PrimitiveColumnWriter
     protected long totalValues;
     protected Statistics<?> columnStatistics;
 
-    public PrimitiveColumnWriter(Type type, ColumnDescriptor columnDescriptor, PrimitiveValueWriter primitiveValueWriter, CompressionCodecName compressionCodecName, int pageSizeThreshold)
+    public PrimitiveColumnWriter(Type type, ColumnDescriptor columnDescriptor, PrimitiveValueWriter primitiveValueWriter, CompressionCodecName compressionCodecName, int pageSizeThreshold, Optional<BloomFilterBuilder> bloomFilterBuilder)
     {
         this.type = requireNonNull(type, "type is null");
         this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor is null");
@@ -88,6 +90,7 @@ public abstract class PrimitiveColumnWriter
         this.compressionCodec = requireNonNull(compressionCodecName, "compressionCodecName is null");
         this.compressor = getCompressor(compressionCodecName);
         this.pageSizeThreshold = pageSizeThreshold;
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
 
         this.columnStatistics = Statistics.createStats(columnDescriptor.getPrimitiveType());
     }
@@ -129,7 +132,7 @@ public abstract class PrimitiveColumnWriter
             throws IOException
     {
         checkState(closed);
-        return ImmutableList.of(new BufferData(getDataStreams(), getColumnMetaData()));
+        return ImmutableList.of(new BufferData(getDataStreams(), getColumnMetaData(), bloomFilterBuilder.flatMap(BloomFilterBuilder::build)));
     }
 
     // Returns ColumnMetaData that offset is invalid
@@ -196,7 +199,7 @@ public abstract class PrimitiveColumnWriter
     @Override
     public long getRetainedBytes()
     {
-        return 0;
+        return bloomFilterBuilder.map(BloomFilterBuilder::getRetainedBytes).orElse(0L);
     }
 
     @Override
@@ -204,6 +207,7 @@ public abstract class PrimitiveColumnWriter
     {
         pageBuffer.clear();
         primitiveValueWriter.resetChunk();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::reset);
         closed = false;
 
         totalCompressedSize = 0;
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet;
+
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.parquet.cache.MetadataReader;
+import com.facebook.presto.parquet.reader.ParquetReader;
+import com.facebook.presto.parquet.writer.ParquetWriter;
+import com.facebook.presto.parquet.writer.ParquetWriterOptions;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.ColumnIOConverter;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
+import static com.facebook.presto.parquet.writer.TestParquetWriter.createParquetWriter;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Scans a wide BIGINT table with a 1% selective predicate on its first column, either decoding
+ * every column of each batch before filtering or decoding the other columns only at the
+ * positions that passed the predicate.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OperationsPerInvocation(BenchmarkParquetReaderLateMaterialization.ROWS)
+public class BenchmarkParquetReaderLateMaterialization
+{
+    public static final int ROWS = 50_000;
+    public static final int COLUMNS = 200;
+
+    private static final int PAGE_ROWS = 10_000;
+    // one in SELECTIVITY rows passes the predicate
+    private static final int SELECTIVITY = 100;
+
+    private File temporaryDirectory;
+    private File file;
+
+    @Setup
+    public void setup()
+            throws Exception
+    {
+        temporaryDirectory = createTempDir();
+        file = new File(temporaryDirectory, randomUUID().toString());
+
+        List<Type> types = Collections.nCopies(COLUMNS, BIGINT);
+        ImmutableList.Builder<String> names = ImmutableList.builder();
+        for (int column = 0; column < COLUMNS; column++) {
+            names.add("column_" + column);
+        }
+
+        Random random = new Random(0);
+        try (ParquetWriter parquetWriter = createParquetWriter(file, types, names.build(), ParquetWriterOptions.builder().build(), CompressionCodecName.UNCOMPRESSED)) {
+            for (int row = 0; row < ROWS; row += PAGE_ROWS) {
+                PageBuilder pageBuilder = new PageBuilder(PAGE_ROWS, types);
+                for (int i = 0; i < PAGE_ROWS; i++) {
+                    for (int column = 0; column < COLUMNS; column++) {
+                        BIGINT.writeLong(pageBuilder.getBlockBuilder(column), random.nextLong());
+                    }
+                    pageBuilder.declarePosition();
+                }
+                parquetWriter.write(pageBuilder.build());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkParquetReaderLateMaterialization.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    public Object readAllThenFilter()
+            throws Exception
+    {
+        return read(false);
+    }
+
+    @Benchmark
+    public Object readSelectedPositions()
+            throws Exception
+    {
+        return read(true);
+    }
+
+    private Object read(boolean lateMaterialization)
+            throws Exception
+    {
+        FileParquetDataSource dataSource = new FileParquetDataSource(file);
+        ParquetMetadata parquetMetadata = MetadataReader.readFooter(dataSource, file.length(), Optional.empty(), false).getParquetMetadata();
+        MessageType schema = parquetMetadata.getFileMetaData().getSchema();
+        MessageColumnIO messageColumnIO = getColumnIO(schema, schema);
+        List<Field> fields = new ArrayList<>();
+        for (int column = 0; column < COLUMNS; column++) {
+            fields.add(ColumnIOConverter.constructField(BIGINT, messageColumnIO.getChild(column)).get());
+        }
+
+        List<Block> blocks = new ArrayList<>();
+        try (ParquetReader reader = new ParquetReader(messageColumnIO, parquetMetadata.getBlocks(), Optional.empty(), dataSource, newSimpleAggregatedMemoryContext(), new DataSize(16, MEGABYTE), true, false, null, null, false, Optional.empty())) {
+            int batchSize;
+            while ((batchSize = reader.nextBatch()) > 0) {
+                Block filterBlock = reader.readBlock(fields.get(0));
+                int[] positions = new int[batchSize];
+                int positionCount = 0;
+                for (int position = 0; position < batchSize; position++) {
+                    if (BIGINT.getLong(filterBlock, position) % SELECTIVITY == 0) {
+                        positions[positionCount++] = position;
+                    }
+                }
+
+                for (int column = 1; column < COLUMNS; column++) {
+                    if (lateMaterialization) {
+                        blocks.add(reader.readBlock(fields.get(column), positions, positionCount));
+                    }
+                    else {
+                        blocks.add(reader.readBlock(fields.get(column)).getPositions(positions, 0, positionCount));
+                    }
+                }
+            }
+        }
+        return blocks;
+    }
+}
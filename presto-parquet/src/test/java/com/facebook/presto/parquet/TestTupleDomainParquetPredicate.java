@@ -36,11 +36,17 @@ import org.apache.parquet.column.statistics.FloatStatistics;
 import org.apache.parquet.column.statistics.IntStatistics;
 import org.apache.parquet.column.statistics.LongStatistics;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Types;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -52,16 +58,21 @@ import static com.facebook.presto.common.predicate.Range.range;
 import static com.facebook.presto.common.predicate.TupleDomain.withColumnDomains;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.CharType.createCharType;
 import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DecimalType.createDecimalType;
+import static com.facebook.presto.common.type.Decimals.encodeUnscaledValue;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.RealType.REAL;
 import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
 import static com.facebook.presto.common.type.VarcharType.createUnboundedVarcharType;
 import static com.facebook.presto.common.type.VarcharType.createVarcharType;
 import static com.facebook.presto.parquet.ParquetEncoding.PLAIN_DICTIONARY;
 import static com.facebook.presto.parquet.ParquetWarningCode.PARQUET_FILE_STATISTICS_CORRUPTION;
+import static com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate.checkInBloomFilter;
 import static com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate.getDomain;
 import static com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate.getRange;
 import static io.airlift.slice.Slices.EMPTY_SLICE;
@@ -71,9 +82,14 @@ import static java.lang.Float.floatToRawIntBits;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static org.apache.parquet.column.statistics.Statistics.getStatsBasedOnType;
+import static org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter.LOWER_BOUND_BYTES;
+import static org.apache.parquet.schema.LogicalTypeAnnotation.decimalType;
+import static org.apache.parquet.schema.OriginalType.TIMESTAMP_MICROS;
+import static org.apache.parquet.schema.OriginalType.TIMESTAMP_MILLIS;
 import static org.apache.parquet.schema.OriginalType.UTF8;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.FLOAT;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
 import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
@@ -408,6 +424,42 @@ public class TestTupleDomainParquetPredicate
         assertEquals(range3.getHigh().getValue(), 2.0);
     }
 
+    @Test
+    public void testBloomFilterDecimalTimestampAndChar()
+    {
+        BloomFilter bloomFilter = new BlockSplitBloomFilter(LOWER_BOUND_BYTES);
+        bloomFilter.insertHash(bloomFilter.hash(12345));
+        bloomFilter.insertHash(bloomFilter.hash(1234567890123L));
+        byte[] minusOne = new byte[16];
+        Arrays.fill(minusOne, (byte) 0xFF);
+        bloomFilter.insertHash(bloomFilter.hash(Binary.fromConstantByteArray(minusOne)));
+        bloomFilter.insertHash(bloomFilter.hash(Binary.fromString("ab  ")));
+
+        PrimitiveType int32Decimal = Types.required(INT32).as(decimalType(2, 9)).named("c");
+        assertTrue(checkInBloomFilter(bloomFilter, 12345L, createDecimalType(9, 2), int32Decimal));
+        assertFalse(checkInBloomFilter(bloomFilter, 54321L, createDecimalType(9, 2), int32Decimal));
+        // the unscaled values are not comparable when the scales differ
+        assertTrue(checkInBloomFilter(bloomFilter, 54321L, createDecimalType(9, 3), int32Decimal));
+
+        PrimitiveType int64Decimal = Types.required(INT64).as(decimalType(2, 18)).named("c");
+        assertTrue(checkInBloomFilter(bloomFilter, 1234567890123L, createDecimalType(18, 2), int64Decimal));
+        assertFalse(checkInBloomFilter(bloomFilter, 12345L, createDecimalType(18, 2), int64Decimal));
+
+        PrimitiveType fixedDecimal = Types.required(FIXED_LEN_BYTE_ARRAY).length(16).as(decimalType(2, 38)).named("c");
+        assertTrue(checkInBloomFilter(bloomFilter, encodeUnscaledValue(BigInteger.valueOf(-1)), createDecimalType(38, 2), fixedDecimal));
+        assertFalse(checkInBloomFilter(bloomFilter, encodeUnscaledValue(BigInteger.ONE), createDecimalType(38, 2), fixedDecimal));
+
+        PrimitiveType timestampMillis = Types.required(INT64).as(TIMESTAMP_MILLIS).named("c");
+        assertTrue(checkInBloomFilter(bloomFilter, 1234567890123L, TIMESTAMP, timestampMillis));
+        assertFalse(checkInBloomFilter(bloomFilter, 1234567890124L, TIMESTAMP, timestampMillis));
+        // microsecond values are truncated on read, so they can not be checked
+        assertTrue(checkInBloomFilter(bloomFilter, 1234567890124L, TIMESTAMP, Types.required(INT64).as(TIMESTAMP_MICROS).named("c")));
+
+        PrimitiveType binary = Types.required(BINARY).named("c");
+        assertTrue(checkInBloomFilter(bloomFilter, utf8Slice("ab"), createCharType(4), binary));
+        assertFalse(checkInBloomFilter(bloomFilter, utf8Slice("cd"), createCharType(4), binary));
+    }
+
     private TupleDomain<ColumnDescriptor> getEffectivePredicate(RichColumnDescriptor column, VarcharType type, Slice value)
     {
         ColumnDescriptor predicateColumn = new ColumnDescriptor(column.getPath(), column.getType(), 0, 0);
@@ -0,0 +1,250 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.batchreader;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.parquet.ColumnReader;
+import com.facebook.presto.parquet.DataPage;
+import com.facebook.presto.parquet.DataPageV2;
+import com.facebook.presto.parquet.PrimitiveField;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.reader.PageReader;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridEncoder;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.parquet.ParquetEncoding.PLAIN;
+import static com.facebook.presto.parquet.batchreader.decoders.TestParquetUtils.getSimpleDLEncoder;
+import static io.airlift.slice.Slices.EMPTY_SLICE;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static org.apache.parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+import static org.apache.parquet.schema.Type.Repetition.OPTIONAL;
+import static org.apache.parquet.schema.Type.Repetition.REQUIRED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestFlatBatchReaderPositions
+{
+    // page 3 holds a single null value and page 5 only holds nulls when the column is nullable
+    private static final int[] PAGE_SIZES = {100, 37, 250, 1, 80, 64};
+    private static final int ROW_COUNT = IntStream.of(PAGE_SIZES).sum();
+    private static final int NULL_PAGE_START = ROW_COUNT - PAGE_SIZES[5];
+
+    @DataProvider
+    public Object[][] columns()
+    {
+        return new Object[][] {
+                {INT32, true},
+                {INT32, false},
+                {INT64, true},
+                {INT64, false}};
+    }
+
+    @Test(dataProvider = "columns")
+    public void testReadPositions(PrimitiveTypeName typeName, boolean nullable)
+            throws IOException
+    {
+        ColumnData column = new ColumnData(typeName, nullable);
+        Block reference = column.readAll();
+        ColumnReader reader = column.createReader();
+
+        // positions on both ends of the first page
+        assertPositions(reader, reference, 0, 100, new int[] {0, 99});
+        // positions on both sides of the boundaries of the 37 value page
+        assertPositions(reader, reference, 100, 50, new int[] {0, 36, 37, 49});
+        // skip into the middle of the third page
+        reader.prepareNextRead(30);
+        // empty selection
+        assertPositions(reader, reference, 180, 20, new int[0]);
+        // batch covering three pages, with every third position selected
+        assertPositions(reader, reference, 200, 200, IntStream.range(0, 200).filter(position -> position % 3 == 0).toArray());
+        // skip the rest of the fifth page without decoding it and into the last page
+        reader.prepareNextRead(70);
+        // selection in the last page, which only holds nulls for a nullable column
+        assertPositions(reader, reference, 470, 62, new int[] {0, 10, 61});
+
+        if (nullable) {
+            // only null positions of a batch covering several pages
+            reader = column.createReader();
+            int[] nullPositions = IntStream.range(0, NULL_PAGE_START)
+                    .filter(column::isNull)
+                    .toArray();
+            assertTrue(nullPositions.length > 0);
+            Block block = assertPositions(reader, reference, 0, NULL_PAGE_START, nullPositions);
+                        for (int position = 0; position < block.getPositionCount(); position++) {
+                assertTrue(block.isNull(position));
+            }
+        }
+    }
+
+    @Test(dataProvider = "columns")
+    public void testSeek(PrimitiveTypeName typeName, boolean nullable)
+            throws IOException
+    {
+        ColumnData column = new ColumnData(typeName, nullable);
+        Block reference = column.readAll();
+        ColumnReader reader = column.createReader();
+
+        // skip into the middle of the first page
+        reader.prepareNextRead(30);
+        assertBatch(reader, reference, 30, 90);
+        // skip exactly to the end of the second page
+        reader.prepareNextRead(17);
+        assertBatch(reader, reference, 137, 250);
+        // several skipped batches in a row: the single value page, all of the fifth page and part of the last page
+        reader.prepareNextRead(1);
+        reader.prepareNextRead(80);
+        reader.prepareNextRead(20);
+        assertBatch(reader, reference, 488, ROW_COUNT - 488);
+    }
+
+    private static Block assertPositions(ColumnReader reader, Block reference, int batchOffset, int batchSize, int[] positions)
+    {
+        reader.prepareNextRead(batchSize);
+        Block block = reader.readNext(positions, positions.length).getBlock();
+        assertEquals(block.getPositionCount(), positions.length);
+        for (int i = 0; i < positions.length; i++) {
+            assertPosition(block, i, reference, batchOffset + positions[i]);
+        }
+        return block;
+    }
+
+    private static void assertBatch(ColumnReader reader, Block reference, int batchOffset, int batchSize)
+    {
+        reader.prepareNextRead(batchSize);
+        Block block = reader.readNext().getBlock();
+        assertEquals(block.getPositionCount(), batchSize);
+        for (int position = 0; position < batchSize; position++) {
+            assertPosition(block, position, reference, batchOffset + position);
+        }
+    }
+
+    private static void assertPosition(Block block, int position, Block reference, int referencePosition)
+    {
+        assertEquals(block.isNull(position), reference.isNull(referencePosition), "position " + referencePosition);
+        if (!reference.isNull(referencePosition)) {
+            assertEquals(block.toLong(position), reference.toLong(referencePosition), "position " + referencePosition);
+        }
+    }
+
+    private static class ColumnData
+    {
+        private final Type type;
+        private final boolean nullable;
+        private final RichColumnDescriptor descriptor;
+        private final boolean[] isNull = new boolean[ROW_COUNT];
+        private final long[] values = new long[ROW_COUNT];
+        private final List<DataPage> pages;
+
+        public ColumnData(PrimitiveTypeName typeName, boolean nullable)
+                throws IOException
+        {
+            this.type = typeName == INT32 ? INTEGER : BIGINT;
+            this.nullable = nullable;
+            PrimitiveType primitiveType = new PrimitiveType(nullable ? OPTIONAL : REQUIRED, typeName, "column");
+            this.descriptor = new RichColumnDescriptor(new ColumnDescriptor(new String[] {"column"}, primitiveType, 0, nullable ? 1 : 0), primitiveType);
+
+            Random random = new Random(typeName.ordinal() * 2 + (nullable ? 1 : 0));
+            ImmutableList.Builder<DataPage> pages = ImmutableList.builder();
+            int pageStart = 0;
+            for (int page = 0; page < PAGE_SIZES.length; page++) {
+                int pageSize = PAGE_SIZES[page];
+                RunLengthBitPackingHybridEncoder definitionLevels = getSimpleDLEncoder();
+                DynamicSliceOutput valuesOutput = new DynamicSliceOutput(pageSize * Long.BYTES);
+                int nullCount = 0;
+                for (int position = pageStart; position < pageStart + pageSize; position++) {
+                    if (nullable) {
+                        isNull[position] = page == 3 || page == 5 || random.nextInt(10) < 3;
+                        definitionLevels.writeInt(isNull[position] ? 0 : 1);
+                    }
+                    if (isNull[position]) {
+                        nullCount++;
+                        continue;
+                    }
+                    if (typeName == INT32) {
+                        values[position] = random.nextInt();
+                        valuesOutput.writeInt((int) values[position]);
+                    }
+                    else {
+                        values[position] = random.nextLong();
+                        valuesOutput.writeLong(values[position]);
+                    }
+                }
+                Slice valuesSlice = valuesOutput.slice();
+                pages.add(new DataPageV2(
+                        pageSize,
+                        nullCount,
+                        pageSize,
+                        -1,
+                        EMPTY_SLICE,
+                        nullable ? wrappedBuffer(definitionLevels.toBytes().toByteArray()) : EMPTY_SLICE,
+                        PLAIN,
+                        valuesSlice,
+                        valuesSlice.length(),
+                        null,
+                        false));
+                pageStart += pageSize;
+            }
+            this.pages = pages.build();
+        }
+
+        public boolean isNull(int position)
+        {
+            return isNull[position];
+        }
+
+        public ColumnReader createReader()
+        {
+            ColumnReader reader = type == INTEGER ? new Int32FlatBatchReader(descriptor) : new Int64FlatBatchReader(descriptor);
+            PageReader pageReader = new PageReader(UNCOMPRESSED, pages.iterator(), ROW_COUNT, null, null, Optional.empty(), null, -1, -1);
+            reader.init(pageReader, new PrimitiveField(type, 0, nullable ? 1 : 0, !nullable, descriptor, 0), null);
+            return reader;
+        }
+
+        /**
+         * Decodes the whole column in a single batch and checks it against the written values.
+         */
+        public Block readAll()
+        {
+            ColumnReader reader = createReader();
+            reader.prepareNextRead(ROW_COUNT);
+            Block block = reader.readNext().getBlock();
+            assertEquals(block.getPositionCount(), ROW_COUNT);
+            for (int position = 0; position < ROW_COUNT; position++) {
+                assertEquals(block.isNull(position), isNull[position]);
+                if (!isNull[position]) {
+                    assertEquals(block.toLong(position), values[position]);
+                }
+            }
+            return block;
+        }
+    }
+}
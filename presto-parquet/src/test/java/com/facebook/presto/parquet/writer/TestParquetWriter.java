@@ -15,6 +15,8 @@ package com.facebook.presto.parquet.writer;
 
 import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.DecimalType;
 import com.facebook.presto.common.type.MapType;
 import com.facebook.presto.common.type.RowType;
@@ -22,10 +24,20 @@ import com.facebook.presto.common.type.TimestampType;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.FileParquetDataSource;
+import com.facebook.presto.parquet.RichColumnDescriptor;
 import com.facebook.presto.parquet.cache.MetadataReader;
+import com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate;
+import com.facebook.presto.parquet.reader.ParquetBloomFilterStore;
 import com.facebook.presto.parquet.reader.ParquetReader;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 import org.apache.parquet.io.ColumnIOConverter;
@@ -40,9 +52,13 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static com.facebook.presto.common.block.MethodHandleUtil.nativeValueGetter;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
@@ -57,12 +73,16 @@ import static com.facebook.presto.common.type.UuidType.UUID;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getDescriptors;
+import static com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate.checkInBloomFilter;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.io.Files.createTempDir;
 import static com.google.common.io.MoreFiles.deleteRecursively;
 import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.UUID.randomUUID;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
@@ -200,6 +220,133 @@ public class TestParquetWriter
         };
     }
 
+    @Test
+    public void testBloomFilters()
+            throws Exception
+    {
+        temporaryDirectory = createTempDir();
+        parquetFile = new File(temporaryDirectory, randomUUID().toString());
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR, INTEGER);
+        List<String> names = ImmutableList.of("col_1", "col_2", "col_3");
+        ParquetWriterOptions parquetWriterOptions = ParquetWriterOptions.builder()
+                .setMaxBlockSize(DataSize.succinctBytes(5000))
+                .setBloomFilterColumns(ImmutableSet.of("col_1", "col_2"))
+                .setBloomFilterFpp(0.0001)
+                .build();
+        int rowCount = 100;
+        try (ParquetWriter parquetWriter = createParquetWriter(parquetFile, types, names, parquetWriterOptions, CompressionCodecName.SNAPPY)) {
+            for (int pageIdx = 0; pageIdx < 10; pageIdx++) {
+                PageBuilder pageBuilder = new PageBuilder(rowCount, types);
+                for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+                    // only even values are written
+                    long value = (pageIdx * rowCount + rowIdx) * 2L;
+                    BIGINT.writeLong(pageBuilder.getBlockBuilder(0), value);
+                    VARCHAR.writeSlice(pageBuilder.getBlockBuilder(1), utf8Slice("value_" + value));
+                    INTEGER.writeLong(pageBuilder.getBlockBuilder(2), value);
+                    pageBuilder.declarePosition();
+                }
+                parquetWriter.write(pageBuilder.build());
+            }
+        }
+
+        FileParquetDataSource dataSource = new FileParquetDataSource(parquetFile);
+        ParquetMetadata parquetMetadata = MetadataReader.readFooter(dataSource, parquetFile.length(), Optional.empty(), false).getParquetMetadata();
+        MessageType schema = parquetMetadata.getFileMetaData().getSchema();
+        Map<List<String>, RichColumnDescriptor> descriptorsByPath = getDescriptors(schema, schema);
+
+        for (BlockMetaData block : parquetMetadata.getBlocks()) {
+            List<ColumnChunkMetaData> columns = block.getColumns();
+            assertTrue(dataSource.readBloomFilter(columns.get(0)).isPresent());
+            assertTrue(dataSource.readBloomFilter(columns.get(1)).isPresent());
+            assertEquals(columns.get(2).getBloomFilterOffset(), -1);
+            assertFalse(dataSource.readBloomFilter(columns.get(2)).isPresent());
+
+            ParquetBloomFilterStore bloomFilterStore = new ParquetBloomFilterStore(dataSource, block, new MetadataReader(), false, 0);
+            // the first value of every row group is written, the odd values are not
+            long firstValue = (long) columns.get(0).getStatistics().genericGetMin();
+            assertTrue(bloomFilterPredicate(descriptorsByPath, "col_1", BIGINT, firstValue).matches(bloomFilterStore));
+            assertFalse(bloomFilterPredicate(descriptorsByPath, "col_1", BIGINT, firstValue + 1).matches(bloomFilterStore));
+            assertTrue(bloomFilterPredicate(descriptorsByPath, "col_2", VARCHAR, utf8Slice("value_" + firstValue)).matches(bloomFilterStore));
+            assertFalse(bloomFilterPredicate(descriptorsByPath, "col_2", VARCHAR, utf8Slice("value_" + (firstValue + 1))).matches(bloomFilterStore));
+            // without a bloom filter the row group can not be skipped
+            assertTrue(bloomFilterPredicate(descriptorsByPath, "col_3", INTEGER, firstValue + 1).matches(bloomFilterStore));
+        }
+    }
+
+    @Test
+    public void testBloomFiltersWrittenAndReadConcurrently()
+            throws Exception
+    {
+        temporaryDirectory = createTempDir();
+        int threadCount = 4;
+        int rowCount = 10_000;
+        List<Type> types = ImmutableList.of(BIGINT, DOUBLE);
+        List<String> names = ImmutableList.of("col_1", "col_2");
+        ParquetWriterOptions parquetWriterOptions = ParquetWriterOptions.builder()
+                .setBloomFilterColumns(ImmutableSet.of("col_1", "col_2"))
+                .setBloomFilterFpp(0.01)
+                .build();
+        ExecutorService executor = newFixedThreadPool(threadCount);
+        try {
+            // every writer hashes its own values, a hash computed for the value of another writer would be lost
+            List<Future<File>> writes = new ArrayList<>();
+            for (int fileIdx = 0; fileIdx < threadCount; fileIdx++) {
+                long firstValue = (long) fileIdx * rowCount;
+                writes.add(executor.submit(() -> {
+                    File file = new File(temporaryDirectory, randomUUID().toString());
+                    try (ParquetWriter parquetWriter = createParquetWriter(file, types, names, parquetWriterOptions, CompressionCodecName.SNAPPY)) {
+                        PageBuilder pageBuilder = new PageBuilder(rowCount, types);
+                        for (long value = firstValue; value < firstValue + rowCount; value++) {
+                            BIGINT.writeLong(pageBuilder.getBlockBuilder(0), value);
+                            DOUBLE.writeDouble(pageBuilder.getBlockBuilder(1), value);
+                            pageBuilder.declarePosition();
+                        }
+                        parquetWriter.write(pageBuilder.build());
+                    }
+                    return file;
+                }));
+            }
+
+            for (Future<File> write : writes) {
+                File file = write.get();
+                FileParquetDataSource dataSource = new FileParquetDataSource(file);
+                ParquetMetadata parquetMetadata = MetadataReader.readFooter(dataSource, file.length(), Optional.empty(), false).getParquetMetadata();
+                MessageType schema = parquetMetadata.getFileMetaData().getSchema();
+                for (BlockMetaData block : parquetMetadata.getBlocks()) {
+                    ParquetBloomFilterStore bloomFilterStore = new ParquetBloomFilterStore(dataSource, block, new MetadataReader(), false, 0);
+                    BloomFilter bigintFilter = bloomFilterStore.getBloomFilter(ColumnPath.get("col_1")).get();
+                    BloomFilter doubleFilter = bloomFilterStore.getBloomFilter(ColumnPath.get("col_2")).get();
+                    long minValue = (long) block.getColumns().get(0).getStatistics().genericGetMin();
+                    long maxValue = (long) block.getColumns().get(0).getStatistics().genericGetMax();
+
+                    // all threads look up the values of the row group in the same filters, a bloom filter has no false negatives
+                    List<Future<?>> reads = new ArrayList<>();
+                    for (int thread = 0; thread < threadCount; thread++) {
+                        reads.add(executor.submit(() -> {
+                            for (long value = minValue; value <= maxValue; value++) {
+                                assertTrue(checkInBloomFilter(bigintFilter, value, BIGINT, schema.getType("col_1").asPrimitiveType()));
+                                assertTrue(checkInBloomFilter(doubleFilter, (double) value, DOUBLE, schema.getType("col_2").asPrimitiveType()));
+                            }
+                        }));
+                    }
+                    for (Future<?> read : reads) {
+                        read.get();
+                    }
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static TupleDomainParquetPredicate bloomFilterPredicate(Map<List<String>, RichColumnDescriptor> descriptorsByPath, String column, Type type, Object value)
+    {
+        RichColumnDescriptor descriptor = descriptorsByPath.get(ImmutableList.of(column));
+        TupleDomain<ColumnDescriptor> domain = TupleDomain.withColumnDomains(ImmutableMap.of(descriptor, Domain.singleValue(type, value)));
+        return new TupleDomainParquetPredicate(domain, ImmutableList.of(descriptor));
+    }
+
     @Test(dataProvider = "testMetadataCreation")
     public void testMetadataCreation(Type type, Class<?> annotationType, String primitiveName)
             throws Exception
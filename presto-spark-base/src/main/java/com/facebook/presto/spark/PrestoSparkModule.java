@@ -56,6 +56,7 @@ import com.facebook.presto.execution.TaskManager;
 import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.execution.TaskSource;
 import com.facebook.presto.execution.executor.MultilevelSplitQueue;
+import com.facebook.presto.execution.executor.SplitQueue;
 import com.facebook.presto.execution.executor.TaskExecutor;
 import com.facebook.presto.execution.resourceGroups.InternalResourceGroupManager;
 import com.facebook.presto.execution.resourceGroups.ResourceGroupManager;
@@ -84,6 +85,7 @@ import com.facebook.presto.metadata.TablePropertyManager;
 import com.facebook.presto.nodeManager.PluginNodeManager;
 import com.facebook.presto.operator.FileFragmentResultCacheConfig;
 import com.facebook.presto.operator.FileFragmentResultCacheManager;
+import com.facebook.presto.operator.ForSort;
 import com.facebook.presto.operator.FragmentCacheStats;
 import com.facebook.presto.operator.FragmentResultCacheManager;
 import com.facebook.presto.operator.LookupJoinOperators;
@@ -419,6 +421,7 @@ public class PrestoSparkModule
         // task executor
         binder.bind(EmbedVersion.class).in(Scopes.SINGLETON);
         binder.bind(MultilevelSplitQueue.class).in(Scopes.SINGLETON);
+        binder.bind(SplitQueue.class).to(MultilevelSplitQueue.class);
         binder.bind(TaskExecutor.class).in(Scopes.SINGLETON);
 
         // data stream provider
@@ -577,6 +580,14 @@ public class PrestoSparkModule
         return InMemoryTransactionManager.create(config, scheduledExecutor, catalogManager, executor);
     }
 
+    @Provides
+    @Singleton
+    @ForSort
+    public static ExecutorService createSortExecutor(TaskManagerConfig config)
+    {
+        return newFixedThreadPool(config.getTaskConcurrency(), daemonThreadsNamed("order-by-sort-%s"));
+    }
+
     @Provides
     @Singleton
     public static FragmentResultCacheManager createFragmentResultCacheManager(FileFragmentResultCacheConfig config, BlockEncodingSerde blockEncodingSerde, FragmentCacheStats fragmentCacheStats)
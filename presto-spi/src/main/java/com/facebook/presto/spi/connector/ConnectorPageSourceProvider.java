@@ -54,4 +54,17 @@ public interface ConnectorPageSourceProvider
     {
         return createPageSource(transactionHandle, session, split, columns, splitContext);
     }
+
+    /**
+     * Called on the worker when a split is queued for execution, before a driver picks it up.
+     * Connectors may start reading data the split will need so that it is available when the
+     * page source is created. This method must not block.
+     */
+    default void prefetch(
+            ConnectorTransactionHandle transactionHandle,
+            ConnectorSession session,
+            ConnectorSplit split,
+            ConnectorTableLayoutHandle layout)
+    {
+    }
 }
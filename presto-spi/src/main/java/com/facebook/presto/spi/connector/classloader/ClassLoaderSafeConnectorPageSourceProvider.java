@@ -65,4 +65,16 @@ public class ClassLoaderSafeConnectorPageSourceProvider
             return delegate.createPageSource(transactionHandle, session, split, layout, columns, splitContext, runtimeStats);
         }
     }
+
+    @Override
+    public void prefetch(
+            ConnectorTransactionHandle transactionHandle,
+            ConnectorSession session,
+            ConnectorSplit split,
+            ConnectorTableLayoutHandle layout)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            delegate.prefetch(transactionHandle, session, split, layout);
+        }
+    }
 }
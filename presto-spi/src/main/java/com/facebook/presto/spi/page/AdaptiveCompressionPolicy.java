@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.page;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static java.lang.Math.min;
+
+/**
+ * Decides how an adaptive {@link PagesSerde} compresses the pages of a stream.
+ * <p>
+ * The first pages of the stream are sampled: they are compressed with every codec and the
+ * ratios are accumulated. The serde then uses the codec with the best ratio, or no compression at
+ * all if the stream does not shrink enough, until the stream is sampled again. A decision that is
+ * confirmed by the next sample is kept twice as long, so stable streams are rarely sampled.
+ */
+@NotThreadSafe
+final class AdaptiveCompressionPolicy
+{
+    static final int SAMPLE_PAGES = 2;
+    static final int MIN_DECISION_PAGES = 32;
+    static final int MAX_DECISION_PAGES = 1024;
+    // the alternate codec is usually slower, so it has to produce noticeably smaller pages
+    static final double ALTERNATE_CODEC_MAX_RELATIVE_SIZE = 0.8;
+
+    enum Decision
+    {
+        NONE,
+        PRIMARY,
+        ALTERNATE
+    }
+
+    private final double minimumCompressionRatio;
+    private final boolean alternateCodecPresent;
+
+    private Decision decision = Decision.PRIMARY;
+    private int decisionPages = MIN_DECISION_PAGES;
+    private boolean sampling = true;
+    private int remainingPages = SAMPLE_PAGES;
+
+    private long sampledBytes;
+    private long sampledPrimaryBytes;
+    private long sampledAlternateBytes;
+
+    AdaptiveCompressionPolicy(double minimumCompressionRatio, boolean alternateCodecPresent)
+    {
+        this.minimumCompressionRatio = minimumCompressionRatio;
+        this.alternateCodecPresent = alternateCodecPresent;
+    }
+
+    public boolean isSampling()
+    {
+        return sampling;
+    }
+
+    public Decision getDecision()
+    {
+        return decision;
+    }
+
+    /**
+     * Records a sampled page, the alternate size is ignored if there is no alternate codec.
+     */
+    public void recordSample(int uncompressedSize, int primarySize, int alternateSize)
+    {
+        sampledBytes += uncompressedSize;
+        sampledPrimaryBytes += primarySize;
+        sampledAlternateBytes += alternateSize;
+    }
+
+    /**
+     * Called once for every serialized page, after the page is compressed.
+     */
+    public void pageSerialized()
+    {
+        remainingPages--;
+        if (remainingPages > 0) {
+            return;
+        }
+
+        if (!sampling) {
+            sampling = true;
+            remainingPages = SAMPLE_PAGES;
+            return;
+        }
+
+        Decision newDecision = decide();
+        decisionPages = newDecision == decision ? min(decisionPages * 2, MAX_DECISION_PAGES) : MIN_DECISION_PAGES;
+        decision = newDecision;
+        sampling = false;
+        remainingPages = decisionPages;
+        sampledBytes = 0;
+        sampledPrimaryBytes = 0;
+        sampledAlternateBytes = 0;
+    }
+
+    private Decision decide()
+    {
+        if (sampledBytes == 0) {
+            return Decision.PRIMARY;
+        }
+        Decision best = Decision.PRIMARY;
+        long bestBytes = sampledPrimaryBytes;
+        if (alternateCodecPresent && sampledAlternateBytes <= sampledPrimaryBytes * ALTERNATE_CODEC_MAX_RELATIVE_SIZE) {
+            best = Decision.ALTERNATE;
+            bestBytes = sampledAlternateBytes;
+        }
+        if (bestBytes / (double) sampledBytes > minimumCompressionRatio) {
+            return Decision.NONE;
+        }
+        return best;
+    }
+}
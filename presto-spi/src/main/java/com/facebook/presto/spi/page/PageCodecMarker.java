@@ -26,7 +26,9 @@ public enum PageCodecMarker
 {
     COMPRESSED(1),
     ENCRYPTED(2),
-    CHECKSUMMED(3);
+    CHECKSUMMED(3),
+    // compressed with the alternate codec of an adaptive serde, only meaningful together with COMPRESSED
+    ALTERNATE_CODEC(4);
 
     private final int mask;
 
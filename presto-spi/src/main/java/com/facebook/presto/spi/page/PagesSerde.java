@@ -27,6 +27,7 @@ import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.util.Optional;
 
+import static com.facebook.presto.spi.page.PageCodecMarker.ALTERNATE_CODEC;
 import static com.facebook.presto.spi.page.PageCodecMarker.CHECKSUMMED;
 import static com.facebook.presto.spi.page.PageCodecMarker.COMPRESSED;
 import static com.facebook.presto.spi.page.PageCodecMarker.ENCRYPTED;
@@ -34,6 +35,7 @@ import static com.facebook.presto.spi.page.PagesSerdeUtil.computeSerializedPageC
 import static com.facebook.presto.spi.page.PagesSerdeUtil.readRawPage;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writeRawPage;
 import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
@@ -46,10 +48,20 @@ public class PagesSerde
     private final BlockEncodingSerde blockEncodingSerde;
     private final Optional<PageCompressor> compressor;
     private final Optional<PageDecompressor> decompressor;
+    private final Optional<PageCompressor> alternateCompressor;
+    private final Optional<PageDecompressor> alternateDecompressor;
     private final Optional<SpillCipher> spillCipher;
     private final boolean checksumEnabled;
+    private final Optional<AdaptiveCompressionPolicy> adaptiveCompressionPolicy;
 
     private byte[] compressionBuffer;
+    private byte[] alternateCompressionBuffer;
+
+    private long compressionInputBytes;
+    private long compressionOutputBytes;
+    private long compressionTimeNanos;
+    private long uncompressedPageCount;
+    private long alternateCodecPageCount;
 
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<PageCompressor> compressor, Optional<PageDecompressor> decompressor, Optional<SpillCipher> spillCipher)
     {
@@ -57,14 +69,43 @@ public class PagesSerde
     }
 
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<PageCompressor> compressor, Optional<PageDecompressor> decompressor, Optional<SpillCipher> spillCipher, boolean checksumEnabled)
+    {
+        this(blockEncodingSerde, compressor, decompressor, Optional.empty(), Optional.empty(), spillCipher, checksumEnabled, false);
+    }
+
+    /**
+     * With adaptive compression the serde samples the compression ratio of the stream and either skips compression,
+     * or compresses with whichever of the compressor and the alternate compressor shrinks the pages more.
+     * Pages compressed with the alternate compressor are marked with {@link PageCodecMarker#ALTERNATE_CODEC},
+     * so they can only be read by a serde that has the matching alternate decompressor.
+     */
+    public PagesSerde(
+            BlockEncodingSerde blockEncodingSerde,
+            Optional<PageCompressor> compressor,
+            Optional<PageDecompressor> decompressor,
+            Optional<PageCompressor> alternateCompressor,
+            Optional<PageDecompressor> alternateDecompressor,
+            Optional<SpillCipher> spillCipher,
+            boolean checksumEnabled,
+            boolean adaptiveCompressionEnabled)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
+        checkArgument(alternateCompressor.isPresent() == alternateDecompressor.isPresent(), "alternateCompressor and alternateDecompressor must both be present or both be absent");
+        checkArgument(compressor.isPresent() || !alternateCompressor.isPresent(), "alternateCompressor is present, but compressor is absent");
         this.compressor = requireNonNull(compressor, "compressor is null");
         this.decompressor = requireNonNull(decompressor, "decompressor is null");
+        this.alternateCompressor = requireNonNull(alternateCompressor, "alternateCompressor is null");
+        this.alternateDecompressor = requireNonNull(alternateDecompressor, "alternateDecompressor is null");
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
         checkState(!spillCipher.isPresent() || !spillCipher.get().isDestroyed(), "spillCipher is already destroyed");
         this.checksumEnabled = checksumEnabled;
+        if (adaptiveCompressionEnabled && compressor.isPresent()) {
+            this.adaptiveCompressionPolicy = Optional.of(new AdaptiveCompressionPolicy(MINIMUM_COMPRESSION_RATIO, alternateCompressor.isPresent()));
+        }
+        else {
+            this.adaptiveCompressionPolicy = Optional.empty();
+        }
     }
 
     public SerializedPage serialize(Page page)
@@ -93,29 +134,82 @@ public class PagesSerde
         }
 
         if (COMPRESSED.isSet(serializedPage.getPageCodecMarkers())) {
-            checkState(decompressor.isPresent(), "Page is compressed, but decompressor is missing");
+            PageDecompressor pageDecompressor;
+            if (ALTERNATE_CODEC.isSet(serializedPage.getPageCodecMarkers())) {
+                checkState(alternateDecompressor.isPresent(), "Page is compressed with the alternate codec, but alternate decompressor is missing");
+                pageDecompressor = alternateDecompressor.get();
+                alternateCodecPageCount++;
+            }
+            else {
+                checkState(decompressor.isPresent(), "Page is compressed, but decompressor is missing");
+                pageDecompressor = decompressor.get();
+            }
 
             int uncompressedSize = serializedPage.getUncompressedSizeInBytes();
             ByteBuffer decompressionBuffer = ByteBuffer.allocate(uncompressedSize);
 
-            decompressor.get().decompress(slice.toByteBuffer(), decompressionBuffer);
+            long start = System.nanoTime();
+            pageDecompressor.decompress(slice.toByteBuffer(), decompressionBuffer);
+            compressionTimeNanos += System.nanoTime() - start;
             ((Buffer) decompressionBuffer).flip();
             checkState(decompressionBuffer.remaining() == uncompressedSize, "page size changed after decompression into decompressionBuffer");
 
+            compressionInputBytes += uncompressedSize;
+            compressionOutputBytes += slice.length();
             slice = Slices.wrappedBuffer(decompressionBuffer);
         }
+        else {
+            uncompressedPageCount++;
+        }
 
         return readRawPage(serializedPage.getPositionCount(), slice.getInput(), blockEncodingSerde);
     }
 
     public long getSizeInBytes()
     {
-        return compressionBuffer == null ? 0 : compressionBuffer.length;
+        return (compressionBuffer == null ? 0 : compressionBuffer.length) + (alternateCompressionBuffer == null ? 0 : alternateCompressionBuffer.length);
     }
 
     public long getRetainedSizeInBytes()
     {
-        return sizeOf(compressionBuffer);
+        return sizeOf(compressionBuffer) + sizeOf(alternateCompressionBuffer);
+    }
+
+    /**
+     * Uncompressed size of the compressed pages serialized or deserialized by this serde.
+     */
+    public long getCompressionInputBytes()
+    {
+        return compressionInputBytes;
+    }
+
+    /**
+     * Compressed size of the compressed pages serialized or deserialized by this serde.
+     */
+    public long getCompressionOutputBytes()
+    {
+        return compressionOutputBytes;
+    }
+
+    /**
+     * Wall time spent compressing and decompressing, including compressed output that was discarded.
+     */
+    public long getCompressionTimeNanos()
+    {
+        return compressionTimeNanos;
+    }
+
+    /**
+     * Number of pages that are serialized or deserialized without compression.
+     */
+    public long getUncompressedPageCount()
+    {
+        return uncompressedPageCount;
+    }
+
+    public long getAlternateCodecPageCount()
+    {
+        return alternateCodecPageCount;
     }
 
     private SerializedPage wrapSlice(Slice slice, int positionCount)
@@ -123,21 +217,31 @@ public class PagesSerde
         int uncompressedSize = slice.length();
         byte markers = PageCodecMarker.none();
 
-        if (compressor.isPresent()) {
-            int maxCompressedSize = compressor.get().maxCompressedLength(uncompressedSize);
-            compressionBuffer = ensureCapacity(compressionBuffer, maxCompressedSize);
-            int compressedSize = compressor.get().compress(
-                    (byte[]) slice.getBase(),
-                    (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
-                    uncompressedSize,
-                    compressionBuffer,
-                    0,
-                    maxCompressedSize);
+        if (adaptiveCompressionPolicy.isPresent()) {
+            Slice compressed = compressAdaptive(adaptiveCompressionPolicy.get(), slice);
+            if (compressed != null) {
+                if (compressed.getBase() == alternateCompressionBuffer) {
+                    markers = ALTERNATE_CODEC.set(markers);
+                    alternateCodecPageCount++;
+                }
+                slice = recordCompressed(slice, compressed);
+                markers = COMPRESSED.set(markers);
+            }
+            else {
+                uncompressedPageCount++;
+            }
+        }
+        else if (compressor.isPresent()) {
+            compressionBuffer = ensureCapacity(compressionBuffer, compressor.get().maxCompressedLength(uncompressedSize));
+            int compressedSize = compress(compressor.get(), slice, compressionBuffer);
 
             if (compressedSize / (double) uncompressedSize <= MINIMUM_COMPRESSION_RATIO) {
-                slice = Slices.copyOf(Slices.wrappedBuffer(compressionBuffer, 0, compressedSize));
+                slice = recordCompressed(slice, Slices.wrappedBuffer(compressionBuffer, 0, compressedSize));
                 markers = COMPRESSED.set(markers);
             }
+            else {
+                uncompressedPageCount++;
+            }
         }
 
         if (spillCipher.isPresent()) {
@@ -157,6 +261,58 @@ public class PagesSerde
         return new SerializedPage(slice, markers, positionCount, uncompressedSize, checksum);
     }
 
+    /**
+     * Returns the compressed page in one of the compression buffers, or null if the page is sent uncompressed.
+     */
+    private Slice compressAdaptive(AdaptiveCompressionPolicy policy, Slice slice)
+    {
+        int uncompressedSize = slice.length();
+        int primarySize = Integer.MAX_VALUE;
+        int alternateSize = Integer.MAX_VALUE;
+        if (policy.isSampling() || policy.getDecision() == AdaptiveCompressionPolicy.Decision.PRIMARY) {
+            compressionBuffer = ensureCapacity(compressionBuffer, compressor.get().maxCompressedLength(uncompressedSize));
+            primarySize = compress(compressor.get(), slice, compressionBuffer);
+        }
+        if (alternateCompressor.isPresent() && (policy.isSampling() || policy.getDecision() == AdaptiveCompressionPolicy.Decision.ALTERNATE)) {
+            alternateCompressionBuffer = ensureCapacity(alternateCompressionBuffer, alternateCompressor.get().maxCompressedLength(uncompressedSize));
+            alternateSize = compress(alternateCompressor.get(), slice, alternateCompressionBuffer);
+        }
+        if (policy.isSampling()) {
+            policy.recordSample(uncompressedSize, primarySize, alternateCompressor.isPresent() ? alternateSize : primarySize);
+        }
+        policy.pageSerialized();
+
+        // a page that does not shrink enough is sent uncompressed, whatever the decision for the stream is
+        if (min(primarySize, alternateSize) / (double) uncompressedSize > MINIMUM_COMPRESSION_RATIO) {
+            return null;
+        }
+        if (alternateSize < primarySize) {
+            return Slices.wrappedBuffer(alternateCompressionBuffer, 0, alternateSize);
+        }
+        return Slices.wrappedBuffer(compressionBuffer, 0, primarySize);
+    }
+
+    private int compress(PageCompressor pageCompressor, Slice slice, byte[] buffer)
+    {
+        long start = System.nanoTime();
+        int compressedSize = pageCompressor.compress(
+                (byte[]) slice.getBase(),
+                (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                slice.length(),
+                buffer,
+                0,
+                buffer.length);
+        compressionTimeNanos += System.nanoTime() - start;
+        return compressedSize;
+    }
+
+    private Slice recordCompressed(Slice uncompressed, Slice compressed)
+    {
+        compressionInputBytes += uncompressed.length();
+        compressionOutputBytes += compressed.length();
+        return Slices.copyOf(compressed);
+    }
+
     private static void checkArgument(boolean condition, String message)
     {
         if (!condition) {
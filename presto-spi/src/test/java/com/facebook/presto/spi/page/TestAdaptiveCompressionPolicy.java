@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.page;
+
+import com.facebook.presto.spi.page.AdaptiveCompressionPolicy.Decision;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.spi.page.AdaptiveCompressionPolicy.MAX_DECISION_PAGES;
+import static com.facebook.presto.spi.page.AdaptiveCompressionPolicy.MIN_DECISION_PAGES;
+import static com.facebook.presto.spi.page.AdaptiveCompressionPolicy.SAMPLE_PAGES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestAdaptiveCompressionPolicy
+{
+    @Test
+    public void testDecision()
+    {
+        AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy(0.9, true);
+        assertTrue(policy.isSampling());
+
+        // the alternate codec is not enough smaller
+        sample(policy, 1000, 500, 450);
+        assertFalse(policy.isSampling());
+        assertEquals(policy.getDecision(), Decision.PRIMARY);
+        assertEquals(serializeUntilSampling(policy), 2 * MIN_DECISION_PAGES);
+
+        sample(policy, 1000, 500, 300);
+        assertEquals(policy.getDecision(), Decision.ALTERNATE);
+        assertEquals(serializeUntilSampling(policy), MIN_DECISION_PAGES);
+
+        // neither codec shrinks the pages
+        sample(policy, 1000, 950, 1000);
+        assertEquals(policy.getDecision(), Decision.NONE);
+        assertEquals(serializeUntilSampling(policy), MIN_DECISION_PAGES);
+    }
+
+    @Test
+    public void testStableDecisionIsSampledLessOften()
+    {
+        AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy(0.9, false);
+        int decisionPages = MIN_DECISION_PAGES;
+        for (int i = 0; i < 10; i++) {
+            sample(policy, 1000, 990, 0);
+            assertEquals(policy.getDecision(), Decision.NONE);
+            decisionPages = i == 0 ? MIN_DECISION_PAGES : Math.min(decisionPages * 2, MAX_DECISION_PAGES);
+            assertEquals(serializeUntilSampling(policy), decisionPages);
+        }
+        assertEquals(decisionPages, MAX_DECISION_PAGES);
+
+        // without an alternate codec the alternate size is ignored
+        sample(policy, 1000, 100, 0);
+        assertEquals(policy.getDecision(), Decision.PRIMARY);
+    }
+
+    private static void sample(AdaptiveCompressionPolicy policy, int uncompressedSize, int primarySize, int alternateSize)
+    {
+        for (int i = 0; i < SAMPLE_PAGES; i++) {
+            assertTrue(policy.isSampling());
+            policy.recordSample(uncompressedSize, primarySize, alternateSize);
+            policy.pageSerialized();
+        }
+    }
+
+    private static int serializeUntilSampling(AdaptiveCompressionPolicy policy)
+    {
+        int pages = 0;
+        while (!policy.isSampling()) {
+            policy.pageSerialized();
+            pages++;
+        }
+        return pages;
+    }
+}